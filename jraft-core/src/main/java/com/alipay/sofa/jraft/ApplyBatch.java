@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The committed data tasks in the order of log index, delivered to
+ * {@link BatchStateMachine#onApplyBatch(ApplyBatch)} at once. The tasks are addressed by the
+ * position in range [0, size()). They are a contiguous range, unless the tasks are applied in
+ * parallel by {@link com.alipay.sofa.jraft.option.NodeOptions#setApplyPartitioner(ApplyPartitioner)},
+ * where a batch holds only the tasks of its own partitions, so always use {@link #getIndex(int)}
+ * for the index of task.
+ *
+ * The batch is reused by the caller and only valid during the callback, don't keep the
+ * reference of it after returning.
+ *
+ * @author agent
+ */
+public interface ApplyBatch {
+
+    /**
+     * The count of tasks in this batch, at least 1.
+     */
+    int size();
+
+    /**
+     * The log index of the first task.
+     */
+    long getFirstIndex();
+
+    /**
+     * The log index of the last task.
+     */
+    long getLastIndex();
+
+    /**
+     * Returns the log index of the task at the position.
+     */
+    long getIndex(final int pos);
+
+    /**
+     * Returns the term of the leader which the task at the position was applied to.
+     */
+    long getTerm(final int pos);
+
+    /**
+     * Returns the data of the task at the position, whose content is the same as what was
+     * passed to Node#apply(Task) in the leader node.
+     */
+    ByteBuffer getData(final int pos);
+
+    /**
+     * Returns the closure of the task at the position, see {@link Iterator#done()}. If it's
+     * non-null, you must run it after applying the task no matter the operation succeeds or
+     * fails.
+     */
+    Closure done(final int pos);
+
+    /**
+     * Invoked when some critical error occurred. The tasks from the position |pos| to the end of
+     * batch are considered as not applied and their closures are run with the error by the caller.
+     * After this point, no further changes on the StateMachine as well as the Node would be
+     * allowed, see {@link Iterator#setErrorAndRollback(long, Status)}.
+     *
+     * The position is in range [0, size()], size() means that all the tasks of batch are applied
+     * but the error is found after them, e.g. when committing the batch into the storage fails.
+     * Only the first error of a batch is kept, the later calls are ignored.
+     *
+     * @param pos the position of the first task not applied, or size() if all are applied
+     * @param st  status to describe the detail of the error
+     */
+    void setError(final int pos, final Status st);
+}
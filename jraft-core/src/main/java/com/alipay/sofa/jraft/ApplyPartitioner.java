@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Partitions the committed data tasks for parallel apply, see
+ * {@link com.alipay.sofa.jraft.option.NodeOptions#setApplyPartitioner(ApplyPartitioner)}.
+ *
+ * The tasks of the same partition are applied in the order of log index on one lane, the tasks
+ * of different partitions may be applied concurrently, so that the state machine must be
+ * thread-safe between partitions, e.g. the partition is a hash of the key which the task
+ * touches.
+ *
+ * @author agent
+ */
+@FunctionalInterface
+public interface ApplyPartitioner {
+
+    /**
+     * Returns the partition of task, the tasks of the same partition always have the same value.
+     * It must be deterministic and should be cheap, it's called on the FSM caller thread.
+     *
+     * @param data the data of task, the position must not be changed
+     * @return the partition, any int value
+     */
+    int partition(final ByteBuffer data);
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft;
+
+import com.alipay.sofa.jraft.core.ApplyBatchImpl;
+
+/**
+ * A {@link StateMachine} that receives the committed data tasks as contiguous ranges instead of
+ * iterating them one by one, so that it can apply a whole range, e.g. into one write batch of
+ * the storage, with minimal per-task overhead. The entries of range are fetched from log manager
+ * by range reads.
+ *
+ * The FSM caller always delivers the tasks by {@link #onApplyBatch(ApplyBatch)}, the default
+ * {@link #onApply(Iterator)} is only a fallback which collects the tasks of iterator into batches.
+ *
+ * @author agent
+ */
+public interface BatchStateMachine extends StateMachine {
+
+    /**
+     * Update the StateMachine with a contiguous range of committed data tasks.
+     *
+     * Once this function returns to the caller, we will regard all the tasks in the
+     * batch have been successfully applied, unless {@link ApplyBatch#setError(int, Status)}
+     * is called.
+     *
+     * @param batch the committed tasks
+     */
+    void onApplyBatch(final ApplyBatch batch);
+
+    @Override
+    default void onApply(final Iterator iter) {
+        ApplyBatchImpl.applyIterator(this, iter);
+    }
+}
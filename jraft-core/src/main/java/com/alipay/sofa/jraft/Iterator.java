@@ -67,6 +67,8 @@ public interface Iterator extends java.util.Iterator<ByteBuffer> {
      * |ntail| tasks (starting from the last iterated one) as not applied. After
      * this point, no further changes on the StateMachine as well as the Node
      * would be allowed and you should try to repair this replica or just drop it.
+     * |ntail| can be 0 only when {@link #hasNext()} is false, which means all the
+     * iterated tasks are applied but the error is found after them.
      *
      * @param ntail the number of tasks (starting from the last iterated one)  considered as not to be applied.
      * @param st    Status to describe the detail of the error.
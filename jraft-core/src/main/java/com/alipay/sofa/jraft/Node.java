@@ -17,6 +17,7 @@
 package com.alipay.sofa.jraft;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.alipay.sofa.jraft.closure.ReadIndexClosure;
 import com.alipay.sofa.jraft.conf.Configuration;
@@ -108,6 +109,45 @@ public interface Node extends Lifecycle<NodeOptions>, Describer {
      */
     void apply(final Task task);
 
+    /**
+     * [Thread-safe and wait-free]
+     *
+     * Apply tasks to the replicated-state-machine in one batch, the tasks are
+     * published into the apply queue by one claim of contiguous slots, a batch
+     * larger than half of the queue is split into chunks. The ownership is the
+     * same as {@link #apply(Task)}.
+     *
+     * Each chunk is admitted or rejected as a whole, so a batch may be admitted
+     * partially: when the queue is overloaded, the chunks published before are
+     * kept and applied as usual, and all the tasks not admitted are failed at
+     * once with EBUSY, whose message tells how many tasks are admitted. A batch
+     * no larger than half of the queue is never admitted partially.
+     *
+     * Unlike {@link #apply(Task)}, it never throws when the node is shutting
+     * down, all the tasks are failed with ENODESHUTDOWN instead.
+     *
+     * @param tasks tasks to apply
+     */
+    void apply(final List<Task> tasks);
+
+    /**
+     * [Thread-safe and wait-free]
+     *
+     * Apply tasks to the replicated-state-machine in one batch like {@link #apply(List)},
+     * the returned future is completed when all the closures of tasks are called, with
+     * OK status if all the tasks succeeded, otherwise the status of the first failed one.
+     * When the batch is admitted partially, the future is completed with the EBUSY status
+     * of the rejected tasks, even if the admitted ones succeeded.
+     *
+     * The closures of tasks are wrapped to complete the future, so the state machine
+     * should just run the closure returned by {@link Iterator#done()}, instead of
+     * casting it to the closure type of the task.
+     *
+     * @param tasks tasks to apply
+     * @return the future of the batch
+     */
+    CompletableFuture<Status> applyAsync(final List<Task> tasks);
+
     /**
      * [Thread-safe and wait-free]
      *
@@ -255,6 +295,13 @@ public interface Node extends Lifecycle<NodeOptions>, Describer {
      */
     void resetElectionTimeoutMs(final int electionTimeoutMs);
 
+    /**
+     * Wake up the node if the group is hibernated, a leader resumes heartbeating
+     * and a follower restarts its election timer. It's useful when a failure
+     * detector suspects the leader of a hibernated group.
+     */
+    void wakeup();
+
     /**
      * Try transferring leadership to |peer|. If peer is ANY_PEER, a proper follower
      * will be chosen as the leader for the next term.
@@ -116,6 +116,11 @@ public interface ReplicatorGroup extends Describer {
      */
     boolean stopAll();
 
+    /**
+     * Wake up all the replicators hibernated with the group, they resume heartbeating.
+     */
+    void wakeupAll();
+
     /**
      * Stop replicator for the peer.
      *
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.nio.ByteBuffer;
+
+import com.alipay.sofa.jraft.util.Requires;
+import com.alipay.sofa.jraft.util.compress.Compressor;
+
+/**
+ * Compresses the data of AppendEntries requests of a replicator, and skips the compression
+ * adaptively when the measured ratio is poor: after a batch that doesn't shrink enough, the next
+ * batches are sent uncompressed, the count of skipped batches doubles on every poor ratio and
+ * resets on a good one.
+ *
+ * It is not thread-safe and should be guarded by the replicator's lock, except the getters
+ * for metrics.
+ *
+ * @author agent
+ */
+final class AppendEntriesCompressor {
+
+    /** The data smaller than it is not compressed. */
+    static final int         MIN_COMPRESS_BYTES = 1024;
+    /** The ratio of compressed size to raw size, above which the compression is poor. */
+    static final double      POOR_RATIO         = 0.9;
+    static final int         MIN_SKIP_BATCHES   = 8;
+    static final int         MAX_SKIP_BATCHES   = 256;
+
+    private final Compressor compressor;
+
+    private int              skipBatches;
+    private int              remainingSkips;
+
+    private volatile long    rawBytes;
+    private volatile long    compressedBytes;
+    private volatile long    compressNanos;
+    private volatile long    skippedBatches;
+
+    AppendEntriesCompressor(final Compressor compressor) {
+        this.compressor = Requires.requireNonNull(compressor, "compressor");
+    }
+
+    int getType() {
+        return this.compressor.getType();
+    }
+
+    /**
+     * Compresses the data.
+     *
+     * @param data the raw data
+     * @return the compressed bytes, or null if the data should be sent uncompressed
+     */
+    byte[] compress(final ByteBuffer data) {
+        final int size = data.remaining();
+        if (size < MIN_COMPRESS_BYTES) {
+            return null;
+        }
+        if (this.remainingSkips > 0) {
+            this.remainingSkips--;
+            this.skippedBatches++;
+            return null;
+        }
+        final long startNs = System.nanoTime();
+        final byte[] compressed = this.compressor.compress(data);
+        this.compressNanos += System.nanoTime() - startNs;
+        this.rawBytes += size;
+
+        if (compressed.length > size * POOR_RATIO) {
+            this.skipBatches = this.skipBatches == 0 ? MIN_SKIP_BATCHES : Math.min(this.skipBatches * 2,
+                MAX_SKIP_BATCHES);
+            this.remainingSkips = this.skipBatches;
+            this.compressedBytes += size;
+            return null;
+        }
+        this.skipBatches = 0;
+        this.compressedBytes += compressed.length;
+        return compressed;
+    }
+
+    /**
+     * The percentage of sent bytes to the raw bytes of the compressed batches, 100 if nothing is
+     * compressed.
+     */
+    long getRatio() {
+        final long raw = this.rawBytes;
+        return raw == 0 ? 100 : this.compressedBytes * 100 / raw;
+    }
+
+    /**
+     * The total CPU time in nanoseconds spent on compression.
+     */
+    long getCompressNanos() {
+        return this.compressNanos;
+    }
+
+    long getSkippedBatches() {
+        return this.skippedBatches;
+    }
+}
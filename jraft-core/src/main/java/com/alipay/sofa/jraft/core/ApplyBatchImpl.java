@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alipay.sofa.jraft.ApplyBatch;
+import com.alipay.sofa.jraft.BatchStateMachine;
+import com.alipay.sofa.jraft.Closure;
+import com.alipay.sofa.jraft.Iterator;
+import com.alipay.sofa.jraft.Status;
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.util.Requires;
+import com.alipay.sofa.jraft.util.SystemPropertyUtil;
+
+/**
+ * The apply batch implementation, keeps the tasks in flat arrays which are reused by the
+ * FSM caller thread.
+ *
+ * @author agent
+ */
+public class ApplyBatchImpl implements ApplyBatch {
+
+    private static final Logger LOG            = LoggerFactory.getLogger(ApplyBatchImpl.class);
+
+    /** The max count of tasks in a batch. */
+    public static final int     MAX_BATCH_SIZE = SystemPropertyUtil.getInt("jraft.fsm.apply_batch_size", 1024);
+
+    private final long[]        terms;
+    private final ByteBuffer[]  datas;
+    private final Closure[]     closures;
+    private long                firstIndex;
+    private int                 size;
+    private int                 errorPos       = -1;
+    private Status              errorStatus;
+
+    public ApplyBatchImpl(final int capacity) {
+        Requires.requireTrue(capacity > 0, "capacity must be positive");
+        this.terms = new long[capacity];
+        this.datas = new ByteBuffer[capacity];
+        this.closures = new Closure[capacity];
+    }
+
+    public int capacity() {
+        return this.terms.length;
+    }
+
+    public boolean isFull() {
+        return this.size == this.terms.length;
+    }
+
+    /**
+     * Adds the next task of range.
+     */
+    public void add(final LogEntry entry, final Closure done) {
+        add(entry.getId().getIndex(), entry.getId().getTerm(), entry.getData(), done);
+    }
+
+    /**
+     * Adds the next task of range.
+     */
+    public void add(final long index, final long term, final ByteBuffer data, final Closure done) {
+        Requires.requireTrue(!isFull(), "batch is full");
+        if (this.size == 0) {
+            this.firstIndex = index;
+        } else {
+            Requires.requireTrue(index == this.firstIndex + this.size, "discontinuous index: %d", index);
+        }
+        this.terms[this.size] = term;
+        this.datas[this.size] = data;
+        this.closures[this.size] = done;
+        this.size++;
+    }
+
+    /**
+     * Clears the tasks and releases their references.
+     */
+    public void reset() {
+        Arrays.fill(this.datas, 0, this.size, null);
+        Arrays.fill(this.closures, 0, this.size, null);
+        this.size = 0;
+        this.firstIndex = 0;
+        this.errorPos = -1;
+        this.errorStatus = null;
+    }
+
+    public boolean hasError() {
+        return this.errorPos >= 0;
+    }
+
+    public int getErrorPos() {
+        return this.errorPos;
+    }
+
+    public Status getErrorStatus() {
+        return this.errorStatus;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public long getFirstIndex() {
+        return this.firstIndex;
+    }
+
+    @Override
+    public long getLastIndex() {
+        return this.firstIndex + this.size - 1;
+    }
+
+    @Override
+    public long getIndex(final int pos) {
+        checkPos(pos);
+        return this.firstIndex + pos;
+    }
+
+    @Override
+    public long getTerm(final int pos) {
+        checkPos(pos);
+        return this.terms[pos];
+    }
+
+    @Override
+    public ByteBuffer getData(final int pos) {
+        checkPos(pos);
+        return this.datas[pos];
+    }
+
+    @Override
+    public Closure done(final int pos) {
+        checkPos(pos);
+        return this.closures[pos];
+    }
+
+    @Override
+    public void setError(final int pos, final Status st) {
+        if (pos < 0 || pos > this.size) {
+            throw new IndexOutOfBoundsException("pos=" + pos + ", size=" + this.size);
+        }
+        if (hasError()) {
+            LOG.warn("Ignore the error at pos={}: {}, the batch has failed at pos={}: {}.", pos, st, this.errorPos,
+                this.errorStatus);
+            return;
+        }
+        this.errorPos = pos;
+        this.errorStatus = st;
+    }
+
+    /**
+     * Applies the tasks of iterator to the state machine by {@link BatchStateMachine#onApplyBatch(ApplyBatch)},
+     * in batches of contiguous tasks. The error of a batch is passed back to the iterator by
+     * {@link Iterator#setErrorAndRollback(long, Status)}.
+     *
+     * @param fsm  the state machine
+     * @param iter the iterator of tasks
+     */
+    public static void applyIterator(final BatchStateMachine fsm, final Iterator iter) {
+        if (!iter.hasNext()) {
+            return;
+        }
+        final ApplyBatchImpl batch = new ApplyBatchImpl(MAX_BATCH_SIZE);
+        while (iter.hasNext()) {
+            do {
+                batch.add(iter.getIndex(), iter.getTerm(), iter.getData(), iter.done());
+                iter.next();
+            } while (iter.hasNext() && !batch.isFull() && iter.getIndex() == batch.getLastIndex() + 1);
+            fsm.onApplyBatch(batch);
+            if (batch.hasError()) {
+                // The iterator has moved past the batch, the current task is counted if it's not at the end,
+                // nothing is rolled back if all the tasks are applied and the iterator is at the end.
+                final int notApplied = batch.size() - batch.getErrorPos();
+                iter.setErrorAndRollback(iter.hasNext() ? notApplied + 1 : notApplied, batch.getErrorStatus());
+                return;
+            }
+            batch.reset();
+        }
+    }
+
+    private void checkPos(final int pos) {
+        if (pos < 0 || pos >= this.size) {
+            throw new IndexOutOfBoundsException("pos=" + pos + ", size=" + this.size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ApplyBatchImpl [firstIndex=" + this.firstIndex + ", size=" + this.size + ", errorPos=" + this.errorPos
+               + ", errorStatus=" + this.errorStatus + "]";
+    }
+}
@@ -16,6 +16,12 @@
  */
 package com.alipay.sofa.jraft.core;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.StampedLock;
 
 import javax.annotation.concurrent.ThreadSafe;
@@ -28,16 +34,20 @@ import com.alipay.sofa.jraft.FSMCaller;
 import com.alipay.sofa.jraft.Lifecycle;
 import com.alipay.sofa.jraft.closure.ClosureQueue;
 import com.alipay.sofa.jraft.conf.Configuration;
-import com.alipay.sofa.jraft.entity.Ballot;
 import com.alipay.sofa.jraft.entity.PeerId;
 import com.alipay.sofa.jraft.option.BallotBoxOptions;
 import com.alipay.sofa.jraft.util.Describer;
 import com.alipay.sofa.jraft.util.OnlyForTest;
 import com.alipay.sofa.jraft.util.Requires;
-import com.alipay.sofa.jraft.util.SegmentList;
 
 /**
  * Ballot box for voting.
+ *
+ * The leader tracks the match index of every peer, and the committed index is the largest
+ * index which is stable at a quorum of the configuration(and old configuration in joint consensus)
+ * of it. Acknowledgements from replicators update the match index and advance the committed
+ * index with CAS, without any lock.
+ *
  * @author boyan (boyan@alibaba-inc.com)
  *
  * 2018-Apr-04 2:32:10 PM
@@ -45,37 +55,159 @@ import com.alipay.sofa.jraft.util.SegmentList;
 @ThreadSafe
 public class BallotBox implements Lifecycle<BallotBoxOptions>, Describer {
 
-    private static final Logger       LOG                = LoggerFactory.getLogger(BallotBox.class);
+    private static final Logger   LOG                = LoggerFactory.getLogger(BallotBox.class);
+
+    private FSMCaller             waiter;
+    private ClosureQueue          closureQueue;
+    // Guards the pending tasks appending and the leader state changing.
+    private final StampedLock     stampedLock        = new StampedLock();
+    private final AtomicLong      lastCommittedIndex = new AtomicLong(0);
+    // Pending state of leader, null when it's not leader.
+    private volatile PendingState pendingState;
+
+    /**
+     * The configuration of the pending logs in range [startIndex, next segment's startIndex).
+     */
+    private static final class ConfSegment {
+        final long          startIndex;
+        final Configuration conf;
+        final Configuration oldConf;
+        final PeerId[]      peers;
+        final int           quorum;
+        final PeerId[]      oldPeers;
+        final int           oldQuorum;
+
+        ConfSegment(final long startIndex, final Configuration conf, final Configuration oldConf) {
+            this.startIndex = startIndex;
+            this.conf = conf == null ? null : conf.copy();
+            this.oldConf = oldConf == null ? null : oldConf.copy();
+            this.peers = toArray(conf);
+            this.quorum = this.peers.length / 2 + 1;
+            this.oldPeers = oldConf == null ? null : toArray(oldConf);
+            this.oldQuorum = this.oldPeers == null ? 0 : this.oldPeers.length / 2 + 1;
+        }
+
+        private static PeerId[] toArray(final Configuration conf) {
+            if (conf == null) {
+                return new PeerId[0];
+            }
+            final List<PeerId> peers = conf.listPeers();
+            return peers.toArray(new PeerId[0]);
+        }
+
+        boolean isSameConf(final Configuration conf, final Configuration oldConf) {
+            return Objects.equals(this.conf, conf) && Objects.equals(this.oldConf, oldConf);
+        }
+
+        /**
+         * Returns the largest index which is stable at a quorum.
+         */
+        long quorumMatchIndex(final PendingState state) {
+            long index = quorumMatchIndex(state, this.peers, this.quorum);
+            if (this.oldPeers != null) {
+                index = Math.min(index, quorumMatchIndex(state, this.oldPeers, this.oldQuorum));
+            }
+            return index;
+        }
+
+        private static long quorumMatchIndex(final PendingState state, final PeerId[] peers, final int quorum) {
+            if (peers.length < quorum) {
+                return 0;
+            }
+            final long[] matchIndexes = new long[peers.length];
+            for (int i = 0; i < peers.length; i++) {
+                matchIndexes[i] = state.getMatchIndex(peers[i]);
+            }
+            Arrays.sort(matchIndexes);
+            // The quorum-th largest one
+            return matchIndexes[peers.length - quorum];
+        }
+    }
+
+    /**
+     * The pending logs of a leader, it's created when the node becomes leader.
+     */
+    private static final class PendingState {
+        // The first pending log index when the node becomes leader
+        final long                              startIndex;
+        final ConcurrentMap<PeerId, AtomicLong> matchIndexes = new ConcurrentHashMap<>();
+        // Copy on write, only changed when the configuration changes.
+        volatile ConfSegment[]                  segments     = new ConfSegment[0];
+        volatile long                           lastPendingIndex;
+
+        PendingState(final long startIndex) {
+            this.startIndex = startIndex;
+            this.lastPendingIndex = startIndex - 1;
+        }
 
-    private FSMCaller                 waiter;
-    private ClosureQueue              closureQueue;
-    private final StampedLock         stampedLock        = new StampedLock();
-    private long                      lastCommittedIndex = 0;
-    private long                      pendingIndex;
-    private final SegmentList<Ballot> pendingMetaQueue   = new SegmentList<>(false);
+        long getMatchIndex(final PeerId peer) {
+            final AtomicLong matchIndex = this.matchIndexes.get(peer);
+            return matchIndex == null ? 0 : matchIndex.get();
+        }
+
+        void updateMatchIndex(final PeerId peer, final long index) {
+            AtomicLong matchIndex = this.matchIndexes.get(peer);
+            if (matchIndex == null) {
+                final AtomicLong newMatchIndex = new AtomicLong();
+                matchIndex = this.matchIndexes.putIfAbsent(peer, newMatchIndex);
+                if (matchIndex == null) {
+                    matchIndex = newMatchIndex;
+                }
+            }
+            for (;;) {
+                final long cur = matchIndex.get();
+                if (cur >= index || matchIndex.compareAndSet(cur, index)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Returns the largest committed index in [fromIndex, lastPendingIndex], or 0 if none.
+         *
+         * When removing a peer off the raft group which contains even number of
+         * peers, the quorum would decrease by 1, e.g. 3 of 4 changes to 2 of 3. In
+         * this case, the log after removal may be committed before some previous
+         * logs, since we use the new configuration to deal the quorum of the
+         * removal request, we think it's safe to commit all the uncommitted
+         * previous logs, which is not well proved right now
+         */
+        long computeCommittedIndex(final long fromIndex) {
+            // Read lastPendingIndex before segments, the segments cover it.
+            final long lastPendingIndex = this.lastPendingIndex;
+            final ConfSegment[] segments = this.segments;
+            long committedIndex = 0;
+            for (int i = 0; i < segments.length; i++) {
+                final long segmentEnd = i + 1 < segments.length ? segments[i + 1].startIndex - 1 : lastPendingIndex;
+                if (segmentEnd < fromIndex) {
+                    continue;
+                }
+                final long index = Math.min(segments[i].quorumMatchIndex(this), segmentEnd);
+                if (index >= Math.max(fromIndex, segments[i].startIndex)) {
+                    committedIndex = Math.max(committedIndex, index);
+                }
+            }
+            return committedIndex;
+        }
+    }
 
     @OnlyForTest
     long getPendingIndex() {
-        return this.pendingIndex;
+        final PendingState state = this.pendingState;
+        return state == null ? 0 : Math.max(state.startIndex, this.lastCommittedIndex.get() + 1);
     }
 
+    /**
+     * Returns the number of pending logs waiting to be committed.
+     */
     @OnlyForTest
-    SegmentList<Ballot> getPendingMetaQueue() {
-        return this.pendingMetaQueue;
+    long getPendingCount() {
+        final PendingState state = this.pendingState;
+        return state == null ? 0 : Math.max(0, state.lastPendingIndex - getPendingIndex() + 1);
     }
 
     public long getLastCommittedIndex() {
-        long stamp = this.stampedLock.tryOptimisticRead();
-        final long optimisticVal = this.lastCommittedIndex;
-        if (this.stampedLock.validate(stamp)) {
-            return optimisticVal;
-        }
-        stamp = this.stampedLock.readLock();
-        try {
-            return this.lastCommittedIndex;
-        } finally {
-            this.stampedLock.unlockRead(stamp);
-        }
+        return this.lastCommittedIndex.get();
     }
 
     @Override
@@ -94,48 +226,39 @@ public class BallotBox implements Lifecycle<BallotBoxOptions>, Describer {
      * Set logs in [first_log_index, last_log_index] are stable at |peer|.
      */
     public boolean commitAt(final long firstLogIndex, final long lastLogIndex, final PeerId peer) {
-        // TODO  use lock-free algorithm here?
-        final long stamp = this.stampedLock.writeLock();
-        long lastCommittedIndex = 0;
-        try {
-            if (this.pendingIndex == 0) {
-                return false;
-            }
-            if (lastLogIndex < this.pendingIndex) {
-                return true;
-            }
+        final PendingState state = this.pendingState;
+        if (state == null) {
+            return false;
+        }
+        final long pendingIndex = Math.max(state.startIndex, this.lastCommittedIndex.get() + 1);
+        if (lastLogIndex < pendingIndex) {
+            return true;
+        }
+        if (lastLogIndex > state.lastPendingIndex) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
 
-            if (lastLogIndex >= this.pendingIndex + this.pendingMetaQueue.size()) {
-                throw new ArrayIndexOutOfBoundsException();
-            }
+        state.updateMatchIndex(peer, lastLogIndex);
+        final long committedIndex = state.computeCommittedIndex(pendingIndex);
+        if (committedIndex == 0 || !advanceCommittedIndex(committedIndex)) {
+            return true;
+        }
+        LOG.debug("Committed log fromIndex={}, toIndex={}.", pendingIndex, committedIndex);
+        // FSMCaller tolerates the disordered committed indexes.
+        this.waiter.onCommitted(committedIndex);
+        return true;
+    }
 
-            final long startAt = Math.max(this.pendingIndex, firstLogIndex);
-            Ballot.PosHint hint = new Ballot.PosHint();
-            for (long logIndex = startAt; logIndex <= lastLogIndex; logIndex++) {
-                final Ballot bl = this.pendingMetaQueue.get((int) (logIndex - this.pendingIndex));
-                hint = bl.grant(peer, hint);
-                if (bl.isGranted()) {
-                    lastCommittedIndex = logIndex;
-                }
+    private boolean advanceCommittedIndex(final long committedIndex) {
+        for (;;) {
+            final long cur = this.lastCommittedIndex.get();
+            if (committedIndex <= cur) {
+                return false;
             }
-            if (lastCommittedIndex == 0) {
+            if (this.lastCommittedIndex.compareAndSet(cur, committedIndex)) {
                 return true;
             }
-            // When removing a peer off the raft group which contains even number of
-            // peers, the quorum would decrease by 1, e.g. 3 of 4 changes to 2 of 3. In
-            // this case, the log after removal may be committed before some previous
-            // logs, since we use the new configuration to deal the quorum of the
-            // removal request, we think it's safe to commit all the uncommitted
-            // previous logs, which is not well proved right now
-            this.pendingMetaQueue.removeFromFirst((int) (lastCommittedIndex - this.pendingIndex) + 1);
-            LOG.debug("Committed log fromIndex={}, toIndex={}.", this.pendingIndex, lastCommittedIndex);
-            this.pendingIndex = lastCommittedIndex + 1;
-            this.lastCommittedIndex = lastCommittedIndex;
-        } finally {
-            this.stampedLock.unlockWrite(stamp);
         }
-        this.waiter.onCommitted(lastCommittedIndex);
-        return true;
     }
 
     /**
@@ -147,8 +270,7 @@ public class BallotBox implements Lifecycle<BallotBoxOptions>, Describer {
     public void clearPendingTasks() {
         final long stamp = this.stampedLock.writeLock();
         try {
-            this.pendingMetaQueue.clear();
-            this.pendingIndex = 0;
+            this.pendingState = null;
             this.closureQueue.clear();
         } finally {
             this.stampedLock.unlockWrite(stamp);
@@ -167,17 +289,18 @@ public class BallotBox implements Lifecycle<BallotBoxOptions>, Describer {
     public boolean resetPendingIndex(final long newPendingIndex) {
         final long stamp = this.stampedLock.writeLock();
         try {
-            if (!(this.pendingIndex == 0 && this.pendingMetaQueue.isEmpty())) {
-                LOG.error("resetPendingIndex fail, pendingIndex={}, pendingMetaQueueSize={}.", this.pendingIndex,
-                    this.pendingMetaQueue.size());
+            final PendingState state = this.pendingState;
+            if (state != null) {
+                LOG.error("resetPendingIndex fail, pendingIndex={}, pendingMetaQueueSize={}.", getPendingIndex(),
+                    getPendingCount());
                 return false;
             }
-            if (newPendingIndex <= this.lastCommittedIndex) {
+            if (newPendingIndex <= this.lastCommittedIndex.get()) {
                 LOG.error("resetPendingIndex fail, newPendingIndex={}, lastCommittedIndex={}.", newPendingIndex,
-                    this.lastCommittedIndex);
+                    this.lastCommittedIndex.get());
                 return false;
             }
-            this.pendingIndex = newPendingIndex;
+            this.pendingState = new PendingState(newPendingIndex);
             this.closureQueue.resetFirstIndex(newPendingIndex);
             return true;
         } finally {
@@ -195,25 +318,42 @@ public class BallotBox implements Lifecycle<BallotBoxOptions>, Describer {
      * @return          returns true on success
      */
     public boolean appendPendingTask(final Configuration conf, final Configuration oldConf, final Closure done) {
-        final Ballot bl = new Ballot();
-        if (!bl.init(conf, oldConf)) {
-            LOG.error("Fail to init ballot.");
-            return false;
-        }
         final long stamp = this.stampedLock.writeLock();
         try {
-            if (this.pendingIndex <= 0) {
-                LOG.error("Fail to appendingTask, pendingIndex={}.", this.pendingIndex);
+            final PendingState state = this.pendingState;
+            if (state == null) {
+                LOG.error("Fail to appendingTask, pendingIndex={}.", 0);
                 return false;
             }
-            this.pendingMetaQueue.add(bl);
+            final long index = state.lastPendingIndex + 1;
+            final ConfSegment[] segments = state.segments;
+            if (segments.length == 0 || !segments[segments.length - 1].isSameConf(conf, oldConf)) {
+                state.segments = appendSegment(segments, new ConfSegment(index, conf, oldConf));
+            }
             this.closureQueue.appendPendingClosure(done);
+            // Publish the pending log after its configuration.
+            state.lastPendingIndex = index;
             return true;
         } finally {
             this.stampedLock.unlockWrite(stamp);
         }
     }
 
+    /**
+     * Appends the new segment, and drops the ones before the segment of pending index.
+     */
+    private ConfSegment[] appendSegment(final ConfSegment[] segments, final ConfSegment segment) {
+        final long pendingIndex = this.lastCommittedIndex.get() + 1;
+        int from = 0;
+        while (from + 1 < segments.length && segments[from + 1].startIndex <= pendingIndex) {
+            from++;
+        }
+        final ConfSegment[] newSegments = new ConfSegment[segments.length - from + 1];
+        System.arraycopy(segments, from, newSegments, 0, segments.length - from);
+        newSegments[newSegments.length - 1] = segment;
+        return newSegments;
+    }
+
     /**
      * Called by follower, otherwise the behavior is undefined.
      * Set committed index received from leader
@@ -222,29 +362,25 @@ public class BallotBox implements Lifecycle<BallotBoxOptions>, Describer {
      * @return returns true if set success
      */
     public boolean setLastCommittedIndex(final long lastCommittedIndex) {
-        boolean doUnlock = true;
-        final long stamp = this.stampedLock.writeLock();
+        final long stamp = this.stampedLock.readLock();
         try {
-            if (this.pendingIndex != 0 || !this.pendingMetaQueue.isEmpty()) {
-                Requires.requireTrue(lastCommittedIndex < this.pendingIndex,
-                    "Node changes to leader, pendingIndex=%d, param lastCommittedIndex=%d", this.pendingIndex,
+            final PendingState state = this.pendingState;
+            if (state != null) {
+                Requires.requireTrue(lastCommittedIndex < getPendingIndex(),
+                    "Node changes to leader, pendingIndex=%d, param lastCommittedIndex=%d", getPendingIndex(),
                     lastCommittedIndex);
                 return false;
             }
-            if (lastCommittedIndex < this.lastCommittedIndex) {
+            if (lastCommittedIndex < this.lastCommittedIndex.get()) {
                 return false;
             }
-            if (lastCommittedIndex > this.lastCommittedIndex) {
-                this.lastCommittedIndex = lastCommittedIndex;
-                this.stampedLock.unlockWrite(stamp);
-                doUnlock = false;
-                this.waiter.onCommitted(lastCommittedIndex);
+            if (!advanceCommittedIndex(lastCommittedIndex)) {
+                return true;
             }
         } finally {
-            if (doUnlock) {
-                this.stampedLock.unlockWrite(stamp);
-            }
+            this.stampedLock.unlockRead(stamp);
         }
+        this.waiter.onCommitted(lastCommittedIndex);
         return true;
     }
 
@@ -255,29 +391,11 @@ public class BallotBox implements Lifecycle<BallotBoxOptions>, Describer {
 
     @Override
     public void describe(final Printer out) {
-        long _lastCommittedIndex;
-        long _pendingIndex;
-        long _pendingMetaQueueSize;
-        long stamp = this.stampedLock.tryOptimisticRead();
-        if (this.stampedLock.validate(stamp)) {
-            _lastCommittedIndex = this.lastCommittedIndex;
-            _pendingIndex = this.pendingIndex;
-            _pendingMetaQueueSize = this.pendingMetaQueue.size();
-        } else {
-            stamp = this.stampedLock.readLock();
-            try {
-                _lastCommittedIndex = this.lastCommittedIndex;
-                _pendingIndex = this.pendingIndex;
-                _pendingMetaQueueSize = this.pendingMetaQueue.size();
-            } finally {
-                this.stampedLock.unlockRead(stamp);
-            }
-        }
         out.print("  lastCommittedIndex: ") //
-            .println(_lastCommittedIndex);
+            .println(getLastCommittedIndex());
         out.print("  pendingIndex: ") //
-            .println(_pendingIndex);
+            .println(getPendingIndex());
         out.print("  pendingMetaQueueSize: ") //
-            .println(_pendingMetaQueueSize);
+            .println(getPendingCount());
     }
 }
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alipay.sofa.jraft.entity.RaftOutter;
+import com.alipay.sofa.jraft.util.ByteBufferCollector;
+import com.alipay.sofa.jraft.util.Recyclable;
+import com.alipay.sofa.jraft.util.RecycleUtil;
+import com.alipay.sofa.jraft.util.Requires;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.ZeroByteStringHelper;
+
+/**
+ * The encoded log entries batches of AppendEntries requests, shared by all the replicators of
+ * a raft group, keyed by the start log index. The leader reads and encodes the entries once,
+ * and every replicator only fills its own header fields(term, prevLogIndex, committedIndex etc.).
+ *
+ * The batches are reference-counted, the cache holds one reference and every in-flight request
+ * holds one, the data buffer is recycled when the last reference is released.
+ *
+ * @author agent
+ */
+public class EncodedBatchCache {
+
+    private final int                               capacity;
+    private final LinkedHashMap<Long, EncodedBatch> batches;
+
+    public EncodedBatchCache(final int capacity) {
+        Requires.requireTrue(capacity > 0, "capacity must be positive");
+        this.capacity = capacity;
+        this.batches = new LinkedHashMap<>(Math.min(capacity, 64), 0.75f, true);
+    }
+
+    /**
+     * Encoded log entries in range [startIndex, startIndex + count - 1].
+     */
+    public static final class EncodedBatch implements Recyclable {
+
+        private final long                       startIndex;
+        private final long                       lastTerm;
+        private final List<RaftOutter.EntryMeta> entries;
+        private final ByteBufferCollector        data;
+        private final AtomicInteger              refCnt = new AtomicInteger(1);
+
+        /**
+         * Creates a batch with one reference held by the creator.
+         *
+         * @param startIndex the index of the first entry
+         * @param lastTerm   the term of the last entry
+         * @param entries    the entries meta
+         * @param data       the flipped data buffer, may be null
+         */
+        EncodedBatch(final long startIndex, final long lastTerm, final List<RaftOutter.EntryMeta> entries,
+                     final ByteBufferCollector data) {
+            Requires.requireTrue(!entries.isEmpty(), "empty entries");
+            this.startIndex = startIndex;
+            this.lastTerm = lastTerm;
+            this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+            this.data = data;
+        }
+
+        public long getStartIndex() {
+            return this.startIndex;
+        }
+
+        public long getLastIndex() {
+            return this.startIndex + this.entries.size() - 1;
+        }
+
+        public long getLastTerm() {
+            return this.lastTerm;
+        }
+
+        public int getCount() {
+            return this.entries.size();
+        }
+
+        public List<RaftOutter.EntryMeta> getEntries() {
+            return this.entries;
+        }
+
+        public int getDataSize() {
+            return this.data == null ? 0 : this.data.getBuffer().limit();
+        }
+
+        /**
+         * Returns the data wrapped by a new duplicate buffer, it's only valid before the
+         * reference is released.
+         */
+        public ByteString getData() {
+            if (this.data == null) {
+                return ByteString.EMPTY;
+            }
+            final ByteBuffer buf = this.data.getBuffer().duplicate();
+            buf.position(0);
+            return ZeroByteStringHelper.wrap(buf);
+        }
+
+        int refCnt() {
+            return this.refCnt.get();
+        }
+
+        /**
+         * Increases the reference count, returns false when the batch was already released.
+         */
+        boolean retain() {
+            for (;;) {
+                final int cnt = this.refCnt.get();
+                if (cnt <= 0) {
+                    return false;
+                }
+                if (this.refCnt.compareAndSet(cnt, cnt + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Decreases the reference count, the data is recycled when it reaches zero.
+         */
+        @Override
+        public boolean recycle() {
+            final int cnt = this.refCnt.decrementAndGet();
+            if (cnt == 0) {
+                RecycleUtil.recycle(this.data);
+                return true;
+            }
+            Requires.requireTrue(cnt > 0, "Batch at %d was released too many times", this.startIndex);
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "EncodedBatch{startIndex=" + this.startIndex + ", count=" + this.entries.size() + ", lastTerm="
+                   + this.lastTerm + ", dataSize=" + getDataSize() + ", refCnt=" + this.refCnt.get() + '}';
+        }
+    }
+
+    /**
+     * Returns the batch starting at startIndex with one more reference which should be released
+     * by the caller, or null if not found.
+     */
+    public EncodedBatch acquire(final long startIndex) {
+        synchronized (this.batches) {
+            final EncodedBatch batch = this.batches.get(startIndex);
+            if (batch != null && batch.retain()) {
+                return batch;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Caches the batch, it will be retained by the cache until evicted.
+     */
+    public void put(final EncodedBatch batch) {
+        if (!batch.retain()) {
+            return;
+        }
+        EncodedBatch replaced;
+        synchronized (this.batches) {
+            replaced = this.batches.put(batch.getStartIndex(), batch);
+            if (this.batches.size() > this.capacity) {
+                // Evicts the least recently used one.
+                final Iterator<EncodedBatch> it = this.batches.values().iterator();
+                final EncodedBatch eldest = it.next();
+                it.remove();
+                RecycleUtil.recycle(eldest);
+            }
+        }
+        RecycleUtil.recycle(replaced);
+    }
+
+    /**
+     * Removes the batch which is stale.
+     */
+    public void remove(final EncodedBatch batch) {
+        synchronized (this.batches) {
+            if (!this.batches.remove(batch.getStartIndex(), batch)) {
+                return;
+            }
+        }
+        RecycleUtil.recycle(batch);
+    }
+
+    /**
+     * Releases all batches, the in-flight ones are recycled when their requests finished.
+     */
+    public void clear() {
+        final List<EncodedBatch> all;
+        synchronized (this.batches) {
+            all = new ArrayList<>(this.batches.values());
+            this.batches.clear();
+        }
+        for (final EncodedBatch batch : all) {
+            RecycleUtil.recycle(batch);
+        }
+    }
+
+    public int size() {
+        synchronized (this.batches) {
+            return this.batches.size();
+        }
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "EncodedBatchCache{capacity=" + this.capacity + ", size=" + size() + '}';
+    }
+}
@@ -25,6 +25,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.alipay.sofa.jraft.BatchStateMachine;
 import com.alipay.sofa.jraft.Closure;
 import com.alipay.sofa.jraft.FSMCaller;
 import com.alipay.sofa.jraft.StateMachine;
@@ -72,7 +73,10 @@ import com.lmax.disruptor.dsl.ProducerType;
  */
 public class FSMCallerImpl implements FSMCaller {
 
-    private static final Logger LOG = LoggerFactory.getLogger(FSMCallerImpl.class);
+    private static final Logger LOG              = LoggerFactory.getLogger(FSMCallerImpl.class);
+
+    // Max count of the tasks delivered to BatchStateMachine or parallel lanes in one batch.
+    private static final int    APPLY_BATCH_SIZE = ApplyBatchImpl.MAX_BATCH_SIZE;
 
     /**
      * Task type
@@ -163,6 +167,10 @@ public class FSMCallerImpl implements FSMCaller {
     private RingBuffer<ApplyTask>                                   taskQueue;
     private volatile CountDownLatch                                 shutdownLatch;
     private NodeMetrics                                             nodeMetrics;
+    // Reused by the FSM caller thread, null if the fsm is not a BatchStateMachine
+    private ApplyBatchImpl                                          applyBatch;
+    // Non-null if the tasks are applied in parallel
+    private PartitionedApplier                                      partitionedApplier;
     private final CopyOnWriteArrayList<LastAppliedLogIndexListener> lastAppliedLogIndexListeners = new CopyOnWriteArrayList<>();
 
     public FSMCallerImpl() {
@@ -176,6 +184,12 @@ public class FSMCallerImpl implements FSMCaller {
     public boolean init(final FSMCallerOptions opts) {
         this.logManager = opts.getLogManager();
         this.fsm = opts.getFsm();
+        if (opts.getApplyPartitioner() != null) {
+            this.partitionedApplier = new PartitionedApplier(this.fsm, opts.getApplyPartitioner(),
+                opts.getApplyParallelism(), APPLY_BATCH_SIZE);
+        } else if (this.fsm instanceof BatchStateMachine) {
+            this.applyBatch = new ApplyBatchImpl(APPLY_BATCH_SIZE);
+        }
         this.closureQueue = opts.getClosureQueue();
         this.afterShutdown = opts.getAfterShutdown();
         this.node = opts.getNode();
@@ -359,6 +373,9 @@ public class FSMCallerImpl implements FSMCaller {
         if (this.shutdownLatch != null) {
             this.shutdownLatch.await();
             this.disruptor.shutdown();
+            if (this.partitionedApplier != null) {
+                this.partitionedApplier.shutdown();
+            }
             if (this.afterShutdown != null) {
                 this.afterShutdown.run(Status.OK());
                 this.afterShutdown = null;
@@ -505,7 +522,13 @@ public class FSMCallerImpl implements FSMCaller {
                 }
 
                 // Apply data task to user state machine
-                doApplyTasks(iterImpl);
+                if (this.partitionedApplier != null) {
+                    doApplyPartitioned(iterImpl);
+                } else if (this.applyBatch != null) {
+                    doApplyBatch(iterImpl);
+                } else {
+                    doApplyTasks(iterImpl);
+                }
             }
 
             if (iterImpl.hasError()) {
@@ -548,6 +571,72 @@ public class FSMCallerImpl implements FSMCaller {
         iter.next();
     }
 
+    private void doApplyBatch(final IteratorImpl iterImpl) {
+        final ApplyBatchImpl batch = this.applyBatch;
+        // Collects the contiguous data tasks, the iterator reads the entries by range.
+        while (iterImpl.isGood() && !batch.isFull()) {
+            final LogEntry logEntry = iterImpl.entry();
+            if (logEntry.getType() != EnumOutter.EntryType.ENTRY_TYPE_DATA) {
+                break;
+            }
+            batch.add(logEntry, iterImpl.done());
+            iterImpl.next();
+        }
+        final long startApplyMs = Utils.monotonicMs();
+        try {
+            ((BatchStateMachine) this.fsm).onApplyBatch(batch);
+            if (batch.hasError()) {
+                // The iterator has moved to the next one of batch, rolls back to the error position.
+                final LogEntry next = iterImpl.entry();
+                final int notApplied = batch.size() - batch.getErrorPos();
+                final long ntail = next == null || next.getType() != EnumOutter.EntryType.ENTRY_TYPE_DATA ? notApplied
+                    : notApplied + 1;
+                iterImpl.setErrorAndRollback(ntail, batch.getErrorStatus());
+            }
+        } finally {
+            this.nodeMetrics.recordLatency("fsm-apply-tasks", Utils.monotonicMs() - startApplyMs);
+            this.nodeMetrics.recordSize("fsm-apply-tasks-count", batch.size());
+            batch.reset();
+        }
+    }
+
+    private void doApplyPartitioned(final IteratorImpl iterImpl) {
+        final PartitionedApplier applier = this.partitionedApplier;
+        // Collects the contiguous data tasks, configuration entries are barriers of the lanes.
+        while (iterImpl.isGood() && !applier.isFull()) {
+            final LogEntry logEntry = iterImpl.entry();
+            if (logEntry.getType() != EnumOutter.EntryType.ENTRY_TYPE_DATA) {
+                break;
+            }
+            applier.add(logEntry, iterImpl.done());
+            iterImpl.next();
+        }
+        final long startApplyMs = Utils.monotonicMs();
+        try {
+            final long lastIndex = applier.getLastIndex();
+            final long failIndex = applier.apply();
+            if (applier.getErrorStatus() != null) {
+                // The iterator has moved to the next one of range, rolls back to the first task not
+                // applied, the tasks after it may have been applied by other lanes, so the lanes
+                // fail their own rest closures instead of the iterator.
+                final LogEntry next = iterImpl.entry();
+                final long notApplied = lastIndex - failIndex + 1;
+                final long ntail = next == null || next.getType() != EnumOutter.EntryType.ENTRY_TYPE_DATA ? notApplied
+                    : notApplied + 1;
+                iterImpl.setErrorAndRollback(ntail, applier.getErrorStatus());
+                iterImpl.clearDones(failIndex, lastIndex);
+                applier.failRest(iterImpl.getError().getStatus());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while applying tasks in parallel", e);
+        } finally {
+            this.nodeMetrics.recordLatency("fsm-apply-tasks", Utils.monotonicMs() - startApplyMs);
+            this.nodeMetrics.recordSize("fsm-apply-tasks-count", applier.size());
+            applier.reset();
+        }
+    }
+
     private void doSnapshotSave(final SaveSnapshotClosure done) {
         Requires.requireNonNull(done, "SaveSnapshotClosure is null");
         final long lastAppliedIndex = this.lastAppliedIndex.get();
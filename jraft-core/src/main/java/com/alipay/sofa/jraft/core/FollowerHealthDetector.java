@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import com.alipay.sofa.jraft.core.Replicator.FollowerHealth;
+import com.alipay.sofa.jraft.util.Requires;
+
+/**
+ * Classifies a follower by the smoothed RTT of its responses and the trend of its lagging logs,
+ * evaluated once every interval:
+ *
+ * <ul>
+ *   <li>Lagging: the lagging logs exceed the threshold and don't decrease for consecutive intervals,
+ *   that is, the follower acks logs slower than the leader appends. It's lagging until the lagging
+ *   logs fall under half of the threshold.</li>
+ *   <li>Slow: the smoothed RTT exceeds the threshold, or the follower is catching up a lot of logs.</li>
+ *   <li>Healthy: otherwise.</li>
+ * </ul>
+ *
+ * It is not thread-safe and should be guarded by the replicator's lock, except the getters
+ * for metrics.
+ *
+ * @author agent
+ */
+final class FollowerHealthDetector {
+
+    static final long               EVALUATE_INTERVAL_MS = 1000;
+    /** The lagging logs should not decrease for this intervals to be lagging. */
+    static final int                LAGGING_INTERVALS    = 2;
+    /** The weight of a new RTT sample is 1/8. */
+    static final int                RTT_EWMA_SHIFT       = 3;
+
+    private final long              slowRttMs;
+    private final long              laggingLogs;
+
+    private volatile FollowerHealth health               = FollowerHealth.HEALTHY;
+    private volatile long           srttMs               = -1;
+    private volatile long           ackRate;
+    private long                    ackedLogs;
+    private long                    lastEvaluateMs       = -1;
+    private long                    lastLag              = -1;
+    private int                     laggingIntervals;
+
+    FollowerHealthDetector(final long slowRttMs, final long laggingLogs) {
+        Requires.requireTrue(slowRttMs > 0, "slowRttMs must be positive");
+        Requires.requireTrue(laggingLogs > 0, "laggingLogs must be positive");
+        this.slowRttMs = slowRttMs;
+        this.laggingLogs = laggingLogs;
+    }
+
+    /**
+     * Called when a response is received.
+     *
+     * @param rttMs the RTT of the request
+     * @param logs  the count of acked logs
+     */
+    void onAck(final long rttMs, final int logs) {
+        final long rtt = Math.max(0, rttMs);
+        if (this.srttMs < 0) {
+            this.srttMs = rtt;
+        } else {
+            this.srttMs += (rtt - this.srttMs) >> RTT_EWMA_SHIFT;
+        }
+        this.ackedLogs += logs;
+    }
+
+    /**
+     * Evaluates the health once every interval.
+     *
+     * @param lag   the lagging logs of follower
+     * @param nowMs current monotonic time in milliseconds
+     * @return true if it's evaluated
+     */
+    boolean evaluate(final long lag, final long nowMs) {
+        if (this.lastEvaluateMs < 0) {
+            this.lastEvaluateMs = nowMs;
+            this.lastLag = lag;
+            return false;
+        }
+        final long elapsed = nowMs - this.lastEvaluateMs;
+        if (elapsed < EVALUATE_INTERVAL_MS) {
+            return false;
+        }
+        this.ackRate = this.ackedLogs * 1000 / elapsed;
+        this.ackedLogs = 0;
+        if (lag >= this.laggingLogs && lag >= this.lastLag) {
+            this.laggingIntervals++;
+        } else {
+            this.laggingIntervals = 0;
+        }
+        this.lastEvaluateMs = nowMs;
+        this.lastLag = lag;
+
+        if (this.health == FollowerHealth.LAGGING && lag >= this.laggingLogs / 2) {
+            return true;
+        }
+        if (this.laggingIntervals >= LAGGING_INTERVALS) {
+            this.health = FollowerHealth.LAGGING;
+        } else if (this.srttMs > this.slowRttMs || lag >= this.laggingLogs) {
+            this.health = FollowerHealth.SLOW;
+        } else {
+            this.health = FollowerHealth.HEALTHY;
+        }
+        return true;
+    }
+
+    FollowerHealth getHealth() {
+        return this.health;
+    }
+
+    long getSrttMs() {
+        return this.srttMs;
+    }
+
+    /**
+     * Acked logs per second in last interval.
+     */
+    long getAckRate() {
+        return this.ackRate;
+    }
+}
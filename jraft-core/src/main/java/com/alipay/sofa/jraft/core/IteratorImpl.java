@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.jraft.core;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -29,6 +30,7 @@ import com.alipay.sofa.jraft.error.RaftError;
 import com.alipay.sofa.jraft.error.RaftException;
 import com.alipay.sofa.jraft.storage.LogManager;
 import com.alipay.sofa.jraft.util.Requires;
+import com.alipay.sofa.jraft.util.SystemPropertyUtil;
 import com.alipay.sofa.jraft.util.Utils;
 
 /**
@@ -40,15 +42,22 @@ import com.alipay.sofa.jraft.util.Utils;
  */
 public class IteratorImpl {
 
+    // Max count and bytes of the entries read from log manager in one batch.
+    private static final int    READ_AHEAD_COUNT = SystemPropertyUtil.getInt("jraft.fsm.read_ahead_count", 256);
+    private static final long   READ_AHEAD_BYTES = SystemPropertyUtil.getLong("jraft.fsm.read_ahead_bytes",
+                                                     4 * 1024 * 1024);
+
     private final StateMachine  fsm;
     private final LogManager    logManager;
     private final List<Closure> closures;
     private final long          firstClosureIndex;
     private long                currentIndex;
     private final long          committedIndex;
-    private LogEntry            currEntry = new LogEntry(); // blank entry
+    private LogEntry            currEntry        = new LogEntry();                                              // blank entry
     private final AtomicLong    applyingIndex;
     private RaftException       error;
+    private List<LogEntry>      readAheadEntries = Collections.emptyList();
+    private int                 readAheadPos;
 
     public IteratorImpl(final StateMachine fsm, final LogManager logManager, final List<Closure> closures,
                         final long firstClosureIndex, final long lastAppliedIndex, final long committedIndex,
@@ -98,7 +107,7 @@ public class IteratorImpl {
             ++this.currentIndex;
             if (this.currentIndex <= this.committedIndex) {
                 try {
-                    this.currEntry = this.logManager.getEntry(this.currentIndex);
+                    this.currEntry = readEntry(this.currentIndex);
                     if (this.currEntry == null) {
                         getOrCreateError().setType(EnumOutter.ErrorType.ERROR_TYPE_LOG);
                         getOrCreateError().getStatus().setError(-1,
@@ -114,6 +123,24 @@ public class IteratorImpl {
         }
     }
 
+    private LogEntry readEntry(final long index) {
+        if (this.readAheadPos < this.readAheadEntries.size()) {
+            final LogEntry entry = this.readAheadEntries.get(this.readAheadPos);
+            if (entry.getId().getIndex() == index) {
+                this.readAheadPos++;
+                return entry;
+            }
+        }
+        final int maxCount = (int) Math.min(this.committedIndex - index + 1, READ_AHEAD_COUNT);
+        this.readAheadEntries = this.logManager.getEntries(index, maxCount, READ_AHEAD_BYTES);
+        if (this.readAheadEntries.isEmpty()) {
+            this.readAheadPos = 0;
+            return null;
+        }
+        this.readAheadPos = 1;
+        return this.readAheadEntries.get(0);
+    }
+
     public long getIndex() {
         return this.currentIndex;
     }
@@ -125,6 +152,15 @@ public class IteratorImpl {
         return this.closures.get((int) (this.currentIndex - this.firstClosureIndex));
     }
 
+    /**
+     * Forgets the closures in range [fromIndex, toIndex] which have been run by the caller.
+     */
+    void clearDones(final long fromIndex, final long toIndex) {
+        for (long i = Math.max(fromIndex, this.firstClosureIndex); i <= toIndex; i++) {
+            this.closures.set((int) (i - this.firstClosureIndex), null);
+        }
+    }
+
     protected void runTheRestClosureWithError() {
         for (long i = Math.max(this.currentIndex, this.firstClosureIndex); i <= this.committedIndex; i++) {
             final Closure done = this.closures.get((int) (i - this.firstClosureIndex));
@@ -138,13 +174,18 @@ public class IteratorImpl {
     }
 
     public void setErrorAndRollback(final long ntail, final Status st) {
-        Requires.requireTrue(ntail > 0, "Invalid ntail=" + ntail);
-        if (this.currEntry == null || this.currEntry.getType() != EnumOutter.EntryType.ENTRY_TYPE_DATA) {
+        final boolean atDataEntry = this.currEntry != null
+                                    && this.currEntry.getType() == EnumOutter.EntryType.ENTRY_TYPE_DATA;
+        // Nothing is rolled back only when there's no current data task.
+        Requires.requireTrue(ntail > 0 || (ntail == 0 && !atDataEntry), "Invalid ntail=" + ntail);
+        if (!atDataEntry) {
             this.currentIndex -= ntail;
         } else {
             this.currentIndex -= ntail - 1;
         }
         this.currEntry = null;
+        this.readAheadEntries = Collections.emptyList();
+        this.readAheadPos = 0;
         getOrCreateError().setType(EnumOutter.ErrorType.ERROR_TYPE_STATE_MACHINE);
         getOrCreateError().getStatus().setError(RaftError.ESTATEMACHINE,
             "StateMachine meet critical error when applying one or more tasks since index=%d, %s", this.currentIndex,
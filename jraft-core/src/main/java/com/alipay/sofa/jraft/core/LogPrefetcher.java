@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.storage.LogManager;
+import com.alipay.sofa.jraft.util.NamedThreadFactory;
+import com.alipay.sofa.jraft.util.Requires;
+import com.alipay.sofa.jraft.util.SystemPropertyUtil;
+import com.alipay.sofa.jraft.util.ThreadPoolUtil;
+import com.alipay.sofa.jraft.util.Utils;
+
+/**
+ * Reads the log entries ahead of the send cursor of a lagging replicator on a dedicated I/O pool,
+ * so that the replicator sends the entries already read instead of waiting for the log storage.
+ *
+ * The read-ahead entries are contiguous and start from {@code headIndex}, they are bounded by
+ * {@code maxBytes}, at most one read task of a prefetcher is running at the same time. The send
+ * path never blocks on the prefetcher, it falls back to read the log storage when the entries
+ * are not ready.
+ *
+ * @author agent
+ */
+final class LogPrefetcher {
+
+    private static final Logger        LOG              = LoggerFactory.getLogger(LogPrefetcher.class);
+
+    /**
+     * The threads of global read-ahead pool, default is cpus.
+     */
+    public static final int            PREFETCH_THREADS = SystemPropertyUtil.getInt("jraft.log.prefetch.threads",
+                                                            Utils.cpus());
+
+    private final LogManager           logManager;
+    private final Executor             executor;
+    private final long                 maxBytes;
+    private final int                  batchCount;
+    private final int                  batchBytes;
+
+    // The read-ahead entries in range [headIndex, headIndex + entries.size() - 1]
+    private final ArrayDeque<LogEntry> entries          = new ArrayDeque<>();
+    private long                       headIndex;
+    private long                       bytes;
+    // Bumped on reset, the entries read by the outdated task are dropped.
+    private long                       version;
+    private boolean                    reading;
+    private boolean                    stopped;
+
+    private static final class ExecutorHolder {
+        private static final ThreadPoolExecutor INSTANCE = ThreadPoolUtil
+                                                             .newBuilder()
+                                                             .poolName("JRAFT_LOG_PREFETCH_EXECUTOR")
+                                                             .enableMetric(true)
+                                                             .coreThreads(PREFETCH_THREADS)
+                                                             .maximumThreads(PREFETCH_THREADS)
+                                                             .keepAliveSeconds(60L)
+                                                             .workQueue(new LinkedBlockingQueue<>())
+                                                             .threadFactory(
+                                                                 new NamedThreadFactory("JRaft-Log-Prefetch-", true))
+                                                             .build();
+    }
+
+    /**
+     * Creates a prefetcher running on the global read-ahead pool.
+     *
+     * @param logManager the log manager of the leader
+     * @param maxBytes   the max bytes of read-ahead entries
+     * @param batchCount the max count of entries read at once
+     * @param batchBytes the max bytes of entries read at once
+     */
+    LogPrefetcher(final LogManager logManager, final long maxBytes, final int batchCount, final int batchBytes) {
+        this(logManager, ExecutorHolder.INSTANCE, maxBytes, batchCount, batchBytes);
+    }
+
+    LogPrefetcher(final LogManager logManager, final Executor executor, final long maxBytes, final int batchCount,
+                  final int batchBytes) {
+        Requires.requireNonNull(logManager, "logManager");
+        Requires.requireNonNull(executor, "executor");
+        Requires.requireTrue(maxBytes > 0, "maxBytes must be positive");
+        Requires.requireTrue(batchCount > 0, "batchCount must be positive");
+        Requires.requireTrue(batchBytes > 0, "batchBytes must be positive");
+        this.logManager = logManager;
+        this.executor = executor;
+        this.maxBytes = maxBytes;
+        this.batchCount = batchCount;
+        this.batchBytes = batchBytes;
+    }
+
+    /**
+     * Takes the read-ahead entries starting at the index, never blocks.
+     *
+     * @param index    the index of first entry
+     * @param maxCount the max count of entries
+     * @param maxBytes the max data bytes of entries, at least one entry is returned if it's ready
+     * @return the entries, empty if the entry at the index is not ready
+     */
+    synchronized List<LogEntry> poll(final long index, final int maxCount, final long maxBytes) {
+        if (this.entries.isEmpty() || index < this.headIndex || index >= this.headIndex + this.entries.size()) {
+            return Collections.emptyList();
+        }
+        // The entries before index were sent already.
+        while (this.headIndex < index) {
+            removeFirst();
+        }
+        final List<LogEntry> ret = new ArrayList<>(Math.min(maxCount, this.entries.size()));
+        long size = 0;
+        while (!this.entries.isEmpty() && ret.size() < maxCount && (ret.isEmpty() || size < maxBytes)) {
+            final LogEntry entry = removeFirst();
+            ret.add(entry);
+            size += dataSize(entry);
+        }
+        return ret;
+    }
+
+    /**
+     * Reads the entries ahead from the index in background, the read-ahead entries are dropped if
+     * they are not contiguous with the index.
+     *
+     * @param index the next index to send
+     */
+    void readAhead(final long index) {
+        synchronized (this) {
+            if (this.stopped) {
+                return;
+            }
+            if (index < this.headIndex || index > nextReadIndex()) {
+                reset(index);
+            } else {
+                while (this.headIndex < index) {
+                    removeFirst();
+                }
+            }
+            if (this.reading || this.bytes >= this.maxBytes) {
+                return;
+            }
+            this.reading = true;
+        }
+        try {
+            this.executor.execute(this::readEntries);
+        } catch (final Throwable t) {
+            LOG.error("Fail to submit log read-ahead task from index {}.", index, t);
+            synchronized (this) {
+                this.reading = false;
+            }
+        }
+    }
+
+    /**
+     * Stops reading ahead and releases the read-ahead entries.
+     */
+    synchronized void shutdown() {
+        this.stopped = true;
+        reset(0);
+    }
+
+    synchronized long getBytes() {
+        return this.bytes;
+    }
+
+    synchronized int getCount() {
+        return this.entries.size();
+    }
+
+    private void readEntries() {
+        while (true) {
+            final long fromIndex;
+            final long readVersion;
+            final long readBytes;
+            synchronized (this) {
+                if (this.stopped || this.bytes >= this.maxBytes) {
+                    this.reading = false;
+                    return;
+                }
+                fromIndex = nextReadIndex();
+                readVersion = this.version;
+                readBytes = Math.min(this.batchBytes, this.maxBytes - this.bytes);
+            }
+            List<LogEntry> read = Collections.emptyList();
+            try {
+                read = this.logManager.getEntries(fromIndex, this.batchCount, readBytes);
+            } catch (final Throwable t) {
+                LOG.error("Fail to read ahead log entries from index {}.", fromIndex, t);
+            }
+            synchronized (this) {
+                if (this.version != readVersion) {
+                    // Reset while reading, read from the new index.
+                    continue;
+                }
+                if (read.isEmpty()) {
+                    // No more entries or the entries were truncated, the send path handles it.
+                    this.reading = false;
+                    return;
+                }
+                for (final LogEntry entry : read) {
+                    this.entries.addLast(entry);
+                    this.bytes += dataSize(entry);
+                }
+            }
+        }
+    }
+
+    private void reset(final long index) {
+        this.entries.clear();
+        this.headIndex = index;
+        this.bytes = 0;
+        this.version++;
+    }
+
+    private long nextReadIndex() {
+        return this.headIndex + this.entries.size();
+    }
+
+    private LogEntry removeFirst() {
+        final LogEntry entry = this.entries.pollFirst();
+        this.headIndex++;
+        this.bytes -= dataSize(entry);
+        return entry;
+    }
+
+    private static int dataSize(final LogEntry entry) {
+        return entry.getData() != null ? entry.getData().remaining() : 0;
+    }
+}
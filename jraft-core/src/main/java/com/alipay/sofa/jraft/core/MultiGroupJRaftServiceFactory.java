@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.alipay.sofa.jraft.option.RaftOptions;
+import com.alipay.sofa.jraft.storage.LogStorage;
+import com.alipay.sofa.jraft.storage.impl.MultiGroupLogEngine;
+import com.alipay.sofa.jraft.storage.impl.MultiGroupLogStorage;
+import com.alipay.sofa.jraft.util.Requires;
+
+/**
+ * A JRaft service factory that makes all the raft groups created by it share
+ * one {@link MultiGroupLogEngine}, the log uri of each node is used as the group
+ * name in the engine, so it must be unique in the process.
+ *
+ * @author agent
+ */
+public class MultiGroupJRaftServiceFactory extends DefaultJRaftServiceFactory {
+
+    private final MultiGroupLogEngine engine;
+
+    public MultiGroupJRaftServiceFactory(final String sharedLogPath, final boolean sync) {
+        this(new MultiGroupLogEngine(sharedLogPath, sync));
+    }
+
+    public MultiGroupJRaftServiceFactory(final MultiGroupLogEngine engine) {
+        super();
+        this.engine = Requires.requireNonNull(engine, "engine");
+    }
+
+    public MultiGroupLogEngine getEngine() {
+        return this.engine;
+    }
+
+    /**
+     * Deletes the log of the node with the log uri from the shared engine, the node must have been
+     * shut down.
+     *
+     * @param uri the log uri of node
+     * @return true on success
+     */
+    public boolean destroyLogStorage(final String uri) {
+        Requires.requireTrue(StringUtils.isNotBlank(uri), "Blank log storage uri.");
+        return this.engine.destroyGroup(uri);
+    }
+
+    @Override
+    public LogStorage createLogStorage(final String uri, final RaftOptions raftOptions) {
+        Requires.requireTrue(StringUtils.isNotBlank(uri), "Blank log storage uri.");
+        return new MultiGroupLogStorage(this.engine, uri, raftOptions);
+    }
+}
@@ -23,6 +23,7 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledFuture;
@@ -30,6 +31,7 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -95,6 +97,7 @@ import com.alipay.sofa.jraft.rpc.RpcRequests.TimeoutNowResponse;
 import com.alipay.sofa.jraft.rpc.RpcResponseClosure;
 import com.alipay.sofa.jraft.rpc.RpcResponseClosureAdapter;
 import com.alipay.sofa.jraft.rpc.impl.core.DefaultRaftClientService;
+import com.alipay.sofa.jraft.rpc.impl.core.HeartbeatBatcher;
 import com.alipay.sofa.jraft.storage.LogManager;
 import com.alipay.sofa.jraft.storage.LogStorage;
 import com.alipay.sofa.jraft.storage.RaftMetaStorage;
@@ -117,12 +120,14 @@ import com.alipay.sofa.jraft.util.SignalHelper;
 import com.alipay.sofa.jraft.util.ThreadHelper;
 import com.alipay.sofa.jraft.util.ThreadId;
 import com.alipay.sofa.jraft.util.Utils;
+import com.alipay.sofa.jraft.util.compress.Compressors;
 import com.alipay.sofa.jraft.util.timer.RaftTimerFactory;
 import com.google.protobuf.Message;
 import com.lmax.disruptor.BlockingWaitStrategy;
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.EventTranslator;
+import com.lmax.disruptor.EventTranslatorOneArg;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
@@ -159,6 +164,18 @@ public class NodeImpl implements Node, RaftServerService {
 
     // Max retry times when applying tasks.
     private static final int                                               MAX_APPLY_RETRY_TIMES    = 3;
+    // Max park time of revoking the leader view in each round, in case the unpark is missed.
+    private static final long                                              REVOKE_PARK_NANOS        = TimeUnit.MILLISECONDS
+                                                                                                        .toNanos(1);
+
+    private static final EventTranslatorOneArg<LogEntryAndClosure, Task>   TASK_TRANSLATOR          = (event, sequence, task) -> {
+        event.reset();
+        final LogEntry entry = new LogEntry();
+        entry.setData(task.getData());
+        event.done = task.getDone();
+        event.entry = entry;
+        event.expectedTerm = task.getExpectedTerm();
+    };
 
     public static final AtomicInteger                                      GLOBAL_NUM_NODES         = new AtomicInteger(
                                                                                                         0);
@@ -198,6 +215,8 @@ public class NodeImpl implements Node, RaftServerService {
     private final List<Closure>                                            shutdownContinuations    = new ArrayList<>();
     private RaftClientService                                              rpcService;
     private ReadOnlyService                                                readOnlyService;
+    private ReadIndexPiggyback                                             readIndexPiggyback;
+    private HeartbeatBatcher                                               heartbeatBatcher;
     /** Timers */
     private Scheduler                                                      timerManager;
     private RepeatedTimer                                                  electionTimer;
@@ -206,6 +225,13 @@ public class NodeImpl implements Node, RaftServerService {
     private RepeatedTimer                                                  snapshotTimer;
     private ScheduledFuture<?>                                             transferTimer;
     private ThreadId                                                       wakingCandidate;
+    /** Hibernation of idle group */
+    private volatile boolean                                               hibernating;
+    private volatile long                                                  lastActiveTimestamp;
+    /** Lock-free leader appending, see executeApplyingTasks */
+    private volatile LeaderView                                            leaderView;
+    private volatile Thread                                                leaderAppender;
+    private volatile Thread                                                leaderViewRevoker;
     /** Disruptor to run node service */
     private Disruptor<LogEntryAndClosure>                                  applyDisruptor;
     private RingBuffer<LogEntryAndClosure>                                 applyQueue;
@@ -244,6 +270,23 @@ public class NodeImpl implements Node, RaftServerService {
         }
     }
 
+    /**
+     * The immutable view of leader to append tasks without the node lock, it's published when the
+     * node becomes leader or changes configuration, and revoked before the state, term or
+     * configuration is changed.
+     */
+    private static final class LeaderView {
+        final long          term;
+        final Configuration conf;
+        final Configuration oldConf;
+
+        LeaderView(final long term, final Configuration conf, final Configuration oldConf) {
+            this.term = term;
+            this.conf = conf.copy();
+            this.oldConf = oldConf != null ? oldConf.copy() : null;
+        }
+    }
+
     private static class LogEntryAndClosureFactory implements EventFactory<LogEntryAndClosure> {
 
         @Override
@@ -727,6 +770,8 @@ public class NodeImpl implements Node, RaftServerService {
         opts.setNode(this);
         opts.setBootstrapId(bootstrapId);
         opts.setDisruptorBufferSize(this.raftOptions.getDisruptorBufferSize());
+        opts.setApplyPartitioner(this.options.getApplyPartitioner());
+        opts.setApplyParallelism(this.options.getApplyParallelism());
         return this.fsmCaller.init(opts);
     }
 
@@ -1027,6 +1072,9 @@ public class NodeImpl implements Node, RaftServerService {
             LOG.error("Fail to init rpc service.");
             return false;
         }
+        if (this.raftOptions.isBatchHeartbeats()) {
+            this.heartbeatBatcher = HeartbeatBatcher.getRef();
+        }
         this.replicatorGroup.init(new NodeId(this.groupId, this.serverId), rgOpts);
 
         this.readOnlyService = new ReadOnlyServiceImpl();
@@ -1039,6 +1087,9 @@ public class NodeImpl implements Node, RaftServerService {
             LOG.error("Fail to init readOnlyService.");
             return false;
         }
+        if (this.raftOptions.isReadIndexPiggyback()) {
+            this.readIndexPiggyback = new ReadIndexPiggyback(this.serverId);
+        }
 
         // set state to follower
         this.state = State.STATE_FOLLOWER;
@@ -1191,6 +1242,10 @@ public class NodeImpl implements Node, RaftServerService {
         this.state = State.STATE_LEADER;
         this.leaderId = this.serverId.copy();
         this.replicatorGroup.resetTerm(this.currTerm);
+        if (this.readIndexPiggyback != null) {
+            // Before starting replicators, so that no acks of this term are missed.
+            this.readIndexPiggyback.start(this.currTerm);
+        }
         // Start follower's replicators
         for (final PeerId peer : this.conf.listPeers()) {
             if (peer.equals(this.serverId)) {
@@ -1218,7 +1273,10 @@ public class NodeImpl implements Node, RaftServerService {
             throw new IllegalStateException();
         }
         this.confCtx.flush(this.conf.getConf(), this.conf.getOldConf());
+        this.hibernating = false;
+        this.lastActiveTimestamp = Utils.monotonicMs();
         this.stepDownTimer.start();
+        publishLeaderView();
     }
 
     // should be in writeLock
@@ -1231,8 +1289,12 @@ public class NodeImpl implements Node, RaftServerService {
         if (this.state == State.STATE_CANDIDATE) {
             stopVoteTimer();
         } else if (this.state.compareTo(State.STATE_TRANSFERRING) <= 0) {
+            revokeLeaderView();
             stopStepDownTimer();
             this.ballotBox.clearPendingTasks();
+            if (this.readIndexPiggyback != null) {
+                this.readIndexPiggyback.failAll(new Status(RaftError.EPERM, "Leader stepped down."));
+            }
             // signal fsm leader stop immediately
             if (this.state == State.STATE_LEADER) {
                 onLeaderStop(status);
@@ -1243,6 +1305,7 @@ public class NodeImpl implements Node, RaftServerService {
 
         // soft state in memory
         this.state = State.STATE_FOLLOWER;
+        this.hibernating = false;
         this.confCtx.reset();
         updateLastLeaderTimestamp(Utils.monotonicMs());
         if (this.snapshotExecutor != null) {
@@ -1316,6 +1379,9 @@ public class NodeImpl implements Node, RaftServerService {
     }
 
     private void executeApplyingTasks(final List<LogEntryAndClosure> tasks) {
+        if (this.leaderView != null && appendWithoutLock(tasks)) {
+            return;
+        }
         this.writeLock.lock();
         try {
             final int size = tasks.size();
@@ -1335,6 +1401,7 @@ public class NodeImpl implements Node, RaftServerService {
                 });
                 return;
             }
+            markLeaderActive();
             final List<LogEntry> entries = new ArrayList<>(size);
             for (int i = 0; i < size; i++) {
                 final LogEntryAndClosure task = tasks.get(i);
@@ -1366,6 +1433,105 @@ public class NodeImpl implements Node, RaftServerService {
         }
     }
 
+    /**
+     * Appends the tasks by the published leader view without the node lock. It's only called in the
+     * single apply thread, so the pending tasks in ballot box and the logs are in the same order.
+     *
+     * @return false if the view is revoked or the tasks can't be appended by the view, then they
+     *         should be handled in lock.
+     */
+    private boolean appendWithoutLock(final List<LogEntryAndClosure> tasks) {
+        final LeaderView view = this.leaderView;
+        if (view == null) {
+            return false;
+        }
+        this.leaderAppender = Thread.currentThread();
+        try {
+            // Pairs with revokeLeaderView: either the view is revoked before it's checked here, or the
+            // revoker waits until the appending finishes. The view is revoked before hibernating, so
+            // the activity published here is seen by the step-down timer.
+            if (this.leaderView != view) {
+                return false;
+            }
+            this.lastActiveTimestamp = Utils.monotonicMs();
+            final int size = tasks.size();
+            final List<LogEntry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final LogEntryAndClosure task = tasks.get(i);
+                if (task.expectedTerm != -1 && task.expectedTerm != view.term) {
+                    LOG.debug("Node {} can't apply task whose expectedTerm={} doesn't match currTerm={}.", getNodeId(),
+                        task.expectedTerm, view.term);
+                    if (task.done != null) {
+                        final Status st = new Status(RaftError.EPERM, "expected_term=%d doesn't match current_term=%d",
+                            task.expectedTerm, view.term);
+                        Utils.runClosureInThread(task.done, st);
+                    }
+                    continue;
+                }
+                if (!this.ballotBox.appendPendingTask(view.conf, view.oldConf, task.done)) {
+                    Utils.runClosureInThread(task.done, new Status(RaftError.EINTERNAL, "Fail to append task."));
+                    continue;
+                }
+                task.entry.getId().setTerm(view.term);
+                task.entry.setType(EnumOutter.EntryType.ENTRY_TYPE_DATA);
+                entries.add(task.entry);
+            }
+            // The configuration is not changed by data entries, no need to check it.
+            this.logManager.appendEntries(entries, new LeaderStableClosure(entries));
+            return true;
+        } finally {
+            this.leaderAppender = null;
+            final Thread revoker = this.leaderViewRevoker;
+            if (revoker != null) {
+                LockSupport.unpark(revoker);
+            }
+        }
+    }
+
+    // should be in readLock or writeLock, the term and configuration are only changed in writeLock
+    private void publishLeaderView() {
+        if (this.raftOptions.isLockFreeLeaderAppend() && this.state == State.STATE_LEADER) {
+            this.leaderView = new LeaderView(this.currTerm, this.conf.getConf(), this.conf.isStable() ? null
+                : this.conf.getOldConf());
+        }
+    }
+
+    /**
+     * Revokes the published leader view and waits for the in-flight appending by it. Should be in
+     * writeLock, before hibernating or changing the state, term or configuration of leader.
+     *
+     * The appender never waits for the node lock or disk IO: it only appends the tasks into ballot
+     * box and log manager in memory, and LogManager#appendEntries gives up with EBUSY after a bounded
+     * number of retries when the disk queue is full. So the wait is bounded by one batch of appending
+     * in memory. The revoker parks until the appender unparks it, the park is timed in case the
+     * unpark is missed.
+     */
+    private void revokeLeaderView() {
+        if (this.leaderView == null) {
+            return;
+        }
+        this.leaderView = null;
+        final Thread appender = this.leaderAppender;
+        if (appender == null || appender == Thread.currentThread()) {
+            return;
+        }
+        this.leaderViewRevoker = Thread.currentThread();
+        try {
+            final long startMs = Utils.monotonicMs();
+            boolean warned = false;
+            while (this.leaderAppender != null) {
+                LockSupport.parkNanos(this, REVOKE_PARK_NANOS);
+                if (!warned && Utils.monotonicMs() - startMs > this.options.getElectionTimeoutMs()) {
+                    LOG.warn("Node {} waits for the appending of {} for more than {} ms to revoke leader view.",
+                        getNodeId(), appender.getName(), this.options.getElectionTimeoutMs());
+                    warned = true;
+                }
+            }
+        } finally {
+            this.leaderViewRevoker = null;
+        }
+    }
+
     /**
      * Returns the node metrics.
      *
@@ -1498,6 +1664,7 @@ public class NodeImpl implements Node, RaftServerService {
 
     private void readLeader(final ReadIndexRequest request, final ReadIndexResponse.Builder respBuilder,
                             final RpcResponseClosure<ReadIndexResponse> closure) {
+        markLeaderActive();
         final int quorum = getQuorum();
         if (quorum <= 1) {
             // Only one peer, fast path.
@@ -1541,6 +1708,11 @@ public class NodeImpl implements Node, RaftServerService {
             case ReadOnlySafe:
                 final List<PeerId> peers = this.conf.getConf().getPeers();
                 Requires.requireTrue(peers != null && !peers.isEmpty(), "Empty peers");
+                if (this.readIndexPiggyback != null) {
+                    // Confirmed by the following heartbeat and AppendEntries responses of replicators.
+                    this.readIndexPiggyback.addRead(peers, quorum, respBuilder, closure);
+                    break;
+                }
                 final ReadIndexHeartbeatResponseClosure heartbeatDone = new ReadIndexHeartbeatResponseClosure(closure,
                     respBuilder, quorum, peers.size());
                 // Send heartbeat requests to followers
@@ -1600,6 +1772,134 @@ public class NodeImpl implements Node, RaftServerService {
         }
     }
 
+    @Override
+    public void apply(final List<Task> tasks) {
+        Requires.requireNonNull(tasks, "Null tasks");
+        final Task[] batch = tasks.toArray(new Task[0]);
+        for (final Task task : batch) {
+            Requires.requireNonNull(task, "Null task");
+        }
+        applyTasks(batch, null);
+    }
+
+    private void applyTasks(final Task[] batch, final BatchTasksDone batchDone) {
+        if (this.shutdownLatch != null) {
+            // The closures are the only notification of a batch, no exception is thrown.
+            failTasks(batch, 0, new Status(RaftError.ENODESHUTDOWN, "Node is shutting down."));
+            return;
+        }
+        this.metrics.recordSize("apply-task-batch-size", batch.length);
+        // Leave room for other producers, or a batch as large as the queue never fits in.
+        final int maxChunk = Math.max(1, this.raftOptions.getDisruptorBufferSize() / 2);
+        int offset = 0;
+        try {
+            while (offset < batch.length) {
+                final int n = Math.min(batch.length - offset, maxChunk);
+                if (!publishTasks(batch, offset, n)) {
+                    // The chunks published before are admitted already, only the rest are rejected.
+                    final Status status = new Status(RaftError.EBUSY,
+                        "Node is busy, has too many tasks, %d of %d tasks are admitted.", offset, batch.length);
+                    if (batchDone != null) {
+                        batchDone.setStatus(status);
+                    }
+                    failTasks(batch, offset, status);
+                    LOG.warn("Node {} applyQueue is overload, {} of {} tasks are rejected.", getNodeId(),
+                        batch.length - offset, batch.length);
+                    this.metrics.recordTimes("apply-task-overload-times", 1);
+                    return;
+                }
+                offset += n;
+            }
+        } catch (final Exception e) {
+            LOG.error("Fail to apply tasks.", e);
+            failTasks(batch, offset, new Status(RaftError.EPERM, "Node is down."));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Status> applyAsync(final List<Task> tasks) {
+        Requires.requireNonNull(tasks, "Null tasks");
+        final CompletableFuture<Status> future = new CompletableFuture<>();
+        if (tasks.isEmpty()) {
+            future.complete(Status.OK());
+            return future;
+        }
+        final BatchTasksDone batchDone = new BatchTasksDone(tasks.size(), future);
+        final Task[] wrapped = new Task[tasks.size()];
+        int i = 0;
+        for (final Task task : tasks) {
+            Requires.requireNonNull(task, "Null task");
+            final Closure done = task.getDone();
+            wrapped[i++] = new Task(task.getData(), status -> {
+                try {
+                    if (done != null) {
+                        done.run(status);
+                    }
+                } finally {
+                    batchDone.onTaskDone(status);
+                }
+            }, task.getExpectedTerm());
+        }
+        applyTasks(wrapped, batchDone);
+        return future;
+    }
+
+    /**
+     * Completes the future of a batch of tasks when all of them are done.
+     */
+    private static final class BatchTasksDone {
+        private final AtomicInteger             remaining;
+        private final CompletableFuture<Status> future;
+        private volatile Status                 firstError;
+        private volatile Status                 status;
+
+        BatchTasksDone(final int count, final CompletableFuture<Status> future) {
+            this.remaining = new AtomicInteger(count);
+            this.future = future;
+        }
+
+        /**
+         * Sets the status of the whole batch, which takes precedence over the errors of tasks.
+         */
+        void setStatus(final Status status) {
+            this.status = status;
+        }
+
+        void onTaskDone(final Status status) {
+            if (status != null && !status.isOk() && this.firstError == null) {
+                this.firstError = status;
+            }
+            if (this.remaining.decrementAndGet() == 0) {
+                final Status error = this.status != null ? this.status : this.firstError;
+                this.future.complete(error != null ? error : Status.OK());
+            }
+        }
+    }
+
+    private boolean publishTasks(final Task[] tasks, final int offset, final int n) {
+        int retryTimes = 0;
+        // Claims the contiguous slots and publishes them at once.
+        while (!this.applyQueue.tryPublishEvents(TASK_TRANSLATOR, offset, n, tasks)) {
+            retryTimes++;
+            if (retryTimes > MAX_APPLY_RETRY_TIMES) {
+                return false;
+            }
+            ThreadHelper.onSpinWait();
+        }
+        return true;
+    }
+
+    private static void failTasks(final Task[] tasks, final int offset, final Status status) {
+        Utils.runInThread(() -> {
+            for (int i = offset; i < tasks.length; i++) {
+                final Closure done = tasks[i].getDone();
+                if (done != null) {
+                    done.run(status);
+                }
+            }
+        });
+    }
+
     @Override
     public Message handlePreVoteRequest(final RequestVoteRequest request) {
         boolean doUnlock = true;
@@ -1621,10 +1921,13 @@ public class NodeImpl implements Node, RaftServerService {
                     .newResponse(RequestVoteResponse.getDefaultInstance(), RaftError.EINVAL,
                         "Parse candidateId failed: %s.", request.getServerId());
             }
+            // The leader of a hibernated group is regarded as alive, it resumes heartbeating
+            // after being woken up.
+            final boolean hibernated = wakeupIfHibernating();
             boolean granted = false;
             // noinspection ConstantConditions
             do {
-                if (this.leaderId != null && !this.leaderId.isEmpty() && isCurrentLeaderValid()) {
+                if (this.leaderId != null && !this.leaderId.isEmpty() && (hibernated || isCurrentLeaderValid())) {
                     LOG.info(
                         "Node {} ignore PreVoteRequest from {}, term={}, currTerm={}, because the leader {}'s lease is still valid.",
                         getNodeId(), request.getServerId(), request.getTerm(), this.currTerm, this.leaderId);
@@ -1717,6 +2020,7 @@ public class NodeImpl implements Node, RaftServerService {
                     .newResponse(RequestVoteResponse.getDefaultInstance(), RaftError.EINVAL,
                         "Parse candidateId failed: %s.", request.getServerId());
             }
+            wakeupIfHibernating();
 
             // noinspection ConstantConditions
             do {
@@ -1845,83 +2149,22 @@ public class NodeImpl implements Node, RaftServerService {
         this.writeLock.lock();
         final int entriesCount = request.getEntriesCount();
         try {
-            if (!this.state.isActive()) {
-                LOG.warn("Node {} is not in active state, currTerm={}.", getNodeId(), this.currTerm);
-                return RpcFactoryHelper //
-                    .responseFactory() //
-                    .newResponse(AppendEntriesResponse.getDefaultInstance(), RaftError.EINVAL,
-                        "Node %s is not in active state, state %s.", getNodeId(), this.state.name());
-            }
-
-            final PeerId serverId = new PeerId();
-            if (!serverId.parse(request.getServerId())) {
-                LOG.warn("Node {} received AppendEntriesRequest from {} serverId bad format.", getNodeId(),
-                    request.getServerId());
-                return RpcFactoryHelper //
-                    .responseFactory() //
-                    .newResponse(AppendEntriesResponse.getDefaultInstance(), RaftError.EINVAL,
-                        "Parse serverId failed: %s.", request.getServerId());
-            }
-
-            // Check stale term
-            if (request.getTerm() < this.currTerm) {
-                LOG.warn("Node {} ignore stale AppendEntriesRequest from {}, term={}, currTerm={}.", getNodeId(),
-                    request.getServerId(), request.getTerm(), this.currTerm);
-                return AppendEntriesResponse.newBuilder() //
-                    .setSuccess(false) //
-                    .setTerm(this.currTerm) //
-                    .build();
-            }
-
-            // Check term and state to step down
-            checkStepDown(request.getTerm(), serverId);
-            if (!serverId.equals(this.leaderId)) {
-                LOG.error("Another peer {} declares that it is the leader at term {} which was occupied by leader {}.",
-                    serverId, this.currTerm, this.leaderId);
-                // Increase the term by 1 and make both leaders step down to minimize the
-                // loss of split brain
-                stepDown(request.getTerm() + 1, false, new Status(RaftError.ELEADERCONFLICT,
-                    "More than one leader in the same term."));
-                return AppendEntriesResponse.newBuilder() //
-                    .setSuccess(false) //
-                    .setTerm(request.getTerm() + 1) //
-                    .build();
-            }
-
-            updateLastLeaderTimestamp(Utils.monotonicMs());
-
-            if (entriesCount > 0 && this.snapshotExecutor != null && this.snapshotExecutor.isInstallingSnapshot()) {
-                LOG.warn("Node {} received AppendEntriesRequest while installing snapshot.", getNodeId());
-                return RpcFactoryHelper //
-                    .responseFactory() //
-                    .newResponse(AppendEntriesResponse.getDefaultInstance(), RaftError.EBUSY,
-                        "Node %s:%s is installing snapshot.", this.groupId, this.serverId);
+            final Message errorResponse = checkAppendEntriesRequest(request);
+            if (errorResponse != null) {
+                return errorResponse;
             }
 
             final long prevLogIndex = request.getPrevLogIndex();
-            final long prevLogTerm = request.getPrevLogTerm();
-            final long localPrevLogTerm = this.logManager.getTerm(prevLogIndex);
-            if (localPrevLogTerm != prevLogTerm) {
-                final long lastLogIndex = this.logManager.getLastLogIndex();
-
-                LOG.warn(
-                    "Node {} reject term_unmatched AppendEntriesRequest from {}, term={}, prevLogIndex={}, prevLogTerm={}, localPrevLogTerm={}, lastLogIndex={}, entriesSize={}.",
-                    getNodeId(), request.getServerId(), request.getTerm(), prevLogIndex, prevLogTerm, localPrevLogTerm,
-                    lastLogIndex, entriesCount);
-
-                return AppendEntriesResponse.newBuilder() //
-                    .setSuccess(false) //
-                    .setTerm(this.currTerm) //
-                    .setLastLogIndex(lastLogIndex) //
-                    .build();
-            }
-
             if (entriesCount == 0) {
                 // heartbeat
                 final AppendEntriesResponse.Builder respBuilder = AppendEntriesResponse.newBuilder() //
                     .setSuccess(true) //
                     .setTerm(this.currTerm) //
-                    .setLastLogIndex(this.logManager.getLastLogIndex());
+                    .setLastLogIndex(this.logManager.getLastLogIndex()) //
+                    .setCompressTypes(Compressors.supportedTypes());
+                if (request.getHibernate()) {
+                    hibernateFollower(request);
+                }
                 doUnlock = false;
                 this.writeLock.unlock();
                 // see the comments at FollowerStableClosure#run()
@@ -1930,37 +2173,10 @@ public class NodeImpl implements Node, RaftServerService {
             }
 
             // Parse request
-            long index = prevLogIndex;
             final List<LogEntry> entries = new ArrayList<>(entriesCount);
-            ByteBuffer allData = null;
-            if (request.hasData()) {
-                allData = request.getData().asReadOnlyByteBuffer();
-            }
-
-            final List<RaftOutter.EntryMeta> entriesList = request.getEntriesList();
-            for (int i = 0; i < entriesCount; i++) {
-                index++;
-                final RaftOutter.EntryMeta entry = entriesList.get(i);
-
-                final LogEntry logEntry = logEntryFromMeta(index, allData, entry);
-
-                if (logEntry != null) {
-                    // Validate checksum
-                    if (this.raftOptions.isEnableLogEntryChecksum() && logEntry.isCorrupted()) {
-                        long realChecksum = logEntry.checksum();
-                        LOG.error(
-                            "Corrupted log entry received from leader, index={}, term={}, expectedChecksum={}, realChecksum={}",
-                            logEntry.getId().getIndex(), logEntry.getId().getTerm(), logEntry.getChecksum(),
-                            realChecksum);
-                        return RpcFactoryHelper //
-                            .responseFactory() //
-                            .newResponse(AppendEntriesResponse.getDefaultInstance(), RaftError.EINVAL,
-                                "The log entry is corrupted, index=%d, term=%d, expectedChecksum=%d, realChecksum=%d",
-                                logEntry.getId().getIndex(), logEntry.getId().getTerm(), logEntry.getChecksum(),
-                                realChecksum);
-                    }
-                    entries.add(logEntry);
-                }
+            final Message corruptedResponse = parseEntries(request, entries);
+            if (corruptedResponse != null) {
+                return corruptedResponse;
             }
 
             final FollowerStableClosure closure = new FollowerStableClosure(request, AppendEntriesResponse.newBuilder()
@@ -1978,6 +2194,214 @@ public class NodeImpl implements Node, RaftServerService {
         }
     }
 
+    @Override
+    public Message handleAppendEntriesRequests(final List<AppendEntriesRequest> requests,
+                                               final List<RpcRequestClosure> dones) {
+        Requires.requireTrue(!requests.isEmpty() && requests.size() == dones.size(), "Invalid requests size");
+        if (requests.size() == 1) {
+            return handleAppendEntriesRequest(requests.get(0), dones.get(0));
+        }
+        final long startMs = Utils.monotonicMs();
+        this.writeLock.lock();
+        int entriesCount = 0;
+        try {
+            // The requests are consecutive from the same leader, so the first one is checked as usual,
+            // the others are checked to follow the previous one.
+            final AppendEntriesRequest first = requests.get(0);
+            final Message errorResponse = checkAppendEntriesRequest(first);
+            if (errorResponse != null) {
+                return errorResponse;
+            }
+
+            for (final AppendEntriesRequest request : requests) {
+                entriesCount += request.getEntriesCount();
+            }
+            final List<LogEntry> entries = new ArrayList<>(entriesCount);
+            final List<FollowerStableClosure> closures = new ArrayList<>(requests.size());
+            AppendEntriesRequest prev = null;
+            int accepted = 0;
+            for (; accepted < requests.size(); accepted++) {
+                final AppendEntriesRequest request = requests.get(accepted);
+                if (prev != null && !isFollowing(prev, request)) {
+                    LOG.warn("Node {} received inconsecutive AppendEntriesRequest from {}, term={}, prevLogIndex={}, "
+                             + "prevLogTerm={}, entriesSize={}.", getNodeId(), request.getServerId(),
+                        request.getTerm(), request.getPrevLogIndex(), request.getPrevLogTerm(),
+                        request.getEntriesCount());
+                    break;
+                }
+                final int mark = entries.size();
+                if (parseEntries(request, entries) != null) {
+                    entries.subList(mark, entries.size()).clear();
+                    break;
+                }
+                closures.add(new FollowerStableClosure(request, AppendEntriesResponse.newBuilder().setTerm(
+                    this.currTerm), this, dones.get(accepted), this.currTerm));
+                prev = request;
+            }
+
+            if (!closures.isEmpty()) {
+                // Append and flush the entries of the accepted requests at once, responds them one by one
+                // in order.
+                this.logManager.appendEntries(entries, new LogManager.StableClosure() {
+
+                    @Override
+                    public void run(final Status status) {
+                        for (final FollowerStableClosure closure : closures) {
+                            closure.run(status);
+                        }
+                    }
+                });
+                // update configuration after _log_manager updated its memory status
+                checkAndSetConfiguration(true);
+                this.metrics.recordSize("handle-append-entries-coalesced-requests", accepted);
+            }
+            // The rejected request and the ones after it are handled one by one after the accepted
+            // entries, so each of them is checked against the log and responded by its own error.
+            for (int i = accepted; i < requests.size(); i++) {
+                final Message response = handleAppendEntriesRequest(requests.get(i), dones.get(i));
+                if (response != null) {
+                    dones.get(i).sendResponse(response);
+                }
+            }
+            return null;
+        } finally {
+            this.writeLock.unlock();
+            this.metrics.recordLatency("handle-append-entries", Utils.monotonicMs() - startMs);
+            this.metrics.recordSize("handle-append-entries-count", entriesCount);
+        }
+    }
+
+    /**
+     * Returns true if the request is from the same leader and its entries follow the previous one.
+     */
+    private static boolean isFollowing(final AppendEntriesRequest prev, final AppendEntriesRequest request) {
+        final int prevCount = prev.getEntriesCount();
+        return request.getEntriesCount() > 0 && request.getTerm() == prev.getTerm()
+               && request.getServerId().equals(prev.getServerId())
+               && request.getPrevLogIndex() == prev.getPrevLogIndex() + prevCount
+               && request.getPrevLogTerm() == prev.getEntries(prevCount - 1).getTerm();
+    }
+
+    /**
+     * Checks the AppendEntries request before appending entries, returns the error response or null
+     * if the request is acceptable. It must be called with write lock held.
+     */
+    private Message checkAppendEntriesRequest(final AppendEntriesRequest request) {
+        if (!this.state.isActive()) {
+            LOG.warn("Node {} is not in active state, currTerm={}.", getNodeId(), this.currTerm);
+            return RpcFactoryHelper //
+                .responseFactory() //
+                .newResponse(AppendEntriesResponse.getDefaultInstance(), RaftError.EINVAL,
+                    "Node %s is not in active state, state %s.", getNodeId(), this.state.name());
+        }
+
+        final PeerId serverId = new PeerId();
+        if (!serverId.parse(request.getServerId())) {
+            LOG.warn("Node {} received AppendEntriesRequest from {} serverId bad format.", getNodeId(),
+                request.getServerId());
+            return RpcFactoryHelper //
+                .responseFactory() //
+                .newResponse(AppendEntriesResponse.getDefaultInstance(), RaftError.EINVAL,
+                    "Parse serverId failed: %s.", request.getServerId());
+        }
+
+        // Check stale term
+        if (request.getTerm() < this.currTerm) {
+            LOG.warn("Node {} ignore stale AppendEntriesRequest from {}, term={}, currTerm={}.", getNodeId(),
+                request.getServerId(), request.getTerm(), this.currTerm);
+            return AppendEntriesResponse.newBuilder() //
+                .setSuccess(false) //
+                .setTerm(this.currTerm) //
+                .build();
+        }
+
+        // Check term and state to step down
+        checkStepDown(request.getTerm(), serverId);
+        if (!serverId.equals(this.leaderId)) {
+            LOG.error("Another peer {} declares that it is the leader at term {} which was occupied by leader {}.",
+                serverId, this.currTerm, this.leaderId);
+            // Increase the term by 1 and make both leaders step down to minimize the
+            // loss of split brain
+            stepDown(request.getTerm() + 1, false, new Status(RaftError.ELEADERCONFLICT,
+                "More than one leader in the same term."));
+            return AppendEntriesResponse.newBuilder() //
+                .setSuccess(false) //
+                .setTerm(request.getTerm() + 1) //
+                .build();
+        }
+
+        updateLastLeaderTimestamp(Utils.monotonicMs());
+        if (!request.getHibernate()) {
+            wakeupIfHibernating();
+        }
+
+        final int entriesCount = request.getEntriesCount();
+        if (entriesCount > 0 && this.snapshotExecutor != null && this.snapshotExecutor.isInstallingSnapshot()) {
+            LOG.warn("Node {} received AppendEntriesRequest while installing snapshot.", getNodeId());
+            return RpcFactoryHelper //
+                .responseFactory() //
+                .newResponse(AppendEntriesResponse.getDefaultInstance(), RaftError.EBUSY,
+                    "Node %s:%s is installing snapshot.", this.groupId, this.serverId);
+        }
+
+        final long prevLogIndex = request.getPrevLogIndex();
+        final long prevLogTerm = request.getPrevLogTerm();
+        final long localPrevLogTerm = this.logManager.getTerm(prevLogIndex);
+        if (localPrevLogTerm != prevLogTerm) {
+            final long lastLogIndex = this.logManager.getLastLogIndex();
+
+            LOG.warn(
+                "Node {} reject term_unmatched AppendEntriesRequest from {}, term={}, prevLogIndex={}, prevLogTerm={}, localPrevLogTerm={}, lastLogIndex={}, entriesSize={}.",
+                getNodeId(), request.getServerId(), request.getTerm(), prevLogIndex, prevLogTerm, localPrevLogTerm,
+                lastLogIndex, entriesCount);
+
+            return AppendEntriesResponse.newBuilder() //
+                .setSuccess(false) //
+                .setTerm(this.currTerm) //
+                .setLastLogIndex(lastLogIndex) //
+                .build();
+        }
+        return null;
+    }
+
+    /**
+     * Parses the entries of request into the list, returns the error response if any entry is corrupted.
+     */
+    private Message parseEntries(final AppendEntriesRequest request, final List<LogEntry> entries) {
+        long index = request.getPrevLogIndex();
+        ByteBuffer allData = null;
+        if (request.hasData()) {
+            allData = request.getData().asReadOnlyByteBuffer();
+        }
+
+        final List<RaftOutter.EntryMeta> entriesList = request.getEntriesList();
+        final int entriesCount = request.getEntriesCount();
+        for (int i = 0; i < entriesCount; i++) {
+            index++;
+            final RaftOutter.EntryMeta entry = entriesList.get(i);
+
+            final LogEntry logEntry = logEntryFromMeta(index, allData, entry);
+
+            if (logEntry != null) {
+                // Validate checksum
+                if (this.raftOptions.isEnableLogEntryChecksum() && logEntry.isCorrupted()) {
+                    long realChecksum = logEntry.checksum();
+                    LOG.error(
+                        "Corrupted log entry received from leader, index={}, term={}, expectedChecksum={}, realChecksum={}",
+                        logEntry.getId().getIndex(), logEntry.getId().getTerm(), logEntry.getChecksum(), realChecksum);
+                    return RpcFactoryHelper //
+                        .responseFactory() //
+                        .newResponse(AppendEntriesResponse.getDefaultInstance(), RaftError.EINVAL,
+                            "The log entry is corrupted, index=%d, term=%d, expectedChecksum=%d, realChecksum=%d",
+                            logEntry.getId().getIndex(), logEntry.getId().getTerm(), logEntry.getChecksum(),
+                            realChecksum);
+                }
+                entries.add(logEntry);
+            }
+        }
+        return null;
+    }
+
     private LogEntry logEntryFromMeta(final long index, final ByteBuffer allData, final RaftOutter.EntryMeta entry) {
         if (entry.getType() != EnumOutter.EntryType.ENTRY_TYPE_UNKNOWN) {
             final LogEntry logEntry = new LogEntry();
@@ -2204,6 +2628,125 @@ public class NodeImpl implements Node, RaftServerService {
             if (!this.conf.getOldConf().isEmpty()) {
                 checkDeadNodes(this.conf.getOldConf(), monotonicNowMs);
             }
+            if (this.state == State.STATE_LEADER && canHibernate(monotonicNowMs)) {
+                // Revokes the view so that the lock-free appending falls back to the locked path, which
+                // wakes the group up. Then checks again since tasks may be appended before the revoking.
+                revokeLeaderView();
+                if (!canHibernate(Utils.monotonicMs())) {
+                    publishLeaderView();
+                    return;
+                }
+                LOG.info("Node {} hibernates the group after being idle for {} ms, term={}, lastLogIndex={}.",
+                    getNodeId(), monotonicNowMs - this.lastActiveTimestamp, this.currTerm,
+                    this.logManager.getLastLogIndex());
+                // The replicators stop heartbeating once the followers acknowledge the hibernation.
+                this.hibernating = true;
+                stopStepDownTimer();
+            }
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    // should be in writeLock
+    private boolean canHibernate(final long monotonicNowMs) {
+        final int hibernateTimeoutMs = this.options.getHibernateTimeoutMs();
+        if (hibernateTimeoutMs <= 0 || this.hibernating
+            || monotonicNowMs - this.lastActiveTimestamp < hibernateTimeoutMs) {
+            return false;
+        }
+        if (this.confCtx.isBusy() || !this.conf.isStable() || this.stopTransferArg != null) {
+            return false;
+        }
+        final long lastLogIndex = this.logManager.getLastLogIndex();
+        if (this.ballotBox.getLastCommittedIndex() != lastLogIndex) {
+            return false;
+        }
+        // All the followers and learners must be alive and have caught up.
+        final List<PeerId> peers = new ArrayList<>(this.conf.listPeers());
+        peers.addAll(this.conf.listLearners());
+        for (final PeerId peer : peers) {
+            if (peer.equals(this.serverId)) {
+                continue;
+            }
+            final ThreadId rid = this.replicatorGroup.getReplicator(peer);
+            if (rid == null
+                || Replicator.getNextIndex(rid) != lastLogIndex + 1
+                || monotonicNowMs - this.replicatorGroup.getLastRpcSendTimestamp(peer) > this.options
+                    .getLeaderLeaseTimeoutMs()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // should be in writeLock
+    private void hibernateFollower(final AppendEntriesRequest request) {
+        if (this.hibernating || this.state != State.STATE_FOLLOWER) {
+            return;
+        }
+        // Suspend the election timer only if all the logs are committed and replicated,
+        // the replicator of leader checks the same condition.
+        final long prevLogIndex = request.getPrevLogIndex();
+        if (request.getCommittedIndex() != prevLogIndex || this.logManager.getLastLogIndex() != prevLogIndex) {
+            return;
+        }
+        LOG.info("Node {} hibernates with leader {}, term={}, lastLogIndex={}.", getNodeId(), this.leaderId,
+            this.currTerm, prevLogIndex);
+        this.hibernating = true;
+        this.electionTimer.stop();
+    }
+
+    // should be in readLock or writeLock
+    private void markLeaderActive() {
+        this.lastActiveTimestamp = Utils.monotonicMs();
+        wakeupIfHibernating();
+    }
+
+    // should be in readLock or writeLock
+    private boolean wakeupIfHibernating() {
+        if (!this.hibernating) {
+            return false;
+        }
+        this.hibernating = false;
+        LOG.info("Node {} wakes up from hibernation, term={}, state={}.", getNodeId(), this.currTerm, this.state);
+        if (this.state == State.STATE_LEADER) {
+            this.lastActiveTimestamp = Utils.monotonicMs();
+            this.replicatorGroup.wakeupAll();
+            this.stepDownTimer.start();
+            publishLeaderView();
+        } else if (this.state == State.STATE_FOLLOWER && !isLearner()) {
+            this.electionTimer.restart();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the confirmer of ReadIndex by the responses of replicators, null if it's disabled.
+     */
+    ReadIndexPiggyback getReadIndexPiggyback() {
+        return this.readIndexPiggyback;
+    }
+
+    /**
+     * Returns the batcher of heartbeats, null if heartbeats are not batched.
+     */
+    HeartbeatBatcher getHeartbeatBatcher() {
+        return this.heartbeatBatcher;
+    }
+
+    /**
+     * Returns true when the group is hibernated on this node.
+     */
+    public boolean isHibernating() {
+        return this.hibernating;
+    }
+
+    @Override
+    public void wakeup() {
+        this.writeLock.lock();
+        try {
+            wakeupIfHibernating();
         } finally {
             this.writeLock.unlock();
         }
@@ -2251,15 +2794,22 @@ public class NodeImpl implements Node, RaftServerService {
             entry.setOldLearners(oldConf.listLearners());
         }
         final ConfigurationChangeDone configurationChangeDone = new ConfigurationChangeDone(this.currTerm, leaderStart);
-        // Use the new_conf to deal the quorum of this very log
-        if (!this.ballotBox.appendPendingTask(newConf, oldConf, configurationChangeDone)) {
-            Utils.runClosureInThread(configurationChangeDone, new Status(RaftError.EINTERNAL, "Fail to append task."));
-            return;
+        // The tasks after the configuration entry are appended with the new configuration.
+        revokeLeaderView();
+        try {
+            // Use the new_conf to deal the quorum of this very log
+            if (!this.ballotBox.appendPendingTask(newConf, oldConf, configurationChangeDone)) {
+                Utils.runClosureInThread(configurationChangeDone, new Status(RaftError.EINTERNAL,
+                    "Fail to append task."));
+                return;
+            }
+            final List<LogEntry> entries = new ArrayList<>();
+            entries.add(entry);
+            this.logManager.appendEntries(entries, new LeaderStableClosure(entries));
+            checkAndSetConfiguration(false);
+        } finally {
+            publishLeaderView();
         }
-        final List<LogEntry> entries = new ArrayList<>();
-        entries.add(entry);
-        this.logManager.appendEntries(entries, new LeaderStableClosure(entries));
-        checkAndSetConfiguration(false);
     }
 
     private void unsafeRegisterConfChange(final Configuration oldConf, final Configuration newConf, final Closure done) {
@@ -2282,6 +2832,7 @@ public class NodeImpl implements Node, RaftServerService {
             }
             return;
         }
+        markLeaderActive();
         // check concurrent conf change
         if (this.confCtx.isBusy()) {
             LOG.warn("Node {} refused configuration concurrent changing.", getNodeId());
@@ -2343,6 +2894,11 @@ public class NodeImpl implements Node, RaftServerService {
         }
     }
 
+    @OnlyForTest
+    boolean hasLeaderView() {
+        return this.leaderView != null;
+    }
+
     @OnlyForTest
     ConfigurationEntry getConf() {
         this.readLock.lock();
@@ -2685,6 +3241,9 @@ public class NodeImpl implements Node, RaftServerService {
                 if (this.rpcService != null) {
                     this.rpcService.shutdown();
                 }
+                if (this.heartbeatBatcher != null) {
+                    this.heartbeatBatcher.release();
+                }
                 if (this.applyQueue != null) {
                     final CountDownLatch latch = new CountDownLatch(1);
                     this.shutdownLatch = latch;
@@ -2797,6 +3356,7 @@ public class NodeImpl implements Node, RaftServerService {
                     this.fsmCaller.onLeaderStart(term);
                     this.state = State.STATE_LEADER;
                     this.stopTransferArg = null;
+                    publishLeaderView();
                 }
             }
         } finally {
@@ -3059,6 +3619,7 @@ public class NodeImpl implements Node, RaftServerService {
                 return new Status(this.state == State.STATE_TRANSFERRING ? RaftError.EBUSY : RaftError.EPERM,
                         "Not a leader");
             }
+            markLeaderActive();
             if (this.confCtx.isBusy()) {
                 // It's very messy to deal with the case when the |peer| received
                 // TimeoutNowRequest and increase the term while somehow another leader
@@ -3102,6 +3663,7 @@ public class NodeImpl implements Node, RaftServerService {
                 LOG.warn("No such peer {}.", peer);
                 return new Status(RaftError.EINVAL, "No such peer %s", peer);
             }
+            revokeLeaderView();
             this.state = State.STATE_TRANSFERRING;
             final Status status = new Status(RaftError.ETRANSFERLEADERSHIP,
                 "Raft leader is transferring leadership to %s", peerId);
@@ -3323,6 +3885,7 @@ public class NodeImpl implements Node, RaftServerService {
         final long _currTerm;
         final String _conf;
         final int _targetPriority;
+        final boolean _hibernating;
         this.readLock.lock();
         try {
             _nodeId = String.valueOf(getNodeId());
@@ -3331,6 +3894,7 @@ public class NodeImpl implements Node, RaftServerService {
             _currTerm = this.currTerm;
             _conf = String.valueOf(this.conf);
             _targetPriority = this.targetPriority;
+            _hibernating = this.hibernating;
         } finally {
             this.readLock.unlock();
         }
@@ -3346,6 +3910,8 @@ public class NodeImpl implements Node, RaftServerService {
             .println(_conf);
         out.print("targetPriority: ") //
             .println(_targetPriority);
+        out.print("hibernating: ") //
+            .println(_hibernating);
 
         // timers
         out.println("electionTimer: ");
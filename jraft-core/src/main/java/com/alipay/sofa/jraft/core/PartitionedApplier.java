@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alipay.sofa.jraft.ApplyBatch;
+import com.alipay.sofa.jraft.ApplyPartitioner;
+import com.alipay.sofa.jraft.BatchStateMachine;
+import com.alipay.sofa.jraft.Closure;
+import com.alipay.sofa.jraft.Iterator;
+import com.alipay.sofa.jraft.StateMachine;
+import com.alipay.sofa.jraft.Status;
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.error.RaftError;
+import com.alipay.sofa.jraft.util.ExecutorServiceHelper;
+import com.alipay.sofa.jraft.util.NamedThreadFactory;
+import com.alipay.sofa.jraft.util.Requires;
+import com.alipay.sofa.jraft.util.ThreadPoolUtil;
+import com.alipay.sofa.jraft.util.Utils;
+
+/**
+ * Applies a contiguous range of committed data tasks on lanes in parallel. The tasks are
+ * assigned to the lanes by their partitions, every lane calls {@link StateMachine#onApply(Iterator)}
+ * with an iterator over its own tasks in the order of log index, or
+ * {@link BatchStateMachine#onApplyBatch(ApplyBatch)} with a batch of them if the state machine is a
+ * BatchStateMachine, so the order of tasks in a partition is preserved.
+ *
+ * {@link #apply()} returns after all lanes have finished, which makes every range a barrier: the
+ * FSM caller advances the applied index, applies the configuration entries and saves or loads
+ * snapshots only when the lanes are idle.
+ *
+ * It is not thread-safe and should be called by the FSM caller thread, the first lane runs on the
+ * caller thread and the others on a dedicated thread pool.
+ *
+ * @author agent
+ */
+final class PartitionedApplier {
+
+    private static final Logger    LOG = LoggerFactory.getLogger(PartitionedApplier.class);
+
+    private final StateMachine     fsm;
+    private final ApplyPartitioner partitioner;
+    private final Lane[]           lanes;
+    private final int              capacity;
+    private final ExecutorService  executor;
+    private long                   firstIndex;
+    private int                    size;
+    private Status                 errorStatus;
+
+    PartitionedApplier(final StateMachine fsm, final ApplyPartitioner partitioner, final int parallelism,
+                       final int capacity) {
+        Requires.requireTrue(parallelism > 0, "parallelism must be positive");
+        Requires.requireTrue(capacity > 0, "capacity must be positive");
+        this.fsm = Requires.requireNonNull(fsm, "fsm");
+        this.partitioner = Requires.requireNonNull(partitioner, "partitioner");
+        this.capacity = capacity;
+        this.lanes = new Lane[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            this.lanes[i] = new Lane(fsm, Math.min(capacity, 64));
+        }
+        if (parallelism > 1) {
+            this.executor = ThreadPoolUtil.newBuilder() //
+                .poolName("JRaft-FSMCaller-Lane") //
+                .enableMetric(false) //
+                .coreThreads(parallelism - 1) //
+                .maximumThreads(parallelism - 1) //
+                .keepAliveSeconds(60L) //
+                .workQueue(new LinkedBlockingQueue<>()) //
+                .threadFactory(new NamedThreadFactory("JRaft-FSMCaller-Lane-", true)) //
+                .build();
+        } else {
+            this.executor = null;
+        }
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isFull() {
+        return this.size == this.capacity;
+    }
+
+    long getLastIndex() {
+        return this.firstIndex + this.size - 1;
+    }
+
+    /**
+     * The status of the first failed lane, null if all tasks are applied.
+     */
+    Status getErrorStatus() {
+        return this.errorStatus;
+    }
+
+    /**
+     * Adds the next task of range to the lane of its partition.
+     */
+    void add(final LogEntry entry, final Closure done) {
+        Requires.requireTrue(!isFull(), "applier is full");
+        final long index = entry.getId().getIndex();
+        if (this.size == 0) {
+            this.firstIndex = index;
+        } else {
+            Requires.requireTrue(index == this.firstIndex + this.size, "discontinuous index: %d", index);
+        }
+        final ByteBuffer data = entry.getData();
+        final int partition = data == null ? 0 : this.partitioner.partition(data);
+        final Lane lane = this.lanes[(partition & Integer.MAX_VALUE) % this.lanes.length];
+        lane.add(index, entry.getId().getTerm(), data, done);
+        this.size++;
+    }
+
+    /**
+     * Applies the added tasks on the lanes and waits for all of them.
+     *
+     * @return the log index of the first task which is not applied, {@code getLastIndex() + 1}
+     *         if all the tasks are applied, the tasks failed only if {@link #getErrorStatus()}
+     *         is not null
+     */
+    long apply() throws InterruptedException {
+        int forked = 0;
+        for (int i = 1; i < this.lanes.length; i++) {
+            if (this.lanes[i].size > 0) {
+                forked++;
+            }
+        }
+        final CountDownLatch latch = new CountDownLatch(forked);
+        for (int i = 1; i < this.lanes.length; i++) {
+            final Lane lane = this.lanes[i];
+            if (lane.size > 0) {
+                this.executor.execute(() -> {
+                    try {
+                        lane.run();
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+        }
+        if (this.lanes[0].size > 0) {
+            this.lanes[0].run();
+        }
+        latch.await();
+
+        long failIndex = getLastIndex() + 1;
+        for (final Lane lane : this.lanes) {
+            if (lane.errorPos < 0) {
+                continue;
+            }
+            // The error found after all the tasks of lane fails since the next index of its last one.
+            final long laneFailIndex = lane.errorPos < lane.size ? lane.indexes[lane.errorPos]
+                : lane.indexes[lane.size - 1] + 1;
+            if (this.errorStatus == null || laneFailIndex < failIndex) {
+                failIndex = laneFailIndex;
+                this.errorStatus = lane.errorStatus;
+            }
+        }
+        return failIndex;
+    }
+
+    /**
+     * Runs the closures of the tasks which are not applied with the error status.
+     */
+    void failRest(final Status status) {
+        for (final Lane lane : this.lanes) {
+            if (lane.errorPos < 0) {
+                continue;
+            }
+            for (int i = lane.errorPos; i < lane.size; i++) {
+                if (lane.dones[i] != null) {
+                    Utils.runClosureInThread(lane.dones[i], status);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the tasks and releases their references.
+     */
+    void reset() {
+        for (final Lane lane : this.lanes) {
+            lane.reset();
+        }
+        this.firstIndex = 0;
+        this.size = 0;
+        this.errorStatus = null;
+    }
+
+    void shutdown() {
+        if (this.executor != null) {
+            ExecutorServiceHelper.shutdownAndAwaitTermination(this.executor);
+        }
+    }
+
+    /**
+     * The tasks of a lane, iterated by the state machine or delivered to it as a batch.
+     */
+    static final class Lane implements Iterator, ApplyBatch {
+
+        private final StateMachine fsm;
+        private long[]             indexes;
+        private long[]             terms;
+        private ByteBuffer[]       datas;
+        private Closure[]          dones;
+        private int                size;
+        private int                pos;
+        private int                errorPos = -1;
+        private Status             errorStatus;
+
+        Lane(final StateMachine fsm, final int initialCapacity) {
+            this.fsm = fsm;
+            this.indexes = new long[initialCapacity];
+            this.terms = new long[initialCapacity];
+            this.datas = new ByteBuffer[initialCapacity];
+            this.dones = new Closure[initialCapacity];
+        }
+
+        void add(final long index, final long term, final ByteBuffer data, final Closure done) {
+            if (this.size == this.indexes.length) {
+                final int newCapacity = this.size << 1;
+                this.indexes = Arrays.copyOf(this.indexes, newCapacity);
+                this.terms = Arrays.copyOf(this.terms, newCapacity);
+                this.datas = Arrays.copyOf(this.datas, newCapacity);
+                this.dones = Arrays.copyOf(this.dones, newCapacity);
+            }
+            this.indexes[this.size] = index;
+            this.terms[this.size] = term;
+            this.datas[this.size] = data;
+            this.dones[this.size] = done;
+            this.size++;
+        }
+
+        void run() {
+            try {
+                if (this.fsm instanceof BatchStateMachine) {
+                    ((BatchStateMachine) this.fsm).onApplyBatch(this);
+                    this.pos = this.errorPos >= 0 ? this.errorPos : this.size;
+                    return;
+                }
+                while (hasNext()) {
+                    this.fsm.onApply(this);
+                    if (hasNext()) {
+                        LOG.error("Iterator is still valid, did you return before iterator reached the end?");
+                        // Try move to next in case that we pass the same log twice.
+                        this.pos++;
+                    }
+                }
+            } catch (final Throwable t) {
+                LOG.error("StateMachine meet critical error when applying task at index={}.", getIndex(), t);
+                if (this.pos < this.size && this.errorPos < 0) {
+                    setErrorPos(this.pos, new Status(RaftError.ESTATEMACHINE, "StateMachine meet critical error: %s.",
+                        t.getMessage()));
+                }
+            }
+        }
+
+        void reset() {
+            Arrays.fill(this.datas, 0, this.size, null);
+            Arrays.fill(this.dones, 0, this.size, null);
+            this.size = 0;
+            this.pos = 0;
+            this.errorPos = -1;
+            this.errorStatus = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.pos < this.size && this.errorPos < 0;
+        }
+
+        @Override
+        public ByteBuffer next() {
+            final ByteBuffer data = getData();
+            if (hasNext()) {
+                this.pos++;
+            }
+            return data;
+        }
+
+        @Override
+        public ByteBuffer getData() {
+            return this.pos < this.size ? this.datas[this.pos] : null;
+        }
+
+        @Override
+        public long getIndex() {
+            if (this.pos < this.size) {
+                return this.indexes[this.pos];
+            }
+            return this.size > 0 ? this.indexes[this.size - 1] + 1 : 0;
+        }
+
+        @Override
+        public long getTerm() {
+            return this.pos < this.size ? this.terms[this.pos] : 0;
+        }
+
+        @Override
+        public Closure done() {
+            return this.pos < this.size ? this.dones[this.pos] : null;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public long getFirstIndex() {
+            return this.indexes[0];
+        }
+
+        @Override
+        public long getLastIndex() {
+            return this.indexes[this.size - 1];
+        }
+
+        @Override
+        public long getIndex(final int pos) {
+            checkPos(pos);
+            return this.indexes[pos];
+        }
+
+        @Override
+        public long getTerm(final int pos) {
+            checkPos(pos);
+            return this.terms[pos];
+        }
+
+        @Override
+        public ByteBuffer getData(final int pos) {
+            checkPos(pos);
+            return this.datas[pos];
+        }
+
+        @Override
+        public Closure done(final int pos) {
+            checkPos(pos);
+            return this.dones[pos];
+        }
+
+        @Override
+        public void setError(final int pos, final Status st) {
+            if (pos < 0 || pos > this.size) {
+                throw new IndexOutOfBoundsException("pos=" + pos + ", size=" + this.size);
+            }
+            setErrorPos(pos, st);
+        }
+
+        private void checkPos(final int pos) {
+            if (pos < 0 || pos >= this.size) {
+                throw new IndexOutOfBoundsException("pos=" + pos + ", size=" + this.size);
+            }
+        }
+
+        @Override
+        public void setErrorAndRollback(final long ntail, final Status st) {
+            Requires.requireTrue(ntail > 0 || (ntail == 0 && this.pos >= this.size), "Invalid ntail=" + ntail);
+            // Same as IteratorImpl, the current task is counted if the iterator is not at the end.
+            final long errorPos = this.pos < this.size ? this.pos - ntail + 1 : this.pos - ntail;
+            setErrorPos((int) Math.max(0, errorPos), st);
+        }
+
+        private void setErrorPos(final int errorPos, final Status st) {
+            if (this.errorPos >= 0) {
+                // Keeps the first error.
+                return;
+            }
+            this.errorPos = errorPos;
+            this.errorStatus = st != null ? st : new Status(RaftError.ESTATEMACHINE, "none");
+        }
+    }
+}
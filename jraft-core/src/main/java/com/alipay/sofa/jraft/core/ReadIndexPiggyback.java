@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.alipay.sofa.jraft.JRaftUtils;
+import com.alipay.sofa.jraft.Status;
+import com.alipay.sofa.jraft.entity.PeerId;
+import com.alipay.sofa.jraft.error.RaftError;
+import com.alipay.sofa.jraft.rpc.RpcRequests.ReadIndexResponse;
+import com.alipay.sofa.jraft.rpc.RpcResponseClosure;
+import com.alipay.sofa.jraft.util.SystemPropertyUtil;
+import com.alipay.sofa.jraft.util.Utils;
+import com.alipay.sofa.jraft.util.timer.Timer;
+
+/**
+ * Confirms the leadership for {@link com.alipay.sofa.jraft.option.ReadOnlyOption#ReadOnlySafe} reads by the
+ * regular heartbeat and AppendEntries responses of replicators, instead of sending a heartbeat round for every
+ * read batch.
+ *
+ * A read is confirmed once the leader itself and the followers in the quorum have acked a request which was sent
+ * after the read is registered, the send time must be strictly after the register time because the times are in
+ * milliseconds. The reads are registered in order of time, so they are confirmed in order.
+ *
+ * It's thread-safe, the confirmed reads are notified in another thread since the acks are received in the lock of
+ * replicator.
+ *
+ * A read which is not confirmed in the read-index timeout, e.g. the followers stop acking, is failed with
+ * {@link RaftError#ETIMEDOUT} instead of waiting for the quorum forever.
+ *
+ * @author agent
+ */
+final class ReadIndexPiggyback {
+
+    // The same as the timeout of ReadIndexClosure
+    private static final long DEFAULT_TIMEOUT = SystemPropertyUtil.getInt("jraft.read-index.timeout", 2 * 1000);
+
+    private static class PendingRead {
+        final long                                  registerMs;
+        final List<PeerId>                          peers;
+        final int                                   quorum;
+        final ReadIndexResponse.Builder             respBuilder;
+        final RpcResponseClosure<ReadIndexResponse> closure;
+
+        PendingRead(final long registerMs, final List<PeerId> peers, final int quorum,
+                    final ReadIndexResponse.Builder respBuilder, final RpcResponseClosure<ReadIndexResponse> closure) {
+            this.registerMs = registerMs;
+            this.peers = peers;
+            this.quorum = quorum;
+            this.respBuilder = respBuilder;
+            this.closure = closure;
+        }
+    }
+
+    private final PeerId             serverId;
+    // <peer, the latest send time of the acked requests>
+    private final Map<PeerId, Long>  ackedSendTimes = new ConcurrentHashMap<>();
+    private final Queue<PendingRead> pendingReads   = new ConcurrentLinkedQueue<>();
+    private final long               timeoutMs;
+    private volatile long            term;
+
+    ReadIndexPiggyback(final PeerId serverId) {
+        this(serverId, DEFAULT_TIMEOUT);
+    }
+
+    ReadIndexPiggyback(final PeerId serverId, final long timeoutMs) {
+        this.serverId = serverId;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Starts to confirm the reads of a new leader term, called when the node becomes leader.
+     */
+    synchronized void start(final long term) {
+        this.ackedSendTimes.clear();
+        this.term = term;
+    }
+
+    /**
+     * Registers a read which is confirmed by the acks of requests sent after now.
+     *
+     * @param peers       the peers of current configuration, including the leader itself
+     * @param quorum      the quorum of current configuration
+     * @param respBuilder the response builder whose index is set
+     * @param closure     the closure to run when confirmed
+     */
+    void addRead(final List<PeerId> peers, final int quorum, final ReadIndexResponse.Builder respBuilder,
+                 final RpcResponseClosure<ReadIndexResponse> closure) {
+        this.pendingReads
+            .add(new PendingRead(Utils.monotonicMs(), new ArrayList<>(peers), quorum, respBuilder, closure));
+        TimeoutScanner.TIMER.newTimeout(timeout -> expireReads(), this.timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called when a follower acks a heartbeat or AppendEntries request of the term.
+     *
+     * @param term        the term of replicator
+     * @param peer        the follower
+     * @param rpcSendTime the monotonic time when the request was sent
+     */
+    void onAck(final long term, final PeerId peer, final long rpcSendTime) {
+        if (term != this.term) {
+            return;
+        }
+        this.ackedSendTimes.merge(peer, rpcSendTime, Math::max);
+        if (!this.pendingReads.isEmpty()) {
+            confirmReads();
+        }
+    }
+
+    /**
+     * Fails all the pending reads, called when the leader steps down.
+     */
+    synchronized void failAll(final Status status) {
+        this.term = -1;
+        PendingRead read;
+        while ((read = this.pendingReads.poll()) != null) {
+            Utils.runClosureInThread(read.closure, status);
+        }
+    }
+
+    int getPendingCount() {
+        return this.pendingReads.size();
+    }
+
+    private synchronized void confirmReads() {
+        List<PendingRead> confirmed = null;
+        PendingRead read;
+        while ((read = this.pendingReads.peek()) != null && isConfirmed(read)) {
+            this.pendingReads.poll();
+            if (confirmed == null) {
+                confirmed = new ArrayList<>();
+            }
+            confirmed.add(read);
+        }
+        if (confirmed == null) {
+            return;
+        }
+        final List<PendingRead> reads = confirmed;
+        Utils.runInThread(() -> {
+            for (final PendingRead r : reads) {
+                r.respBuilder.setSuccess(true);
+                r.closure.setResponse(r.respBuilder.build());
+                r.closure.run(Status.OK());
+            }
+        });
+    }
+
+    /**
+     * Fails the reads which are not confirmed in the timeout, they are registered in order of time so the expired
+     * ones are at the head.
+     */
+    private synchronized void expireReads() {
+        final long nowMs = Utils.monotonicMs();
+        PendingRead read;
+        while ((read = this.pendingReads.peek()) != null && nowMs - read.registerMs >= this.timeoutMs) {
+            this.pendingReads.poll();
+            Utils.runClosureInThread(read.closure, new Status(RaftError.ETIMEDOUT,
+                "Read-index is not confirmed in %d ms.", this.timeoutMs));
+        }
+    }
+
+    private boolean isConfirmed(final PendingRead read) {
+        int acks = 0;
+        for (final PeerId peer : read.peers) {
+            if (peer.equals(this.serverId)) {
+                acks++;
+                continue;
+            }
+            final Long sendTime = this.ackedSendTimes.get(peer);
+            if (sendTime != null && sendTime > read.registerMs) {
+                acks++;
+            }
+        }
+        return acks >= read.quorum;
+    }
+
+    /**
+     * Lazy to create a timer
+     */
+    private static class TimeoutScanner {
+        private static final Timer TIMER = JRaftUtils.raftTimerFactory().createTimer(
+                                             "read-index-piggyback.timeout.scanner");
+    }
+}
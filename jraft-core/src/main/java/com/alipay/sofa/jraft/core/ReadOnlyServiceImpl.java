@@ -17,16 +17,15 @@
 package com.alipay.sofa.jraft.core;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +48,7 @@ import com.alipay.sofa.jraft.util.Bytes;
 import com.alipay.sofa.jraft.util.DisruptorBuilder;
 import com.alipay.sofa.jraft.util.DisruptorMetricSet;
 import com.alipay.sofa.jraft.util.LogExceptionHandler;
+import com.alipay.sofa.jraft.util.Mpsc;
 import com.alipay.sofa.jraft.util.NamedThreadFactory;
 import com.alipay.sofa.jraft.util.OnlyForTest;
 import com.alipay.sofa.jraft.util.ThreadHelper;
@@ -75,7 +75,6 @@ public class ReadOnlyServiceImpl implements ReadOnlyService, LastAppliedLogIndex
     private RingBuffer<ReadIndexEvent>                 readIndexQueue;
     private RaftOptions                                raftOptions;
     private NodeImpl                                   node;
-    private final Lock                                 lock                        = new ReentrantLock();
     private FSMCaller                                  fsmCaller;
     private volatile CountDownLatch                    shutdownLatch;
 
@@ -85,8 +84,18 @@ public class ReadOnlyServiceImpl implements ReadOnlyService, LastAppliedLogIndex
 
     private volatile RaftException                     error;
 
-    // <logIndex, statusList>
-    private final TreeMap<Long, List<ReadIndexStatus>> pendingNotifyStatus         = new TreeMap<>();
+    private volatile Status                            stopStatus;
+
+    /*
+     * The statuses waiting for their index to be applied. The response threads add them into the lock-free
+     * queue, and only one thread at a time drains it into the heap ordered by index, see drainPendingStatus().
+     */
+    private final Queue<ReadIndexStatus>               pendingNotifyStatus         = Mpsc.newMpscQueue();
+    private final PriorityQueue<ReadIndexStatus>       orderedPendingStatus        = new PriorityQueue<>(
+                                                                                       Comparator
+                                                                                           .comparingLong(ReadIndexStatus::getIndex));
+    private final AtomicInteger                        drainWip                    = new AtomicInteger();
+    private volatile long                              appliedIndexHint;
 
     private static final Logger                        LOG                         = LoggerFactory
                                                                                        .getLogger(ReadOnlyServiceImpl.class);
@@ -167,24 +176,14 @@ public class ReadOnlyServiceImpl implements ReadOnlyService, LastAppliedLogIndex
                 state.setIndex(readIndexResponse.getIndex());
             }
 
-            boolean doUnlock = true;
-            ReadOnlyServiceImpl.this.lock.lock();
-            try {
-                if (readIndexStatus.isApplied(ReadOnlyServiceImpl.this.fsmCaller.getLastAppliedIndex())) {
-                    // Already applied, notify readIndex request.
-                    ReadOnlyServiceImpl.this.lock.unlock();
-                    doUnlock = false;
-                    notifySuccess(readIndexStatus);
-                } else {
-                    // Not applied, add it to pending-notify cache.
-                    ReadOnlyServiceImpl.this.pendingNotifyStatus
-                        .computeIfAbsent(readIndexStatus.getIndex(), k -> new ArrayList<>(10)) //
-                        .add(readIndexStatus);
-                }
-            } finally {
-                if (doUnlock) {
-                    ReadOnlyServiceImpl.this.lock.unlock();
-                }
+            if (readIndexStatus.isApplied(ReadOnlyServiceImpl.this.fsmCaller.getLastAppliedIndex())) {
+                // Already applied, notify readIndex request.
+                notifySuccess(readIndexStatus);
+            } else {
+                // Not applied, add it to pending-notify queue, drain it in case that the index was applied
+                // right now.
+                ReadOnlyServiceImpl.this.pendingNotifyStatus.add(readIndexStatus);
+                drainPendingStatus();
             }
         }
 
@@ -195,7 +194,9 @@ public class ReadOnlyServiceImpl implements ReadOnlyService, LastAppliedLogIndex
                 final ReadIndexClosure done = state.getDone();
                 if (done != null) {
                     final Bytes reqCtx = state.getRequestContext();
-                    done.run(status, ReadIndexClosure.INVALID_LOG_INDEX, reqCtx != null ? reqCtx.get() : null);
+                    done.setResult(ReadIndexClosure.INVALID_LOG_INDEX, reqCtx != null ? reqCtx.get() : null);
+                    // Don't run it again if it's timed out.
+                    done.run(status);
                 }
             }
         }
@@ -220,17 +221,47 @@ public class ReadOnlyServiceImpl implements ReadOnlyService, LastAppliedLogIndex
         this.node.handleReadIndexRequest(request, new ReadIndexResponseClosure(states, request));
     }
 
-    private void resetPendingStatusError(final Status st) {
-        this.lock.lock();
-        try {
-            for (final List<ReadIndexStatus> statuses : this.pendingNotifyStatus.values()) {
-                for (final ReadIndexStatus status : statuses) {
+    /**
+     * Notifies the pending statuses whose index is applied, in order of index, and the remaining ones
+     * by error if the service is in error or stopped. A status is never notified before its index is
+     * applied.
+     *
+     * It's called by the response threads, the FSM caller and the scanner concurrently, but only one of them
+     * drains at a time, the others just mark the drain missed so that the running one passes again.
+     */
+    private void drainPendingStatus() {
+        if (this.drainWip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        for (;;) {
+            ReadIndexStatus status;
+            while ((status = this.pendingNotifyStatus.poll()) != null) {
+                this.orderedPendingStatus.add(status);
+            }
+            final long appliedIndex = Math.max(this.appliedIndexHint, this.fsmCaller.getLastAppliedIndex());
+            while ((status = this.orderedPendingStatus.peek()) != null && status.isApplied(appliedIndex)) {
+                this.orderedPendingStatus.poll();
+                notifySuccess(status);
+            }
+
+            /*
+             * Remaining pending statuses are notified by error if it is presented.
+             * When the node is in error state, consider following situations:
+             * 1. If commitIndex > appliedIndex, then all pending statuses should be notified by error status.
+             * 2. When commitIndex == appliedIndex, there will be no more pending statuses.
+             */
+            final Status st = this.error != null ? this.error.getStatus() : this.stopStatus;
+            if (st != null) {
+                while ((status = this.orderedPendingStatus.poll()) != null) {
                     reportError(status, st);
                 }
             }
-            this.pendingNotifyStatus.clear();
-        } finally {
-            this.lock.unlock();
+
+            missed = this.drainWip.addAndGet(-missed);
+            if (missed == 0) {
+                break;
+            }
         }
     }
 
@@ -291,7 +322,8 @@ public class ReadOnlyServiceImpl implements ReadOnlyService, LastAppliedLogIndex
             this.shutdownLatch.await();
         }
         this.readIndexDisruptor.shutdown();
-        resetPendingStatusError(new Status(RaftError.ESTOP, "Node is quit."));
+        this.stopStatus = new Status(RaftError.ESTOP, "Node is quit.");
+        drainPendingStatus();
         this.scheduledExecutorService.awaitTermination(5, TimeUnit.SECONDS);
     }
 
@@ -335,45 +367,10 @@ public class ReadOnlyServiceImpl implements ReadOnlyService, LastAppliedLogIndex
      */
     @Override
     public void onApplied(final long appliedIndex) {
-        // TODO reuse pendingStatuses list?
-        List<ReadIndexStatus> pendingStatuses = null;
-        this.lock.lock();
-        try {
-            if (this.pendingNotifyStatus.isEmpty()) {
-                return;
-            }
-            // Find all statuses that log index less than or equal to appliedIndex.
-            final Map<Long, List<ReadIndexStatus>> statuses = this.pendingNotifyStatus.headMap(appliedIndex, true);
-            if (statuses != null) {
-                pendingStatuses = new ArrayList<>(statuses.size() << 1);
-
-                final Iterator<Map.Entry<Long, List<ReadIndexStatus>>> it = statuses.entrySet().iterator();
-                while (it.hasNext()) {
-                    final Map.Entry<Long, List<ReadIndexStatus>> entry = it.next();
-                    pendingStatuses.addAll(entry.getValue());
-                    // Remove the entry from statuses, it will also be removed in pendingNotifyStatus.
-                    it.remove();
-                }
-
-            }
-
-            /*
-             * Remaining pending statuses are notified by error if it is presented.
-             * When the node is in error state, consider following situations:
-             * 1. If commitIndex > appliedIndex, then all pending statuses should be notified by error status.
-             * 2. When commitIndex == appliedIndex, there will be no more pending statuses.
-             */
-            if (this.error != null) {
-                resetPendingStatusError(this.error.getStatus());
-            }
-        } finally {
-            this.lock.unlock();
-            if (pendingStatuses != null && !pendingStatuses.isEmpty()) {
-                for (final ReadIndexStatus status : pendingStatuses) {
-                    notifySuccess(status);
-                }
-            }
+        if (appliedIndex > this.appliedIndexHint) {
+            this.appliedIndexHint = appliedIndex;
         }
+        drainPendingStatus();
     }
 
     /**
@@ -387,10 +384,15 @@ public class ReadOnlyServiceImpl implements ReadOnlyService, LastAppliedLogIndex
     }
 
     @OnlyForTest
-    TreeMap<Long, List<ReadIndexStatus>> getPendingNotifyStatus() {
+    Queue<ReadIndexStatus> getPendingNotifyStatus() {
         return this.pendingNotifyStatus;
     }
 
+    @OnlyForTest
+    int getPendingNotifyCount() {
+        return this.pendingNotifyStatus.size() + this.orderedPendingStatus.size();
+    }
+
     private void reportError(final ReadIndexStatus status, final Status st) {
         final long nowMs = Utils.monotonicMs();
         final List<ReadIndexState> states = status.getStates();
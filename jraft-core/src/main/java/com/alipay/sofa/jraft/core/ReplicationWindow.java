@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import com.alipay.sofa.jraft.util.Requires;
+
+/**
+ * Adaptive flow control of a replicator, it sizes the bytes of in-flight AppendEntries requests
+ * by the measured RTT and acknowledged bytes with AIMD:
+ *
+ * <ul>
+ *   <li>Slow start: the window grows by the acknowledged bytes until it reaches the slow start
+ *   threshold, that is, doubling every RTT.</li>
+ *   <li>Congestion avoidance: the window grows by one max batch every window acknowledged.</li>
+ *   <li>The window shrinks multiplicatively when the RTT increases obviously above the minimum RTT,
+ *   which means the requests are queuing in the network or the follower, or when the RPC fails.
+ *   It never shrinks under the estimated bandwidth-delay product.</li>
+ * </ul>
+ *
+ * It is not thread-safe and should be guarded by the replicator's lock, except the getters
+ * for metrics.
+ *
+ * @author agent
+ */
+final class ReplicationWindow {
+
+    /** The window shrinks to this factor when the RTT increases. */
+    static final double   DELAY_DECREASE_FACTOR  = 0.7;
+    /** The window shrinks to this factor when the RPC fails. */
+    static final double   ERROR_DECREASE_FACTOR  = 0.5;
+    /** The RTT increases when it exceeds minRtt * factor + slack. */
+    static final int      RTT_INCREASE_FACTOR    = 2;
+    static final long     RTT_SLACK_MS           = 2;
+    /** The min RTT sample expires after this interval, so it can adapt to route changes. */
+    static final long     MIN_RTT_EXPIRE_MS      = 10_000;
+    static final long     RATE_INTERVAL_MS       = 1000;
+    /** The minimum batch ratio of max batch bytes, don't send tiny requests to fill the window. */
+    static final int      MIN_BATCH_DIVISOR      = 16;
+    static final int      INITIAL_WINDOW_BATCHES = 4;
+
+    private final int     maxBatchBytes;
+    private final int     minBatchBytes;
+    private final long    maxWindowBytes;
+
+    private volatile long windowBytes;
+    private volatile long inflightBytes;
+    private long          slowStartThreshold;
+    private volatile long minRttMs               = -1;
+    private long          minRttStamp;
+    private volatile long srttMs;
+    private long          lastDecreaseMs;
+
+    // Acknowledged bytes per second
+    private volatile long throughput;
+    private long          maxThroughput;
+    private long          rateStamp              = -1;
+    private long          rateBytes;
+
+    ReplicationWindow(final int maxBatchBytes, final long maxWindowBytes) {
+        Requires.requireTrue(maxBatchBytes > 0, "maxBatchBytes must be positive");
+        this.maxBatchBytes = maxBatchBytes;
+        this.minBatchBytes = Math.max(1, maxBatchBytes / MIN_BATCH_DIVISOR);
+        this.maxWindowBytes = Math.max(maxWindowBytes, maxBatchBytes);
+        this.windowBytes = Math.min(this.maxWindowBytes, (long) maxBatchBytes * INITIAL_WINDOW_BATCHES);
+        this.slowStartThreshold = this.maxWindowBytes;
+    }
+
+    /**
+     * Returns true when the window has room for one more request.
+     */
+    boolean canSend() {
+        return this.inflightBytes == 0 || this.windowBytes - this.inflightBytes >= this.minBatchBytes;
+    }
+
+    /**
+     * Returns the max bytes of the next request.
+     */
+    int nextBatchBytes() {
+        final long available = this.windowBytes - this.inflightBytes;
+        return (int) Math.max(this.minBatchBytes, Math.min(this.maxBatchBytes, available));
+    }
+
+    void onSent(final int bytes) {
+        this.inflightBytes += bytes;
+    }
+
+    void onReleased(final int bytes) {
+        this.inflightBytes = Math.max(0, this.inflightBytes - bytes);
+    }
+
+    /**
+     * All in-flight requests were discarded.
+     */
+    void clearInflights() {
+        this.inflightBytes = 0;
+    }
+
+    /**
+     * Called when a request is acknowledged by follower successfully.
+     *
+     * @param bytes acknowledged bytes
+     * @param rttMs round trip time of the request
+     * @param nowMs current monotonic time
+     */
+    void onAck(final int bytes, final long rttMs, final long nowMs) {
+        final long rtt = Math.max(0, rttMs);
+        updateRtt(rtt, nowMs);
+        updateThroughput(bytes, nowMs);
+        if (bytes <= 0) {
+            return;
+        }
+
+        if (rtt > this.minRttMs * RTT_INCREASE_FACTOR + RTT_SLACK_MS) {
+            decrease(DELAY_DECREASE_FACTOR, nowMs);
+            return;
+        }
+        long window = this.windowBytes;
+        if (window < this.slowStartThreshold) {
+            window += bytes;
+        } else {
+            window += Math.max(1, (long) this.maxBatchBytes * bytes / window);
+        }
+        this.windowBytes = Math.min(window, this.maxWindowBytes);
+    }
+
+    /**
+     * Called when the request is failed or the pipeline is broken.
+     */
+    void onCongestion(final long nowMs) {
+        decrease(ERROR_DECREASE_FACTOR, nowMs);
+    }
+
+    private void decrease(final double factor, final long nowMs) {
+        // At most once per RTT, the responses of the same window reflect the same congestion.
+        if (nowMs - this.lastDecreaseMs <= this.srttMs) {
+            return;
+        }
+        this.lastDecreaseMs = nowMs;
+        long window = (long) (this.windowBytes * factor);
+        window = Math.max(window, bdpBytes());
+        window = Math.max(window, this.maxBatchBytes);
+        this.windowBytes = Math.min(window, this.maxWindowBytes);
+        this.slowStartThreshold = this.windowBytes;
+    }
+
+    private long bdpBytes() {
+        return this.minRttMs <= 0 ? 0 : this.maxThroughput * this.minRttMs / 1000;
+    }
+
+    private void updateRtt(final long rttMs, final long nowMs) {
+        if (this.minRttMs < 0 || rttMs <= this.minRttMs || nowMs - this.minRttStamp > MIN_RTT_EXPIRE_MS) {
+            this.minRttMs = rttMs;
+            this.minRttStamp = nowMs;
+        }
+        this.srttMs = this.srttMs == 0 ? rttMs : (this.srttMs * 7 + rttMs) / 8;
+    }
+
+    private void updateThroughput(final int bytes, final long nowMs) {
+        if (this.rateStamp < 0) {
+            this.rateStamp = nowMs;
+        }
+        this.rateBytes += bytes;
+        final long elapsed = nowMs - this.rateStamp;
+        if (elapsed >= RATE_INTERVAL_MS) {
+            this.throughput = this.rateBytes * 1000 / elapsed;
+            // Decays slowly, the bandwidth may change.
+            this.maxThroughput = Math.max(this.throughput, this.maxThroughput * 7 / 8);
+            this.rateBytes = 0;
+            this.rateStamp = nowMs;
+        }
+    }
+
+    long getWindowBytes() {
+        return this.windowBytes;
+    }
+
+    long getInflightBytes() {
+        return this.inflightBytes;
+    }
+
+    long getMinRttMs() {
+        return this.minRttMs;
+    }
+
+    long getSrttMs() {
+        return this.srttMs;
+    }
+
+    long getThroughput() {
+        return this.throughput;
+    }
+
+    int getMaxBatchBytes() {
+        return this.maxBatchBytes;
+    }
+
+    int getMinBatchBytes() {
+        return this.minBatchBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicationWindow{windowBytes=" + this.windowBytes + ", inflightBytes=" + this.inflightBytes
+               + ", slowStartThreshold=" + this.slowStartThreshold + ", minRttMs=" + this.minRttMs + ", srttMs="
+               + this.srttMs + ", throughput=" + this.throughput + '}';
+    }
+}
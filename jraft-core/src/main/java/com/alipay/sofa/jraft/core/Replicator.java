@@ -23,17 +23,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.concurrent.ThreadSafe;
 
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alipay.sofa.jraft.Node;
 import com.alipay.sofa.jraft.Status;
 import com.alipay.sofa.jraft.closure.CatchUpClosure;
+import com.alipay.sofa.jraft.core.EncodedBatchCache.EncodedBatch;
 import com.alipay.sofa.jraft.entity.EnumOutter;
 import com.alipay.sofa.jraft.entity.LogEntry;
 import com.alipay.sofa.jraft.entity.PeerId;
@@ -52,6 +55,8 @@ import com.alipay.sofa.jraft.rpc.RpcRequests.TimeoutNowResponse;
 import com.alipay.sofa.jraft.rpc.RpcResponseClosure;
 import com.alipay.sofa.jraft.rpc.RpcResponseClosureAdapter;
 import com.alipay.sofa.jraft.rpc.RpcUtils;
+import com.alipay.sofa.jraft.rpc.impl.core.HeartbeatBatcher;
+import com.alipay.sofa.jraft.storage.LogManager;
 import com.alipay.sofa.jraft.storage.snapshot.SnapshotReader;
 import com.alipay.sofa.jraft.util.ByteBufferCollector;
 import com.alipay.sofa.jraft.util.OnlyForTest;
@@ -59,8 +64,13 @@ import com.alipay.sofa.jraft.util.Recyclable;
 import com.alipay.sofa.jraft.util.RecyclableByteBufferList;
 import com.alipay.sofa.jraft.util.RecycleUtil;
 import com.alipay.sofa.jraft.util.Requires;
+import com.alipay.sofa.jraft.util.SystemPropertyUtil;
 import com.alipay.sofa.jraft.util.ThreadId;
 import com.alipay.sofa.jraft.util.Utils;
+import com.alipay.sofa.jraft.util.compress.Compressors;
+import com.alipay.sofa.jraft.util.concurrent.DefaultFixedThreadsExecutorGroupFactory;
+import com.alipay.sofa.jraft.util.concurrent.FixedThreadsExecutorGroup;
+import com.alipay.sofa.jraft.util.concurrent.SingleThreadExecutor;
 import com.alipay.sofa.jraft.util.internal.ThrowUtil;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Metric;
@@ -80,6 +90,12 @@ import com.google.protobuf.ZeroByteStringHelper;
 public class Replicator implements ThreadId.OnError {
 
     private static final Logger              LOG                    = LoggerFactory.getLogger(Replicator.class);
+    /**
+     * The threads of global replicator event loop group, default is cpus.
+     */
+    public static final int                  EVENT_LOOP_THREADS     = SystemPropertyUtil.getInt(
+                                                                        "jraft.replicator.event_loop.threads",
+                                                                        Utils.cpus());
 
     private final RaftClientService          rpcService;
     // Next sending log index
@@ -102,6 +118,20 @@ public class Replicator implements ThreadId.OnError {
     private Future<Message>                  timeoutNowInFly;
     // In-flight RPC requests, FIFO queue
     private final ArrayDeque<Inflight>       inflights              = new ArrayDeque<>();
+    // Adaptive in-flight bytes window, null when disabled
+    private final ReplicationWindow          window;
+    // Reads log entries ahead for lagging follower, null when disabled
+    private final LogPrefetcher              prefetcher;
+    // Classifies the follower by RTT and lagging logs, null when disabled
+    private final FollowerHealthDetector     healthDetector;
+    // The lagging follower catches up by installing snapshot in next sending
+    private boolean                          catchUpBySnapshot;
+    // Compresses the data of AppendEntries requests, null if compression is disabled
+    private final AppendEntriesCompressor    compressor;
+    // The bit set of compress types supported by peer, see Compressors#supportedTypes
+    private int                              peerCompressTypes;
+    // Runs the events of this replicator serially, null when event loop mode is disabled
+    private final SingleThreadExecutor       eventLoop;
 
     private long                             waitId                 = -1L;
     protected ThreadId                       id;
@@ -109,6 +139,8 @@ public class Replicator implements ThreadId.OnError {
     private final RaftOptions                raftOptions;
 
     private ScheduledFuture<?>               heartbeatTimer;
+    // Whether the heartbeat timer is stopped because the group is hibernated
+    private boolean                          hibernated;
     private volatile SnapshotReader          reader;
     private CatchUpClosure                   catchUpClosure;
     private final Scheduler                  timerManager;
@@ -163,6 +195,76 @@ public class Replicator implements ThreadId.OnError {
         this.timerManager = replicatorOptions.getTimerManager();
         this.raftOptions = raftOptions;
         this.rpcService = replicatorOptions.getRaftRpcService();
+        if (raftOptions.isReplicatorAdaptiveWindow()) {
+            this.window = new ReplicationWindow(raftOptions.getMaxBodySize(),
+                (long) raftOptions.getMaxReplicatorInflightMsgs() * raftOptions.getMaxBodySize());
+        } else {
+            this.window = null;
+        }
+        if (raftOptions.getReplicatorPrefetchBytes() > 0) {
+            this.prefetcher = new LogPrefetcher(this.options.getLogManager(), raftOptions.getReplicatorPrefetchBytes(),
+                raftOptions.getMaxEntriesSize(), raftOptions.getMaxBodySize());
+        } else {
+            this.prefetcher = null;
+        }
+        if (raftOptions.isIsolateSlowFollower()) {
+            this.healthDetector = new FollowerHealthDetector(raftOptions.getSlowFollowerRttMs(),
+                raftOptions.getLaggingFollowerLogs());
+        } else {
+            this.healthDetector = null;
+        }
+        this.eventLoop = raftOptions.isReplicatorEventLoop() ? EventLoopHolder.INSTANCE.next() : null;
+        if (StringUtils.isNotBlank(raftOptions.getReplicatorCompressor())) {
+            this.compressor = new AppendEntriesCompressor(Compressors.find(raftOptions.getReplicatorCompressor()));
+        } else {
+            this.compressor = null;
+        }
+    }
+
+    private static final class EventLoopHolder {
+        private static final FixedThreadsExecutorGroup INSTANCE = DefaultFixedThreadsExecutorGroupFactory.INSTANCE
+                                                                    .newExecutorGroup(EVENT_LOOP_THREADS,
+                                                                        "JRaft-Replicator-EventLoop",
+                                                                        Utils.MAX_APPEND_ENTRIES_TASKS_PER_THREAD,
+                                                                        true);
+    }
+
+    /**
+     * Submits the event into the mailbox of this replicator in event loop mode, returns false when
+     * the mode is disabled or the event is rejected.
+     *
+     * @param event the event to run
+     * @return true if the event is submitted
+     */
+    private boolean executeInEventLoop(final Runnable event) {
+        if (this.eventLoop == null) {
+            return false;
+        }
+        try {
+            this.eventLoop.execute(event);
+            return true;
+        } catch (final RejectedExecutionException e) {
+            LOG.warn("Replicator {} event loop rejected event, run it in current thread.", this.options.getPeerId());
+            return false;
+        }
+    }
+
+    /**
+     * Runs the event in the event loop of this replicator in event loop mode, otherwise in current thread.
+     *
+     * @param event the event to run
+     */
+    private void runEvent(final Runnable event) {
+        if (!executeInEventLoop(event)) {
+            event.run();
+        }
+    }
+
+    private static void runEvent(final ThreadId id, final Runnable event) {
+        final Replicator r = id != null ? (Replicator) id.getData() : null;
+        if (r == null || !r.executeInEventLoop(event)) {
+            event.run();
+        }
     }
 
     /**
@@ -188,6 +290,31 @@ public class Replicator implements ThreadId.OnError {
             gauges.put("heartbeat-times", (Gauge<Long>) () -> this.r.heartbeatCounter);
             gauges.put("install-snapshot-times", (Gauge<Long>) () -> this.r.installSnapshotCounter);
             gauges.put("append-entries-times", (Gauge<Long>) () -> this.r.appendEntriesCounter);
+            final ReplicationWindow window = this.r.window;
+            if (window != null) {
+                gauges.put("replicate-window-bytes", (Gauge<Long>) window::getWindowBytes);
+                gauges.put("replicate-inflight-bytes", (Gauge<Long>) window::getInflightBytes);
+                gauges.put("replicate-throughput-bytes", (Gauge<Long>) window::getThroughput);
+                gauges.put("replicate-min-rtt-ms", (Gauge<Long>) window::getMinRttMs);
+                gauges.put("replicate-srtt-ms", (Gauge<Long>) window::getSrttMs);
+            }
+            final LogPrefetcher prefetcher = this.r.prefetcher;
+            if (prefetcher != null) {
+                gauges.put("replicate-prefetch-bytes", (Gauge<Long>) prefetcher::getBytes);
+                gauges.put("replicate-prefetch-count", (Gauge<Integer>) prefetcher::getCount);
+            }
+            final FollowerHealthDetector healthDetector = this.r.healthDetector;
+            if (healthDetector != null) {
+                gauges.put("follower-health", (Gauge<Integer>) () -> healthDetector.getHealth().ordinal());
+                gauges.put("follower-srtt-ms", (Gauge<Long>) healthDetector::getSrttMs);
+                gauges.put("follower-ack-rate", (Gauge<Long>) healthDetector::getAckRate);
+            }
+            final AppendEntriesCompressor compressor = this.r.compressor;
+            if (compressor != null) {
+                gauges.put("replicate-compress-ratio", (Gauge<Long>) compressor::getRatio);
+                gauges.put("replicate-compress-nanos", (Gauge<Long>) compressor::getCompressNanos);
+                gauges.put("replicate-compress-skipped", (Gauge<Long>) compressor::getSkippedBatches);
+            }
             return gauges;
         }
     }
@@ -211,6 +338,15 @@ public class Replicator implements ThreadId.OnError {
         DESTROYED // destroyed
     }
 
+    /**
+     * The health of follower, see {@link FollowerHealthDetector}.
+     */
+    public enum FollowerHealth {
+        HEALTHY, // healthy
+        SLOW, // slow, high RTT or catching up a lot of logs
+        LAGGING // lagging, replicated in probing mode
+    }
+
     /**
      * User can implement the ReplicatorStateListener interface by themselves.
      * So they can do some their own logic codes when replicator created, destroyed or had some errors.
@@ -242,6 +378,17 @@ public class Replicator implements ThreadId.OnError {
          * @param peer   replicator related peerId
          */
         void onDestroyed(final PeerId peer);
+
+        /**
+         * Called when the health of follower changed, only when isolating slow followers is enabled.
+         *
+         * @param peer      replicator related peerId
+         * @param oldHealth the previous health
+         * @param newHealth the current health
+         */
+        default void onHealthChanged(final PeerId peer, final FollowerHealth oldHealth,
+                                     final FollowerHealth newHealth) {
+        }
     }
 
     /**
@@ -292,6 +439,29 @@ public class Replicator implements ThreadId.OnError {
         notifyReplicatorStatusListener(replicator, event, null);
     }
 
+    /**
+     * Notify the health changes of follower to replicatorStateListener.
+     *
+     * @param replicator replicator object
+     * @param oldHealth  the previous health
+     * @param newHealth  the current health
+     */
+    private static void notifyHealthChanged(final Replicator replicator, final FollowerHealth oldHealth,
+                                            final FollowerHealth newHealth) {
+        final PeerId peer = replicator.options.getPeerId();
+        final List<ReplicatorStateListener> listenerList = replicator.options.getNode().getReplicatorStatueListeners();
+        for (int i = 0; i < listenerList.size(); i++) {
+            final ReplicatorStateListener listener = listenerList.get(i);
+            if (listener != null) {
+                try {
+                    RpcUtils.runInThread(() -> listener.onHealthChanged(peer, oldHealth, newHealth));
+                } catch (final Exception e) {
+                    LOG.error("Fail to notify ReplicatorStatusListener, listener={}, health={}.", listener, newHealth);
+                }
+            }
+        }
+    }
+
     /**
      * Statistics structure
      * @author boyan (boyan@alibaba-inc.com)
@@ -405,6 +575,11 @@ public class Replicator implements ThreadId.OnError {
         return this.inflights;
     }
 
+    @OnlyForTest
+    ReplicationWindow getWindow() {
+        return this.window;
+    }
+
     @OnlyForTest
     State getState() {
         return this.state;
@@ -499,6 +674,9 @@ public class Replicator implements ThreadId.OnError {
         this.rpcInFly = new Inflight(reqType, startIndex, count, size, seq, rpcInfly);
         this.inflights.add(this.rpcInFly);
         this.nodeMetrics.recordSize("replicate-inflights-count", this.inflights.size());
+        if (this.window != null) {
+            this.window.onSent(size);
+        }
     }
 
     /**
@@ -515,6 +693,14 @@ public class Replicator implements ThreadId.OnError {
         if (this.inflights.size() > this.raftOptions.getMaxReplicatorInflightMsgs()) {
             return -1L;
         }
+        // Lagging follower is replicated in probing mode, only one in-flight request.
+        if (getFollowerHealth() == FollowerHealth.LAGGING) {
+            return -1L;
+        }
+        // The in-flight bytes window is full.
+        if (this.window != null && !this.window.canSend()) {
+            return -1L;
+        }
         // Last request should be a AppendEntries request and has some entries.
         if (this.rpcInFly != null && this.rpcInFly.isSendingLogEntries()) {
             return this.rpcInFly.startIndex + this.rpcInFly.count;
@@ -522,14 +708,88 @@ public class Replicator implements ThreadId.OnError {
         return -1L;
     }
 
+    /**
+     * Returns the health of follower, always healthy when isolating slow followers is disabled.
+     */
+    FollowerHealth getFollowerHealth() {
+        return this.healthDetector != null ? this.healthDetector.getHealth() : FollowerHealth.HEALTHY;
+    }
+
+    /**
+     * Confirms the pending ReadIndex requests of node by the successful response of follower.
+     *
+     * @param rpcSendTime the monotonic time when the request was sent
+     */
+    private void confirmReadIndex(final long rpcSendTime) {
+        final ReadIndexPiggyback piggyback = this.options.getNode().getReadIndexPiggyback();
+        if (piggyback != null && this.options.getReplicatorType().isFollower()) {
+            piggyback.onAck(this.options.getTerm(), this.options.getPeerId(), rpcSendTime);
+        }
+    }
+
+    /**
+     * Records the response from follower and re-evaluates its health.
+     *
+     * @param rpcSendTime the monotonic time when the request was sent
+     * @param logs        the count of acked logs
+     */
+    private void onFollowerAck(final long rpcSendTime, final int logs) {
+        if (this.healthDetector == null) {
+            return;
+        }
+        final long nowMs = Utils.monotonicMs();
+        this.healthDetector.onAck(nowMs - rpcSendTime, logs);
+        final FollowerHealth oldHealth = this.healthDetector.getHealth();
+        final long lag = this.options.getLogManager().getLastLogIndex() - (this.nextIndex - 1);
+        if (!this.healthDetector.evaluate(lag, nowMs)) {
+            return;
+        }
+        final FollowerHealth newHealth = this.healthDetector.getHealth();
+        if (newHealth == FollowerHealth.LAGGING) {
+            // Checks whether the snapshot is worth installing once every interval.
+            this.catchUpBySnapshot = isSnapshotCatchUpFaster();
+        }
+        if (newHealth != oldHealth) {
+            LOG.info("Follower {} of group {} turns {} from {}, lag={}, srttMs={}, ackRate={}.",
+                this.options.getPeerId(), this.options.getGroupId(), newHealth, oldHealth, lag, this.healthDetector.getSrttMs(),
+                this.healthDetector.getAckRate());
+            notifyHealthChanged(this, oldHealth, newHealth);
+        }
+    }
+
+    /**
+     * Returns true when the latest snapshot covers more than laggingFollowerLogs logs the follower
+     * lacks, installing it is faster than replicating the logs one request by one.
+     */
+    private boolean isSnapshotCatchUpFaster() {
+        if (this.options.getSnapshotStorage() == null) {
+            return false;
+        }
+        final SnapshotReader snapshotReader = this.options.getSnapshotStorage().open();
+        if (snapshotReader == null) {
+            return false;
+        }
+        try {
+            final RaftOutter.SnapshotMeta meta = snapshotReader.load();
+            return meta != null
+                   && meta.getLastIncludedIndex() - (this.nextIndex - 1) >= this.raftOptions.getLaggingFollowerLogs();
+        } finally {
+            Utils.closeQuietly(snapshotReader);
+        }
+    }
+
     private Inflight pollInflight() {
-        return this.inflights.poll();
+        final Inflight inflight = this.inflights.poll();
+        if (inflight != null && this.window != null) {
+            this.window.onReleased(inflight.size);
+        }
+        return inflight;
     }
 
     private void startHeartbeatTimer(final long startMs) {
         final long dueTime = startMs + this.options.getDynamicHeartBeatTimeoutMs();
         try {
-            this.heartbeatTimer = this.timerManager.schedule(() -> onTimeout(this.id), dueTime - Utils.nowMs(),
+            this.heartbeatTimer = this.timerManager.schedule(() -> runEvent(() -> onTimeout(this.id)), dueTime - Utils.nowMs(),
                 TimeUnit.MILLISECONDS);
         } catch (final Exception e) {
             LOG.error("Fail to schedule heartbeat timer", e);
@@ -605,8 +865,8 @@ public class Replicator implements ThreadId.OnError {
 
                     @Override
                     public void run(final Status status) {
-                        onRpcReturned(Replicator.this.id, RequestType.Snapshot, status, request, getResponse(), seq,
-                            stateVersion, monotonicSendTimeMs);
+                        runEvent(() -> onRpcReturned(Replicator.this.id, RequestType.Snapshot, status, request,
+                            getResponse(), seq, stateVersion, monotonicSendTimeMs));
                     }
                 });
             addInflight(RequestType.Snapshot, this.nextIndex, 0, 0, seq, rpcFuture);
@@ -708,12 +968,20 @@ public class Replicator implements ThreadId.OnError {
 
                         @Override
                         public void run(final Status status) {
-                            onHeartbeatReturned(Replicator.this.id, status, request, getResponse(), monotonicSendTimeMs);
+                            runEvent(() -> onHeartbeatReturned(Replicator.this.id, status, request, getResponse(),
+                                monotonicSendTimeMs));
                         }
                     };
                 }
-                this.heartbeatInFly = this.rpcService.appendEntries(this.options.getPeerId().getEndpoint(), request,
-                    this.options.getElectionTimeoutMs() / 2, heartbeatDone);
+                final HeartbeatBatcher batcher = this.options.getNode().getHeartbeatBatcher();
+                if (heartBeatClosure == null && batcher != null) {
+                    // Only the periodic heartbeats are batched, those of read-index are sent at once.
+                    this.heartbeatInFly = batcher.heartbeat(this.options.getPeerId().getEndpoint(), request,
+                        this.options.getElectionTimeoutMs() / 2, heartbeatDone);
+                } else {
+                    this.heartbeatInFly = this.rpcService.appendEntries(this.options.getPeerId().getEndpoint(),
+                        request, this.options.getElectionTimeoutMs() / 2, heartbeatDone);
+                }
             } else {
                 // Sending a probe request.
                 this.statInfo.runningState = RunningState.APPENDING_ENTRIES;
@@ -728,8 +996,8 @@ public class Replicator implements ThreadId.OnError {
 
                         @Override
                         public void run(final Status status) {
-                            onRpcReturned(Replicator.this.id, RequestType.AppendEntries, status, request,
-                                getResponse(), seq, stateVersion, monotonicSendTimeMs);
+                            runEvent(() -> onRpcReturned(Replicator.this.id, RequestType.AppendEntries, status,
+                                request, getResponse(), seq, stateVersion, monotonicSendTimeMs));
                         }
 
                     });
@@ -743,16 +1011,17 @@ public class Replicator implements ThreadId.OnError {
         }
     }
 
-    boolean prepareEntry(final long nextSendingIndex, final int offset, final RaftOutter.EntryMeta.Builder emb,
+    boolean prepareEntry(final LogEntry entry, final RaftOutter.EntryMeta.Builder emb,
                          final RecyclableByteBufferList dateBuffer) {
-        if (dateBuffer.getCapacity() >= this.raftOptions.getMaxBodySize()) {
-            return false;
-        }
-        final long logIndex = nextSendingIndex + offset;
-        final LogEntry entry = this.options.getLogManager().getEntry(logIndex);
-        if (entry == null) {
+        return prepareEntry(entry, emb, dateBuffer, this.raftOptions.getMaxBodySize());
+    }
+
+    boolean prepareEntry(final LogEntry entry, final RaftOutter.EntryMeta.Builder emb,
+                         final RecyclableByteBufferList dateBuffer, final int maxBodySize) {
+        if (dateBuffer.getCapacity() >= maxBodySize) {
             return false;
         }
+        final long logIndex = entry.getId().getIndex();
         emb.setTerm(entry.getId().getTerm());
         if (entry.hasChecksum()) {
             emb.setChecksum(entry.getChecksum()); // since 1.2.6
@@ -852,7 +1121,7 @@ public class Replicator implements ThreadId.OnError {
             }
             done.setMaxMargin(maxMargin);
             if (dueTime > 0) {
-                done.setTimer(r.timerManager.schedule(() -> onCatchUpTimedOut(id), dueTime - Utils.nowMs(),
+                done.setTimer(r.timerManager.schedule(() -> r.runEvent(() -> onCatchUpTimedOut(id)), dueTime - Utils.nowMs(),
                     TimeUnit.MILLISECONDS));
             }
             r.catchUpClosure = done;
@@ -924,7 +1193,10 @@ public class Replicator implements ThreadId.OnError {
     }
 
     static void onBlockTimeout(final ThreadId arg) {
-        RpcUtils.runInThread(() -> onBlockTimeoutInNewThread(arg));
+        final Replicator r = arg != null ? (Replicator) arg.getData() : null;
+        if (r == null || !r.executeInEventLoop(() -> onBlockTimeoutInNewThread(arg))) {
+            RpcUtils.runInThread(() -> onBlockTimeoutInNewThread(arg));
+        }
     }
 
     void block(final long startTimeMs, @SuppressWarnings("unused") final int errorCode) {
@@ -992,7 +1264,9 @@ public class Replicator implements ThreadId.OnError {
             }
         } else if (errorCode == RaftError.ETIMEDOUT.getNumber()) {
             id.unlock();
-            RpcUtils.runInThread(() -> sendHeartbeat(id));
+            if (!r.executeInEventLoop(() -> sendHeartbeat(id))) {
+                RpcUtils.runInThread(() -> sendHeartbeat(id));
+            }
         } else {
             id.unlock();
             // noinspection ConstantConditions
@@ -1058,6 +1332,9 @@ public class Replicator implements ThreadId.OnError {
         final ThreadId savedId = this.id;
         LOG.info("Replicator {} is going to quit", savedId);
         releaseReader();
+        if (this.prefetcher != null) {
+            this.prefetcher.shutdown();
+        }
         // Unregister replicator metric set
         if (this.nodeMetrics.isEnabled()) {
             this.nodeMetrics.getMetricRegistry() //
@@ -1154,6 +1431,18 @@ public class Replicator implements ThreadId.OnError {
             if (rpcSendTime > r.lastRpcSendTimestamp) {
                 r.lastRpcSendTimestamp = rpcSendTime;
             }
+            r.onFollowerAck(rpcSendTime, 0);
+            r.confirmReadIndex(rpcSendTime);
+            r.updatePeerCompressTypes(response);
+            if (request.getHibernate() && r.options.getNode().isHibernating()
+                && request.getCommittedIndex() == request.getPrevLogIndex()
+                && response.getLastLogIndex() == request.getPrevLogIndex()) {
+                // The follower has caught up and suspended its election timer, see
+                // NodeImpl#hibernateFollower, stop heartbeating until the group is woken up.
+                LOG.debug("Replicator {} hibernates, peer={}.", id, r.options.getPeerId());
+                r.hibernated = true;
+                return;
+            }
             r.startHeartbeatTimer(startTimeMs);
         } finally {
             if (doUnlock) {
@@ -1189,6 +1478,9 @@ public class Replicator implements ThreadId.OnError {
             LOG.warn("Too many pending responses {} for replicator {}, maxReplicatorInflightMsgs={}",
                 holdingQueue.size(), r.options.getPeerId(), r.raftOptions.getMaxReplicatorInflightMsgs());
             r.resetInflights();
+            if (r.window != null) {
+                r.window.onCongestion(Utils.monotonicMs());
+            }
             r.state = State.Probe;
             r.sendEmptyEntries(false);
             return;
@@ -1252,7 +1544,8 @@ public class Replicator implements ThreadId.OnError {
                         case AppendEntries:
                             continueSendEntries = onAppendEntriesReturned(id, inflight, queuedPipelinedResponse.status,
                                 (AppendEntriesRequest) queuedPipelinedResponse.request,
-                                (AppendEntriesResponse) queuedPipelinedResponse.response, rpcSendTime, startTimeMs, r);
+                                (AppendEntriesResponse) queuedPipelinedResponse.response,
+                                queuedPipelinedResponse.rpcSendTime, startTimeMs, r);
                             break;
                         case Snapshot:
                             continueSendEntries = onInstallSnapshotReturned(id, r, queuedPipelinedResponse.status,
@@ -1289,6 +1582,9 @@ public class Replicator implements ThreadId.OnError {
     void resetInflights() {
         this.version++;
         this.inflights.clear();
+        if (this.window != null) {
+            this.window.clearInflights();
+        }
         this.pendingResponses.clear();
         final int rs = Math.max(this.reqSeq, this.requiredNextSeq);
         this.reqSeq = this.requiredNextSeq = rs;
@@ -1349,6 +1645,9 @@ public class Replicator implements ThreadId.OnError {
                     r.consecutiveErrorTimes, status);
             }
             r.resetInflights();
+            if (r.window != null) {
+                r.window.onCongestion(Utils.monotonicMs());
+            }
             r.state = State.Probe;
             // unlock in in block
             r.block(startTimeMs, status.getCode());
@@ -1418,6 +1717,10 @@ public class Replicator implements ThreadId.OnError {
         }
         final int entriesSize = request.getEntriesCount();
         if (entriesSize > 0) {
+            if (r.window != null) {
+                final long nowMs = Utils.monotonicMs();
+                r.window.onAck(inflight.size, nowMs - rpcSendTime, nowMs);
+            }
             if (r.options.getReplicatorType().isFollower()) {
                 // Only commit index when the response is from follower.
                 r.options.getBallotBox().commitAt(r.nextIndex, r.nextIndex + entriesSize - 1, r.options.getPeerId());
@@ -1432,6 +1735,9 @@ public class Replicator implements ThreadId.OnError {
         r.blockTimer = null;
         r.nextIndex += entriesSize;
         r.hasSucceeded = true;
+        r.onFollowerAck(rpcSendTime, entriesSize);
+        r.confirmReadIndex(rpcSendTime);
+        r.updatePeerCompressTypes(response);
         r.notifyOnCaughtUp(RaftError.SUCCESS.getNumber(), false);
         // dummy_id is unlock in _send_entries
         if (r.timeoutNowIndex > 0 && r.timeoutNowIndex < r.nextIndex) {
@@ -1463,6 +1769,9 @@ public class Replicator implements ThreadId.OnError {
         rb.setPrevLogIndex(prevLogIndex);
         rb.setPrevLogTerm(prevLogTerm);
         rb.setCommittedIndex(this.options.getBallotBox().getLastCommittedIndex());
+        if (isHeartbeat && this.options.getNode().isHibernating()) {
+            rb.setHibernate(true);
+        }
         return true;
     }
 
@@ -1473,7 +1782,10 @@ public class Replicator implements ThreadId.OnError {
                 return;
             }
             this.waitId = this.options.getLogManager().wait(nextWaitIndex - 1,
-                (arg, errorCode) -> continueSending((ThreadId) arg, errorCode), this.id);
+                (arg, errorCode) -> {
+                    runEvent((ThreadId) arg, () -> continueSending((ThreadId) arg, errorCode));
+                    return true;
+                }, this.id);
             this.statInfo.runningState = RunningState.IDLE;
         } finally {
             this.id.unlock();
@@ -1516,6 +1828,14 @@ public class Replicator implements ThreadId.OnError {
      * @return send result.
      */
     private boolean sendEntries(final long nextSendingIndex) {
+        if (this.catchUpBySnapshot) {
+            this.catchUpBySnapshot = false;
+            LOG.info("Lagging follower {} catches up by installing snapshot, nextIndex={}.", this.options.getPeerId(),
+                nextSendingIndex);
+            // unlock id in installSnapshot
+            installSnapshot();
+            return false;
+        }
         final AppendEntriesRequest.Builder rb = AppendEntriesRequest.newBuilder();
         if (!fillCommonFields(rb, nextSendingIndex - 1, false)) {
             // unlock id in installSnapshot
@@ -1525,37 +1845,59 @@ public class Replicator implements ThreadId.OnError {
 
         ByteBufferCollector dataBuf = null;
         final int maxEntriesSize = this.raftOptions.getMaxEntriesSize();
-        final RecyclableByteBufferList byteBufList = RecyclableByteBufferList.newInstance();
-        try {
-            for (int i = 0; i < maxEntriesSize; i++) {
-                final RaftOutter.EntryMeta.Builder emb = RaftOutter.EntryMeta.newBuilder();
-                if (!prepareEntry(nextSendingIndex, i, emb, byteBufList)) {
-                    break;
+        // The batch is limited by the available window when adaptive window is enabled.
+        final int maxBodySize = this.window != null ? this.window.nextBatchBytes() : this.raftOptions.getMaxBodySize();
+        final EncodedBatchCache batchCache = this.options.getBatchCache();
+        EncodedBatch batch = batchCache != null ? acquireBatch(batchCache, nextSendingIndex, maxEntriesSize,
+            maxBodySize) : null;
+        if (batch != null) {
+            // Reuse the entries encoded by other replicators, only the header fields are filled.
+            rb.addAllEntries(batch.getEntries());
+            rb.setData(batch.getData());
+        } else {
+            final RecyclableByteBufferList byteBufList = RecyclableByteBufferList.newInstance();
+            try {
+                final List<LogEntry> entries = readEntries(nextSendingIndex, maxEntriesSize, maxBodySize);
+                for (final LogEntry entry : entries) {
+                    final RaftOutter.EntryMeta.Builder emb = RaftOutter.EntryMeta.newBuilder();
+                    if (!prepareEntry(entry, emb, byteBufList, maxBodySize)) {
+                        break;
+                    }
+                    rb.addEntries(emb.build());
                 }
-                rb.addEntries(emb.build());
-            }
-            if (rb.getEntriesCount() == 0) {
-                if (nextSendingIndex < this.options.getLogManager().getFirstLogIndex()) {
-                    installSnapshot();
+                if (rb.getEntriesCount() == 0) {
+                    if (nextSendingIndex < this.options.getLogManager().getFirstLogIndex()) {
+                        installSnapshot();
+                        return false;
+                    }
+                    // _id is unlock in _wait_more
+                    waitMoreEntries(nextSendingIndex);
                     return false;
                 }
-                // _id is unlock in _wait_more
-                waitMoreEntries(nextSendingIndex);
-                return false;
-            }
-            if (byteBufList.getCapacity() > 0) {
-                dataBuf = ByteBufferCollector.allocateByRecyclers(byteBufList.getCapacity());
-                for (final ByteBuffer b : byteBufList) {
-                    dataBuf.put(b);
+                // The batch may stop before the entries read when it's full, read ahead after the last
+                // entry sent.
+                readAhead(nextSendingIndex + rb.getEntriesCount(), maxEntriesSize);
+                if (byteBufList.getCapacity() > 0) {
+                    dataBuf = ByteBufferCollector.allocateByRecyclers(byteBufList.getCapacity());
+                    for (final ByteBuffer b : byteBufList) {
+                        dataBuf.put(b);
+                    }
+                    final ByteBuffer buf = dataBuf.getBuffer();
+                    buf.flip();
+                    rb.setData(ZeroByteStringHelper.wrap(buf));
                 }
-                final ByteBuffer buf = dataBuf.getBuffer();
-                buf.flip();
-                rb.setData(ZeroByteStringHelper.wrap(buf));
+                if (batchCache != null) {
+                    batch = new EncodedBatch(nextSendingIndex, rb.getEntries(rb.getEntriesCount() - 1).getTerm(),
+                        rb.getEntriesList(), dataBuf);
+                    batchCache.put(batch);
+                }
+            } finally {
+                RecycleUtil.recycle(byteBufList);
             }
-        } finally {
-            RecycleUtil.recycle(byteBufList);
         }
 
+        compressData(rb);
+
         final AppendEntriesRequest request = rb.build();
         if (LOG.isDebugEnabled()) {
             LOG.debug(
@@ -1568,7 +1910,8 @@ public class Replicator implements ThreadId.OnError {
         this.statInfo.firstLogIndex = rb.getPrevLogIndex() + 1;
         this.statInfo.lastLogIndex = rb.getPrevLogIndex() + rb.getEntriesCount();
 
-        final Recyclable recyclable = dataBuf;
+        // The batch is released when the request finished, the data is recycled after all references released.
+        final Recyclable recyclable = batch != null ? batch : dataBuf;
         final int v = this.version;
         final long monotonicSendTimeMs = Utils.monotonicMs();
         final int seq = getAndIncrementReqSeq();
@@ -1581,8 +1924,8 @@ public class Replicator implements ThreadId.OnError {
                     @Override
                     public void run(final Status status) {
                         RecycleUtil.recycle(recyclable); // TODO: recycle on send success, not response received.
-                        onRpcReturned(Replicator.this.id, RequestType.AppendEntries, status, request, getResponse(),
-                            seq, v, monotonicSendTimeMs);
+                        runEvent(() -> onRpcReturned(Replicator.this.id, RequestType.AppendEntries, status, request,
+                            getResponse(), seq, v, monotonicSendTimeMs));
                     }
                 });
         } catch (final Throwable t) {
@@ -1595,6 +1938,88 @@ public class Replicator implements ThreadId.OnError {
         return true;
     }
 
+    /**
+     * Replaces the data of request by the compressed data when the peer supports the compressor.
+     * The compressed data is not cached in batch cache because the peers may not support the same
+     * compressors, and the raw data is still recycled with the request.
+     */
+    private void compressData(final AppendEntriesRequest.Builder rb) {
+        if (this.compressor == null || !rb.hasData()
+            || !Compressors.isSupported(this.peerCompressTypes, this.compressor.getType())) {
+            return;
+        }
+        final byte[] compressed = this.compressor.compress(rb.getData().asReadOnlyByteBuffer());
+        if (compressed != null) {
+            rb.setData(ZeroByteStringHelper.wrap(compressed)) //
+                .setCompressType(this.compressor.getType());
+        }
+    }
+
+    private void updatePeerCompressTypes(final AppendEntriesResponse response) {
+        if (response.hasCompressTypes()) {
+            this.peerCompressTypes = response.getCompressTypes();
+        }
+    }
+
+    /**
+     * Reads the entries to send, takes the read-ahead entries if they are ready, otherwise reads them
+     * in one batch, the logs that are not in memory are scanned from log storage sequentially.
+     */
+    private List<LogEntry> readEntries(final long nextSendingIndex, final int maxEntriesSize, final int maxBodySize) {
+        final LogManager logManager = this.options.getLogManager();
+        if (this.prefetcher == null) {
+            return logManager.getEntries(nextSendingIndex, maxEntriesSize, maxBodySize);
+        }
+        List<LogEntry> entries = this.prefetcher.poll(nextSendingIndex, maxEntriesSize, maxBodySize);
+        if (entries.isEmpty()) {
+            entries = logManager.getEntries(nextSendingIndex, maxEntriesSize, maxBodySize);
+            this.nodeMetrics.recordTimes("replicate-prefetch-miss", 1);
+        } else {
+            this.nodeMetrics.recordTimes("replicate-prefetch-hit", 1);
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the entries from readAheadIndex ahead when the follower is lagging.
+     */
+    private void readAhead(final long readAheadIndex, final int maxEntriesSize) {
+        if (this.prefetcher == null) {
+            return;
+        }
+        // The entries of a follower catching up are likely in memory, don't read them ahead.
+        if (this.options.getLogManager().getLastLogIndex() - readAheadIndex >= maxEntriesSize) {
+            this.prefetcher.readAhead(readAheadIndex);
+        }
+    }
+
+    /**
+     * Acquires the cached batch starting at nextSendingIndex, returns null if it's not found or
+     * can't be sent by this replicator.
+     */
+    private EncodedBatch acquireBatch(final EncodedBatchCache batchCache, final long nextSendingIndex,
+                                      final int maxEntriesSize, final int maxBodySize) {
+        final EncodedBatch batch = batchCache.acquire(nextSendingIndex);
+        if (batch == null) {
+            this.nodeMetrics.recordTimes("replicate-batch-cache-miss", 1);
+            return null;
+        }
+        // The logs may be truncated and overwritten, checks the term of last entry by Log Matching Property.
+        if (this.options.getLogManager().getTerm(batch.getLastIndex()) != batch.getLastTerm()) {
+            batchCache.remove(batch);
+            batch.recycle();
+            this.nodeMetrics.recordTimes("replicate-batch-cache-miss", 1);
+            return null;
+        }
+        if (batch.getCount() > maxEntriesSize || (batch.getCount() > 1 && batch.getDataSize() > maxBodySize)) {
+            batch.recycle();
+            this.nodeMetrics.recordTimes("replicate-batch-cache-miss", 1);
+            return null;
+        }
+        this.nodeMetrics.recordTimes("replicate-batch-cache-hit", 1);
+        return batch;
+    }
+
     public static void sendHeartbeat(final ThreadId id, final RpcResponseClosure<AppendEntriesResponse> closure) {
         final Replicator r = (Replicator) id.lock();
         if (r == null) {
@@ -1605,6 +2030,25 @@ public class Replicator implements ThreadId.OnError {
         r.sendEmptyEntries(true, closure);
     }
 
+    /**
+     * Restarts the heartbeat timer stopped by hibernation, a heartbeat is sent at once.
+     *
+     * @param id replicator id
+     */
+    public static void wakeup(final ThreadId id) {
+        final Replicator r = (Replicator) id.lock();
+        if (r == null) {
+            return;
+        }
+        if (!r.hibernated) {
+            id.unlock();
+            return;
+        }
+        r.hibernated = false;
+        // unlock in sendEmptyEntries
+        r.sendEmptyEntries(true);
+    }
+
     private static void sendHeartbeat(final ThreadId id) {
         final Replicator r = (Replicator) id.lock();
         if (r == null) {
@@ -1650,9 +2094,11 @@ public class Replicator implements ThreadId.OnError {
 
                 @Override
                 public void run(final Status status) {
-                    if (Replicator.this.id != null) {
-                        onTimeoutNowReturned(Replicator.this.id, status, request, getResponse(), stopAfterFinish);
-                    }
+                    runEvent(() -> {
+                        if (Replicator.this.id != null) {
+                            onTimeoutNowReturned(Replicator.this.id, status, request, getResponse(), stopAfterFinish);
+                        }
+                    });
                 }
 
             });
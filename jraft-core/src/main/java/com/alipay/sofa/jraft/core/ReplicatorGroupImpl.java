@@ -78,6 +78,9 @@ public class ReplicatorGroupImpl implements ReplicatorGroup {
         this.commonOptions.setServerId(nodeId.getPeerId());
         this.commonOptions.setSnapshotStorage(opts.getSnapshotStorage());
         this.commonOptions.setTimerManager(opts.getTimerManager());
+        if (this.raftOptions.getReplicatorBatchCacheSize() > 0) {
+            this.commonOptions.setBatchCache(new EncodedBatchCache(this.raftOptions.getReplicatorBatchCacheSize()));
+        }
         return true;
     }
 
@@ -166,9 +169,17 @@ public class ReplicatorGroupImpl implements ReplicatorGroup {
         for (final ThreadId rid : rids) {
             Replicator.stop(rid);
         }
+        clearBatchCache();
         return true;
     }
 
+    @Override
+    public void wakeupAll() {
+        for (final ThreadId rid : this.replicatorMap.values()) {
+            Replicator.wakeup(rid);
+        }
+    }
+
     @Override
     public void checkReplicator(final PeerId peer, final boolean lockNode) {
         final ThreadId rid = this.replicatorMap.get(peer);
@@ -212,9 +223,18 @@ public class ReplicatorGroupImpl implements ReplicatorGroup {
             return false;
         }
         this.commonOptions.setTerm(newTerm);
+        // The cached batches may be stale in new term.
+        clearBatchCache();
         return true;
     }
 
+    private void clearBatchCache() {
+        final EncodedBatchCache batchCache = this.commonOptions == null ? null : this.commonOptions.getBatchCache();
+        if (batchCache != null) {
+            batchCache.clear();
+        }
+    }
+
     @Override
     public boolean resetHeartbeatInterval(final int newIntervalMs) {
         this.dynamicTimeoutMs = newIntervalMs;
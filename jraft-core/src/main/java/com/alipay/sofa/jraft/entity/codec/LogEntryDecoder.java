@@ -16,6 +16,8 @@
  */
 package com.alipay.sofa.jraft.entity.codec;
 
+import java.nio.ByteBuffer;
+
 import com.alipay.sofa.jraft.entity.LogEntry;
 
 /**
@@ -32,4 +34,22 @@ public interface LogEntryDecoder {
      * @return
      */
     LogEntry decode(byte[] bs);
+
+    /**
+     * Decode a log entry from the remaining bytes of the buffer without changing its
+     * position, return null when fail to decode. It allows decoding from a mapped or
+     * direct buffer without copying the whole record into a byte array first, the data
+     * of the result entry never shares memory with the buffer.
+     *
+     * @param buf the buffer to read
+     * @return the decoded log entry
+     */
+    default LogEntry decodeFrom(final ByteBuffer buf) {
+        if (buf == null) {
+            return null;
+        }
+        final byte[] bs = new byte[buf.remaining()];
+        buf.duplicate().get(bs);
+        return decode(bs);
+    }
 }
@@ -16,6 +16,8 @@
  */
 package com.alipay.sofa.jraft.entity.codec;
 
+import java.nio.ByteBuffer;
+
 import com.alipay.sofa.jraft.entity.LogEntry;
 
 /**
@@ -32,4 +34,21 @@ public interface LogEntryEncoder {
      * @return encoded byte array
      */
     byte[] encode(LogEntry log);
+
+    /**
+     * Encode a log entry into the buffer from its position, the position is advanced by
+     * the encoded size. It allows the caller to encode entries into a pooled (direct)
+     * buffer instead of allocating a byte array per entry.
+     *
+     * @param log log entry
+     * @param out the buffer to write into
+     * @return encoded size in bytes
+     * @throws java.nio.BufferOverflowException if there is insufficient space in the buffer,
+     *         nothing is written then
+     */
+    default int encode(final LogEntry log, final ByteBuffer out) {
+        final byte[] bs = encode(log);
+        out.put(bs);
+        return bs.length;
+    }
 }
@@ -63,57 +63,95 @@ public class V2Decoder implements LogEntryDecoder {
         // Ignored reserved
         i += LogEntryV2CodecFactory.RESERVED.length;
         try {
-            final PBLogEntry entry = PBLogEntry.parseFrom(ZeroByteStringHelper.wrap(bs, i, bs.length - i));
+            return toLogEntry(PBLogEntry.parseFrom(ZeroByteStringHelper.wrap(bs, i, bs.length - i)));
+        } catch (final InvalidProtocolBufferException e) {
+            LOG.error("Fail to decode pb log entry", e);
+            return null;
+        }
+    }
 
-            final LogEntry log = new LogEntry();
-            log.setType(entry.getType());
-            log.getId().setIndex(entry.getIndex());
-            log.getId().setTerm(entry.getTerm());
+    @Override
+    public LogEntry decodeFrom(final ByteBuffer buf) {
+        if (buf == null || buf.remaining() < LogEntryV2CodecFactory.HEADER_SIZE) {
+            return null;
+        }
 
-            if (entry.hasChecksum()) {
-                log.setChecksum(entry.getChecksum());
-            }
-            if (entry.getPeersCount() > 0) {
-                final List<PeerId> peers = new ArrayList<>(entry.getPeersCount());
-                for (final ByteString bstring : entry.getPeersList()) {
-                    peers.add(JRaftUtils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
-                }
-                log.setPeers(peers);
+        int i = buf.position();
+        for (int j = 0; j < LogEntryV2CodecFactory.MAGIC_BYTES.length; j++) {
+            if (buf.get(i++) != LogEntryV2CodecFactory.MAGIC_BYTES[j]) {
+                return null;
             }
-            if (entry.getOldPeersCount() > 0) {
-                final List<PeerId> peers = new ArrayList<>(entry.getOldPeersCount());
-                for (final ByteString bstring : entry.getOldPeersList()) {
-                    peers.add(JRaftUtils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
-                }
-                log.setOldPeers(peers);
+        }
+
+        if (buf.get(i++) != LogEntryV2CodecFactory.VERSION) {
+            return null;
+        }
+        // Ignored reserved
+        i += LogEntryV2CodecFactory.RESERVED.length;
+        try {
+            final ByteBuffer body = buf.duplicate();
+            body.position(i);
+            if (!body.hasArray()) {
+                // The unsafe direct buffer decoder of protobuf 3.5 reads from a wrong address and crashes the
+                // JVM on JDK 17, copy the body into a heap array.
+                final byte[] bs = new byte[body.remaining()];
+                body.get(bs);
+                return toLogEntry(PBLogEntry.parseFrom(bs));
             }
+            // Parse from the buffer directly, only the data is copied out.
+            return toLogEntry(PBLogEntry.parseFrom(body));
+        } catch (final InvalidProtocolBufferException e) {
+            LOG.error("Fail to decode pb log entry", e);
+            return null;
+        }
+    }
+
+    private LogEntry toLogEntry(final PBLogEntry entry) {
+        final LogEntry log = new LogEntry();
+        log.setType(entry.getType());
+        log.getId().setIndex(entry.getIndex());
+        log.getId().setTerm(entry.getTerm());
 
-            if (entry.getLearnersCount() > 0) {
-                final List<PeerId> peers = new ArrayList<>(entry.getLearnersCount());
-                for (final ByteString bstring : entry.getLearnersList()) {
-                    peers.add(JRaftUtils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
-                }
-                log.setLearners(peers);
+        if (entry.hasChecksum()) {
+            log.setChecksum(entry.getChecksum());
+        }
+        if (entry.getPeersCount() > 0) {
+            final List<PeerId> peers = new ArrayList<>(entry.getPeersCount());
+            for (final ByteString bstring : entry.getPeersList()) {
+                peers.add(JRaftUtils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
+            }
+            log.setPeers(peers);
+        }
+        if (entry.getOldPeersCount() > 0) {
+            final List<PeerId> peers = new ArrayList<>(entry.getOldPeersCount());
+            for (final ByteString bstring : entry.getOldPeersList()) {
+                peers.add(JRaftUtils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
             }
+            log.setOldPeers(peers);
+        }
 
-            if (entry.getOldLearnersCount() > 0) {
-                final List<PeerId> peers = new ArrayList<>(entry.getOldLearnersCount());
-                for (final ByteString bstring : entry.getOldLearnersList()) {
-                    peers.add(JRaftUtils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
-                }
-                log.setOldLearners(peers);
+        if (entry.getLearnersCount() > 0) {
+            final List<PeerId> peers = new ArrayList<>(entry.getLearnersCount());
+            for (final ByteString bstring : entry.getLearnersList()) {
+                peers.add(JRaftUtils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
             }
+            log.setLearners(peers);
+        }
 
-            final ByteString data = entry.getData();
-            if (!data.isEmpty()) {
-                log.setData(ByteBuffer.wrap(ZeroByteStringHelper.getByteArray(data)));
+        if (entry.getOldLearnersCount() > 0) {
+            final List<PeerId> peers = new ArrayList<>(entry.getOldLearnersCount());
+            for (final ByteString bstring : entry.getOldLearnersList()) {
+                peers.add(JRaftUtils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
             }
+            log.setOldLearners(peers);
+        }
 
-            return log;
-        } catch (final InvalidProtocolBufferException e) {
-            LOG.error("Fail to decode pb log entry", e);
-            return null;
+        final ByteString data = entry.getData();
+        if (!data.isEmpty()) {
+            log.setData(ByteBuffer.wrap(ZeroByteStringHelper.getByteArray(data)));
         }
+
+        return log;
     }
 
     private V2Decoder() {
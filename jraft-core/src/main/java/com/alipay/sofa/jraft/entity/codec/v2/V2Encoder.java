@@ -17,6 +17,8 @@
 package com.alipay.sofa.jraft.entity.codec.v2;
 
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.List;
 
@@ -41,6 +43,10 @@ public class V2Encoder implements LogEntryEncoder {
 
     public static final V2Encoder INSTANCE = new V2Encoder();
 
+    private static final int                SCRATCH_SIZE = 64 * 1024;
+    // The scratch array to encode the body for a direct buffer
+    private static final ThreadLocal<byte[]> SCRATCH      = ThreadLocal.withInitial(() -> new byte[SCRATCH_SIZE]);
+
     private static boolean hasPeers(final Collection<PeerId> peers) {
         return peers != null && !peers.isEmpty();
     }
@@ -73,8 +79,7 @@ public class V2Encoder implements LogEntryEncoder {
         }
     }
 
-    @Override
-    public byte[] encode(final LogEntry log) {
+    private PBLogEntry toPBLogEntry(final LogEntry log) {
         Requires.requireNonNull(log, "Null log");
 
         final LogId logId = log.getId();
@@ -108,7 +113,12 @@ public class V2Encoder implements LogEntryEncoder {
 
         builder.setData(log.getData() != null ? ZeroByteStringHelper.wrap(log.getData()) : ByteString.EMPTY);
 
-        final PBLogEntry pbLogEntry = builder.build();
+        return builder.build();
+    }
+
+    @Override
+    public byte[] encode(final LogEntry log) {
+        final PBLogEntry pbLogEntry = toPBLogEntry(log);
         final int bodyLen = pbLogEntry.getSerializedSize();
         final byte[] ret = new byte[LogEntryV2CodecFactory.HEADER_SIZE + bodyLen];
 
@@ -129,6 +139,33 @@ public class V2Encoder implements LogEntryEncoder {
         return ret;
     }
 
+    @Override
+    public int encode(final LogEntry log, final ByteBuffer out) {
+        final PBLogEntry pbLogEntry = toPBLogEntry(log);
+        final int bodyLen = pbLogEntry.getSerializedSize();
+        final int len = LogEntryV2CodecFactory.HEADER_SIZE + bodyLen;
+        if (out.remaining() < len) {
+            throw new BufferOverflowException();
+        }
+
+        // write header
+        out.put(LogEntryV2CodecFactory.MAGIC_BYTES);
+        out.put(LogEntryV2CodecFactory.VERSION);
+        out.put(LogEntryV2CodecFactory.RESERVED);
+
+        // write body, always into a heap array, the unsafe direct buffer encoder of protobuf 3.5 writes to
+        // a wrong address and crashes the JVM on JDK 17
+        if (out.hasArray()) {
+            writeToByteArray(pbLogEntry, out.array(), out.arrayOffset() + out.position(), bodyLen);
+            out.position(out.position() + bodyLen);
+        } else {
+            final byte[] body = bodyLen <= SCRATCH_SIZE ? SCRATCH.get() : new byte[bodyLen];
+            writeToByteArray(pbLogEntry, body, 0, bodyLen);
+            out.put(body, 0, bodyLen);
+        }
+        return len;
+    }
+
     private void writeToByteArray(final PBLogEntry pbLogEntry, final byte[] array, final int offset, final int len) {
         final CodedOutputStream output = CodedOutputStream.newInstance(array, offset, len);
         try {
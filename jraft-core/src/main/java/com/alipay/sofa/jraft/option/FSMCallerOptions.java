@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.jraft.option;
 
+import com.alipay.sofa.jraft.ApplyPartitioner;
 import com.alipay.sofa.jraft.Closure;
 import com.alipay.sofa.jraft.StateMachine;
 import com.alipay.sofa.jraft.closure.ClosureQueue;
@@ -31,16 +32,37 @@ import com.alipay.sofa.jraft.storage.LogManager;
  * 2018-Apr-04 2:59:02 PM
  */
 public class FSMCallerOptions {
-    private LogManager   logManager;
-    private StateMachine fsm;
-    private Closure      afterShutdown;
-    private LogId        bootstrapId;
-    private ClosureQueue closureQueue;
-    private NodeImpl     node;
+    private LogManager       logManager;
+    private StateMachine     fsm;
+    private Closure          afterShutdown;
+    private LogId            bootstrapId;
+    private ClosureQueue     closureQueue;
+    private NodeImpl         node;
     /**
      * disruptor buffer size.
      */
-    private int          disruptorBufferSize = 1024;
+    private int              disruptorBufferSize = 1024;
+    /**
+     * Partitions the tasks to apply in parallel, null to apply them on the FSM caller thread.
+     */
+    private ApplyPartitioner applyPartitioner;
+    private int              applyParallelism    = 1;
+
+    public ApplyPartitioner getApplyPartitioner() {
+        return this.applyPartitioner;
+    }
+
+    public void setApplyPartitioner(ApplyPartitioner applyPartitioner) {
+        this.applyPartitioner = applyPartitioner;
+    }
+
+    public int getApplyParallelism() {
+        return this.applyParallelism;
+    }
+
+    public void setApplyParallelism(int applyParallelism) {
+        this.applyParallelism = applyParallelism;
+    }
 
     public int getDisruptorBufferSize() {
         return this.disruptorBufferSize;
@@ -17,6 +17,7 @@
 package com.alipay.sofa.jraft.option;
 
 import com.alipay.remoting.util.StringUtils;
+import com.alipay.sofa.jraft.ApplyPartitioner;
 import com.alipay.sofa.jraft.JRaftServiceFactory;
 import com.alipay.sofa.jraft.StateMachine;
 import com.alipay.sofa.jraft.conf.Configuration;
@@ -83,6 +84,15 @@ public class NodeOptions extends RpcOptions implements Copiable<NodeOptions> {
     // Default: 1000
     private int                             catchupMargin          = 1000;
 
+    // The leader hibernates the group if no log is appended in |hibernate_timeout_ms|
+    // milliseconds and all the followers have caught up. A hibernated leader stops
+    // heartbeating and its followers suspend their election timers, until new logs,
+    // configuration changes, read requests, vote requests or a explicit Node#wakeup().
+    // If |hibernate_timeout_ms| <= 0, the hibernation would be disabled.
+    //
+    // Default: 0
+    private int                             hibernateTimeoutMs     = 0;
+
     // If node is starting from a empty environment (both LogStorage and
     // SnapshotStorage are empty), it would use |initial_conf| as the
     // configuration of the group, otherwise it would load configuration from
@@ -163,6 +173,19 @@ public class NodeOptions extends RpcOptions implements Copiable<NodeOptions> {
      */
     private boolean                         sharedSnapshotTimer    = false;
 
+    /**
+     * If non-null, the committed data tasks are partitioned by it and applied on
+     * {@code applyParallelism} lanes concurrently, the state machine must be thread-safe between
+     * partitions. Configuration entries and snapshots are barriers of the lanes. A
+     * {@link com.alipay.sofa.jraft.BatchStateMachine} receives the tasks of every lane as a batch.
+     * Default: NULL
+     */
+    private ApplyPartitioner                applyPartitioner;
+    /**
+     * The count of lanes to apply the tasks in parallel, only works with {@code applyPartitioner}.
+     */
+    private int                             applyParallelism       = Utils.cpus();
+
     /**
      * Custom service factory.
      */
@@ -247,6 +270,9 @@ public class NodeOptions extends RpcOptions implements Copiable<NodeOptions> {
         if (this.fsm == null) {
             throw new IllegalArgumentException("Null stateMachine");
         }
+        if (this.applyPartitioner != null && this.applyParallelism <= 0) {
+            throw new IllegalArgumentException("Invalid applyParallelism: " + this.applyParallelism);
+        }
     }
 
     public int getElectionPriority() {
@@ -313,6 +339,14 @@ public class NodeOptions extends RpcOptions implements Copiable<NodeOptions> {
         this.catchupMargin = catchupMargin;
     }
 
+    public int getHibernateTimeoutMs() {
+        return this.hibernateTimeoutMs;
+    }
+
+    public void setHibernateTimeoutMs(final int hibernateTimeoutMs) {
+        this.hibernateTimeoutMs = hibernateTimeoutMs;
+    }
+
     public Configuration getInitialConf() {
         return this.initialConf;
     }
@@ -401,6 +435,22 @@ public class NodeOptions extends RpcOptions implements Copiable<NodeOptions> {
         this.sharedSnapshotTimer = sharedSnapshotTimer;
     }
 
+    public ApplyPartitioner getApplyPartitioner() {
+        return applyPartitioner;
+    }
+
+    public void setApplyPartitioner(ApplyPartitioner applyPartitioner) {
+        this.applyPartitioner = applyPartitioner;
+    }
+
+    public int getApplyParallelism() {
+        return applyParallelism;
+    }
+
+    public void setApplyParallelism(int applyParallelism) {
+        this.applyParallelism = applyParallelism;
+    }
+
     @Override
     public NodeOptions copy() {
         final NodeOptions nodeOptions = new NodeOptions();
@@ -410,6 +460,7 @@ public class NodeOptions extends RpcOptions implements Copiable<NodeOptions> {
         nodeOptions.setSnapshotIntervalSecs(this.snapshotIntervalSecs);
         nodeOptions.setSnapshotLogIndexMargin(this.snapshotLogIndexMargin);
         nodeOptions.setCatchupMargin(this.catchupMargin);
+        nodeOptions.setHibernateTimeoutMs(this.hibernateTimeoutMs);
         nodeOptions.setFilterBeforeCopyRemote(this.filterBeforeCopyRemote);
         nodeOptions.setDisableCli(this.disableCli);
         nodeOptions.setSharedTimerPool(this.sharedTimerPool);
@@ -422,6 +473,7 @@ public class NodeOptions extends RpcOptions implements Copiable<NodeOptions> {
         nodeOptions.setSharedVoteTimer(this.sharedVoteTimer);
         nodeOptions.setSharedStepDownTimer(this.sharedStepDownTimer);
         nodeOptions.setSharedSnapshotTimer(this.sharedSnapshotTimer);
+        nodeOptions.setApplyParallelism(this.applyParallelism);
         return nodeOptions;
     }
 
@@ -430,14 +482,16 @@ public class NodeOptions extends RpcOptions implements Copiable<NodeOptions> {
         return "NodeOptions{" + "electionTimeoutMs=" + electionTimeoutMs + ", electionPriority=" + electionPriority
                + ", decayPriorityGap=" + decayPriorityGap + ", leaderLeaseTimeRatio=" + leaderLeaseTimeRatio
                + ", snapshotIntervalSecs=" + snapshotIntervalSecs + ", snapshotLogIndexMargin="
-               + snapshotLogIndexMargin + ", catchupMargin=" + catchupMargin + ", initialConf=" + initialConf
-               + ", fsm=" + fsm + ", logUri='" + logUri + '\'' + ", raftMetaUri='" + raftMetaUri + '\''
-               + ", snapshotUri='" + snapshotUri + '\'' + ", filterBeforeCopyRemote=" + filterBeforeCopyRemote
-               + ", disableCli=" + disableCli + ", sharedTimerPool=" + sharedTimerPool + ", timerPoolSize="
-               + timerPoolSize + ", cliRpcThreadPoolSize=" + cliRpcThreadPoolSize + ", raftRpcThreadPoolSize="
-               + raftRpcThreadPoolSize + ", enableMetrics=" + enableMetrics + ", snapshotThrottle=" + snapshotThrottle
+               + snapshotLogIndexMargin + ", catchupMargin=" + catchupMargin + ", hibernateTimeoutMs="
+               + hibernateTimeoutMs + ", initialConf=" + initialConf + ", fsm=" + fsm + ", logUri='" + logUri + '\''
+               + ", raftMetaUri='" + raftMetaUri + '\'' + ", snapshotUri='" + snapshotUri + '\''
+               + ", filterBeforeCopyRemote=" + filterBeforeCopyRemote + ", disableCli=" + disableCli
+               + ", sharedTimerPool=" + sharedTimerPool + ", timerPoolSize=" + timerPoolSize
+               + ", cliRpcThreadPoolSize=" + cliRpcThreadPoolSize + ", raftRpcThreadPoolSize=" + raftRpcThreadPoolSize
+               + ", enableMetrics=" + enableMetrics + ", snapshotThrottle=" + snapshotThrottle
                + ", sharedElectionTimer=" + sharedElectionTimer + ", sharedVoteTimer=" + sharedVoteTimer
                + ", sharedStepDownTimer=" + sharedStepDownTimer + ", sharedSnapshotTimer=" + sharedSnapshotTimer
+               + ", applyPartitioner=" + applyPartitioner + ", applyParallelism=" + applyParallelism
                + ", serviceFactory=" + serviceFactory + ", raftOptions=" + raftOptions + "} " + super.toString();
     }
 }
@@ -52,8 +52,73 @@ public class RaftOptions implements Copiable<RaftOptions> {
     private boolean        openStatistics                       = true;
     /** Whether to enable replicator pipeline. */
     private boolean        replicatorPipeline                   = true;
+    /**
+     * Whether the follower coalesces the consecutive pipelined AppendEntries requests queued from leader,
+     * and appends/flushes their entries at once, default is false. Only valid when enable replicator pipeline.
+     */
+    private boolean        coalesceAppendEntries                = false;
+    /**
+     * Whether the leader batches the heartbeats of all the raft groups in this process to the same endpoint
+     * into one RPC, default is false. All the peers must support the batch append-entries request.
+     */
+    private boolean        batchHeartbeats                      = false;
     /** The maximum replicator pipeline in-flight requests/responses, only valid when enable replicator pipeline. */
     private int            maxReplicatorInflightMsgs            = 256;
+    /**
+     * Whether to size the replicator pipeline window and the bytes per AppendEntries request
+     * adaptively by the measured RTT and throughput of each follower, default is false.
+     * The window is bounded by maxReplicatorInflightMsgs * maxBodySize, only valid when enable
+     * replicator pipeline.
+     */
+    private boolean        replicatorAdaptiveWindow             = false;
+    /**
+     * The maximum number of encoded AppendEntries batches shared by all replicators of a group,
+     * so that the leader reads and encodes the entries only once for all followers,
+     * default is 0(disabled). It's recommended for groups with many followers.
+     */
+    private int            replicatorBatchCacheSize             = 0;
+    /**
+     * The maximum bytes of log entries read ahead of the send cursor for every lagging follower
+     * on a dedicated I/O pool, so that the replicator doesn't wait for the log storage when
+     * sending, default is 0(disabled).
+     */
+    private int            replicatorPrefetchBytes              = 0;
+    /**
+     * Whether to classify the followers as healthy, slow or lagging by the RTT and the trend of lagging logs,
+     * default is false. A lagging follower is replicated in probing mode with only one in-flight request, so it
+     * never pins unbounded in-flight requests, and it catches up by installing snapshot when the latest snapshot
+     * covers more than laggingFollowerLogs logs it lacks.
+     */
+    private boolean        isolateSlowFollower                  = false;
+    /** The smoothed RTT in milliseconds above which a follower is slow, only valid when isolating slow followers. */
+    private int            slowFollowerRttMs                    = 500;
+    /**
+     * The lagging logs above which a follower that doesn't catch up is lagging, only valid when isolating slow
+     * followers.
+     */
+    private int            laggingFollowerLogs                  = 10000;
+    /**
+     * Whether to run the events of every replicator(RPC responses, timers and new logs notifications) serially
+     * in its own mailbox on a shared event loop group, default is false. The threads of the group are set by
+     * system property {@code jraft.replicator.event_loop.threads}, so the replicator is driven by one thread
+     * at a time instead of the RPC callback threads contending on its lock.
+     * It's experimental: the gain on a multi-core host is not measured yet, on one CPU the extra hop to the
+     * mailbox makes it slower than the lock, see ReplicatorEventLoopBenchmark.
+     */
+    private boolean        replicatorEventLoop                  = false;
+    /**
+     * The SPI name of compressor(such as "deflate") to compress the data of AppendEntries requests, default is
+     * null that disables compression. The data is sent compressed only when the follower supports the
+     * compressor, and the compression is skipped adaptively when the ratio is poor.
+     */
+    private String         replicatorCompressor                 = null;
+    /**
+     * Whether the leader appends the applied tasks without the node lock, default is false. The term and
+     * configuration of leader are published as an immutable view which is revoked in lock before any change, so
+     * applying tasks doesn't contend with votes, configuration changes and state queries on the node lock.
+     * It's experimental: the throughput improvement is not demonstrated yet, see LeaderAppendBenchmark.
+     */
+    private boolean        lockFreeLeaderAppend                 = false;
     /** Internal disruptor buffers size for Node/FSMCaller/LogManager etc. */
     private int            disruptorBufferSize                  = 16384;
     /**
@@ -81,11 +146,32 @@ public class RaftOptions implements Copiable<RaftOptions> {
      * in that case.
      */
     private ReadOnlyOption readOnlyOptions                      = ReadOnlyOption.ReadOnlySafe;
+    /**
+     * Whether the leader confirms the {@link ReadOnlyOption#ReadOnlySafe} reads by the regular heartbeat and
+     * AppendEntries responses of replicators instead of sending a heartbeat round for every read batch, default
+     * is false. A read is confirmed once a quorum acked the requests sent after it's registered, so a steady
+     * read-heavy load issues no extra RPCs, but the latency of a read is bounded by the heartbeat interval
+     * when there are no writes.
+     */
+    private boolean        readIndexPiggyback                   = false;
     /**
      * Candidate steps down when election reaching timeout, default is true(enabled).
      * @since 1.3.0
      */
     private boolean        stepDownWhenVoteTimedout             = true;
+    /**
+     * The maximum bytes of the off-heap cache for the recent log entries which are already
+     * stable and released from memory, default is 0(disabled).
+     */
+    private int            maxLogEntryCacheBytes                = 0;
+
+    public int getMaxLogEntryCacheBytes() {
+        return this.maxLogEntryCacheBytes;
+    }
+
+    public void setMaxLogEntryCacheBytes(final int maxLogEntryCacheBytes) {
+        this.maxLogEntryCacheBytes = maxLogEntryCacheBytes;
+    }
 
     public boolean isStepDownWhenVoteTimedout() {
         return this.stepDownWhenVoteTimedout;
@@ -119,6 +205,14 @@ public class RaftOptions implements Copiable<RaftOptions> {
         this.readOnlyOptions = readOnlyOptions;
     }
 
+    public boolean isReadIndexPiggyback() {
+        return this.readIndexPiggyback;
+    }
+
+    public void setReadIndexPiggyback(final boolean readIndexPiggyback) {
+        this.readIndexPiggyback = readIndexPiggyback;
+    }
+
     public boolean isReplicatorPipeline() {
         return this.replicatorPipeline && RpcFactoryHelper.rpcFactory().isReplicatorPipelineEnabled();
     }
@@ -127,6 +221,94 @@ public class RaftOptions implements Copiable<RaftOptions> {
         this.replicatorPipeline = replicatorPipeline;
     }
 
+    public boolean isCoalesceAppendEntries() {
+        return this.coalesceAppendEntries;
+    }
+
+    public void setCoalesceAppendEntries(final boolean coalesceAppendEntries) {
+        this.coalesceAppendEntries = coalesceAppendEntries;
+    }
+
+    public boolean isBatchHeartbeats() {
+        return this.batchHeartbeats;
+    }
+
+    public void setBatchHeartbeats(final boolean batchHeartbeats) {
+        this.batchHeartbeats = batchHeartbeats;
+    }
+
+    public boolean isReplicatorAdaptiveWindow() {
+        return this.replicatorAdaptiveWindow;
+    }
+
+    public void setReplicatorAdaptiveWindow(final boolean replicatorAdaptiveWindow) {
+        this.replicatorAdaptiveWindow = replicatorAdaptiveWindow;
+    }
+
+    public int getReplicatorBatchCacheSize() {
+        return this.replicatorBatchCacheSize;
+    }
+
+    public void setReplicatorBatchCacheSize(final int replicatorBatchCacheSize) {
+        this.replicatorBatchCacheSize = replicatorBatchCacheSize;
+    }
+
+    public int getReplicatorPrefetchBytes() {
+        return this.replicatorPrefetchBytes;
+    }
+
+    public void setReplicatorPrefetchBytes(final int replicatorPrefetchBytes) {
+        this.replicatorPrefetchBytes = replicatorPrefetchBytes;
+    }
+
+    public boolean isIsolateSlowFollower() {
+        return this.isolateSlowFollower;
+    }
+
+    public void setIsolateSlowFollower(final boolean isolateSlowFollower) {
+        this.isolateSlowFollower = isolateSlowFollower;
+    }
+
+    public int getSlowFollowerRttMs() {
+        return this.slowFollowerRttMs;
+    }
+
+    public void setSlowFollowerRttMs(final int slowFollowerRttMs) {
+        this.slowFollowerRttMs = slowFollowerRttMs;
+    }
+
+    public int getLaggingFollowerLogs() {
+        return this.laggingFollowerLogs;
+    }
+
+    public void setLaggingFollowerLogs(final int laggingFollowerLogs) {
+        this.laggingFollowerLogs = laggingFollowerLogs;
+    }
+
+    public boolean isReplicatorEventLoop() {
+        return this.replicatorEventLoop;
+    }
+
+    public void setReplicatorEventLoop(final boolean replicatorEventLoop) {
+        this.replicatorEventLoop = replicatorEventLoop;
+    }
+
+    public boolean isLockFreeLeaderAppend() {
+        return this.lockFreeLeaderAppend;
+    }
+
+    public void setLockFreeLeaderAppend(final boolean lockFreeLeaderAppend) {
+        this.lockFreeLeaderAppend = lockFreeLeaderAppend;
+    }
+
+    public String getReplicatorCompressor() {
+        return this.replicatorCompressor;
+    }
+
+    public void setReplicatorCompressor(final String replicatorCompressor) {
+        this.replicatorCompressor = replicatorCompressor;
+    }
+
     public int getMaxReplicatorInflightMsgs() {
         return this.maxReplicatorInflightMsgs;
     }
@@ -246,11 +428,24 @@ public class RaftOptions implements Copiable<RaftOptions> {
         raftOptions.setSyncMeta(this.syncMeta);
         raftOptions.setOpenStatistics(this.openStatistics);
         raftOptions.setReplicatorPipeline(this.replicatorPipeline);
+        raftOptions.setCoalesceAppendEntries(this.coalesceAppendEntries);
+        raftOptions.setBatchHeartbeats(this.batchHeartbeats);
         raftOptions.setMaxReplicatorInflightMsgs(this.maxReplicatorInflightMsgs);
+        raftOptions.setReplicatorAdaptiveWindow(this.replicatorAdaptiveWindow);
+        raftOptions.setReplicatorBatchCacheSize(this.replicatorBatchCacheSize);
+        raftOptions.setReplicatorPrefetchBytes(this.replicatorPrefetchBytes);
+        raftOptions.setIsolateSlowFollower(this.isolateSlowFollower);
+        raftOptions.setSlowFollowerRttMs(this.slowFollowerRttMs);
+        raftOptions.setLaggingFollowerLogs(this.laggingFollowerLogs);
+        raftOptions.setReplicatorEventLoop(this.replicatorEventLoop);
+        raftOptions.setReplicatorCompressor(this.replicatorCompressor);
+        raftOptions.setLockFreeLeaderAppend(this.lockFreeLeaderAppend);
         raftOptions.setDisruptorBufferSize(this.disruptorBufferSize);
         raftOptions.setDisruptorPublishEventWaitTimeoutSecs(this.disruptorPublishEventWaitTimeoutSecs);
         raftOptions.setEnableLogEntryChecksum(this.enableLogEntryChecksum);
         raftOptions.setReadOnlyOptions(this.readOnlyOptions);
+        raftOptions.setReadIndexPiggyback(this.readIndexPiggyback);
+        raftOptions.setMaxLogEntryCacheBytes(this.maxLogEntryCacheBytes);
         return raftOptions;
     }
 
@@ -262,9 +457,17 @@ public class RaftOptions implements Copiable<RaftOptions> {
                + this.maxElectionDelayMs + ", electionHeartbeatFactor=" + this.electionHeartbeatFactor
                + ", applyBatch=" + this.applyBatch + ", sync=" + this.sync + ", syncMeta=" + this.syncMeta
                + ", openStatistics=" + this.openStatistics + ", replicatorPipeline=" + this.replicatorPipeline
-               + ", maxReplicatorInflightMsgs=" + this.maxReplicatorInflightMsgs + ", disruptorBufferSize="
-               + this.disruptorBufferSize + ", disruptorPublishEventWaitTimeoutSecs="
-               + this.disruptorPublishEventWaitTimeoutSecs + ", enableLogEntryChecksum=" + this.enableLogEntryChecksum
-               + ", readOnlyOptions=" + this.readOnlyOptions + '}';
+               + ", coalesceAppendEntries=" + this.coalesceAppendEntries + ", batchHeartbeats=" + this.batchHeartbeats
+               + ", maxReplicatorInflightMsgs=" + this.maxReplicatorInflightMsgs + ", replicatorAdaptiveWindow="
+               + this.replicatorAdaptiveWindow + ", replicatorBatchCacheSize=" + this.replicatorBatchCacheSize
+               + ", replicatorPrefetchBytes=" + this.replicatorPrefetchBytes + ", isolateSlowFollower="
+               + this.isolateSlowFollower + ", slowFollowerRttMs=" + this.slowFollowerRttMs + ", laggingFollowerLogs="
+               + this.laggingFollowerLogs + ", replicatorEventLoop=" + this.replicatorEventLoop
+               + ", replicatorCompressor=" + this.replicatorCompressor + ", lockFreeLeaderAppend="
+               + this.lockFreeLeaderAppend + ", disruptorBufferSize=" + this.disruptorBufferSize
+               + ", disruptorPublishEventWaitTimeoutSecs=" + this.disruptorPublishEventWaitTimeoutSecs
+               + ", enableLogEntryChecksum=" + this.enableLogEntryChecksum + ", readOnlyOptions="
+               + this.readOnlyOptions + ", readIndexPiggyback=" + this.readIndexPiggyback + ", maxLogEntryCacheBytes="
+               + this.maxLogEntryCacheBytes + '}';
     }
 }
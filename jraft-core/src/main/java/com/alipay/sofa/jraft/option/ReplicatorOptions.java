@@ -17,6 +17,7 @@
 package com.alipay.sofa.jraft.option;
 
 import com.alipay.sofa.jraft.core.BallotBox;
+import com.alipay.sofa.jraft.core.EncodedBatchCache;
 import com.alipay.sofa.jraft.core.NodeImpl;
 import com.alipay.sofa.jraft.core.ReplicatorType;
 import com.alipay.sofa.jraft.core.Scheduler;
@@ -49,6 +50,7 @@ public class ReplicatorOptions implements Copiable<ReplicatorOptions> {
     private RaftClientService raftRpcService;
     private Scheduler         timerManager;
     private ReplicatorType    replicatorType;
+    private EncodedBatchCache batchCache;
 
     public ReplicatorOptions() {
         super();
@@ -111,9 +113,18 @@ public class ReplicatorOptions implements Copiable<ReplicatorOptions> {
         replicatorOptions.setSnapshotStorage(this.snapshotStorage);
         replicatorOptions.setRaftRpcService(this.raftRpcService);
         replicatorOptions.setTimerManager(this.timerManager);
+        replicatorOptions.setBatchCache(this.batchCache);
         return replicatorOptions;
     }
 
+    public EncodedBatchCache getBatchCache() {
+        return this.batchCache;
+    }
+
+    public void setBatchCache(final EncodedBatchCache batchCache) {
+        this.batchCache = batchCache;
+    }
+
     public Scheduler getTimerManager() {
         return this.timerManager;
     }
@@ -213,6 +224,6 @@ public class ReplicatorOptions implements Copiable<ReplicatorOptions> {
                + this.groupId + '\'' + ", serverId=" + this.serverId + ", peerId=" + this.peerId + ", logManager="
                + this.logManager + ", ballotBox=" + this.ballotBox + ", node=" + this.node + ", term=" + this.term
                + ", snapshotStorage=" + this.snapshotStorage + ", raftRpcService=" + this.raftRpcService
-               + ", timerManager=" + this.timerManager + '}';
+               + ", timerManager=" + this.timerManager + ", batchCache=" + this.batchCache + '}';
     }
 }
@@ -63,6 +63,20 @@ public interface RaftClientService extends ClientService {
     Future<Message> appendEntries(final Endpoint endpoint, final RpcRequests.AppendEntriesRequest request,
                                   final int timeoutMs, final RpcResponseClosure<RpcRequests.AppendEntriesResponse> done);
 
+    /**
+     * Sends a batch of append-entries requests of different raft groups to the
+     * same endpoint in one RPC and handle the response with done.
+     *
+     * @param endpoint  destination address (ip, port)
+     * @param request   request data
+     * @param timeoutMs timeout millis
+     * @param done      callback
+     * @return a future with result
+     */
+    Future<Message> batchAppendEntries(final Endpoint endpoint, final RpcRequests.BatchAppendEntriesRequest request,
+                                       final int timeoutMs,
+                                       final RpcResponseClosure<RpcRequests.BatchAppendEntriesResponse> done);
+
     /**
      * Sends a install-snapshot request and handle the response with done.
      *
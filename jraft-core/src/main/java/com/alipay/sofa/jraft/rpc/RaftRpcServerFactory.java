@@ -31,6 +31,7 @@ import com.alipay.sofa.jraft.rpc.impl.cli.ResetPeerRequestProcessor;
 import com.alipay.sofa.jraft.rpc.impl.cli.SnapshotRequestProcessor;
 import com.alipay.sofa.jraft.rpc.impl.cli.TransferLeaderRequestProcessor;
 import com.alipay.sofa.jraft.rpc.impl.core.AppendEntriesRequestProcessor;
+import com.alipay.sofa.jraft.rpc.impl.core.BatchAppendEntriesRequestProcessor;
 import com.alipay.sofa.jraft.rpc.impl.core.GetFileRequestProcessor;
 import com.alipay.sofa.jraft.rpc.impl.core.InstallSnapshotRequestProcessor;
 import com.alipay.sofa.jraft.rpc.impl.core.ReadIndexRequestProcessor;
@@ -99,6 +100,7 @@ public class RaftRpcServerFactory {
             raftExecutor);
         rpcServer.registerConnectionClosedEventListener(appendEntriesRequestProcessor);
         rpcServer.registerProcessor(appendEntriesRequestProcessor);
+        rpcServer.registerProcessor(new BatchAppendEntriesRequestProcessor(raftExecutor));
         rpcServer.registerProcessor(new GetFileRequestProcessor(raftExecutor));
         rpcServer.registerProcessor(new InstallSnapshotRequestProcessor(raftExecutor));
         rpcServer.registerProcessor(new RequestVoteRequestProcessor(raftExecutor));
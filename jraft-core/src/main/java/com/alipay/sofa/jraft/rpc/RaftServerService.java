@@ -16,6 +16,8 @@
  */
 package com.alipay.sofa.jraft.rpc;
 
+import java.util.List;
+
 import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest;
 import com.alipay.sofa.jraft.rpc.RpcRequests.InstallSnapshotRequest;
 import com.alipay.sofa.jraft.rpc.RpcRequests.ReadIndexRequest;
@@ -59,6 +61,19 @@ public interface RaftServerService {
      */
     Message handleAppendEntriesRequest(AppendEntriesRequest request, RpcRequestClosure done);
 
+    /**
+     * Handle the consecutive append-entries requests from the same leader in one batch,
+     * the entries are appended and flushed at once, and every request is responded by
+     * its own done. Returns the response message for all the requests if the first one
+     * is rejected. If a later request is rejected, the requests before it are appended,
+     * and it and the ones after it are handled one by one.
+     *
+     * @param requests consecutive requests with entries, in the order of log index
+     * @param dones    callbacks of the requests
+     * @return the response message
+     */
+    Message handleAppendEntriesRequests(List<AppendEntriesRequest> requests, List<RpcRequestClosure> dones);
+
     /**
      * Handle install-snapshot request, return response message or
      * called done.run() with response.
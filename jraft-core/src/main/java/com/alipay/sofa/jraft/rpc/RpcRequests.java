@@ -8352,6 +8352,26 @@ public final class RpcRequests {
          * <code>optional bytes data = 9;</code>
          */
         com.google.protobuf.ByteString getData();
+
+        /**
+         * <code>optional bool hibernate = 10;</code>
+         */
+        boolean hasHibernate();
+
+        /**
+         * <code>optional bool hibernate = 10;</code>
+         */
+        boolean getHibernate();
+
+        /**
+         * <code>optional int32 compress_type = 11;</code>
+         */
+        boolean hasCompressType();
+
+        /**
+         * <code>optional int32 compress_type = 11;</code>
+         */
+        int getCompressType();
     }
 
     /**
@@ -8377,6 +8397,8 @@ public final class RpcRequests {
             entries_ = java.util.Collections.emptyList();
             committedIndex_ = 0L;
             data_ = com.google.protobuf.ByteString.EMPTY;
+            hibernate_ = false;
+            compressType_ = 0;
         }
 
         @java.lang.Override
@@ -8460,6 +8482,16 @@ public final class RpcRequests {
                             data_ = input.readBytes();
                             break;
                         }
+                        case 80: {
+                            bitField0_ |= 0x00000100;
+                            hibernate_ = input.readBool();
+                            break;
+                        }
+                        case 88: {
+                            bitField0_ |= 0x00000200;
+                            compressType_ = input.readInt32();
+                            break;
+                        }
                     }
                 }
             } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -8732,6 +8764,40 @@ public final class RpcRequests {
             return data_;
         }
 
+        public static final int HIBERNATE_FIELD_NUMBER = 10;
+        private boolean         hibernate_;
+
+        /**
+         * <code>optional bool hibernate = 10;</code>
+         */
+        public boolean hasHibernate() {
+            return ((bitField0_ & 0x00000100) == 0x00000100);
+        }
+
+        /**
+         * <code>optional bool hibernate = 10;</code>
+         */
+        public boolean getHibernate() {
+            return hibernate_;
+        }
+
+        public static final int COMPRESS_TYPE_FIELD_NUMBER = 11;
+        private int             compressType_;
+
+        /**
+         * <code>optional int32 compress_type = 11;</code>
+         */
+        public boolean hasCompressType() {
+            return ((bitField0_ & 0x00000200) == 0x00000200);
+        }
+
+        /**
+         * <code>optional int32 compress_type = 11;</code>
+         */
+        public int getCompressType() {
+            return compressType_;
+        }
+
         private byte memoizedIsInitialized = -1;
 
         public final boolean isInitialized() {
@@ -8807,6 +8873,12 @@ public final class RpcRequests {
             if (((bitField0_ & 0x00000080) == 0x00000080)) {
                 output.writeBytes(9, data_);
             }
+            if (((bitField0_ & 0x00000100) == 0x00000100)) {
+                output.writeBool(10, hibernate_);
+            }
+            if (((bitField0_ & 0x00000200) == 0x00000200)) {
+                output.writeInt32(11, compressType_);
+            }
             unknownFields.writeTo(output);
         }
 
@@ -8843,6 +8915,12 @@ public final class RpcRequests {
             if (((bitField0_ & 0x00000080) == 0x00000080)) {
                 size += com.google.protobuf.CodedOutputStream.computeBytesSize(9, data_);
             }
+            if (((bitField0_ & 0x00000100) == 0x00000100)) {
+                size += com.google.protobuf.CodedOutputStream.computeBoolSize(10, hibernate_);
+            }
+            if (((bitField0_ & 0x00000200) == 0x00000200)) {
+                size += com.google.protobuf.CodedOutputStream.computeInt32Size(11, compressType_);
+            }
             size += unknownFields.getSerializedSize();
             memoizedSize = size;
             return size;
@@ -8892,6 +8970,14 @@ public final class RpcRequests {
             if (hasData()) {
                 result = result && getData().equals(other.getData());
             }
+            result = result && (hasHibernate() == other.hasHibernate());
+            if (hasHibernate()) {
+                result = result && (getHibernate() == other.getHibernate());
+            }
+            result = result && (hasCompressType() == other.hasCompressType());
+            if (hasCompressType()) {
+                result = result && (getCompressType() == other.getCompressType());
+            }
             result = result && unknownFields.equals(other.unknownFields);
             return result;
         }
@@ -8939,6 +9025,14 @@ public final class RpcRequests {
                 hash = (37 * hash) + DATA_FIELD_NUMBER;
                 hash = (53 * hash) + getData().hashCode();
             }
+            if (hasHibernate()) {
+                hash = (37 * hash) + HIBERNATE_FIELD_NUMBER;
+                hash = (53 * hash) + com.google.protobuf.Internal.hashBoolean(getHibernate());
+            }
+            if (hasCompressType()) {
+                hash = (37 * hash) + COMPRESS_TYPE_FIELD_NUMBER;
+                hash = (53 * hash) + getCompressType();
+            }
             hash = (29 * hash) + unknownFields.hashCode();
             memoizedHashCode = hash;
             return hash;
@@ -9090,6 +9184,10 @@ public final class RpcRequests {
                 bitField0_ = (bitField0_ & ~0x00000080);
                 data_ = com.google.protobuf.ByteString.EMPTY;
                 bitField0_ = (bitField0_ & ~0x00000100);
+                hibernate_ = false;
+                bitField0_ = (bitField0_ & ~0x00000200);
+                compressType_ = 0;
+                bitField0_ = (bitField0_ & ~0x00000400);
                 return this;
             }
 
@@ -9155,6 +9253,14 @@ public final class RpcRequests {
                     to_bitField0_ |= 0x00000080;
                 }
                 result.data_ = data_;
+                if (((from_bitField0_ & 0x00000200) == 0x00000200)) {
+                    to_bitField0_ |= 0x00000100;
+                }
+                result.hibernate_ = hibernate_;
+                if (((from_bitField0_ & 0x00000400) == 0x00000400)) {
+                    to_bitField0_ |= 0x00000200;
+                }
+                result.compressType_ = compressType_;
                 result.bitField0_ = to_bitField0_;
                 onBuilt();
                 return result;
@@ -9253,6 +9359,12 @@ public final class RpcRequests {
                 if (other.hasData()) {
                     setData(other.getData());
                 }
+                if (other.hasHibernate()) {
+                    setHibernate(other.getHibernate());
+                }
+                if (other.hasCompressType()) {
+                    setCompressType(other.getCompressType());
+                }
                 this.mergeUnknownFields(other.unknownFields);
                 onChanged();
                 return this;
@@ -9965,6 +10077,78 @@ public final class RpcRequests {
                 return this;
             }
 
+            private boolean hibernate_;
+
+            /**
+             * <code>optional bool hibernate = 10;</code>
+             */
+            public boolean hasHibernate() {
+                return ((bitField0_ & 0x00000200) == 0x00000200);
+            }
+
+            /**
+             * <code>optional bool hibernate = 10;</code>
+             */
+            public boolean getHibernate() {
+                return hibernate_;
+            }
+
+            /**
+             * <code>optional bool hibernate = 10;</code>
+             */
+            public Builder setHibernate(boolean value) {
+                bitField0_ |= 0x00000200;
+                hibernate_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>optional bool hibernate = 10;</code>
+             */
+            public Builder clearHibernate() {
+                bitField0_ = (bitField0_ & ~0x00000200);
+                hibernate_ = false;
+                onChanged();
+                return this;
+            }
+
+            private int compressType_;
+
+            /**
+             * <code>optional int32 compress_type = 11;</code>
+             */
+            public boolean hasCompressType() {
+                return ((bitField0_ & 0x00000400) == 0x00000400);
+            }
+
+            /**
+             * <code>optional int32 compress_type = 11;</code>
+             */
+            public int getCompressType() {
+                return compressType_;
+            }
+
+            /**
+             * <code>optional int32 compress_type = 11;</code>
+             */
+            public Builder setCompressType(int value) {
+                bitField0_ |= 0x00000400;
+                compressType_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>optional int32 compress_type = 11;</code>
+             */
+            public Builder clearCompressType() {
+                bitField0_ = (bitField0_ & ~0x00000400);
+                compressType_ = 0;
+                onChanged();
+                return this;
+            }
+
             public final Builder setUnknownFields(final com.google.protobuf.UnknownFieldSet unknownFields) {
                 return super.setUnknownFields(unknownFields);
             }
@@ -10046,6 +10230,16 @@ public final class RpcRequests {
          */
         long getLastLogIndex();
 
+        /**
+         * <code>optional int32 compress_types = 4;</code>
+         */
+        boolean hasCompressTypes();
+
+        /**
+         * <code>optional int32 compress_types = 4;</code>
+         */
+        int getCompressTypes();
+
         /**
          * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
          */
@@ -10079,6 +10273,7 @@ public final class RpcRequests {
             term_ = 0L;
             success_ = false;
             lastLogIndex_ = 0L;
+            compressTypes_ = 0;
         }
 
         @java.lang.Override
@@ -10125,9 +10320,14 @@ public final class RpcRequests {
                             lastLogIndex_ = input.readInt64();
                             break;
                         }
+                        case 32: {
+                            bitField0_ |= 0x00000008;
+                            compressTypes_ = input.readInt32();
+                            break;
+                        }
                         case 794: {
                             com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.Builder subBuilder = null;
-                            if (((bitField0_ & 0x00000008) == 0x00000008)) {
+                            if (((bitField0_ & 0x00000010) == 0x00000010)) {
                                 subBuilder = errorResponse_.toBuilder();
                             }
                             errorResponse_ = input.readMessage(
@@ -10136,7 +10336,7 @@ public final class RpcRequests {
                                 subBuilder.mergeFrom(errorResponse_);
                                 errorResponse_ = subBuilder.buildPartial();
                             }
-                            bitField0_ |= 0x00000008;
+                            bitField0_ |= 0x00000010;
                             break;
                         }
                     }
@@ -10213,6 +10413,23 @@ public final class RpcRequests {
             return lastLogIndex_;
         }
 
+        public static final int COMPRESS_TYPES_FIELD_NUMBER = 4;
+        private int             compressTypes_;
+
+        /**
+         * <code>optional int32 compress_types = 4;</code>
+         */
+        public boolean hasCompressTypes() {
+            return ((bitField0_ & 0x00000008) == 0x00000008);
+        }
+
+        /**
+         * <code>optional int32 compress_types = 4;</code>
+         */
+        public int getCompressTypes() {
+            return compressTypes_;
+        }
+
         public static final int                                     ERRORRESPONSE_FIELD_NUMBER = 99;
         private com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse errorResponse_;
 
@@ -10220,7 +10437,7 @@ public final class RpcRequests {
          * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
          */
         public boolean hasErrorResponse() {
-            return ((bitField0_ & 0x00000008) == 0x00000008);
+            return ((bitField0_ & 0x00000010) == 0x00000010);
         }
 
         /**
@@ -10277,6 +10494,9 @@ public final class RpcRequests {
                 output.writeInt64(3, lastLogIndex_);
             }
             if (((bitField0_ & 0x00000008) == 0x00000008)) {
+                output.writeInt32(4, compressTypes_);
+            }
+            if (((bitField0_ & 0x00000010) == 0x00000010)) {
                 output.writeMessage(99, getErrorResponse());
             }
             unknownFields.writeTo(output);
@@ -10298,6 +10518,9 @@ public final class RpcRequests {
                 size += com.google.protobuf.CodedOutputStream.computeInt64Size(3, lastLogIndex_);
             }
             if (((bitField0_ & 0x00000008) == 0x00000008)) {
+                size += com.google.protobuf.CodedOutputStream.computeInt32Size(4, compressTypes_);
+            }
+            if (((bitField0_ & 0x00000010) == 0x00000010)) {
                 size += com.google.protobuf.CodedOutputStream.computeMessageSize(99, getErrorResponse());
             }
             size += unknownFields.getSerializedSize();
@@ -10328,6 +10551,10 @@ public final class RpcRequests {
             if (hasLastLogIndex()) {
                 result = result && (getLastLogIndex() == other.getLastLogIndex());
             }
+            result = result && (hasCompressTypes() == other.hasCompressTypes());
+            if (hasCompressTypes()) {
+                result = result && (getCompressTypes() == other.getCompressTypes());
+            }
             result = result && (hasErrorResponse() == other.hasErrorResponse());
             if (hasErrorResponse()) {
                 result = result && getErrorResponse().equals(other.getErrorResponse());
@@ -10355,6 +10582,10 @@ public final class RpcRequests {
                 hash = (37 * hash) + LAST_LOG_INDEX_FIELD_NUMBER;
                 hash = (53 * hash) + com.google.protobuf.Internal.hashLong(getLastLogIndex());
             }
+            if (hasCompressTypes()) {
+                hash = (37 * hash) + COMPRESS_TYPES_FIELD_NUMBER;
+                hash = (53 * hash) + getCompressTypes();
+            }
             if (hasErrorResponse()) {
                 hash = (37 * hash) + ERRORRESPONSE_FIELD_NUMBER;
                 hash = (53 * hash) + getErrorResponse().hashCode();
@@ -10420,14 +10651,1681 @@ public final class RpcRequests {
                 extensionRegistry);
         }
 
-        public static com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse parseFrom(com.google.protobuf.CodedInputStream input)
-                                                                                                                                       throws java.io.IOException {
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse parseFrom(com.google.protobuf.CodedInputStream input)
+                                                                                                                                       throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse parseFrom(com.google.protobuf.CodedInputStream input,
+                                                                                            com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                        throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input, extensionRegistry);
+        }
+
+        public Builder newBuilderForType() {
+            return newBuilder();
+        }
+
+        public static Builder newBuilder() {
+            return DEFAULT_INSTANCE.toBuilder();
+        }
+
+        public static Builder newBuilder(com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse prototype) {
+            return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+        }
+
+        public Builder toBuilder() {
+            return this == DEFAULT_INSTANCE ? new Builder() : new Builder().mergeFrom(this);
+        }
+
+        @java.lang.Override
+        protected Builder newBuilderForType(com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+            Builder builder = new Builder(parent);
+            return builder;
+        }
+
+        /**
+         * Protobuf type {@code jraft.AppendEntriesResponse}
+         */
+        public static final class Builder extends com.google.protobuf.GeneratedMessageV3.Builder<Builder>
+                                                                                                         implements
+                                                                                                         // @@protoc_insertion_point(builder_implements:jraft.AppendEntriesResponse)
+                                                                                                         com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponseOrBuilder {
+            public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_AppendEntriesResponse_descriptor;
+            }
+
+            protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable internalGetFieldAccessorTable() {
+                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_AppendEntriesResponse_fieldAccessorTable
+                    .ensureFieldAccessorsInitialized(com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.class,
+                        com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder.class);
+            }
+
+            // Construct using com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.newBuilder()
+            private Builder() {
+                maybeForceBuilderInitialization();
+            }
+
+            private Builder(com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+                super(parent);
+                maybeForceBuilderInitialization();
+            }
+
+            private void maybeForceBuilderInitialization() {
+                if (com.google.protobuf.GeneratedMessageV3.alwaysUseFieldBuilders) {
+                    getErrorResponseFieldBuilder();
+                }
+            }
+
+            public Builder clear() {
+                super.clear();
+                term_ = 0L;
+                bitField0_ = (bitField0_ & ~0x00000001);
+                success_ = false;
+                bitField0_ = (bitField0_ & ~0x00000002);
+                lastLogIndex_ = 0L;
+                bitField0_ = (bitField0_ & ~0x00000004);
+                compressTypes_ = 0;
+                bitField0_ = (bitField0_ & ~0x00000008);
+                if (errorResponseBuilder_ == null) {
+                    errorResponse_ = null;
+                } else {
+                    errorResponseBuilder_.clear();
+                }
+                bitField0_ = (bitField0_ & ~0x00000010);
+                return this;
+            }
+
+            public com.google.protobuf.Descriptors.Descriptor getDescriptorForType() {
+                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_AppendEntriesResponse_descriptor;
+            }
+
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse getDefaultInstanceForType() {
+                return com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.getDefaultInstance();
+            }
+
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse build() {
+                com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse result = buildPartial();
+                if (!result.isInitialized()) {
+                    throw newUninitializedMessageException(result);
+                }
+                return result;
+            }
+
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse buildPartial() {
+                com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse result = new com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse(
+                    this);
+                int from_bitField0_ = bitField0_;
+                int to_bitField0_ = 0;
+                if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+                    to_bitField0_ |= 0x00000001;
+                }
+                result.term_ = term_;
+                if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+                    to_bitField0_ |= 0x00000002;
+                }
+                result.success_ = success_;
+                if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+                    to_bitField0_ |= 0x00000004;
+                }
+                result.lastLogIndex_ = lastLogIndex_;
+                if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+                    to_bitField0_ |= 0x00000008;
+                }
+                result.compressTypes_ = compressTypes_;
+                if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+                    to_bitField0_ |= 0x00000010;
+                }
+                if (errorResponseBuilder_ == null) {
+                    result.errorResponse_ = errorResponse_;
+                } else {
+                    result.errorResponse_ = errorResponseBuilder_.build();
+                }
+                result.bitField0_ = to_bitField0_;
+                onBuilt();
+                return result;
+            }
+
+            public Builder clone() {
+                return (Builder) super.clone();
+            }
+
+            public Builder setField(com.google.protobuf.Descriptors.FieldDescriptor field, java.lang.Object value) {
+                return (Builder) super.setField(field, value);
+            }
+
+            public Builder clearField(com.google.protobuf.Descriptors.FieldDescriptor field) {
+                return (Builder) super.clearField(field);
+            }
+
+            public Builder clearOneof(com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+                return (Builder) super.clearOneof(oneof);
+            }
+
+            public Builder setRepeatedField(com.google.protobuf.Descriptors.FieldDescriptor field, int index,
+                                            java.lang.Object value) {
+                return (Builder) super.setRepeatedField(field, index, value);
+            }
+
+            public Builder addRepeatedField(com.google.protobuf.Descriptors.FieldDescriptor field,
+                                            java.lang.Object value) {
+                return (Builder) super.addRepeatedField(field, value);
+            }
+
+            public Builder mergeFrom(com.google.protobuf.Message other) {
+                if (other instanceof com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse) {
+                    return mergeFrom((com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse) other);
+                } else {
+                    super.mergeFrom(other);
+                    return this;
+                }
+            }
+
+            public Builder mergeFrom(com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse other) {
+                if (other == com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.getDefaultInstance())
+                    return this;
+                if (other.hasTerm()) {
+                    setTerm(other.getTerm());
+                }
+                if (other.hasSuccess()) {
+                    setSuccess(other.getSuccess());
+                }
+                if (other.hasLastLogIndex()) {
+                    setLastLogIndex(other.getLastLogIndex());
+                }
+                if (other.hasCompressTypes()) {
+                    setCompressTypes(other.getCompressTypes());
+                }
+                if (other.hasErrorResponse()) {
+                    mergeErrorResponse(other.getErrorResponse());
+                }
+                this.mergeUnknownFields(other.unknownFields);
+                onChanged();
+                return this;
+            }
+
+            public final boolean isInitialized() {
+                if (!hasTerm()) {
+                    return false;
+                }
+                if (!hasSuccess()) {
+                    return false;
+                }
+                if (hasErrorResponse()) {
+                    if (!getErrorResponse().isInitialized()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            public Builder mergeFrom(com.google.protobuf.CodedInputStream input,
+                                     com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                 throws java.io.IOException {
+                com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse parsedMessage = null;
+                try {
+                    parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+                } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+                    parsedMessage = (com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse) e
+                        .getUnfinishedMessage();
+                    throw e.unwrapIOException();
+                } finally {
+                    if (parsedMessage != null) {
+                        mergeFrom(parsedMessage);
+                    }
+                }
+                return this;
+            }
+
+            private int  bitField0_;
+
+            private long term_;
+
+            /**
+             * <code>required int64 term = 1;</code>
+             */
+            public boolean hasTerm() {
+                return ((bitField0_ & 0x00000001) == 0x00000001);
+            }
+
+            /**
+             * <code>required int64 term = 1;</code>
+             */
+            public long getTerm() {
+                return term_;
+            }
+
+            /**
+             * <code>required int64 term = 1;</code>
+             */
+            public Builder setTerm(long value) {
+                bitField0_ |= 0x00000001;
+                term_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>required int64 term = 1;</code>
+             */
+            public Builder clearTerm() {
+                bitField0_ = (bitField0_ & ~0x00000001);
+                term_ = 0L;
+                onChanged();
+                return this;
+            }
+
+            private boolean success_;
+
+            /**
+             * <code>required bool success = 2;</code>
+             */
+            public boolean hasSuccess() {
+                return ((bitField0_ & 0x00000002) == 0x00000002);
+            }
+
+            /**
+             * <code>required bool success = 2;</code>
+             */
+            public boolean getSuccess() {
+                return success_;
+            }
+
+            /**
+             * <code>required bool success = 2;</code>
+             */
+            public Builder setSuccess(boolean value) {
+                bitField0_ |= 0x00000002;
+                success_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>required bool success = 2;</code>
+             */
+            public Builder clearSuccess() {
+                bitField0_ = (bitField0_ & ~0x00000002);
+                success_ = false;
+                onChanged();
+                return this;
+            }
+
+            private long lastLogIndex_;
+
+            /**
+             * <code>optional int64 last_log_index = 3;</code>
+             */
+            public boolean hasLastLogIndex() {
+                return ((bitField0_ & 0x00000004) == 0x00000004);
+            }
+
+            /**
+             * <code>optional int64 last_log_index = 3;</code>
+             */
+            public long getLastLogIndex() {
+                return lastLogIndex_;
+            }
+
+            /**
+             * <code>optional int64 last_log_index = 3;</code>
+             */
+            public Builder setLastLogIndex(long value) {
+                bitField0_ |= 0x00000004;
+                lastLogIndex_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>optional int64 last_log_index = 3;</code>
+             */
+            public Builder clearLastLogIndex() {
+                bitField0_ = (bitField0_ & ~0x00000004);
+                lastLogIndex_ = 0L;
+                onChanged();
+                return this;
+            }
+
+            private int compressTypes_;
+
+            /**
+             * <code>optional int32 compress_types = 4;</code>
+             */
+            public boolean hasCompressTypes() {
+                return ((bitField0_ & 0x00000008) == 0x00000008);
+            }
+
+            /**
+             * <code>optional int32 compress_types = 4;</code>
+             */
+            public int getCompressTypes() {
+                return compressTypes_;
+            }
+
+            /**
+             * <code>optional int32 compress_types = 4;</code>
+             */
+            public Builder setCompressTypes(int value) {
+                bitField0_ |= 0x00000008;
+                compressTypes_ = value;
+                onChanged();
+                return this;
+            }
+
+            /**
+             * <code>optional int32 compress_types = 4;</code>
+             */
+            public Builder clearCompressTypes() {
+                bitField0_ = (bitField0_ & ~0x00000008);
+                compressTypes_ = 0;
+                onChanged();
+                return this;
+            }
+
+            private com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse                                                                                                                                                                      errorResponse_ = null;
+            private com.google.protobuf.SingleFieldBuilderV3<com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse, com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.Builder, com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponseOrBuilder> errorResponseBuilder_;
+
+            /**
+             * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+             */
+            public boolean hasErrorResponse() {
+                return ((bitField0_ & 0x00000010) == 0x00000010);
+            }
+
+            /**
+             * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+             */
+            public com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse getErrorResponse() {
+                if (errorResponseBuilder_ == null) {
+                    return errorResponse_ == null ? com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse
+                        .getDefaultInstance() : errorResponse_;
+                } else {
+                    return errorResponseBuilder_.getMessage();
+                }
+            }
+
+            /**
+             * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+             */
+            public Builder setErrorResponse(com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse value) {
+                if (errorResponseBuilder_ == null) {
+                    if (value == null) {
+                        throw new NullPointerException();
+                    }
+                    errorResponse_ = value;
+                    onChanged();
+                } else {
+                    errorResponseBuilder_.setMessage(value);
+                }
+                bitField0_ |= 0x00000010;
+                return this;
+            }
+
+            /**
+             * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+             */
+            public Builder setErrorResponse(com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.Builder builderForValue) {
+                if (errorResponseBuilder_ == null) {
+                    errorResponse_ = builderForValue.build();
+                    onChanged();
+                } else {
+                    errorResponseBuilder_.setMessage(builderForValue.build());
+                }
+                bitField0_ |= 0x00000010;
+                return this;
+            }
+
+            /**
+             * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+             */
+            public Builder mergeErrorResponse(com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse value) {
+                if (errorResponseBuilder_ == null) {
+                    if (((bitField0_ & 0x00000010) == 0x00000010) && errorResponse_ != null
+                        && errorResponse_ != com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.getDefaultInstance()) {
+                        errorResponse_ = com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.newBuilder(errorResponse_)
+                            .mergeFrom(value).buildPartial();
+                    } else {
+                        errorResponse_ = value;
+                    }
+                    onChanged();
+                } else {
+                    errorResponseBuilder_.mergeFrom(value);
+                }
+                bitField0_ |= 0x00000010;
+                return this;
+            }
+
+            /**
+             * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+             */
+            public Builder clearErrorResponse() {
+                if (errorResponseBuilder_ == null) {
+                    errorResponse_ = null;
+                    onChanged();
+                } else {
+                    errorResponseBuilder_.clear();
+                }
+                bitField0_ = (bitField0_ & ~0x00000010);
+                return this;
+            }
+
+            /**
+             * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+             */
+            public com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.Builder getErrorResponseBuilder() {
+                bitField0_ |= 0x00000010;
+                onChanged();
+                return getErrorResponseFieldBuilder().getBuilder();
+            }
+
+            /**
+             * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+             */
+            public com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponseOrBuilder getErrorResponseOrBuilder() {
+                if (errorResponseBuilder_ != null) {
+                    return errorResponseBuilder_.getMessageOrBuilder();
+                } else {
+                    return errorResponse_ == null ? com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse
+                        .getDefaultInstance() : errorResponse_;
+                }
+            }
+
+            /**
+             * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+             */
+            private com.google.protobuf.SingleFieldBuilderV3<com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse, com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.Builder, com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponseOrBuilder> getErrorResponseFieldBuilder() {
+                if (errorResponseBuilder_ == null) {
+                    errorResponseBuilder_ = new com.google.protobuf.SingleFieldBuilderV3<com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse, com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.Builder, com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponseOrBuilder>(
+                        getErrorResponse(), getParentForChildren(), isClean());
+                    errorResponse_ = null;
+                }
+                return errorResponseBuilder_;
+            }
+
+            public final Builder setUnknownFields(final com.google.protobuf.UnknownFieldSet unknownFields) {
+                return super.setUnknownFields(unknownFields);
+            }
+
+            public final Builder mergeUnknownFields(final com.google.protobuf.UnknownFieldSet unknownFields) {
+                return super.mergeUnknownFields(unknownFields);
+            }
+
+            // @@protoc_insertion_point(builder_scope:jraft.AppendEntriesResponse)
+        }
+
+        // @@protoc_insertion_point(class_scope:jraft.AppendEntriesResponse)
+        private static final com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse DEFAULT_INSTANCE;
+        static {
+            DEFAULT_INSTANCE = new com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse();
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse getDefaultInstance() {
+            return DEFAULT_INSTANCE;
+        }
+
+        @java.lang.Deprecated
+        public static final com.google.protobuf.Parser<AppendEntriesResponse> PARSER = new com.google.protobuf.AbstractParser<AppendEntriesResponse>() {
+                                                                                         public AppendEntriesResponse parsePartialFrom(com.google.protobuf.CodedInputStream input,
+                                                                                                                                       com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                                                                   throws com.google.protobuf.InvalidProtocolBufferException {
+                                                                                             return new AppendEntriesResponse(
+                                                                                                 input,
+                                                                                                 extensionRegistry);
+                                                                                         }
+                                                                                     };
+
+        public static com.google.protobuf.Parser<AppendEntriesResponse> parser() {
+            return PARSER;
+        }
+
+        @java.lang.Override
+        public com.google.protobuf.Parser<AppendEntriesResponse> getParserForType() {
+            return PARSER;
+        }
+
+        public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse getDefaultInstanceForType() {
+            return DEFAULT_INSTANCE;
+        }
+
+    }
+
+    public interface BatchAppendEntriesRequestOrBuilder extends
+    // @@protoc_insertion_point(interface_extends:jraft.BatchAppendEntriesRequest)
+                                                       com.google.protobuf.MessageOrBuilder {
+
+        /**
+         * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+         */
+        java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest> getRequestsList();
+
+        /**
+         * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+         */
+        com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest getRequests(int index);
+
+        /**
+         * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+         */
+        int getRequestsCount();
+
+        /**
+         * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+         */
+        java.util.List<? extends com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequestOrBuilder> getRequestsOrBuilderList();
+
+        /**
+         * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+         */
+        com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequestOrBuilder getRequestsOrBuilder(int index);
+    }
+
+    /**
+     * Protobuf type {@code jraft.BatchAppendEntriesRequest}
+     */
+    public static final class BatchAppendEntriesRequest extends com.google.protobuf.GeneratedMessageV3 implements
+    // @@protoc_insertion_point(message_implements:jraft.BatchAppendEntriesRequest)
+                                                                                                      BatchAppendEntriesRequestOrBuilder {
+        private static final long serialVersionUID = 0L;
+
+        // Use BatchAppendEntriesRequest.newBuilder() to construct.
+        private BatchAppendEntriesRequest(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+            super(builder);
+        }
+
+        private BatchAppendEntriesRequest() {
+            requests_ = java.util.Collections.emptyList();
+        }
+
+        @java.lang.Override
+        public final com.google.protobuf.UnknownFieldSet getUnknownFields() {
+            return this.unknownFields;
+        }
+
+        private BatchAppendEntriesRequest(com.google.protobuf.CodedInputStream input,
+                                          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                      throws com.google.protobuf.InvalidProtocolBufferException {
+            this();
+            if (extensionRegistry == null) {
+                throw new java.lang.NullPointerException();
+            }
+            int mutable_bitField0_ = 0;
+            com.google.protobuf.UnknownFieldSet.Builder unknownFields = com.google.protobuf.UnknownFieldSet
+                .newBuilder();
+            try {
+                boolean done = false;
+                while (!done) {
+                    int tag = input.readTag();
+                    switch (tag) {
+                        case 0:
+                            done = true;
+                            break;
+                        default: {
+                            if (!parseUnknownField(input, unknownFields, extensionRegistry, tag)) {
+                                done = true;
+                            }
+                            break;
+                        }
+                        case 10: {
+                            if (!((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+                                requests_ = new java.util.ArrayList<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest>();
+                                mutable_bitField0_ |= 0x00000001;
+                            }
+                            requests_.add(input.readMessage(
+                                com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.PARSER, extensionRegistry));
+                            break;
+                        }
+                    }
+                }
+            } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+                throw e.setUnfinishedMessage(this);
+            } catch (java.io.IOException e) {
+                throw new com.google.protobuf.InvalidProtocolBufferException(e).setUnfinishedMessage(this);
+            } finally {
+                if (((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+                    requests_ = java.util.Collections.unmodifiableList(requests_);
+                }
+                this.unknownFields = unknownFields.build();
+                makeExtensionsImmutable();
+            }
+        }
+
+        public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+            return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_BatchAppendEntriesRequest_descriptor;
+        }
+
+        protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable internalGetFieldAccessorTable() {
+            return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_BatchAppendEntriesRequest_fieldAccessorTable
+                .ensureFieldAccessorsInitialized(com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest.class,
+                    com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest.Builder.class);
+        }
+
+        public static final int                                                            REQUESTS_FIELD_NUMBER = 1;
+        private java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest> requests_;
+
+        /**
+         * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+         */
+        public java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest> getRequestsList() {
+            return requests_;
+        }
+
+        /**
+         * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+         */
+        public java.util.List<? extends com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequestOrBuilder> getRequestsOrBuilderList() {
+            return requests_;
+        }
+
+        /**
+         * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+         */
+        public int getRequestsCount() {
+            return requests_.size();
+        }
+
+        /**
+         * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+         */
+        public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest getRequests(int index) {
+            return requests_.get(index);
+        }
+
+        /**
+         * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+         */
+        public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequestOrBuilder getRequestsOrBuilder(int index) {
+            return requests_.get(index);
+        }
+
+        private byte memoizedIsInitialized = -1;
+
+        public final boolean isInitialized() {
+            byte isInitialized = memoizedIsInitialized;
+            if (isInitialized == 1)
+                return true;
+            if (isInitialized == 0)
+                return false;
+
+            for (int i = 0; i < getRequestsCount(); i++) {
+                if (!getRequests(i).isInitialized()) {
+                    memoizedIsInitialized = 0;
+                    return false;
+                }
+            }
+            memoizedIsInitialized = 1;
+            return true;
+        }
+
+        public void writeTo(com.google.protobuf.CodedOutputStream output) throws java.io.IOException {
+            for (int i = 0; i < requests_.size(); i++) {
+                output.writeMessage(1, requests_.get(i));
+            }
+            unknownFields.writeTo(output);
+        }
+
+        public int getSerializedSize() {
+            int size = memoizedSize;
+            if (size != -1)
+                return size;
+
+            size = 0;
+            for (int i = 0; i < requests_.size(); i++) {
+                size += com.google.protobuf.CodedOutputStream.computeMessageSize(1, requests_.get(i));
+            }
+            size += unknownFields.getSerializedSize();
+            memoizedSize = size;
+            return size;
+        }
+
+        @java.lang.Override
+        public boolean equals(final java.lang.Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest)) {
+                return super.equals(obj);
+            }
+            com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest other = (com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest) obj;
+
+            boolean result = true;
+            result = result && getRequestsList().equals(other.getRequestsList());
+            result = result && unknownFields.equals(other.unknownFields);
+            return result;
+        }
+
+        @java.lang.Override
+        public int hashCode() {
+            if (memoizedHashCode != 0) {
+                return memoizedHashCode;
+            }
+            int hash = 41;
+            hash = (19 * hash) + getDescriptor().hashCode();
+            if (getRequestsCount() > 0) {
+                hash = (37 * hash) + REQUESTS_FIELD_NUMBER;
+                hash = (53 * hash) + getRequestsList().hashCode();
+            }
+            hash = (29 * hash) + unknownFields.hashCode();
+            memoizedHashCode = hash;
+            return hash;
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseFrom(java.nio.ByteBuffer data)
+                                                                                                                         throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseFrom(java.nio.ByteBuffer data,
+                                                                                                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                            throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseFrom(com.google.protobuf.ByteString data)
+                                                                                                                                    throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseFrom(com.google.protobuf.ByteString data,
+                                                                                                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                            throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseFrom(byte[] data)
+                                                                                                            throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseFrom(byte[] data,
+                                                                                                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                            throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseFrom(java.io.InputStream input)
+                                                                                                                          throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseFrom(java.io.InputStream input,
+                                                                                                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                            throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input, extensionRegistry);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseDelimitedFrom(java.io.InputStream input)
+                                                                                                                                   throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseDelimitedWithIOException(PARSER, input);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseDelimitedFrom(java.io.InputStream input,
+                                                                                                         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                                     throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseDelimitedWithIOException(PARSER, input,
+                extensionRegistry);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseFrom(com.google.protobuf.CodedInputStream input)
+                                                                                                                                           throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parseFrom(com.google.protobuf.CodedInputStream input,
+                                                                                                com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                            throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input, extensionRegistry);
+        }
+
+        public Builder newBuilderForType() {
+            return newBuilder();
+        }
+
+        public static Builder newBuilder() {
+            return DEFAULT_INSTANCE.toBuilder();
+        }
+
+        public static Builder newBuilder(com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest prototype) {
+            return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+        }
+
+        public Builder toBuilder() {
+            return this == DEFAULT_INSTANCE ? new Builder() : new Builder().mergeFrom(this);
+        }
+
+        @java.lang.Override
+        protected Builder newBuilderForType(com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+            Builder builder = new Builder(parent);
+            return builder;
+        }
+
+        /**
+         * Protobuf type {@code jraft.BatchAppendEntriesRequest}
+         */
+        public static final class Builder extends com.google.protobuf.GeneratedMessageV3.Builder<Builder>
+                                                                                                         implements
+                                                                                                         // @@protoc_insertion_point(builder_implements:jraft.BatchAppendEntriesRequest)
+                                                                                                         com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequestOrBuilder {
+            public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_BatchAppendEntriesRequest_descriptor;
+            }
+
+            protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable internalGetFieldAccessorTable() {
+                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_BatchAppendEntriesRequest_fieldAccessorTable
+                    .ensureFieldAccessorsInitialized(
+                        com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest.class,
+                        com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest.Builder.class);
+            }
+
+            // Construct using com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest.newBuilder()
+            private Builder() {
+                maybeForceBuilderInitialization();
+            }
+
+            private Builder(com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+                super(parent);
+                maybeForceBuilderInitialization();
+            }
+
+            private void maybeForceBuilderInitialization() {
+                if (com.google.protobuf.GeneratedMessageV3.alwaysUseFieldBuilders) {
+                    getRequestsFieldBuilder();
+                }
+            }
+
+            public Builder clear() {
+                super.clear();
+                if (requestsBuilder_ == null) {
+                    requests_ = java.util.Collections.emptyList();
+                    bitField0_ = (bitField0_ & ~0x00000001);
+                } else {
+                    requestsBuilder_.clear();
+                }
+                return this;
+            }
+
+            public com.google.protobuf.Descriptors.Descriptor getDescriptorForType() {
+                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_BatchAppendEntriesRequest_descriptor;
+            }
+
+            public com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest getDefaultInstanceForType() {
+                return com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest.getDefaultInstance();
+            }
+
+            public com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest build() {
+                com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest result = buildPartial();
+                if (!result.isInitialized()) {
+                    throw newUninitializedMessageException(result);
+                }
+                return result;
+            }
+
+            public com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest buildPartial() {
+                com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest result = new com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest(
+                    this);
+                int from_bitField0_ = bitField0_;
+                if (requestsBuilder_ == null) {
+                    if (((bitField0_ & 0x00000001) == 0x00000001)) {
+                        requests_ = java.util.Collections.unmodifiableList(requests_);
+                        bitField0_ = (bitField0_ & ~0x00000001);
+                    }
+                    result.requests_ = requests_;
+                } else {
+                    result.requests_ = requestsBuilder_.build();
+                }
+                onBuilt();
+                return result;
+            }
+
+            public Builder clone() {
+                return (Builder) super.clone();
+            }
+
+            public Builder setField(com.google.protobuf.Descriptors.FieldDescriptor field, java.lang.Object value) {
+                return (Builder) super.setField(field, value);
+            }
+
+            public Builder clearField(com.google.protobuf.Descriptors.FieldDescriptor field) {
+                return (Builder) super.clearField(field);
+            }
+
+            public Builder clearOneof(com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+                return (Builder) super.clearOneof(oneof);
+            }
+
+            public Builder setRepeatedField(com.google.protobuf.Descriptors.FieldDescriptor field, int index,
+                                            java.lang.Object value) {
+                return (Builder) super.setRepeatedField(field, index, value);
+            }
+
+            public Builder addRepeatedField(com.google.protobuf.Descriptors.FieldDescriptor field,
+                                            java.lang.Object value) {
+                return (Builder) super.addRepeatedField(field, value);
+            }
+
+            public Builder mergeFrom(com.google.protobuf.Message other) {
+                if (other instanceof com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest) {
+                    return mergeFrom((com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest) other);
+                } else {
+                    super.mergeFrom(other);
+                    return this;
+                }
+            }
+
+            public Builder mergeFrom(com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest other) {
+                if (other == com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest.getDefaultInstance())
+                    return this;
+                if (requestsBuilder_ == null) {
+                    if (!other.requests_.isEmpty()) {
+                        if (requests_.isEmpty()) {
+                            requests_ = other.requests_;
+                            bitField0_ = (bitField0_ & ~0x00000001);
+                        } else {
+                            ensureRequestsIsMutable();
+                            requests_.addAll(other.requests_);
+                        }
+                        onChanged();
+                    }
+                } else {
+                    if (!other.requests_.isEmpty()) {
+                        if (requestsBuilder_.isEmpty()) {
+                            requestsBuilder_.dispose();
+                            requestsBuilder_ = null;
+                            requests_ = other.requests_;
+                            bitField0_ = (bitField0_ & ~0x00000001);
+                            requestsBuilder_ = com.google.protobuf.GeneratedMessageV3.alwaysUseFieldBuilders ? getRequestsFieldBuilder()
+                                : null;
+                        } else {
+                            requestsBuilder_.addAllMessages(other.requests_);
+                        }
+                    }
+                }
+                this.mergeUnknownFields(other.unknownFields);
+                onChanged();
+                return this;
+            }
+
+            public final boolean isInitialized() {
+                for (int i = 0; i < getRequestsCount(); i++) {
+                    if (!getRequests(i).isInitialized()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            public Builder mergeFrom(com.google.protobuf.CodedInputStream input,
+                                     com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                 throws java.io.IOException {
+                com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest parsedMessage = null;
+                try {
+                    parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+                } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+                    parsedMessage = (com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest) e
+                        .getUnfinishedMessage();
+                    throw e.unwrapIOException();
+                } finally {
+                    if (parsedMessage != null) {
+                        mergeFrom(parsedMessage);
+                    }
+                }
+                return this;
+            }
+
+            private int                                                                        bitField0_;
+
+            private java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest> requests_ = java.util.Collections
+                                                                                                             .emptyList();
+
+            private void ensureRequestsIsMutable() {
+                if (!((bitField0_ & 0x00000001) == 0x00000001)) {
+                    requests_ = new java.util.ArrayList<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest>(
+                        requests_);
+                    bitField0_ |= 0x00000001;
+                }
+            }
+
+            private com.google.protobuf.RepeatedFieldBuilderV3<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.Builder, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequestOrBuilder> requestsBuilder_;
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest> getRequestsList() {
+                if (requestsBuilder_ == null) {
+                    return java.util.Collections.unmodifiableList(requests_);
+                } else {
+                    return requestsBuilder_.getMessageList();
+                }
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public int getRequestsCount() {
+                if (requestsBuilder_ == null) {
+                    return requests_.size();
+                } else {
+                    return requestsBuilder_.getCount();
+                }
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest getRequests(int index) {
+                if (requestsBuilder_ == null) {
+                    return requests_.get(index);
+                } else {
+                    return requestsBuilder_.getMessage(index);
+                }
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public Builder setRequests(int index, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest value) {
+                if (requestsBuilder_ == null) {
+                    if (value == null) {
+                        throw new NullPointerException();
+                    }
+                    ensureRequestsIsMutable();
+                    requests_.set(index, value);
+                    onChanged();
+                } else {
+                    requestsBuilder_.setMessage(index, value);
+                }
+                return this;
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public Builder setRequests(int index,
+                                       com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.Builder builderForValue) {
+                if (requestsBuilder_ == null) {
+                    ensureRequestsIsMutable();
+                    requests_.set(index, builderForValue.build());
+                    onChanged();
+                } else {
+                    requestsBuilder_.setMessage(index, builderForValue.build());
+                }
+                return this;
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public Builder addRequests(com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest value) {
+                if (requestsBuilder_ == null) {
+                    if (value == null) {
+                        throw new NullPointerException();
+                    }
+                    ensureRequestsIsMutable();
+                    requests_.add(value);
+                    onChanged();
+                } else {
+                    requestsBuilder_.addMessage(value);
+                }
+                return this;
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public Builder addRequests(int index, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest value) {
+                if (requestsBuilder_ == null) {
+                    if (value == null) {
+                        throw new NullPointerException();
+                    }
+                    ensureRequestsIsMutable();
+                    requests_.add(index, value);
+                    onChanged();
+                } else {
+                    requestsBuilder_.addMessage(index, value);
+                }
+                return this;
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public Builder addRequests(com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.Builder builderForValue) {
+                if (requestsBuilder_ == null) {
+                    ensureRequestsIsMutable();
+                    requests_.add(builderForValue.build());
+                    onChanged();
+                } else {
+                    requestsBuilder_.addMessage(builderForValue.build());
+                }
+                return this;
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public Builder addRequests(int index,
+                                       com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.Builder builderForValue) {
+                if (requestsBuilder_ == null) {
+                    ensureRequestsIsMutable();
+                    requests_.add(index, builderForValue.build());
+                    onChanged();
+                } else {
+                    requestsBuilder_.addMessage(index, builderForValue.build());
+                }
+                return this;
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public Builder addAllRequests(java.lang.Iterable<? extends com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest> values) {
+                if (requestsBuilder_ == null) {
+                    ensureRequestsIsMutable();
+                    com.google.protobuf.AbstractMessageLite.Builder.addAll(values, requests_);
+                    onChanged();
+                } else {
+                    requestsBuilder_.addAllMessages(values);
+                }
+                return this;
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public Builder clearRequests() {
+                if (requestsBuilder_ == null) {
+                    requests_ = java.util.Collections.emptyList();
+                    bitField0_ = (bitField0_ & ~0x00000001);
+                    onChanged();
+                } else {
+                    requestsBuilder_.clear();
+                }
+                return this;
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public Builder removeRequests(int index) {
+                if (requestsBuilder_ == null) {
+                    ensureRequestsIsMutable();
+                    requests_.remove(index);
+                    onChanged();
+                } else {
+                    requestsBuilder_.remove(index);
+                }
+                return this;
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.Builder getRequestsBuilder(int index) {
+                return getRequestsFieldBuilder().getBuilder(index);
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequestOrBuilder getRequestsOrBuilder(int index) {
+                if (requestsBuilder_ == null) {
+                    return requests_.get(index);
+                } else {
+                    return requestsBuilder_.getMessageOrBuilder(index);
+                }
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public java.util.List<? extends com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequestOrBuilder> getRequestsOrBuilderList() {
+                if (requestsBuilder_ != null) {
+                    return requestsBuilder_.getMessageOrBuilderList();
+                } else {
+                    return java.util.Collections.unmodifiableList(requests_);
+                }
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.Builder addRequestsBuilder() {
+                return getRequestsFieldBuilder().addBuilder(
+                    com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.getDefaultInstance());
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.Builder addRequestsBuilder(int index) {
+                return getRequestsFieldBuilder().addBuilder(index,
+                    com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.getDefaultInstance());
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesRequest requests = 1;</code>
+             */
+            public java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.Builder> getRequestsBuilderList() {
+                return getRequestsFieldBuilder().getBuilderList();
+            }
+
+            private com.google.protobuf.RepeatedFieldBuilderV3<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.Builder, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequestOrBuilder> getRequestsFieldBuilder() {
+                if (requestsBuilder_ == null) {
+                    requestsBuilder_ = new com.google.protobuf.RepeatedFieldBuilderV3<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest.Builder, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequestOrBuilder>(
+                        requests_, ((bitField0_ & 0x00000001) == 0x00000001), getParentForChildren(), isClean());
+                    requests_ = null;
+                }
+                return requestsBuilder_;
+            }
+
+            public final Builder setUnknownFields(final com.google.protobuf.UnknownFieldSet unknownFields) {
+                return super.setUnknownFields(unknownFields);
+            }
+
+            public final Builder mergeUnknownFields(final com.google.protobuf.UnknownFieldSet unknownFields) {
+                return super.mergeUnknownFields(unknownFields);
+            }
+
+            // @@protoc_insertion_point(builder_scope:jraft.BatchAppendEntriesRequest)
+        }
+
+        // @@protoc_insertion_point(class_scope:jraft.BatchAppendEntriesRequest)
+        private static final com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest DEFAULT_INSTANCE;
+        static {
+            DEFAULT_INSTANCE = new com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest();
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest getDefaultInstance() {
+            return DEFAULT_INSTANCE;
+        }
+
+        @java.lang.Deprecated
+        public static final com.google.protobuf.Parser<BatchAppendEntriesRequest> PARSER = new com.google.protobuf.AbstractParser<BatchAppendEntriesRequest>() {
+                                                                                             public BatchAppendEntriesRequest parsePartialFrom(com.google.protobuf.CodedInputStream input,
+                                                                                                                                               com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                                                                           throws com.google.protobuf.InvalidProtocolBufferException {
+                                                                                                 return new BatchAppendEntriesRequest(
+                                                                                                     input,
+                                                                                                     extensionRegistry);
+                                                                                             }
+                                                                                         };
+
+        public static com.google.protobuf.Parser<BatchAppendEntriesRequest> parser() {
+            return PARSER;
+        }
+
+        @java.lang.Override
+        public com.google.protobuf.Parser<BatchAppendEntriesRequest> getParserForType() {
+            return PARSER;
+        }
+
+        public com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest getDefaultInstanceForType() {
+            return DEFAULT_INSTANCE;
+        }
+
+    }
+
+    public interface BatchAppendEntriesResponseOrBuilder extends
+    // @@protoc_insertion_point(interface_extends:jraft.BatchAppendEntriesResponse)
+                                                        com.google.protobuf.MessageOrBuilder {
+
+        /**
+         * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+         */
+        java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse> getResponsesList();
+
+        /**
+         * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+         */
+        com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse getResponses(int index);
+
+        /**
+         * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+         */
+        int getResponsesCount();
+
+        /**
+         * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+         */
+        java.util.List<? extends com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponseOrBuilder> getResponsesOrBuilderList();
+
+        /**
+         * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+         */
+        com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponseOrBuilder getResponsesOrBuilder(int index);
+
+        /**
+         * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+         */
+        boolean hasErrorResponse();
+
+        /**
+         * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+         */
+        com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse getErrorResponse();
+
+        /**
+         * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+         */
+        com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponseOrBuilder getErrorResponseOrBuilder();
+    }
+
+    /**
+     * Protobuf type {@code jraft.BatchAppendEntriesResponse}
+     */
+    public static final class BatchAppendEntriesResponse extends com.google.protobuf.GeneratedMessageV3 implements
+    // @@protoc_insertion_point(message_implements:jraft.BatchAppendEntriesResponse)
+                                                                                                       BatchAppendEntriesResponseOrBuilder {
+        private static final long serialVersionUID = 0L;
+
+        // Use BatchAppendEntriesResponse.newBuilder() to construct.
+        private BatchAppendEntriesResponse(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+            super(builder);
+        }
+
+        private BatchAppendEntriesResponse() {
+            responses_ = java.util.Collections.emptyList();
+        }
+
+        @java.lang.Override
+        public final com.google.protobuf.UnknownFieldSet getUnknownFields() {
+            return this.unknownFields;
+        }
+
+        private BatchAppendEntriesResponse(com.google.protobuf.CodedInputStream input,
+                                           com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                       throws com.google.protobuf.InvalidProtocolBufferException {
+            this();
+            if (extensionRegistry == null) {
+                throw new java.lang.NullPointerException();
+            }
+            int mutable_bitField0_ = 0;
+            com.google.protobuf.UnknownFieldSet.Builder unknownFields = com.google.protobuf.UnknownFieldSet
+                .newBuilder();
+            try {
+                boolean done = false;
+                while (!done) {
+                    int tag = input.readTag();
+                    switch (tag) {
+                        case 0:
+                            done = true;
+                            break;
+                        default: {
+                            if (!parseUnknownField(input, unknownFields, extensionRegistry, tag)) {
+                                done = true;
+                            }
+                            break;
+                        }
+                        case 10: {
+                            if (!((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+                                responses_ = new java.util.ArrayList<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse>();
+                                mutable_bitField0_ |= 0x00000001;
+                            }
+                            responses_.add(input.readMessage(
+                                com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.PARSER, extensionRegistry));
+                            break;
+                        }
+                        case 794: {
+                            com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.Builder subBuilder = null;
+                            if (((bitField0_ & 0x00000001) == 0x00000001)) {
+                                subBuilder = errorResponse_.toBuilder();
+                            }
+                            errorResponse_ = input.readMessage(
+                                com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.PARSER, extensionRegistry);
+                            if (subBuilder != null) {
+                                subBuilder.mergeFrom(errorResponse_);
+                                errorResponse_ = subBuilder.buildPartial();
+                            }
+                            bitField0_ |= 0x00000001;
+                            break;
+                        }
+                    }
+                }
+            } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+                throw e.setUnfinishedMessage(this);
+            } catch (java.io.IOException e) {
+                throw new com.google.protobuf.InvalidProtocolBufferException(e).setUnfinishedMessage(this);
+            } finally {
+                if (((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+                    responses_ = java.util.Collections.unmodifiableList(responses_);
+                }
+                this.unknownFields = unknownFields.build();
+                makeExtensionsImmutable();
+            }
+        }
+
+        public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+            return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_BatchAppendEntriesResponse_descriptor;
+        }
+
+        protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable internalGetFieldAccessorTable() {
+            return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_BatchAppendEntriesResponse_fieldAccessorTable
+                .ensureFieldAccessorsInitialized(
+                    com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse.class,
+                    com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse.Builder.class);
+        }
+
+        private int                                                                         bitField0_;
+        public static final int                                                             RESPONSES_FIELD_NUMBER = 1;
+        private java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse> responses_;
+
+        /**
+         * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+         */
+        public java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse> getResponsesList() {
+            return responses_;
+        }
+
+        /**
+         * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+         */
+        public java.util.List<? extends com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponseOrBuilder> getResponsesOrBuilderList() {
+            return responses_;
+        }
+
+        /**
+         * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+         */
+        public int getResponsesCount() {
+            return responses_.size();
+        }
+
+        /**
+         * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+         */
+        public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse getResponses(int index) {
+            return responses_.get(index);
+        }
+
+        /**
+         * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+         */
+        public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponseOrBuilder getResponsesOrBuilder(int index) {
+            return responses_.get(index);
+        }
+
+        public static final int                                     ERRORRESPONSE_FIELD_NUMBER = 99;
+        private com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse errorResponse_;
+
+        /**
+         * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+         */
+        public boolean hasErrorResponse() {
+            return ((bitField0_ & 0x00000001) == 0x00000001);
+        }
+
+        /**
+         * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+         */
+        public com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse getErrorResponse() {
+            return errorResponse_ == null ? com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.getDefaultInstance()
+                : errorResponse_;
+        }
+
+        /**
+         * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
+         */
+        public com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponseOrBuilder getErrorResponseOrBuilder() {
+            return errorResponse_ == null ? com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.getDefaultInstance()
+                : errorResponse_;
+        }
+
+        private byte memoizedIsInitialized = -1;
+
+        public final boolean isInitialized() {
+            byte isInitialized = memoizedIsInitialized;
+            if (isInitialized == 1)
+                return true;
+            if (isInitialized == 0)
+                return false;
+
+            for (int i = 0; i < getResponsesCount(); i++) {
+                if (!getResponses(i).isInitialized()) {
+                    memoizedIsInitialized = 0;
+                    return false;
+                }
+            }
+            if (hasErrorResponse()) {
+                if (!getErrorResponse().isInitialized()) {
+                    memoizedIsInitialized = 0;
+                    return false;
+                }
+            }
+            memoizedIsInitialized = 1;
+            return true;
+        }
+
+        public void writeTo(com.google.protobuf.CodedOutputStream output) throws java.io.IOException {
+            for (int i = 0; i < responses_.size(); i++) {
+                output.writeMessage(1, responses_.get(i));
+            }
+            if (((bitField0_ & 0x00000001) == 0x00000001)) {
+                output.writeMessage(99, getErrorResponse());
+            }
+            unknownFields.writeTo(output);
+        }
+
+        public int getSerializedSize() {
+            int size = memoizedSize;
+            if (size != -1)
+                return size;
+
+            size = 0;
+            for (int i = 0; i < responses_.size(); i++) {
+                size += com.google.protobuf.CodedOutputStream.computeMessageSize(1, responses_.get(i));
+            }
+            if (((bitField0_ & 0x00000001) == 0x00000001)) {
+                size += com.google.protobuf.CodedOutputStream.computeMessageSize(99, getErrorResponse());
+            }
+            size += unknownFields.getSerializedSize();
+            memoizedSize = size;
+            return size;
+        }
+
+        @java.lang.Override
+        public boolean equals(final java.lang.Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse)) {
+                return super.equals(obj);
+            }
+            com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse other = (com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse) obj;
+
+            boolean result = true;
+            result = result && getResponsesList().equals(other.getResponsesList());
+            result = result && (hasErrorResponse() == other.hasErrorResponse());
+            if (hasErrorResponse()) {
+                result = result && getErrorResponse().equals(other.getErrorResponse());
+            }
+            result = result && unknownFields.equals(other.unknownFields);
+            return result;
+        }
+
+        @java.lang.Override
+        public int hashCode() {
+            if (memoizedHashCode != 0) {
+                return memoizedHashCode;
+            }
+            int hash = 41;
+            hash = (19 * hash) + getDescriptor().hashCode();
+            if (getResponsesCount() > 0) {
+                hash = (37 * hash) + RESPONSES_FIELD_NUMBER;
+                hash = (53 * hash) + getResponsesList().hashCode();
+            }
+            if (hasErrorResponse()) {
+                hash = (37 * hash) + ERRORRESPONSE_FIELD_NUMBER;
+                hash = (53 * hash) + getErrorResponse().hashCode();
+            }
+            hash = (29 * hash) + unknownFields.hashCode();
+            memoizedHashCode = hash;
+            return hash;
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseFrom(java.nio.ByteBuffer data)
+                                                                                                                          throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseFrom(java.nio.ByteBuffer data,
+                                                                                                 com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                             throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseFrom(com.google.protobuf.ByteString data)
+                                                                                                                                     throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseFrom(com.google.protobuf.ByteString data,
+                                                                                                 com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                             throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseFrom(byte[] data)
+                                                                                                             throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseFrom(byte[] data,
+                                                                                                 com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                             throws com.google.protobuf.InvalidProtocolBufferException {
+            return PARSER.parseFrom(data, extensionRegistry);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseFrom(java.io.InputStream input)
+                                                                                                                           throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseFrom(java.io.InputStream input,
+                                                                                                 com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                             throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input, extensionRegistry);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseDelimitedFrom(java.io.InputStream input)
+                                                                                                                                    throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseDelimitedWithIOException(PARSER, input);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseDelimitedFrom(java.io.InputStream input,
+                                                                                                          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                                      throws java.io.IOException {
+            return com.google.protobuf.GeneratedMessageV3.parseDelimitedWithIOException(PARSER, input,
+                extensionRegistry);
+        }
+
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseFrom(com.google.protobuf.CodedInputStream input)
+                                                                                                                                            throws java.io.IOException {
             return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input);
         }
 
-        public static com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse parseFrom(com.google.protobuf.CodedInputStream input,
-                                                                                            com.google.protobuf.ExtensionRegistryLite extensionRegistry)
-                                                                                                                                                        throws java.io.IOException {
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parseFrom(com.google.protobuf.CodedInputStream input,
+                                                                                                 com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                             throws java.io.IOException {
             return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input, extensionRegistry);
         }
 
@@ -10439,7 +12337,7 @@ public final class RpcRequests {
             return DEFAULT_INSTANCE.toBuilder();
         }
 
-        public static Builder newBuilder(com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse prototype) {
+        public static Builder newBuilder(com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse prototype) {
             return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
         }
 
@@ -10454,23 +12352,24 @@ public final class RpcRequests {
         }
 
         /**
-         * Protobuf type {@code jraft.AppendEntriesResponse}
+         * Protobuf type {@code jraft.BatchAppendEntriesResponse}
          */
         public static final class Builder extends com.google.protobuf.GeneratedMessageV3.Builder<Builder>
                                                                                                          implements
-                                                                                                         // @@protoc_insertion_point(builder_implements:jraft.AppendEntriesResponse)
-                                                                                                         com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponseOrBuilder {
+                                                                                                         // @@protoc_insertion_point(builder_implements:jraft.BatchAppendEntriesResponse)
+                                                                                                         com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponseOrBuilder {
             public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
-                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_AppendEntriesResponse_descriptor;
+                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_BatchAppendEntriesResponse_descriptor;
             }
 
             protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable internalGetFieldAccessorTable() {
-                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_AppendEntriesResponse_fieldAccessorTable
-                    .ensureFieldAccessorsInitialized(com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.class,
-                        com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder.class);
+                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_BatchAppendEntriesResponse_fieldAccessorTable
+                    .ensureFieldAccessorsInitialized(
+                        com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse.class,
+                        com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse.Builder.class);
             }
 
-            // Construct using com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.newBuilder()
+            // Construct using com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse.newBuilder()
             private Builder() {
                 maybeForceBuilderInitialization();
             }
@@ -10482,62 +12381,60 @@ public final class RpcRequests {
 
             private void maybeForceBuilderInitialization() {
                 if (com.google.protobuf.GeneratedMessageV3.alwaysUseFieldBuilders) {
+                    getResponsesFieldBuilder();
                     getErrorResponseFieldBuilder();
                 }
             }
 
             public Builder clear() {
                 super.clear();
-                term_ = 0L;
-                bitField0_ = (bitField0_ & ~0x00000001);
-                success_ = false;
-                bitField0_ = (bitField0_ & ~0x00000002);
-                lastLogIndex_ = 0L;
-                bitField0_ = (bitField0_ & ~0x00000004);
+                if (responsesBuilder_ == null) {
+                    responses_ = java.util.Collections.emptyList();
+                    bitField0_ = (bitField0_ & ~0x00000001);
+                } else {
+                    responsesBuilder_.clear();
+                }
                 if (errorResponseBuilder_ == null) {
                     errorResponse_ = null;
                 } else {
                     errorResponseBuilder_.clear();
                 }
-                bitField0_ = (bitField0_ & ~0x00000008);
+                bitField0_ = (bitField0_ & ~0x00000002);
                 return this;
             }
 
             public com.google.protobuf.Descriptors.Descriptor getDescriptorForType() {
-                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_AppendEntriesResponse_descriptor;
+                return com.alipay.sofa.jraft.rpc.RpcRequests.internal_static_jraft_BatchAppendEntriesResponse_descriptor;
             }
 
-            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse getDefaultInstanceForType() {
-                return com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.getDefaultInstance();
+            public com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse getDefaultInstanceForType() {
+                return com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse.getDefaultInstance();
             }
 
-            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse build() {
-                com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse result = buildPartial();
+            public com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse build() {
+                com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse result = buildPartial();
                 if (!result.isInitialized()) {
                     throw newUninitializedMessageException(result);
                 }
                 return result;
             }
 
-            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse buildPartial() {
-                com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse result = new com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse(
+            public com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse buildPartial() {
+                com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse result = new com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse(
                     this);
                 int from_bitField0_ = bitField0_;
                 int to_bitField0_ = 0;
-                if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
-                    to_bitField0_ |= 0x00000001;
+                if (responsesBuilder_ == null) {
+                    if (((bitField0_ & 0x00000001) == 0x00000001)) {
+                        responses_ = java.util.Collections.unmodifiableList(responses_);
+                        bitField0_ = (bitField0_ & ~0x00000001);
+                    }
+                    result.responses_ = responses_;
+                } else {
+                    result.responses_ = responsesBuilder_.build();
                 }
-                result.term_ = term_;
                 if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
-                    to_bitField0_ |= 0x00000002;
-                }
-                result.success_ = success_;
-                if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
-                    to_bitField0_ |= 0x00000004;
-                }
-                result.lastLogIndex_ = lastLogIndex_;
-                if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
-                    to_bitField0_ |= 0x00000008;
+                    to_bitField0_ |= 0x00000001;
                 }
                 if (errorResponseBuilder_ == null) {
                     result.errorResponse_ = errorResponse_;
@@ -10576,25 +12473,41 @@ public final class RpcRequests {
             }
 
             public Builder mergeFrom(com.google.protobuf.Message other) {
-                if (other instanceof com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse) {
-                    return mergeFrom((com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse) other);
+                if (other instanceof com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse) {
+                    return mergeFrom((com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse) other);
                 } else {
                     super.mergeFrom(other);
                     return this;
                 }
             }
 
-            public Builder mergeFrom(com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse other) {
-                if (other == com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.getDefaultInstance())
+            public Builder mergeFrom(com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse other) {
+                if (other == com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse.getDefaultInstance())
                     return this;
-                if (other.hasTerm()) {
-                    setTerm(other.getTerm());
-                }
-                if (other.hasSuccess()) {
-                    setSuccess(other.getSuccess());
-                }
-                if (other.hasLastLogIndex()) {
-                    setLastLogIndex(other.getLastLogIndex());
+                if (responsesBuilder_ == null) {
+                    if (!other.responses_.isEmpty()) {
+                        if (responses_.isEmpty()) {
+                            responses_ = other.responses_;
+                            bitField0_ = (bitField0_ & ~0x00000001);
+                        } else {
+                            ensureResponsesIsMutable();
+                            responses_.addAll(other.responses_);
+                        }
+                        onChanged();
+                    }
+                } else {
+                    if (!other.responses_.isEmpty()) {
+                        if (responsesBuilder_.isEmpty()) {
+                            responsesBuilder_.dispose();
+                            responsesBuilder_ = null;
+                            responses_ = other.responses_;
+                            bitField0_ = (bitField0_ & ~0x00000001);
+                            responsesBuilder_ = com.google.protobuf.GeneratedMessageV3.alwaysUseFieldBuilders ? getResponsesFieldBuilder()
+                                : null;
+                        } else {
+                            responsesBuilder_.addAllMessages(other.responses_);
+                        }
+                    }
                 }
                 if (other.hasErrorResponse()) {
                     mergeErrorResponse(other.getErrorResponse());
@@ -10605,11 +12518,10 @@ public final class RpcRequests {
             }
 
             public final boolean isInitialized() {
-                if (!hasTerm()) {
-                    return false;
-                }
-                if (!hasSuccess()) {
-                    return false;
+                for (int i = 0; i < getResponsesCount(); i++) {
+                    if (!getResponses(i).isInitialized()) {
+                        return false;
+                    }
                 }
                 if (hasErrorResponse()) {
                     if (!getErrorResponse().isInitialized()) {
@@ -10622,11 +12534,11 @@ public final class RpcRequests {
             public Builder mergeFrom(com.google.protobuf.CodedInputStream input,
                                      com.google.protobuf.ExtensionRegistryLite extensionRegistry)
                                                                                                  throws java.io.IOException {
-                com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse parsedMessage = null;
+                com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse parsedMessage = null;
                 try {
                     parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
                 } catch (com.google.protobuf.InvalidProtocolBufferException e) {
-                    parsedMessage = (com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse) e
+                    parsedMessage = (com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse) e
                         .getUnfinishedMessage();
                     throw e.unwrapIOException();
                 } finally {
@@ -10637,114 +12549,250 @@ public final class RpcRequests {
                 return this;
             }
 
-            private int  bitField0_;
+            private int                                                                         bitField0_;
 
-            private long term_;
+            private java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse> responses_ = java.util.Collections
+                                                                                                               .emptyList();
+
+            private void ensureResponsesIsMutable() {
+                if (!((bitField0_ & 0x00000001) == 0x00000001)) {
+                    responses_ = new java.util.ArrayList<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse>(
+                        responses_);
+                    bitField0_ |= 0x00000001;
+                }
+            }
+
+            private com.google.protobuf.RepeatedFieldBuilderV3<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponseOrBuilder> responsesBuilder_;
 
             /**
-             * <code>required int64 term = 1;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public boolean hasTerm() {
-                return ((bitField0_ & 0x00000001) == 0x00000001);
+            public java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse> getResponsesList() {
+                if (responsesBuilder_ == null) {
+                    return java.util.Collections.unmodifiableList(responses_);
+                } else {
+                    return responsesBuilder_.getMessageList();
+                }
             }
 
             /**
-             * <code>required int64 term = 1;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public long getTerm() {
-                return term_;
+            public int getResponsesCount() {
+                if (responsesBuilder_ == null) {
+                    return responses_.size();
+                } else {
+                    return responsesBuilder_.getCount();
+                }
             }
 
             /**
-             * <code>required int64 term = 1;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public Builder setTerm(long value) {
-                bitField0_ |= 0x00000001;
-                term_ = value;
-                onChanged();
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse getResponses(int index) {
+                if (responsesBuilder_ == null) {
+                    return responses_.get(index);
+                } else {
+                    return responsesBuilder_.getMessage(index);
+                }
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+             */
+            public Builder setResponses(int index, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse value) {
+                if (responsesBuilder_ == null) {
+                    if (value == null) {
+                        throw new NullPointerException();
+                    }
+                    ensureResponsesIsMutable();
+                    responses_.set(index, value);
+                    onChanged();
+                } else {
+                    responsesBuilder_.setMessage(index, value);
+                }
                 return this;
             }
 
             /**
-             * <code>required int64 term = 1;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public Builder clearTerm() {
-                bitField0_ = (bitField0_ & ~0x00000001);
-                term_ = 0L;
-                onChanged();
+            public Builder setResponses(int index,
+                                        com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder builderForValue) {
+                if (responsesBuilder_ == null) {
+                    ensureResponsesIsMutable();
+                    responses_.set(index, builderForValue.build());
+                    onChanged();
+                } else {
+                    responsesBuilder_.setMessage(index, builderForValue.build());
+                }
                 return this;
             }
 
-            private boolean success_;
+            /**
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+             */
+            public Builder addResponses(com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse value) {
+                if (responsesBuilder_ == null) {
+                    if (value == null) {
+                        throw new NullPointerException();
+                    }
+                    ensureResponsesIsMutable();
+                    responses_.add(value);
+                    onChanged();
+                } else {
+                    responsesBuilder_.addMessage(value);
+                }
+                return this;
+            }
 
             /**
-             * <code>required bool success = 2;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public boolean hasSuccess() {
-                return ((bitField0_ & 0x00000002) == 0x00000002);
+            public Builder addResponses(int index, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse value) {
+                if (responsesBuilder_ == null) {
+                    if (value == null) {
+                        throw new NullPointerException();
+                    }
+                    ensureResponsesIsMutable();
+                    responses_.add(index, value);
+                    onChanged();
+                } else {
+                    responsesBuilder_.addMessage(index, value);
+                }
+                return this;
             }
 
             /**
-             * <code>required bool success = 2;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public boolean getSuccess() {
-                return success_;
+            public Builder addResponses(com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder builderForValue) {
+                if (responsesBuilder_ == null) {
+                    ensureResponsesIsMutable();
+                    responses_.add(builderForValue.build());
+                    onChanged();
+                } else {
+                    responsesBuilder_.addMessage(builderForValue.build());
+                }
+                return this;
             }
 
             /**
-             * <code>required bool success = 2;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public Builder setSuccess(boolean value) {
-                bitField0_ |= 0x00000002;
-                success_ = value;
-                onChanged();
+            public Builder addResponses(int index,
+                                        com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder builderForValue) {
+                if (responsesBuilder_ == null) {
+                    ensureResponsesIsMutable();
+                    responses_.add(index, builderForValue.build());
+                    onChanged();
+                } else {
+                    responsesBuilder_.addMessage(index, builderForValue.build());
+                }
                 return this;
             }
 
             /**
-             * <code>required bool success = 2;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public Builder clearSuccess() {
-                bitField0_ = (bitField0_ & ~0x00000002);
-                success_ = false;
-                onChanged();
+            public Builder addAllResponses(java.lang.Iterable<? extends com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse> values) {
+                if (responsesBuilder_ == null) {
+                    ensureResponsesIsMutable();
+                    com.google.protobuf.AbstractMessageLite.Builder.addAll(values, responses_);
+                    onChanged();
+                } else {
+                    responsesBuilder_.addAllMessages(values);
+                }
                 return this;
             }
 
-            private long lastLogIndex_;
+            /**
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+             */
+            public Builder clearResponses() {
+                if (responsesBuilder_ == null) {
+                    responses_ = java.util.Collections.emptyList();
+                    bitField0_ = (bitField0_ & ~0x00000001);
+                    onChanged();
+                } else {
+                    responsesBuilder_.clear();
+                }
+                return this;
+            }
 
             /**
-             * <code>optional int64 last_log_index = 3;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public boolean hasLastLogIndex() {
-                return ((bitField0_ & 0x00000004) == 0x00000004);
+            public Builder removeResponses(int index) {
+                if (responsesBuilder_ == null) {
+                    ensureResponsesIsMutable();
+                    responses_.remove(index);
+                    onChanged();
+                } else {
+                    responsesBuilder_.remove(index);
+                }
+                return this;
             }
 
             /**
-             * <code>optional int64 last_log_index = 3;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public long getLastLogIndex() {
-                return lastLogIndex_;
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder getResponsesBuilder(int index) {
+                return getResponsesFieldBuilder().getBuilder(index);
             }
 
             /**
-             * <code>optional int64 last_log_index = 3;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public Builder setLastLogIndex(long value) {
-                bitField0_ |= 0x00000004;
-                lastLogIndex_ = value;
-                onChanged();
-                return this;
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponseOrBuilder getResponsesOrBuilder(int index) {
+                if (responsesBuilder_ == null) {
+                    return responses_.get(index);
+                } else {
+                    return responsesBuilder_.getMessageOrBuilder(index);
+                }
             }
 
             /**
-             * <code>optional int64 last_log_index = 3;</code>
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
              */
-            public Builder clearLastLogIndex() {
-                bitField0_ = (bitField0_ & ~0x00000004);
-                lastLogIndex_ = 0L;
-                onChanged();
-                return this;
+            public java.util.List<? extends com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponseOrBuilder> getResponsesOrBuilderList() {
+                if (responsesBuilder_ != null) {
+                    return responsesBuilder_.getMessageOrBuilderList();
+                } else {
+                    return java.util.Collections.unmodifiableList(responses_);
+                }
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+             */
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder addResponsesBuilder() {
+                return getResponsesFieldBuilder().addBuilder(
+                    com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.getDefaultInstance());
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+             */
+            public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder addResponsesBuilder(int index) {
+                return getResponsesFieldBuilder().addBuilder(index,
+                    com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.getDefaultInstance());
+            }
+
+            /**
+             * <code>repeated .jraft.AppendEntriesResponse responses = 1;</code>
+             */
+            public java.util.List<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder> getResponsesBuilderList() {
+                return getResponsesFieldBuilder().getBuilderList();
+            }
+
+            private com.google.protobuf.RepeatedFieldBuilderV3<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponseOrBuilder> getResponsesFieldBuilder() {
+                if (responsesBuilder_ == null) {
+                    responsesBuilder_ = new com.google.protobuf.RepeatedFieldBuilderV3<com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse.Builder, com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponseOrBuilder>(
+                        responses_, ((bitField0_ & 0x00000001) == 0x00000001), getParentForChildren(), isClean());
+                    responses_ = null;
+                }
+                return responsesBuilder_;
             }
 
             private com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse                                                                                                                                                                      errorResponse_ = null;
@@ -10754,7 +12802,7 @@ public final class RpcRequests {
              * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
              */
             public boolean hasErrorResponse() {
-                return ((bitField0_ & 0x00000008) == 0x00000008);
+                return ((bitField0_ & 0x00000002) == 0x00000002);
             }
 
             /**
@@ -10782,7 +12830,7 @@ public final class RpcRequests {
                 } else {
                     errorResponseBuilder_.setMessage(value);
                 }
-                bitField0_ |= 0x00000008;
+                bitField0_ |= 0x00000002;
                 return this;
             }
 
@@ -10796,7 +12844,7 @@ public final class RpcRequests {
                 } else {
                     errorResponseBuilder_.setMessage(builderForValue.build());
                 }
-                bitField0_ |= 0x00000008;
+                bitField0_ |= 0x00000002;
                 return this;
             }
 
@@ -10805,7 +12853,7 @@ public final class RpcRequests {
              */
             public Builder mergeErrorResponse(com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse value) {
                 if (errorResponseBuilder_ == null) {
-                    if (((bitField0_ & 0x00000008) == 0x00000008) && errorResponse_ != null
+                    if (((bitField0_ & 0x00000002) == 0x00000002) && errorResponse_ != null
                         && errorResponse_ != com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.getDefaultInstance()) {
                         errorResponse_ = com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.newBuilder(errorResponse_)
                             .mergeFrom(value).buildPartial();
@@ -10816,7 +12864,7 @@ public final class RpcRequests {
                 } else {
                     errorResponseBuilder_.mergeFrom(value);
                 }
-                bitField0_ |= 0x00000008;
+                bitField0_ |= 0x00000002;
                 return this;
             }
 
@@ -10830,7 +12878,7 @@ public final class RpcRequests {
                 } else {
                     errorResponseBuilder_.clear();
                 }
-                bitField0_ = (bitField0_ & ~0x00000008);
+                bitField0_ = (bitField0_ & ~0x00000002);
                 return this;
             }
 
@@ -10838,7 +12886,7 @@ public final class RpcRequests {
              * <code>optional .jraft.ErrorResponse errorResponse = 99;</code>
              */
             public com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse.Builder getErrorResponseBuilder() {
-                bitField0_ |= 0x00000008;
+                bitField0_ |= 0x00000002;
                 onChanged();
                 return getErrorResponseFieldBuilder().getBuilder();
             }
@@ -10875,40 +12923,40 @@ public final class RpcRequests {
                 return super.mergeUnknownFields(unknownFields);
             }
 
-            // @@protoc_insertion_point(builder_scope:jraft.AppendEntriesResponse)
+            // @@protoc_insertion_point(builder_scope:jraft.BatchAppendEntriesResponse)
         }
 
-        // @@protoc_insertion_point(class_scope:jraft.AppendEntriesResponse)
-        private static final com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse DEFAULT_INSTANCE;
+        // @@protoc_insertion_point(class_scope:jraft.BatchAppendEntriesResponse)
+        private static final com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse DEFAULT_INSTANCE;
         static {
-            DEFAULT_INSTANCE = new com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse();
+            DEFAULT_INSTANCE = new com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse();
         }
 
-        public static com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse getDefaultInstance() {
+        public static com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse getDefaultInstance() {
             return DEFAULT_INSTANCE;
         }
 
         @java.lang.Deprecated
-        public static final com.google.protobuf.Parser<AppendEntriesResponse> PARSER = new com.google.protobuf.AbstractParser<AppendEntriesResponse>() {
-                                                                                         public AppendEntriesResponse parsePartialFrom(com.google.protobuf.CodedInputStream input,
-                                                                                                                                       com.google.protobuf.ExtensionRegistryLite extensionRegistry)
-                                                                                                                                                                                                   throws com.google.protobuf.InvalidProtocolBufferException {
-                                                                                             return new AppendEntriesResponse(
-                                                                                                 input,
-                                                                                                 extensionRegistry);
-                                                                                         }
-                                                                                     };
+        public static final com.google.protobuf.Parser<BatchAppendEntriesResponse> PARSER = new com.google.protobuf.AbstractParser<BatchAppendEntriesResponse>() {
+                                                                                              public BatchAppendEntriesResponse parsePartialFrom(com.google.protobuf.CodedInputStream input,
+                                                                                                                                                 com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+                                                                                                                                                                                                             throws com.google.protobuf.InvalidProtocolBufferException {
+                                                                                                  return new BatchAppendEntriesResponse(
+                                                                                                      input,
+                                                                                                      extensionRegistry);
+                                                                                              }
+                                                                                          };
 
-        public static com.google.protobuf.Parser<AppendEntriesResponse> parser() {
+        public static com.google.protobuf.Parser<BatchAppendEntriesResponse> parser() {
             return PARSER;
         }
 
         @java.lang.Override
-        public com.google.protobuf.Parser<AppendEntriesResponse> getParserForType() {
+        public com.google.protobuf.Parser<BatchAppendEntriesResponse> getParserForType() {
             return PARSER;
         }
 
-        public com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse getDefaultInstanceForType() {
+        public com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse getDefaultInstanceForType() {
             return DEFAULT_INSTANCE;
         }
 
@@ -14693,6 +16741,10 @@ public final class RpcRequests {
     private static final com.google.protobuf.GeneratedMessageV3.FieldAccessorTable internal_static_jraft_AppendEntriesRequest_fieldAccessorTable;
     private static final com.google.protobuf.Descriptors.Descriptor                internal_static_jraft_AppendEntriesResponse_descriptor;
     private static final com.google.protobuf.GeneratedMessageV3.FieldAccessorTable internal_static_jraft_AppendEntriesResponse_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor                internal_static_jraft_BatchAppendEntriesRequest_descriptor;
+    private static final com.google.protobuf.GeneratedMessageV3.FieldAccessorTable internal_static_jraft_BatchAppendEntriesRequest_fieldAccessorTable;
+    private static final com.google.protobuf.Descriptors.Descriptor                internal_static_jraft_BatchAppendEntriesResponse_descriptor;
+    private static final com.google.protobuf.GeneratedMessageV3.FieldAccessorTable internal_static_jraft_BatchAppendEntriesResponse_fieldAccessorTable;
     private static final com.google.protobuf.Descriptors.Descriptor                internal_static_jraft_GetFileRequest_descriptor;
     private static final com.google.protobuf.GeneratedMessageV3.FieldAccessorTable internal_static_jraft_GetFileRequest_fieldAccessorTable;
     private static final com.google.protobuf.Descriptors.Descriptor                internal_static_jraft_GetFileResponse_descriptor;
@@ -14730,26 +16782,33 @@ public final class RpcRequests {
                                               + "\030\002 \002(\010\022+\n\rerrorResponse\030c \001(\0132\024.jraft.Er"
                                               + "rorResponse\"R\n\032AppendEntriesRequestHeade"
                                               + "r\022\020\n\010group_id\030\001 \002(\t\022\021\n\tserver_id\030\002 \002(\t\022\017"
-                                              + "\n\007peer_id\030\003 \002(\t\"\323\001\n\024AppendEntriesRequest"
+                                              + "\n\007peer_id\030\003 \002(\t\"\375\001\n\024AppendEntriesRequest"
                                               + "\022\020\n\010group_id\030\001 \002(\t\022\021\n\tserver_id\030\002 \002(\t\022\017\n"
                                               + "\007peer_id\030\003 \002(\t\022\014\n\004term\030\004 \002(\003\022\025\n\rprev_log"
                                               + "_term\030\005 \002(\003\022\026\n\016prev_log_index\030\006 \002(\003\022!\n\007e"
                                               + "ntries\030\007 \003(\0132\020.jraft.EntryMeta\022\027\n\017commit"
-                                              + "ted_index\030\010 \002(\003\022\014\n\004data\030\t \001(\014\"{\n\025AppendE"
-                                              + "ntriesResponse\022\014\n\004term\030\001 \002(\003\022\017\n\007success\030"
-                                              + "\002 \002(\010\022\026\n\016last_log_index\030\003 \001(\003\022+\n\rerrorRe"
-                                              + "sponse\030c \001(\0132\024.jraft.ErrorResponse\"i\n\016Ge"
-                                              + "tFileRequest\022\021\n\treader_id\030\001 \002(\003\022\020\n\010filen"
-                                              + "ame\030\002 \002(\t\022\r\n\005count\030\003 \002(\003\022\016\n\006offset\030\004 \002(\003"
-                                              + "\022\023\n\013read_partly\030\005 \001(\010\"l\n\017GetFileResponse"
-                                              + "\022\013\n\003eof\030\001 \002(\010\022\014\n\004data\030\002 \002(\014\022\021\n\tread_size"
-                                              + "\030\003 \001(\003\022+\n\rerrorResponse\030c \001(\0132\024.jraft.Er"
-                                              + "rorResponse\"Y\n\020ReadIndexRequest\022\020\n\010group"
-                                              + "_id\030\001 \002(\t\022\021\n\tserver_id\030\002 \002(\t\022\017\n\007entries\030"
-                                              + "\003 \003(\014\022\017\n\007peer_id\030\004 \001(\t\"`\n\021ReadIndexRespo"
-                                              + "nse\022\r\n\005index\030\001 \002(\003\022\017\n\007success\030\002 \002(\010\022+\n\re"
-                                              + "rrorResponse\030c \001(\0132\024.jraft.ErrorResponse"
-                                              + "B(\n\031com.alipay.sofa.jraft.rpcB\013RpcReques" + "ts" };
+                                              + "ted_index\030\010 \002(\003\022\014\n\004data\030\t \001(\014\022\021\n\thiberna"
+                                              + "te\030\n \001(\010\022\025\n\rcompress_type\030\013 \001(\005\"\223\001\n\025Appe"
+                                              + "ndEntriesResponse\022\014\n\004term\030\001 \002(\003\022\017\n\007succe"
+                                              + "ss\030\002 \002(\010\022\026\n\016last_log_index\030\003 \001(\003\022\026\n\016comp"
+                                              + "ress_types\030\004 \001(\005\022+\n\rerrorResponse\030c \001(\0132"
+                                              + "\024.jraft.ErrorResponse\"J\n\031BatchAppendEntr"
+                                              + "iesRequest\022-\n\010requests\030\001 \003(\0132\033.jraft.App"
+                                              + "endEntriesRequest\"z\n\032BatchAppendEntriesR"
+                                              + "esponse\022/\n\tresponses\030\001 \003(\0132\034.jraft.Appen"
+                                              + "dEntriesResponse\022+\n\rerrorResponse\030c \001(\0132"
+                                              + "\024.jraft.ErrorResponse\"i\n\016GetFileRequest\022"
+                                              + "\021\n\treader_id\030\001 \002(\003\022\020\n\010filename\030\002 \002(\t\022\r\n\005"
+                                              + "count\030\003 \002(\003\022\016\n\006offset\030\004 \002(\003\022\023\n\013read_part"
+                                              + "ly\030\005 \001(\010\"l\n\017GetFileResponse\022\013\n\003eof\030\001 \002(\010"
+                                              + "\022\014\n\004data\030\002 \002(\014\022\021\n\tread_size\030\003 \001(\003\022+\n\rerr"
+                                              + "orResponse\030c \001(\0132\024.jraft.ErrorResponse\"Y"
+                                              + "\n\020ReadIndexRequest\022\020\n\010group_id\030\001 \002(\t\022\021\n\t"
+                                              + "server_id\030\002 \002(\t\022\017\n\007entries\030\003 \003(\014\022\017\n\007peer"
+                                              + "_id\030\004 \001(\t\"`\n\021ReadIndexResponse\022\r\n\005index\030"
+                                              + "\001 \002(\003\022\017\n\007success\030\002 \002(\010\022+\n\rerrorResponse\030"
+                                              + "c \001(\0132\024.jraft.ErrorResponseB(\n\031com.alipa"
+                                              + "y.sofa.jraft.rpcB\013RpcRequests" };
         com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner = new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
             public com.google.protobuf.ExtensionRegistry assignDescriptors(com.google.protobuf.Descriptors.FileDescriptor root) {
                 descriptor = root;
@@ -14796,24 +16855,32 @@ public final class RpcRequests {
         internal_static_jraft_AppendEntriesRequest_descriptor = getDescriptor().getMessageTypes().get(9);
         internal_static_jraft_AppendEntriesRequest_fieldAccessorTable = new com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
             internal_static_jraft_AppendEntriesRequest_descriptor, new java.lang.String[] { "GroupId", "ServerId",
-            "PeerId", "Term", "PrevLogTerm", "PrevLogIndex", "Entries", "CommittedIndex", "Data", });
+            "PeerId", "Term", "PrevLogTerm", "PrevLogIndex", "Entries", "CommittedIndex", "Data", "Hibernate",
+            "CompressType", });
         internal_static_jraft_AppendEntriesResponse_descriptor = getDescriptor().getMessageTypes().get(10);
         internal_static_jraft_AppendEntriesResponse_fieldAccessorTable = new com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
             internal_static_jraft_AppendEntriesResponse_descriptor, new java.lang.String[] { "Term", "Success",
-            "LastLogIndex", "ErrorResponse", });
-        internal_static_jraft_GetFileRequest_descriptor = getDescriptor().getMessageTypes().get(11);
+            "LastLogIndex", "CompressTypes", "ErrorResponse", });
+        internal_static_jraft_BatchAppendEntriesRequest_descriptor = getDescriptor().getMessageTypes().get(11);
+        internal_static_jraft_BatchAppendEntriesRequest_fieldAccessorTable = new com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+            internal_static_jraft_BatchAppendEntriesRequest_descriptor, new java.lang.String[] { "Requests", });
+        internal_static_jraft_BatchAppendEntriesResponse_descriptor = getDescriptor().getMessageTypes().get(12);
+        internal_static_jraft_BatchAppendEntriesResponse_fieldAccessorTable = new com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+            internal_static_jraft_BatchAppendEntriesResponse_descriptor, new java.lang.String[] { "Responses",
+            "ErrorResponse", });
+        internal_static_jraft_GetFileRequest_descriptor = getDescriptor().getMessageTypes().get(13);
         internal_static_jraft_GetFileRequest_fieldAccessorTable = new com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
             internal_static_jraft_GetFileRequest_descriptor, new java.lang.String[] { "ReaderId", "Filename", "Count",
             "Offset", "ReadPartly", });
-        internal_static_jraft_GetFileResponse_descriptor = getDescriptor().getMessageTypes().get(12);
+        internal_static_jraft_GetFileResponse_descriptor = getDescriptor().getMessageTypes().get(14);
         internal_static_jraft_GetFileResponse_fieldAccessorTable = new com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
             internal_static_jraft_GetFileResponse_descriptor, new java.lang.String[] { "Eof", "Data", "ReadSize",
             "ErrorResponse", });
-        internal_static_jraft_ReadIndexRequest_descriptor = getDescriptor().getMessageTypes().get(13);
+        internal_static_jraft_ReadIndexRequest_descriptor = getDescriptor().getMessageTypes().get(15);
         internal_static_jraft_ReadIndexRequest_fieldAccessorTable = new com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
             internal_static_jraft_ReadIndexRequest_descriptor, new java.lang.String[] { "GroupId", "ServerId",
             "Entries", "PeerId", });
-        internal_static_jraft_ReadIndexResponse_descriptor = getDescriptor().getMessageTypes().get(14);
+        internal_static_jraft_ReadIndexResponse_descriptor = getDescriptor().getMessageTypes().get(16);
         internal_static_jraft_ReadIndexResponse_fieldAccessorTable = new com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
             internal_static_jraft_ReadIndexResponse_descriptor, new java.lang.String[] { "Index", "Success",
             "ErrorResponse", });
@@ -16,11 +16,15 @@
  */
 package com.alipay.sofa.jraft.rpc.impl.core;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.lang.StringUtils;
 
@@ -28,6 +32,9 @@ import com.alipay.sofa.jraft.JRaftUtils;
 import com.alipay.sofa.jraft.Node;
 import com.alipay.sofa.jraft.NodeManager;
 import com.alipay.sofa.jraft.entity.PeerId;
+import com.alipay.sofa.jraft.entity.RaftOutter;
+import com.alipay.sofa.jraft.error.RaftError;
+import com.alipay.sofa.jraft.option.RaftOptions;
 import com.alipay.sofa.jraft.rpc.Connection;
 import com.alipay.sofa.jraft.rpc.RaftServerService;
 import com.alipay.sofa.jraft.rpc.RpcContext;
@@ -37,11 +44,15 @@ import com.alipay.sofa.jraft.rpc.RpcRequests;
 import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest;
 import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequestHeader;
 import com.alipay.sofa.jraft.rpc.impl.ConnectionClosedEventListener;
+import com.alipay.sofa.jraft.util.OnlyForTest;
 import com.alipay.sofa.jraft.util.RpcFactoryHelper;
 import com.alipay.sofa.jraft.util.Utils;
+import com.alipay.sofa.jraft.util.compress.Compressor;
+import com.alipay.sofa.jraft.util.compress.Compressors;
 import com.alipay.sofa.jraft.util.concurrent.MpscSingleThreadExecutor;
 import com.alipay.sofa.jraft.util.concurrent.SingleThreadExecutor;
 import com.google.protobuf.Message;
+import com.google.protobuf.ZeroByteStringHelper;
 
 /**
  * Append entries request processor.
@@ -203,6 +214,9 @@ public class AppendEntriesRequestProcessor extends NodeRequestProcessor<AppendEn
 
         private final int                            maxPendingResponses;
 
+        // The coalescing requests, only accessed in executor thread.
+        private final CoalescingRequests             coalescingRequests = new CoalescingRequests();
+
         public PeerRequestContext(final String groupId, final String peerId, final int maxPendingResponses) {
             super();
             this.peerId = peerId;
@@ -241,6 +255,16 @@ public class AppendEntriesRequestProcessor extends NodeRequestProcessor<AppendEn
             return this.nextRequiredSequence;
         }
 
+        @OnlyForTest
+        SingleThreadExecutor getExecutor() {
+            return this.executor;
+        }
+
+        @OnlyForTest
+        CoalescingRequests getCoalescingRequests() {
+            return this.coalescingRequests;
+        }
+
         int getAndIncrementNextRequiredSequence() {
             final int prev = this.nextRequiredSequence;
             this.nextRequiredSequence++;
@@ -251,6 +275,53 @@ public class AppendEntriesRequestProcessor extends NodeRequestProcessor<AppendEn
         }
     }
 
+    /**
+     * The consecutive requests with entries waiting to be appended in one batch.
+     */
+    static class CoalescingRequests {
+        final List<AppendEntriesRequest> requests = new ArrayList<>();
+        final List<RpcRequestClosure>    dones    = new ArrayList<>();
+        int                              entriesCount;
+        long                             bytes;
+        // The flush task was submitted
+        boolean                          flushScheduled;
+
+        boolean isEmpty() {
+            return this.requests.isEmpty();
+        }
+
+        /**
+         * Returns true when the request follows the last request in the same term.
+         */
+        boolean isConsecutive(final AppendEntriesRequest request) {
+            if (isEmpty()) {
+                return true;
+            }
+            final AppendEntriesRequest last = this.requests.get(this.requests.size() - 1);
+            return request.getTerm() == last.getTerm() && request.getServerId().equals(last.getServerId())
+                   && request.getPrevLogIndex() == last.getPrevLogIndex() + last.getEntriesCount()
+                   && request.getPrevLogTerm() == last.getEntries(last.getEntriesCount() - 1).getTerm();
+        }
+
+        void add(final AppendEntriesRequest request, final RpcRequestClosure done) {
+            this.requests.add(request);
+            this.dones.add(done);
+            this.entriesCount += request.getEntriesCount();
+            this.bytes += request.getData().size();
+        }
+
+        boolean isFull(final RaftOptions opts) {
+            return this.entriesCount >= opts.getMaxEntriesSize() || this.bytes >= opts.getMaxAppendBufferSize();
+        }
+
+        void clear() {
+            this.requests.clear();
+            this.dones.clear();
+            this.entriesCount = 0;
+            this.bytes = 0;
+        }
+    }
+
     PeerRequestContext getPeerRequestContext(final String groupId, final String peerId, final Connection conn) {
         ConcurrentMap<String/* peerId */, PeerRequestContext> groupContexts = this.peerRequestContexts.get(groupId);
         if (groupContexts == null) {
@@ -350,14 +421,122 @@ public class AppendEntriesRequestProcessor extends NodeRequestProcessor<AppendEn
             final String peerId = request.getPeerId();
 
             final int reqSequence = getAndIncrementSequence(groupId, peerId, done.getRpcCtx().getConnection());
-            final Message response = service.handleAppendEntriesRequest(request, new SequenceRpcRequestClosure(done,
-                reqSequence, groupId, peerId, defaultResp()));
+            final SequenceRpcRequestClosure seqDone = new SequenceRpcRequestClosure(done, reqSequence, groupId, peerId,
+                defaultResp());
+            final AppendEntriesRequest decompressed;
+            try {
+                decompressed = decompressData(request);
+            } catch (final IOException e) {
+                sendSequenceResponse(groupId, peerId, reqSequence, done.getRpcCtx(), decompressFailure(request, e));
+                return null;
+            }
+            if (node.getRaftOptions().isCoalesceAppendEntries()) {
+                final PeerRequestContext ctx = getPeerRequestContext(groupId, peerId, done.getRpcCtx().getConnection());
+                coalesceRequest(service, node.getRaftOptions(), ctx, decompressed, seqDone);
+                return null;
+            }
+            final Message response = service.handleAppendEntriesRequest(decompressed, seqDone);
             if (response != null) {
                 sendSequenceResponse(groupId, peerId, reqSequence, done.getRpcCtx(), response);
             }
             return null;
         } else {
-            return service.handleAppendEntriesRequest(request, done);
+            try {
+                return service.handleAppendEntriesRequest(decompressData(request), done);
+            } catch (final IOException e) {
+                return decompressFailure(request, e);
+            }
+        }
+    }
+
+    /**
+     * Decompresses the data of request compressed by leader, see Replicator#sendEntries, so that the
+     * node always handles the raw data. It's done before the request is coalesced.
+     */
+    static AppendEntriesRequest decompressData(final AppendEntriesRequest request) throws IOException {
+        final int compressType = request.getCompressType();
+        if (compressType == 0) {
+            return request;
+        }
+        final Compressor compressor = Compressors.get(compressType);
+        if (compressor == null) {
+            throw new IOException("Unsupported compress type: " + compressType);
+        }
+        int dataSize = 0;
+        for (final RaftOutter.EntryMeta meta : request.getEntriesList()) {
+            dataSize += meta.getDataLen();
+        }
+        final byte[] data = compressor.decompress(request.getData().asReadOnlyByteBuffer(), dataSize);
+        return request.toBuilder() //
+            .setData(ZeroByteStringHelper.wrap(data)) //
+            .clearCompressType() //
+            .build();
+    }
+
+    private Message decompressFailure(final AppendEntriesRequest request, final IOException e) {
+        LOG.error("Fail to decompress data of AppendEntriesRequest from {}/{}.", request.getGroupId(),
+            request.getServerId(), e);
+        return RpcFactoryHelper //
+            .responseFactory() //
+            .newResponse(defaultResp(), RaftError.EINVAL, "Fail to decompress data: %s", e.getMessage());
+    }
+
+    /**
+     * Queues the request with entries, they are appended in one batch after the requests already
+     * queued in the executor of peer are processed. It must be called in the executor thread.
+     */
+    private void coalesceRequest(final RaftServerService service, final RaftOptions opts,
+                                 final PeerRequestContext ctx, final AppendEntriesRequest request,
+                                 final RpcRequestClosure done) {
+        final CoalescingRequests coalescing = ctx.coalescingRequests;
+        if (request.getEntriesCount() == 0 || !coalescing.isConsecutive(request)) {
+            flushCoalescingRequests(service, coalescing);
+        }
+        if (request.getEntriesCount() == 0) {
+            // Heartbeat or probe request
+            final Message response = service.handleAppendEntriesRequest(request, done);
+            if (response != null) {
+                done.sendResponse(response);
+            }
+            return;
+        }
+
+        coalescing.add(request, done);
+        if (coalescing.isFull(opts)) {
+            flushCoalescingRequests(service, coalescing);
+            return;
+        }
+        if (!coalescing.flushScheduled) {
+            final SingleThreadExecutor executor = ctx.executor;
+            if (executor != null) {
+                try {
+                    // The flush task runs after the requests already queued.
+                    executor.execute(() -> flushCoalescingRequests(service, coalescing));
+                    coalescing.flushScheduled = true;
+                    return;
+                } catch (final RejectedExecutionException e) {
+                    LOG.warn("Fail to schedule flushing coalescing requests for {}/{}.", ctx.groupId, ctx.peerId);
+                }
+            }
+            flushCoalescingRequests(service, coalescing);
+        }
+    }
+
+    private void flushCoalescingRequests(final RaftServerService service, final CoalescingRequests coalescing) {
+        coalescing.flushScheduled = false;
+        if (coalescing.isEmpty()) {
+            return;
+        }
+        final List<RpcRequestClosure> dones = new ArrayList<>(coalescing.dones);
+        try {
+            final Message response = service.handleAppendEntriesRequests(new ArrayList<>(coalescing.requests), dones);
+            if (response != null) {
+                for (final RpcRequestClosure done : dones) {
+                    done.sendResponse(response);
+                }
+            }
+        } finally {
+            coalescing.clear();
         }
     }
 
@@ -390,12 +569,20 @@ public class AppendEntriesRequestProcessor extends NodeRequestProcessor<AppendEn
             for (final Map.Entry<String, ConcurrentMap<String, PeerRequestContext>> entry : this.peerRequestContexts
                 .entrySet()) {
                 final ConcurrentMap<String, PeerRequestContext> groupCtxs = entry.getValue();
+                final PeerRequestContext ctx;
                 synchronized (Utils.withLockObject(groupCtxs)) {
-                    final PeerRequestContext ctx = groupCtxs.remove(peer.toString());
+                    ctx = groupCtxs.remove(peer.toString());
                     if (ctx != null) {
                         ctx.destroy();
                     }
                 }
+                if (ctx != null) {
+                    // The leader may be gone, wake up the node in case the group is hibernated.
+                    final Node node = NodeManager.getInstance().get(entry.getKey(), peer);
+                    if (node != null) {
+                        node.wakeup();
+                    }
+                }
             }
         } else {
             LOG.info("Connection disconnected: {}", remoteAddress);
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rpc.impl.core;
+
+import java.util.concurrent.Executor;
+
+import com.alipay.sofa.jraft.Node;
+import com.alipay.sofa.jraft.NodeManager;
+import com.alipay.sofa.jraft.entity.PeerId;
+import com.alipay.sofa.jraft.error.RaftError;
+import com.alipay.sofa.jraft.rpc.RaftServerService;
+import com.alipay.sofa.jraft.rpc.RpcRequestClosure;
+import com.alipay.sofa.jraft.rpc.RpcRequestProcessor;
+import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest;
+import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse;
+import com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest;
+import com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse;
+import com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse;
+import com.google.protobuf.Message;
+
+/**
+ * Handle the batch of heartbeats of different raft groups sent by {@link HeartbeatBatcher},
+ * every heartbeat is dispatched to its node and the responses are returned in the order
+ * of the requests.
+ *
+ * @author agent
+ */
+public class BatchAppendEntriesRequestProcessor extends RpcRequestProcessor<BatchAppendEntriesRequest> {
+
+    public BatchAppendEntriesRequestProcessor(Executor executor) {
+        super(executor, BatchAppendEntriesResponse.getDefaultInstance());
+    }
+
+    @Override
+    public Message processRequest(final BatchAppendEntriesRequest request, final RpcRequestClosure done) {
+        final BatchAppendEntriesResponse.Builder rb = BatchAppendEntriesResponse.newBuilder();
+        for (final AppendEntriesRequest req : request.getRequestsList()) {
+            rb.addResponses(handleHeartbeat(req));
+        }
+        return rb.build();
+    }
+
+    private AppendEntriesResponse handleHeartbeat(final AppendEntriesRequest request) {
+        if (request.getEntriesCount() > 0) {
+            return newErrorResponse(RaftError.EINVAL, "Only heartbeat requests can be batched, group: %s",
+                request.getGroupId());
+        }
+        final PeerId peer = new PeerId();
+        if (!peer.parse(request.getPeerId())) {
+            return newErrorResponse(RaftError.EINVAL, "Fail to parse peerId: %s", request.getPeerId());
+        }
+        final Node node = NodeManager.getInstance().get(request.getGroupId(), peer);
+        if (node == null) {
+            return newErrorResponse(RaftError.ENOENT, "Peer id not found: %s, group: %s", request.getPeerId(),
+                request.getGroupId());
+        }
+        // Heartbeats are always handled synchronously, the closure is never used.
+        final Message response = ((RaftServerService) node).handleAppendEntriesRequest(request, null);
+        if (response instanceof AppendEntriesResponse) {
+            return (AppendEntriesResponse) response;
+        }
+        if (response instanceof ErrorResponse) {
+            return AppendEntriesResponse.newBuilder() //
+                .setTerm(-1) //
+                .setSuccess(false) //
+                .setErrorResponse((ErrorResponse) response) //
+                .build();
+        }
+        return newErrorResponse(RaftError.EINTERNAL, "Unexpected heartbeat response: %s", response);
+    }
+
+    private static AppendEntriesResponse newErrorResponse(final RaftError error, final String fmt, final Object... args) {
+        final ErrorResponse eResp = ErrorResponse.newBuilder() //
+            .setErrorCode(error.getNumber()) //
+            .setErrorMsg(String.format(fmt, args)) //
+            .build();
+        return AppendEntriesResponse.newBuilder() //
+            .setTerm(-1) //
+            .setSuccess(false) //
+            .setErrorResponse(eResp) //
+            .build();
+    }
+
+    @Override
+    public String interest() {
+        return BatchAppendEntriesRequest.class.getName();
+    }
+}
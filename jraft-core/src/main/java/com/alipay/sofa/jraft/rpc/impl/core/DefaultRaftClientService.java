@@ -29,6 +29,8 @@ import com.alipay.sofa.jraft.rpc.RaftClientService;
 import com.alipay.sofa.jraft.rpc.RpcClient;
 import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest;
 import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse;
+import com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest;
+import com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse;
 import com.alipay.sofa.jraft.rpc.RpcRequests.GetFileRequest;
 import com.alipay.sofa.jraft.rpc.RpcRequests.GetFileResponse;
 import com.alipay.sofa.jraft.rpc.RpcRequests.InstallSnapshotRequest;
@@ -70,7 +72,9 @@ public class DefaultRaftClientService extends AbstractClientService implements R
 
     @Override
     protected void configRpcClient(final RpcClient rpcClient) {
-        rpcClient.registerConnectEventListener(this.rgGroup);
+        if (this.rgGroup != null) {
+            rpcClient.registerConnectEventListener(this.rgGroup);
+        }
     }
 
     public DefaultRaftClientService(final ReplicatorGroup rgGroup) {
@@ -105,6 +109,14 @@ public class DefaultRaftClientService extends AbstractClientService implements R
         return invokeWithDone(endpoint, request, done, timeoutMs, executor);
     }
 
+    @Override
+    public Future<Message> batchAppendEntries(final Endpoint endpoint, final BatchAppendEntriesRequest request,
+                                              final int timeoutMs,
+                                              final RpcResponseClosure<BatchAppendEntriesResponse> done) {
+        final Executor executor = this.appendEntriesExecutorMap.computeIfAbsent(endpoint, k -> APPEND_ENTRIES_EXECUTORS.next());
+        return invokeWithDone(endpoint, request, done, timeoutMs, executor);
+    }
+
     @Override
     public Future<Message> getFile(final Endpoint endpoint, final GetFileRequest request, final int timeoutMs,
                                    final RpcResponseClosure<GetFileResponse> done) {
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rpc.impl.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alipay.sofa.jraft.Status;
+import com.alipay.sofa.jraft.core.Scheduler;
+import com.alipay.sofa.jraft.core.TimerManager;
+import com.alipay.sofa.jraft.error.RaftError;
+import com.alipay.sofa.jraft.option.NodeOptions;
+import com.alipay.sofa.jraft.rpc.RaftClientService;
+import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest;
+import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse;
+import com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest;
+import com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse;
+import com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse;
+import com.alipay.sofa.jraft.rpc.RpcResponseClosure;
+import com.alipay.sofa.jraft.rpc.RpcResponseClosureAdapter;
+import com.alipay.sofa.jraft.rpc.impl.FutureImpl;
+import com.alipay.sofa.jraft.util.Endpoint;
+import com.alipay.sofa.jraft.util.Requires;
+import com.alipay.sofa.jraft.util.SystemPropertyUtil;
+import com.google.protobuf.Message;
+
+/**
+ * Batches the heartbeats sent by the replicators of all the raft groups in this
+ * process to the same endpoint into one {@link BatchAppendEntriesRequest}, the
+ * receiver dispatches them to the right nodes and answers them in one
+ * {@link BatchAppendEntriesResponse}.
+ *
+ * Heartbeats of a endpoint are held for at most {@code jraft.heartbeat.batch.delay_ms}
+ * (default 5ms), the batch is sent at once when it reaches
+ * {@code jraft.heartbeat.batch.max_size} (default 256) heartbeats.
+ *
+ * The batches are sent by a client service of the batcher itself, so a node
+ * which is stopping doesn't fail the heartbeats of other groups. The batcher
+ * is shared by the nodes of this process which batch heartbeats, it's created
+ * by the first {@link #getRef()} and shut down by the last {@link #release()}.
+ *
+ * @author agent
+ */
+public class HeartbeatBatcher {
+
+    private static final Logger                         LOG            = LoggerFactory
+                                                                           .getLogger(HeartbeatBatcher.class);
+
+    private static final long                           DELAY_MS       = SystemPropertyUtil.getLong(
+                                                                           "jraft.heartbeat.batch.delay_ms", 5);
+    private static final int                            MAX_BATCH_SIZE = SystemPropertyUtil.getInt(
+                                                                           "jraft.heartbeat.batch.max_size", 256);
+
+    // guarded by HeartbeatBatcher.class
+    private static HeartbeatBatcher                     shared;
+    private static int                                  refCount;
+
+    private final RaftClientService                     rpcService;
+    private final Scheduler                             scheduler;
+    private final long                                  delayMs;
+    private final int                                   maxBatchSize;
+    private final ConcurrentMap<Endpoint, PendingBatch> batches        = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the batcher shared in the process, the caller must {@link #release()} it when it's not used.
+     */
+    public static synchronized HeartbeatBatcher getRef() {
+        if (shared == null) {
+            // The client service doesn't belong to any node, so it doesn't listen to the connections of replicators.
+            final DefaultRaftClientService rpcService = new DefaultRaftClientService(null);
+            if (!rpcService.init(new NodeOptions())) {
+                throw new IllegalStateException("Fail to init the client service of heartbeat batcher");
+            }
+            shared = new HeartbeatBatcher(rpcService, new TimerManager(1, "JRaft-Heartbeat-Batcher"), DELAY_MS,
+                MAX_BATCH_SIZE);
+        }
+        refCount++;
+        return shared;
+    }
+
+    /**
+     * Releases the reference got by {@link #getRef()}, the batcher is shut down when the last one is released.
+     */
+    public void release() {
+        synchronized (HeartbeatBatcher.class) {
+            if (this != shared || --refCount > 0) {
+                return;
+            }
+            shared = null;
+        }
+        shutdown();
+    }
+
+    HeartbeatBatcher(final RaftClientService rpcService, final Scheduler scheduler, final long delayMs,
+                     final int maxBatchSize) {
+        Requires.requireTrue(maxBatchSize > 0, "maxBatchSize must be positive");
+        this.rpcService = rpcService;
+        this.scheduler = scheduler;
+        this.delayMs = delayMs;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    private static class PendingHeartbeat {
+        final AppendEntriesRequest                      request;
+        final int                                       timeoutMs;
+        final RpcResponseClosure<AppendEntriesResponse> done;
+        final FutureImpl<Message>                       future = new FutureImpl<>();
+
+        PendingHeartbeat(final AppendEntriesRequest request, final int timeoutMs,
+                         final RpcResponseClosure<AppendEntriesResponse> done) {
+            this.request = request;
+            this.timeoutMs = timeoutMs;
+            this.done = done;
+        }
+    }
+
+    private static class PendingBatch {
+        List<PendingHeartbeat> heartbeats = new ArrayList<>();
+        boolean                flushScheduled;
+
+        List<PendingHeartbeat> drain() {
+            final List<PendingHeartbeat> ret = this.heartbeats;
+            this.heartbeats = new ArrayList<>();
+            return ret;
+        }
+    }
+
+    /**
+     * Queues a heartbeat to the endpoint, the done is run when the response of
+     * the batch containing it returns.
+     *
+     * @param endpoint  destination address (ip, port)
+     * @param request   the heartbeat request
+     * @param timeoutMs timeout millis
+     * @param done      callback
+     * @return a future with the response of the heartbeat
+     */
+    public Future<Message> heartbeat(final Endpoint endpoint, final AppendEntriesRequest request, final int timeoutMs,
+                                     final RpcResponseClosure<AppendEntriesResponse> done) {
+        Requires.requireTrue(request.getEntriesCount() == 0, "Only heartbeat requests can be batched");
+        final PendingHeartbeat heartbeat = new PendingHeartbeat(request, timeoutMs, done);
+        final PendingBatch batch = this.batches.computeIfAbsent(endpoint, k -> new PendingBatch());
+        List<PendingHeartbeat> toSend = null;
+        boolean scheduleFlush = false;
+        synchronized (batch) {
+            batch.heartbeats.add(heartbeat);
+            if (batch.heartbeats.size() >= this.maxBatchSize) {
+                toSend = batch.drain();
+            } else if (!batch.flushScheduled) {
+                batch.flushScheduled = true;
+                scheduleFlush = true;
+            }
+        }
+        if (toSend != null) {
+            sendBatch(endpoint, toSend);
+        } else if (scheduleFlush) {
+            try {
+                this.scheduler.schedule(() -> flush(endpoint, batch), this.delayMs, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException e) {
+                LOG.warn("Fail to schedule flushing heartbeats to {}, send them now.", endpoint);
+                flush(endpoint, batch);
+            }
+        }
+        return heartbeat.future;
+    }
+
+    private void flush(final Endpoint endpoint, final PendingBatch batch) {
+        final List<PendingHeartbeat> toSend;
+        synchronized (batch) {
+            batch.flushScheduled = false;
+            toSend = batch.drain();
+        }
+        sendBatch(endpoint, toSend);
+    }
+
+    private void sendBatch(final Endpoint endpoint, final List<PendingHeartbeat> heartbeats) {
+        if (heartbeats.isEmpty()) {
+            return;
+        }
+        final BatchAppendEntriesRequest.Builder rb = BatchAppendEntriesRequest.newBuilder();
+        int timeoutMs = Integer.MAX_VALUE;
+        for (final PendingHeartbeat heartbeat : heartbeats) {
+            rb.addRequests(heartbeat.request);
+            timeoutMs = Math.min(timeoutMs, heartbeat.timeoutMs);
+        }
+        try {
+            this.rpcService.batchAppendEntries(endpoint, rb.build(), timeoutMs,
+                new RpcResponseClosureAdapter<BatchAppendEntriesResponse>() {
+
+                    @Override
+                    public void run(final Status status) {
+                        onBatchReturned(endpoint, heartbeats, status, getResponse());
+                    }
+                });
+        } catch (final Throwable t) {
+            LOG.error("Fail to send {} heartbeats to {}.", heartbeats.size(), endpoint, t);
+            onBatchReturned(endpoint, heartbeats,
+                new Status(RaftError.EINTERNAL, "Fail to send heartbeats: %s", t.getMessage()), null);
+        }
+    }
+
+    void shutdown() {
+        this.scheduler.shutdown();
+        for (final Map.Entry<Endpoint, PendingBatch> entry : this.batches.entrySet()) {
+            final List<PendingHeartbeat> heartbeats;
+            synchronized (entry.getValue()) {
+                heartbeats = entry.getValue().drain();
+            }
+            onBatchReturned(entry.getKey(), heartbeats, new Status(RaftError.ESHUTDOWN,
+                "Heartbeat batcher is shut down."), null);
+        }
+        this.rpcService.shutdown();
+    }
+
+    private static void onBatchReturned(final Endpoint endpoint, final List<PendingHeartbeat> heartbeats,
+                                        final Status st, final BatchAppendEntriesResponse response) {
+        Status status = st;
+        if (status.isOk() && (response == null || response.getResponsesCount() != heartbeats.size())) {
+            LOG.error("Invalid batch append-entries response from {}, expect {} responses, but got {}.", endpoint,
+                heartbeats.size(), response == null ? 0 : response.getResponsesCount());
+            status = new Status(RaftError.EINTERNAL, "Invalid batch append-entries response");
+        }
+        for (int i = 0; i < heartbeats.size(); i++) {
+            final PendingHeartbeat heartbeat = heartbeats.get(i);
+            if (heartbeat.future.isCancelled()) {
+                runDone(heartbeat, new Status(RaftError.ECANCELED, "RPC request was canceled by future."));
+                continue;
+            }
+            if (!status.isOk()) {
+                runDone(heartbeat, status);
+                heartbeat.future.failure(new IllegalStateException(status.getErrorMsg()));
+                continue;
+            }
+            final AppendEntriesResponse resp = response.getResponses(i);
+            if (resp.hasErrorResponse()) {
+                final ErrorResponse eResp = resp.getErrorResponse();
+                runDone(heartbeat, new Status(eResp.getErrorCode(), eResp.hasErrorMsg() ? eResp.getErrorMsg() : null));
+            } else {
+                if (heartbeat.done != null) {
+                    heartbeat.done.setResponse(resp);
+                }
+                runDone(heartbeat, Status.OK());
+            }
+            heartbeat.future.setResult(resp);
+        }
+    }
+
+    private static void runDone(final PendingHeartbeat heartbeat, final Status status) {
+        if (heartbeat.done == null) {
+            return;
+        }
+        try {
+            heartbeat.done.run(status);
+        } catch (final Throwable t) {
+            LOG.error("Fail to run RpcResponseClosure, the request is {}.", heartbeat.request, t);
+        }
+    }
+}
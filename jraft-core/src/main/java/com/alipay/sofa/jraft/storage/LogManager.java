@@ -147,6 +147,19 @@ public interface LogManager extends Lifecycle<LogManagerOptions>, Describer {
      */
     LogEntry getEntry(final long index);
 
+    /**
+     * Get the log entries in [fromIndex, fromIndex + maxCount), the entries that are not
+     * in memory are read from log storage sequentially. The read stops at the first missing
+     * log, or once the total data size reaches maxBytes, at least one entry is returned if
+     * it exists.
+     *
+     * @param fromIndex the index of the first log entry
+     * @param maxCount  max number of entries
+     * @param maxBytes  max total data bytes of entries
+     * @return the log entries in index order
+     */
+    List<LogEntry> getEntries(final long fromIndex, final int maxCount, final long maxBytes);
+
     /**
      * Get the log term at index.
      *
@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.jraft.storage;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.alipay.sofa.jraft.Lifecycle;
@@ -46,6 +47,33 @@ public interface LogStorage extends Lifecycle<LogStorageOptions>, Storage {
      */
     LogEntry getEntry(final long index);
 
+    /**
+     * Get log entries in [fromIndex, fromIndex + maxCount). The read stops at the
+     * first missing log, or once the total data size of the returned entries reaches
+     * maxBytes, at least one entry is returned if it exists.
+     *
+     * The default implementation calls {@link #getEntry(long)} one by one, the storage
+     * implementations should override it with a sequential scan.
+     *
+     * @param fromIndex the first log index to read
+     * @param maxCount  max number of entries to read
+     * @param maxBytes  max total data bytes of the entries to read
+     * @return the log entries in index order
+     */
+    default List<LogEntry> getEntries(final long fromIndex, final int maxCount, final long maxBytes) {
+        final List<LogEntry> entries = new ArrayList<>(Math.min(maxCount, 64));
+        long bytes = 0;
+        for (long index = fromIndex; entries.size() < maxCount && (entries.isEmpty() || bytes < maxBytes); index++) {
+            final LogEntry entry = getEntry(index);
+            if (entry == null) {
+                break;
+            }
+            entries.add(entry);
+            bytes += entry.getData() != null ? entry.getData().remaining() : 0;
+        }
+        return entries;
+    }
+
     /**
      * Get logEntry's term by index. This method is deprecated, you should use {@link #getEntry(long)} to get the log id's term.
      * @deprecated
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.storage.impl;
+
+import java.nio.ByteBuffer;
+
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.entity.codec.LogEntryCodecFactory;
+import com.alipay.sofa.jraft.entity.codec.LogEntryDecoder;
+import com.alipay.sofa.jraft.entity.codec.LogEntryEncoder;
+import com.alipay.sofa.jraft.util.Requires;
+
+/**
+ * A byte-bounded cache of the recent log entries with continuous indexes.
+ *
+ * The entries are stored in encoded form in a fixed size direct buffer which is used
+ * as a ring, so the heap footprint doesn't grow with the size of the cached entries.
+ * When the ring is full, the oldest entries are evicted.
+ *
+ * The cache is not thread-safe for writes, {@link LogManagerImpl} mutates it with its
+ * write lock held and reads it with its read lock held.
+ *
+ * @author agent
+ */
+public class LogEntryCache {
+
+    private final ByteBuffer      arena;
+    private final int             capacity;
+    private final LogEntryEncoder encoder;
+    private final LogEntryDecoder decoder;
+
+    // The metadata of cached entries in a ring, the entry at head has index firstIndex.
+    private int[]                 offsets = new int[1024];
+    private int[]                 lengths = new int[1024];
+    private long[]                terms   = new long[1024];
+    private int                   head;
+    private int                   count;
+    private long                  firstIndex;
+    // The position to write next entry in arena
+    private int                   writePos;
+    private long                  usedBytes;
+
+    public LogEntryCache(final int capacity, final LogEntryCodecFactory codecFactory) {
+        Requires.requireTrue(capacity > 0, "Invalid capacity: " + capacity);
+        this.capacity = capacity;
+        this.arena = ByteBuffer.allocateDirect(capacity);
+        this.encoder = codecFactory.encoder();
+        this.decoder = codecFactory.decoder();
+    }
+
+    /**
+     * Append an entry at the tail of cache. If the entry is not next to the last
+     * cached one, the cache is cleared first.
+     *
+     * @return true when the entry is cached
+     */
+    public boolean append(final LogEntry entry) {
+        final long index = entry.getId().getIndex();
+        if (this.count > 0 && index != getLastIndex() + 1) {
+            clear();
+        }
+        final byte[] bs = this.encoder.encode(entry);
+        if (bs.length > this.capacity) {
+            clear();
+            return false;
+        }
+        final int pos = allocate(bs.length);
+        this.arena.position(pos);
+        this.arena.put(bs);
+        if (this.count == 0) {
+            this.firstIndex = index;
+        }
+        if (this.count == this.offsets.length) {
+            grow();
+        }
+        final int slot = slot(this.count);
+        this.offsets[slot] = pos;
+        this.lengths[slot] = bs.length;
+        this.terms[slot] = entry.getId().getTerm();
+        this.count++;
+        this.writePos = pos + bs.length;
+        this.usedBytes += bs.length;
+        return true;
+    }
+
+    /**
+     * Find a free region of len bytes in arena, evicts the oldest entries when
+     * there is not enough space.
+     */
+    private int allocate(final int len) {
+        while (true) {
+            if (this.count == 0) {
+                this.writePos = 0;
+                return 0;
+            }
+            final int headPos = this.offsets[this.head];
+            if (this.writePos > headPos) {
+                // Not wrapped, the free regions are [writePos, capacity) and [0, headPos)
+                if (this.capacity - this.writePos >= len) {
+                    return this.writePos;
+                }
+                if (headPos >= len) {
+                    return 0;
+                }
+            } else if (headPos - this.writePos >= len) {
+                // Wrapped, the free region is [writePos, headPos)
+                return this.writePos;
+            }
+            evictFirst();
+        }
+    }
+
+    private void evictFirst() {
+        this.usedBytes -= this.lengths[this.head];
+        this.head = (this.head + 1) % this.offsets.length;
+        this.firstIndex++;
+        this.count--;
+    }
+
+    private void grow() {
+        final int n = this.offsets.length;
+        final int[] newOffsets = new int[n << 1];
+        final int[] newLengths = new int[n << 1];
+        final long[] newTerms = new long[n << 1];
+        for (int i = 0; i < this.count; i++) {
+            final int slot = slot(i);
+            newOffsets[i] = this.offsets[slot];
+            newLengths[i] = this.lengths[slot];
+            newTerms[i] = this.terms[slot];
+        }
+        this.offsets = newOffsets;
+        this.lengths = newLengths;
+        this.terms = newTerms;
+        this.head = 0;
+    }
+
+    private int slot(final long i) {
+        return (int) ((this.head + i) % this.offsets.length);
+    }
+
+    private boolean contains(final long index) {
+        return this.count > 0 && index >= this.firstIndex && index < this.firstIndex + this.count;
+    }
+
+    /**
+     * Get the entry at index, returns null when it's not cached.
+     */
+    public LogEntry get(final long index) {
+        if (!contains(index)) {
+            return null;
+        }
+        final int slot = slot(index - this.firstIndex);
+        final byte[] bs = new byte[this.lengths[slot]];
+        // Duplicate the buffer so that readers can run concurrently.
+        final ByteBuffer buf = this.arena.duplicate();
+        buf.position(this.offsets[slot]);
+        buf.get(bs);
+        return this.decoder.decode(bs);
+    }
+
+    /**
+     * Get the term of entry at index, returns 0 when it's not cached.
+     */
+    public long getTerm(final long index) {
+        if (!contains(index)) {
+            return 0;
+        }
+        return this.terms[slot(index - this.firstIndex)];
+    }
+
+    /**
+     * Remove the entries before firstIndexKept.
+     */
+    public void truncatePrefix(final long firstIndexKept) {
+        while (this.count > 0 && this.firstIndex < firstIndexKept) {
+            evictFirst();
+        }
+    }
+
+    /**
+     * Remove the entries after lastIndexKept.
+     */
+    public void truncateSuffix(final long lastIndexKept) {
+        while (this.count > 0 && getLastIndex() > lastIndexKept) {
+            final int slot = slot(this.count - 1);
+            this.usedBytes -= this.lengths[slot];
+            this.writePos = this.offsets[slot];
+            this.count--;
+        }
+    }
+
+    public void clear() {
+        this.head = 0;
+        this.count = 0;
+        this.writePos = 0;
+        this.usedBytes = 0;
+    }
+
+    /**
+     * Returns the first cached index, or 0 when the cache is empty.
+     */
+    public long getFirstIndex() {
+        return this.count > 0 ? this.firstIndex : 0;
+    }
+
+    /**
+     * Returns the last cached index, or -1 when the cache is empty.
+     */
+    public long getLastIndex() {
+        return this.count > 0 ? this.firstIndex + this.count - 1 : -1;
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    public long getUsedBytes() {
+        return this.usedBytes;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "LogEntryCache [capacity=" + this.capacity + ", firstIndex=" + getFirstIndex() + ", lastIndex="
+               + getLastIndex() + ", usedBytes=" + this.usedBytes + "]";
+    }
+}
@@ -59,6 +59,7 @@ import com.alipay.sofa.jraft.util.Requires;
 import com.alipay.sofa.jraft.util.SegmentList;
 import com.alipay.sofa.jraft.util.ThreadHelper;
 import com.alipay.sofa.jraft.util.Utils;
+import com.codahale.metrics.Gauge;
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.EventTranslator;
@@ -101,6 +102,10 @@ public class LogManagerImpl implements LogManager {
     private RaftOptions                                      raftOptions;
     private volatile CountDownLatch                          shutDownLatch;
     private NodeMetrics                                      nodeMetrics;
+    // Term transitions of the logs in [firstLogIndex, lastLogIndex]
+    private final TermIndex                                  termIndex              = new TermIndex();
+    // Cache of the recent entries released from logsInMemory, null when disabled.
+    private LogEntryCache                                    entryCache;
     private final CopyOnWriteArrayList<LastLogIndexListener> lastLogIndexListeners  = new CopyOnWriteArrayList<>();
 
     private enum EventType {
@@ -188,6 +193,14 @@ public class LogManagerImpl implements LogManager {
             this.firstLogIndex = this.logStorage.getFirstLogIndex();
             this.lastLogIndex = this.logStorage.getLastLogIndex();
             this.diskId = new LogId(this.lastLogIndex, getTermFromLogStorage(this.lastLogIndex));
+            if (!this.termIndex.rebuild(this.firstLogIndex, this.lastLogIndex, this::getTermFromLogStorage)) {
+                LOG.warn("Fail to build term index of logs in [{}, {}], some logs are missing.", this.firstLogIndex,
+                    this.lastLogIndex);
+            }
+            if (this.raftOptions.getMaxLogEntryCacheBytes() > 0) {
+                this.entryCache = new LogEntryCache(this.raftOptions.getMaxLogEntryCacheBytes(),
+                    opts.getLogEntryCodecFactory());
+            }
             this.fsmCaller = opts.getFsmCaller();
             this.disruptor = DisruptorBuilder.<StableClosureEvent> newInstance() //
                     .setEventFactory(new StableClosureEventFactory()) //
@@ -207,6 +220,11 @@ public class LogManagerImpl implements LogManager {
             if (this.nodeMetrics.getMetricRegistry() != null) {
                 this.nodeMetrics.getMetricRegistry().register("jraft-log-manager-disruptor",
                     new DisruptorMetricSet(this.diskQueue));
+                if (this.entryCache != null) {
+                    final LogEntryCache cache = this.entryCache;
+                    this.nodeMetrics.getMetricRegistry().register("log-entry-cache-bytes",
+                        (Gauge<Long>) cache::getUsedBytes);
+                }
             }
         } finally {
             this.writeLock.unlock();
@@ -253,6 +271,16 @@ public class LogManagerImpl implements LogManager {
     private void clearMemoryLogs(final LogId id) {
         this.writeLock.lock();
         try {
+            if (this.entryCache != null) {
+                // Keep the released entries in cache for the lagging followers.
+                for (int i = 0; i < this.logsInMemory.size(); i++) {
+                    final LogEntry entry = this.logsInMemory.get(i);
+                    if (entry.getId().compareTo(id) > 0) {
+                        break;
+                    }
+                    this.entryCache.append(entry);
+                }
+            }
             this.logsInMemory.removeFromFirstWhen(entry -> entry.getId().compareTo(id) <= 0);
         } finally {
             this.writeLock.unlock();
@@ -303,6 +331,7 @@ public class LogManagerImpl implements LogManager {
             }
             for (int i = 0; i < entries.size(); i++) {
                 final LogEntry entry = entries.get(i);
+                this.termIndex.append(entry.getId().getIndex(), entry.getId().getTerm());
                 // Set checksum after checkAndResolveConflict
                 if (this.raftOptions.isEnableLogEntryChecksum()) {
                     entry.setChecksum(entry.checksum());
@@ -721,6 +750,15 @@ public class LogManagerImpl implements LogManager {
         return entry;
     }
 
+    private LogEntry getEntryFromCache(final long index) {
+        if (this.entryCache == null) {
+            return null;
+        }
+        final LogEntry entry = this.entryCache.get(index);
+        this.nodeMetrics.recordTimes(entry != null ? "log-entry-cache-hit" : "log-entry-cache-miss", 1);
+        return entry;
+    }
+
     @Override
     public LogEntry getEntry(final long index) {
         this.readLock.lock();
@@ -728,7 +766,10 @@ public class LogManagerImpl implements LogManager {
             if (index > this.lastLogIndex || index < this.firstLogIndex) {
                 return null;
             }
-            final LogEntry entry = getEntryFromMemory(index);
+            LogEntry entry = getEntryFromMemory(index);
+            if (entry == null) {
+                entry = getEntryFromCache(index);
+            }
             if (entry != null) {
                 return entry;
             }
@@ -740,14 +781,100 @@ public class LogManagerImpl implements LogManager {
             reportError(RaftError.EIO.getNumber(), "Corrupted entry at index=%d, not found", index);
         }
         // Validate checksum
-        if (entry != null && this.raftOptions.isEnableLogEntryChecksum() && entry.isCorrupted()) {
+        if (entry != null) {
+            checkEntryChecksum(index, entry);
+        }
+        return entry;
+    }
+
+    private void checkEntryChecksum(final long index, final LogEntry entry) {
+        if (this.raftOptions.isEnableLogEntryChecksum() && entry.isCorrupted()) {
             String msg = String.format("Corrupted entry at index=%d, term=%d, expectedChecksum=%d, realChecksum=%d",
                 index, entry.getId().getTerm(), entry.getChecksum(), entry.checksum());
             // Report error to node and throw exception.
             reportError(RaftError.EIO.getNumber(), msg);
             throw new LogEntryCorruptedException(msg);
         }
-        return entry;
+    }
+
+    @Override
+    public List<LogEntry> getEntries(final long fromIndex, final int maxCount, final long maxBytes) {
+        final List<LogEntry> entries = new ArrayList<>(Math.min(maxCount, 64));
+        long index = fromIndex;
+        long bytes = 0;
+        final long endIndex;
+        final long memFirstIndex;
+        this.readLock.lock();
+        try {
+            if (maxCount <= 0 || fromIndex > this.lastLogIndex || fromIndex < this.firstLogIndex) {
+                return entries;
+            }
+            endIndex = Math.min(this.lastLogIndex, fromIndex + maxCount - 1);
+            memFirstIndex = this.logsInMemory.isEmpty() ? endIndex + 1 : this.logsInMemory.peekFirst().getId()
+                .getIndex();
+        } finally {
+            this.readLock.unlock();
+        }
+        // The logs before logsInMemory are read from entry cache, and then from log storage in one batch.
+        final long storageEndIndex = Math.min(endIndex, memFirstIndex - 1);
+        if (this.entryCache != null && index <= storageEndIndex) {
+            this.readLock.lock();
+            try {
+                while (index <= storageEndIndex && (entries.isEmpty() || bytes < maxBytes)) {
+                    final LogEntry entry = getEntryFromCache(index);
+                    if (entry == null) {
+                        break;
+                    }
+                    entries.add(entry);
+                    bytes += entry.getData() != null ? entry.getData().remaining() : 0;
+                    index++;
+                }
+            } finally {
+                this.readLock.unlock();
+            }
+        }
+        if (index <= storageEndIndex && (entries.isEmpty() || bytes < maxBytes)) {
+            final List<LogEntry> stored = this.logStorage.getEntries(index, (int) (storageEndIndex - index + 1),
+                maxBytes - bytes);
+            if (stored.isEmpty()) {
+                reportError(RaftError.EIO.getNumber(), "Corrupted entry at index=%d, not found", index);
+                return entries;
+            }
+            for (final LogEntry entry : stored) {
+                checkEntryChecksum(index, entry);
+                entries.add(entry);
+                bytes += entry.getData() != null ? entry.getData().remaining() : 0;
+                index++;
+            }
+            if (index <= storageEndIndex) {
+                return entries;
+            }
+        }
+        if (!entries.isEmpty() && bytes >= maxBytes) {
+            return entries;
+        }
+        this.readLock.lock();
+        try {
+            while (index <= endIndex && (entries.isEmpty() || bytes < maxBytes)) {
+                final LogEntry entry = getEntryFromMemory(index);
+                if (entry == null) {
+                    break;
+                }
+                entries.add(entry);
+                bytes += entry.getData() != null ? entry.getData().remaining() : 0;
+                index++;
+            }
+        } finally {
+            this.readLock.unlock();
+        }
+        if (entries.isEmpty()) {
+            // The logs in memory were flushed and released concurrently, fallback to point lookup.
+            final LogEntry entry = getEntry(index);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
     }
 
     @Override
@@ -765,16 +892,33 @@ public class LogManagerImpl implements LogManager {
             if (index > this.lastLogIndex || index < this.firstLogIndex) {
                 return 0;
             }
+            final long termInIndex = this.termIndex.getTerm(index);
+            if (termInIndex != 0) {
+                return termInIndex;
+            }
             final LogEntry entry = getEntryFromMemory(index);
             if (entry != null) {
                 return entry.getId().getTerm();
             }
+            final long term = getTermFromCache(index);
+            if (term != 0) {
+                return term;
+            }
         } finally {
             this.readLock.unlock();
         }
         return getTermFromLogStorage(index);
     }
 
+    private long getTermFromCache(final long index) {
+        if (this.entryCache == null) {
+            return 0;
+        }
+        final long term = this.entryCache.getTerm(index);
+        this.nodeMetrics.recordTimes(term != 0 ? "log-entry-cache-hit" : "log-entry-cache-miss", 1);
+        return term;
+    }
+
     private long getTermFromLogStorage(final long index) {
         final LogEntry entry = this.logStorage.getEntry(index);
         if (entry != null) {
@@ -845,10 +989,18 @@ public class LogManagerImpl implements LogManager {
         if (index > this.lastLogIndex || index < this.firstLogIndex) {
             return 0;
         }
+        final long termInIndex = this.termIndex.getTerm(index);
+        if (termInIndex != 0) {
+            return termInIndex;
+        }
         final LogEntry entry = getEntryFromMemory(index);
         if (entry != null) {
             return entry.getId().getTerm();
         }
+        final long term = getTermFromCache(index);
+        if (term != 0) {
+            return term;
+        }
         return getTermFromLogStorage(index);
     }
 
@@ -930,6 +1082,9 @@ public class LogManagerImpl implements LogManager {
     private boolean truncatePrefix(final long firstIndexKept) {
 
         this.logsInMemory.removeFromFirstWhen(entry -> entry.getId().getIndex() < firstIndexKept);
+        if (this.entryCache != null) {
+            this.entryCache.truncatePrefix(firstIndexKept);
+        }
 
         // TODO  maybe it's fine here
         Requires.requireTrue(firstIndexKept >= this.firstLogIndex,
@@ -939,6 +1094,9 @@ public class LogManagerImpl implements LogManager {
         if (firstIndexKept > this.lastLogIndex) {
             // The entry log is dropped
             this.lastLogIndex = firstIndexKept - 1;
+            this.termIndex.clear();
+        } else {
+            this.termIndex.truncatePrefix(firstIndexKept);
         }
         LOG.debug("Truncate prefix, firstIndexKept is :{}", firstIndexKept);
         this.configManager.truncatePrefix(firstIndexKept);
@@ -951,6 +1109,10 @@ public class LogManagerImpl implements LogManager {
         this.writeLock.lock();
         try {
             this.logsInMemory.clear();
+            if (this.entryCache != null) {
+                this.entryCache.clear();
+            }
+            this.termIndex.clear();
             this.firstLogIndex = nextLogIndex;
             this.lastLogIndex = nextLogIndex - 1;
             this.configManager.truncatePrefix(this.firstLogIndex);
@@ -971,6 +1133,10 @@ public class LogManagerImpl implements LogManager {
         }
 
         this.logsInMemory.removeFromLastWhen(entry -> entry.getId().getIndex() > lastIndexKept);
+        if (this.entryCache != null) {
+            this.entryCache.truncateSuffix(lastIndexKept);
+        }
+        this.termIndex.truncateSuffix(lastIndexKept);
 
         this.lastLogIndex = lastIndexKept;
         final long lastTermKept = unsafeGetTerm(lastIndexKept);
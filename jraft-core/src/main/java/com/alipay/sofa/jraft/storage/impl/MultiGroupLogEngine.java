@@ -0,0 +1,593 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.storage.impl;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.StringAppendOperator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alipay.sofa.jraft.util.Bits;
+import com.alipay.sofa.jraft.util.Describer;
+import com.alipay.sofa.jraft.util.Requires;
+import com.alipay.sofa.jraft.util.StorageOptionsFactory;
+import com.alipay.sofa.jraft.util.Utils;
+
+/**
+ * A write-ahead log engine shared by all the raft groups in one process.
+ *
+ * All groups append into a single RocksDB instance, every key is tagged with an 8 bytes
+ * group id, so there is only one WAL, one set of memtables and one fsync stream no matter
+ * how many groups are running. Concurrent appends from different groups are merged into
+ * one write batch by the first writer that acquires the commit lock (group commit), so N
+ * small fsyncs in the same batch window become one. Every write carries the sync setting of
+ * its group, a group commit is synced if any of the merged writes asks for it.
+ *
+ * The engine is reference counted, it's opened by the first {@link MultiGroupLogStorage}
+ * and closed after the last one is shut down.
+ *
+ * @author agent
+ */
+public class MultiGroupLogEngine implements Describer {
+
+    private static final Logger LOG                       = LoggerFactory.getLogger(MultiGroupLogEngine.class);
+
+    static {
+        RocksDB.loadLibrary();
+    }
+
+    /**
+     * Max bytes merged into one group commit, the writers left will start another commit.
+     */
+    private static final long   MAX_GROUP_COMMIT_BYTES    = 4 * 1024 * 1024;
+
+    /**
+     * Key in groups column family that stores the max allocated group id.
+     */
+    private static final byte[] MAX_GROUP_ID_KEY          = Utils.getBytes("meta/maxGroupId");
+
+    private static final byte[] GROUPS_COLUMN_FAMILY_NAME = Utils.getBytes("Groups");
+    private static final byte[] CONF_COLUMN_FAMILY_NAME   = Utils.getBytes("Configuration");
+
+    /**
+     * Write batch template.
+     */
+    public interface WriteBatchTemplate {
+
+        void execute(WriteBatch batch) throws RocksDBException;
+    }
+
+    /**
+     * An append waiting to be committed by the group commit leader.
+     */
+    private static class PendingWrite {
+        final WriteBatchTemplate template;
+        final boolean            sync;
+        // Guarded by commitLock
+        boolean                  done;
+        boolean                  success;
+
+        PendingWrite(final WriteBatchTemplate template, final boolean sync) {
+            this.template = template;
+            this.sync = sync;
+        }
+    }
+
+    private final String                              path;
+    private final boolean                             sync;
+    private RocksDB                                   db;
+    private DBOptions                                 dbOptions;
+    private WriteOptions                              writeOptions;
+    private WriteOptions                              syncWriteOptions;
+    private WriteOptions                              noSyncWriteOptions;
+    private ReadOptions                               totalOrderReadOptions;
+    private final List<ColumnFamilyOptions>           cfOptions     = new ArrayList<>();
+    private ColumnFamilyHandle                        defaultHandle;
+    private ColumnFamilyHandle                        confHandle;
+    private ColumnFamilyHandle                        groupsHandle;
+    private int                                       refCount;
+    private long                                      maxGroupId;
+    private final Map<String, Long>                   groupIds      = new ConcurrentHashMap<>();
+    private final ReadWriteLock                       readWriteLock = new ReentrantReadWriteLock();
+    private final Lock                                readLock      = this.readWriteLock.readLock();
+    private final Lock                                writeLock     = this.readWriteLock.writeLock();
+    private final ConcurrentLinkedQueue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Lock                                commitLock    = new ReentrantLock();
+    // Statistics for group commit
+    private final AtomicLong                          commitTimes   = new AtomicLong();
+    private final AtomicLong                          syncTimes     = new AtomicLong();
+    private final AtomicLong                          writeTimes    = new AtomicLong();
+
+    /**
+     * Creates a shared log engine.
+     *
+     * @param path the db path
+     * @param sync whether to sync the writes of engine metadata and the writes without
+     *             their own sync setting
+     */
+    public MultiGroupLogEngine(final String path, final boolean sync) {
+        super();
+        this.path = path;
+        this.sync = sync;
+    }
+
+    public static DBOptions createDBOptions() {
+        return StorageOptionsFactory.getRocksDBOptions(MultiGroupLogEngine.class);
+    }
+
+    public static ColumnFamilyOptions createColumnFamilyOptions() {
+        final BlockBasedTableConfig tConfig = StorageOptionsFactory
+            .getRocksDBTableFormatConfig(MultiGroupLogEngine.class);
+        return StorageOptionsFactory.getRocksDBColumnFamilyOptions(MultiGroupLogEngine.class) //
+            .useFixedLengthPrefixExtractor(8) //
+            .setTableFormatConfig(tConfig) //
+            .setMergeOperator(new StringAppendOperator());
+    }
+
+    public String getPath() {
+        return this.path;
+    }
+
+    /**
+     * Acquire the engine, open the db when it's the first reference.
+     *
+     * @return true on success
+     */
+    public boolean acquire() {
+        this.writeLock.lock();
+        try {
+            if (this.refCount > 0) {
+                this.refCount++;
+                return true;
+            }
+            if (!open()) {
+                return false;
+            }
+            this.refCount = 1;
+            return true;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Release the engine, close the db when it's the last reference.
+     */
+    public void release() {
+        this.writeLock.lock();
+        try {
+            if (this.refCount <= 0) {
+                return;
+            }
+            if (--this.refCount == 0) {
+                close();
+            }
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    private boolean open() {
+        final File dir = new File(this.path);
+        if (dir.exists() && !dir.isDirectory()) {
+            LOG.error("Invalid shared log path, it's a regular file: {}.", this.path);
+            return false;
+        }
+        this.dbOptions = createDBOptions();
+        this.syncWriteOptions = new WriteOptions();
+        this.syncWriteOptions.setSync(true);
+        this.noSyncWriteOptions = new WriteOptions();
+        this.noSyncWriteOptions.setSync(false);
+        this.writeOptions = this.sync ? this.syncWriteOptions : this.noSyncWriteOptions;
+        this.totalOrderReadOptions = new ReadOptions();
+        this.totalOrderReadOptions.setTotalOrderSeek(true);
+
+        final ColumnFamilyOptions cfOption = createColumnFamilyOptions();
+        this.cfOptions.add(cfOption);
+        final List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>();
+        // Column family to store the group name to group id mapping.
+        columnFamilyDescriptors.add(new ColumnFamilyDescriptor(GROUPS_COLUMN_FAMILY_NAME, cfOption));
+        // Column family to store configuration log entries and per group metadata.
+        columnFamilyDescriptors.add(new ColumnFamilyDescriptor(CONF_COLUMN_FAMILY_NAME, cfOption));
+        // Default column family to store all log entries.
+        columnFamilyDescriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, cfOption));
+
+        final List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>();
+        try {
+            this.db = RocksDB.open(this.dbOptions, this.path, columnFamilyDescriptors, columnFamilyHandles);
+            assert (columnFamilyHandles.size() == 3);
+            this.groupsHandle = columnFamilyHandles.get(0);
+            this.confHandle = columnFamilyHandles.get(1);
+            this.defaultHandle = columnFamilyHandles.get(2);
+            loadGroups();
+            LOG.info("Opened shared log engine at {}, loaded {} groups.", this.path, this.groupIds.size());
+            return true;
+        } catch (final RocksDBException e) {
+            LOG.error("Fail to open shared log engine, path={}.", this.path, e);
+            for (final ColumnFamilyHandle handle : columnFamilyHandles) {
+                handle.close();
+            }
+            closeOptions();
+            return false;
+        }
+    }
+
+    private void loadGroups() {
+        this.groupIds.clear();
+        this.maxGroupId = 0;
+        try (final RocksIterator it = this.db.newIterator(this.groupsHandle, this.totalOrderReadOptions)) {
+            it.seekToFirst();
+            while (it.isValid()) {
+                final byte[] ks = it.key();
+                final long id = Bits.getLong(it.value(), 0);
+                if (Arrays.equals(MAX_GROUP_ID_KEY, ks)) {
+                    this.maxGroupId = Math.max(this.maxGroupId, id);
+                } else {
+                    this.groupIds.put(new String(ks, StandardCharsets.UTF_8), id);
+                    this.maxGroupId = Math.max(this.maxGroupId, id);
+                }
+                it.next();
+            }
+        }
+    }
+
+    private void close() {
+        this.groupsHandle.close();
+        this.confHandle.close();
+        this.defaultHandle.close();
+        this.db.close();
+        closeOptions();
+        this.groupIds.clear();
+        this.groupsHandle = null;
+        this.confHandle = null;
+        this.defaultHandle = null;
+        this.db = null;
+        LOG.info("Shared log engine closed, the db path is: {}.", this.path);
+    }
+
+    private void closeOptions() {
+        for (final ColumnFamilyOptions opt : this.cfOptions) {
+            opt.close();
+        }
+        this.cfOptions.clear();
+        if (this.dbOptions != null) {
+            this.dbOptions.close();
+            this.dbOptions = null;
+        }
+        this.writeOptions = null;
+        if (this.syncWriteOptions != null) {
+            this.syncWriteOptions.close();
+            this.syncWriteOptions = null;
+        }
+        if (this.noSyncWriteOptions != null) {
+            this.noSyncWriteOptions.close();
+            this.noSyncWriteOptions = null;
+        }
+        if (this.totalOrderReadOptions != null) {
+            this.totalOrderReadOptions.close();
+            this.totalOrderReadOptions = null;
+        }
+    }
+
+    /**
+     * Returns the id of the group, allocates and persists a new one if the group is
+     * not registered yet.
+     *
+     * @param groupName the unique name of group
+     * @return group id
+     */
+    public long registerGroup(final String groupName) throws RocksDBException {
+        Requires.requireNonNull(groupName, "groupName");
+        final Long id = this.groupIds.get(groupName);
+        if (id != null) {
+            return id;
+        }
+        this.writeLock.lock();
+        try {
+            checkState();
+            final Long existsId = this.groupIds.get(groupName);
+            if (existsId != null) {
+                return existsId;
+            }
+            final long newId = ++this.maxGroupId;
+            final byte[] vs = new byte[8];
+            Bits.putLong(vs, 0, newId);
+            try (final WriteBatch batch = new WriteBatch()) {
+                batch.put(this.groupsHandle, groupName.getBytes(StandardCharsets.UTF_8), vs);
+                batch.put(this.groupsHandle, MAX_GROUP_ID_KEY, vs);
+                this.db.write(this.writeOptions, batch);
+            }
+            this.groupIds.put(groupName, newId);
+            LOG.info("Registered group {} with id {} in shared log engine {}.", groupName, newId, this.path);
+            return newId;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the id of the group, null if the group is not registered.
+     */
+    public Long getGroupId(final String groupName) {
+        return this.groupIds.get(groupName);
+    }
+
+    /**
+     * Deletes all the log entries and metadata of the group and unregisters it, the id of group
+     * is never reused. The log storage of group must have been shut down, the engine is opened
+     * for the deletion if it's closed.
+     *
+     * @param groupName the unique name of group
+     * @return true on success
+     */
+    public boolean destroyGroup(final String groupName) {
+        Requires.requireNonNull(groupName, "groupName");
+        if (!acquire()) {
+            LOG.error("Fail to acquire shared log engine {} to destroy group {}.", this.path, groupName);
+            return false;
+        }
+        try {
+            this.writeLock.lock();
+            try {
+                checkState();
+                final Long id = this.groupIds.get(groupName);
+                if (id == null) {
+                    return true;
+                }
+                final byte[] beginKey = getGroupPrefix(id);
+                final byte[] endKey = getGroupPrefix(id + 1);
+                try (final WriteBatch batch = new WriteBatch()) {
+                    batch.deleteRange(this.defaultHandle, beginKey, endKey);
+                    batch.deleteRange(this.confHandle, beginKey, endKey);
+                    batch.delete(this.groupsHandle, groupName.getBytes(StandardCharsets.UTF_8));
+                    this.db.write(this.writeOptions, batch);
+                }
+                this.groupIds.remove(groupName);
+                LOG.info("Destroyed group {} with id {} in shared log engine {}.", groupName, id, this.path);
+                return true;
+            } catch (final RocksDBException e) {
+                LOG.error("Fail to destroy group {} in shared log engine {}.", groupName, this.path, e);
+                return false;
+            } finally {
+                this.writeLock.unlock();
+            }
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Returns true if any log entry or metadata of the group is stored in the engine.
+     */
+    public boolean hasGroupData(final long groupId) {
+        final byte[] prefix = getGroupPrefix(groupId);
+        this.readLock.lock();
+        try {
+            checkState();
+            for (final ColumnFamilyHandle handle : new ColumnFamilyHandle[] { this.defaultHandle, this.confHandle }) {
+                try (final RocksIterator it = this.db.newIterator(handle, this.totalOrderReadOptions)) {
+                    it.seek(prefix);
+                    if (it.isValid() && it.key().length >= 8 && Bits.getLong(it.key(), 0) == groupId) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    private static byte[] getGroupPrefix(final long groupId) {
+        final byte[] prefix = new byte[8];
+        Bits.putLong(prefix, 0, groupId);
+        return prefix;
+    }
+
+    /**
+     * Append a write batch with the sync setting of engine.
+     *
+     * @param template write batch template
+     * @return true on success
+     * @see #write(WriteBatchTemplate, boolean)
+     */
+    public boolean write(final WriteBatchTemplate template) {
+        return write(template, this.sync);
+    }
+
+    /**
+     * Append a write batch, the batch will be committed together with the concurrent
+     * writes from other groups.
+     *
+     * @param template write batch template
+     * @param sync     whether the write must be synced before returning
+     * @return true on success
+     */
+    public boolean write(final WriteBatchTemplate template, final boolean sync) {
+        final PendingWrite pw = new PendingWrite(template, sync);
+        this.pendingWrites.add(pw);
+        this.writeTimes.incrementAndGet();
+        this.commitLock.lock();
+        try {
+            // It may be committed by the previous leader.
+            if (!pw.done) {
+                commitPendingWrites();
+            }
+            assert (pw.done);
+            return pw.success;
+        } finally {
+            this.commitLock.unlock();
+        }
+    }
+
+    private void commitPendingWrites() {
+        final List<PendingWrite> group = new ArrayList<>();
+        boolean sync = false;
+        boolean success = false;
+        this.readLock.lock();
+        try (final WriteBatch batch = new WriteBatch()) {
+            PendingWrite pw;
+            while (batch.getDataSize() < MAX_GROUP_COMMIT_BYTES && (pw = this.pendingWrites.poll()) != null) {
+                if (this.db == null) {
+                    pw.done = true;
+                    continue;
+                }
+                batch.setSavePoint();
+                try {
+                    pw.template.execute(batch);
+                    group.add(pw);
+                    sync |= pw.sync;
+                } catch (final RocksDBException e) {
+                    LOG.error("Fail to build write batch in shared log engine.", e);
+                    batch.rollbackToSavePoint();
+                    pw.done = true;
+                }
+            }
+            if (group.isEmpty()) {
+                return;
+            }
+            this.db.write(sync ? this.syncWriteOptions : this.noSyncWriteOptions, batch);
+            this.commitTimes.incrementAndGet();
+            if (sync) {
+                this.syncTimes.incrementAndGet();
+            }
+            success = true;
+        } catch (final RocksDBException e) {
+            LOG.error("Fail to commit {} writes in shared log engine.", group.size(), e);
+        } finally {
+            this.readLock.unlock();
+            for (final PendingWrite pw : group) {
+                pw.success = success;
+                pw.done = true;
+            }
+        }
+    }
+
+    public byte[] get(final ColumnFamilyHandle handle, final byte[] key) throws RocksDBException {
+        this.readLock.lock();
+        try {
+            checkState();
+            return this.db.get(handle, key);
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    /**
+     * Creates a new total order iterator, the caller should close it.
+     */
+    public RocksIterator newIterator(final ColumnFamilyHandle handle) {
+        this.readLock.lock();
+        try {
+            checkState();
+            return this.db.newIterator(handle, this.totalOrderReadOptions);
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    public boolean deleteRange(final byte[] beginKey, final byte[] endKey) {
+        return write(batch -> {
+            batch.deleteRange(this.defaultHandle, beginKey, endKey);
+            batch.deleteRange(this.confHandle, beginKey, endKey);
+        });
+    }
+
+    public boolean isOpen() {
+        this.readLock.lock();
+        try {
+            return this.db != null;
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    ColumnFamilyHandle getDefaultHandle() {
+        return this.defaultHandle;
+    }
+
+    ColumnFamilyHandle getConfHandle() {
+        return this.confHandle;
+    }
+
+    /**
+     * Returns the average count of writes merged into one commit.
+     */
+    public double getGroupCommitRatio() {
+        final long commits = this.commitTimes.get();
+        return commits == 0 ? 0 : (double) this.writeTimes.get() / commits;
+    }
+
+    /**
+     * Returns the count of synced commits.
+     */
+    public long getSyncTimes() {
+        return this.syncTimes.get();
+    }
+
+    private void checkState() {
+        Requires.requireNonNull(this.db, "DB not initialized or destroyed");
+    }
+
+    @Override
+    public void describe(final Printer out) {
+        this.readLock.lock();
+        try {
+            out.print("  sharedLogEngine: ") //
+                .println(this.path);
+            out.print("  groups: ") //
+                .println(this.groupIds.size());
+            out.print("  writes: ") //
+                .print(this.writeTimes.get()) //
+                .print(", commits: ") //
+                .print(this.commitTimes.get()) //
+                .print(", syncs: ") //
+                .println(this.syncTimes.get());
+            if (this.db != null) {
+                out.println(this.db.getProperty("rocksdb.stats"));
+            }
+        } catch (final RocksDBException e) {
+            out.println(e);
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.storage.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alipay.sofa.jraft.conf.Configuration;
+import com.alipay.sofa.jraft.conf.ConfigurationEntry;
+import com.alipay.sofa.jraft.conf.ConfigurationManager;
+import com.alipay.sofa.jraft.entity.EnumOutter.EntryType;
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.entity.LogId;
+import com.alipay.sofa.jraft.entity.codec.LogEntryDecoder;
+import com.alipay.sofa.jraft.entity.codec.LogEntryEncoder;
+import com.alipay.sofa.jraft.option.LogStorageOptions;
+import com.alipay.sofa.jraft.option.RaftOptions;
+import com.alipay.sofa.jraft.storage.LogStorage;
+import com.alipay.sofa.jraft.util.Bits;
+import com.alipay.sofa.jraft.util.BytesUtil;
+import com.alipay.sofa.jraft.util.Describer;
+import com.alipay.sofa.jraft.util.Requires;
+import com.alipay.sofa.jraft.util.Utils;
+
+/**
+ * Log storage of one raft group on top of a {@link MultiGroupLogEngine}.
+ *
+ * The key of every log entry is {@code groupId(8 B) + logIndex(8 B)}, so each group
+ * owns a contiguous key range in the shared engine and can be truncated and reset
+ * without touching the others. The first and last log index of the group are kept
+ * in memory.
+ *
+ * @author agent
+ */
+public class MultiGroupLogStorage implements LogStorage, Describer {
+
+    private static final Logger       LOG               = LoggerFactory.getLogger(MultiGroupLogStorage.class);
+
+    /**
+     * First log index key suffix in configuration column family.
+     */
+    private static final byte[]       FIRST_LOG_IDX_KEY = Utils.getBytes("meta/firstLogIndex");
+
+    private final MultiGroupLogEngine engine;
+    private final String              groupName;
+    private final boolean             sync;
+    private final ReadWriteLock       readWriteLock     = new ReentrantReadWriteLock();
+    private final Lock                readLock          = this.readWriteLock.readLock();
+    private final Lock                writeLock         = this.readWriteLock.writeLock();
+    private long                      groupId;
+    private byte[]                    firstLogIndexKey;
+    private volatile boolean          initialized;
+
+    private volatile long             firstLogIndex     = 1;
+    private volatile boolean          hasLoadFirstLogIndex;
+    private volatile long             lastLogIndex      = 0;
+
+    private LogEntryEncoder           logEntryEncoder;
+    private LogEntryDecoder           logEntryDecoder;
+
+    /**
+     * Creates a log storage of the group.
+     *
+     * @param engine      the shared log engine
+     * @param groupName   the unique name of raft group in the engine, such as log uri
+     * @param raftOptions raft options, the log entries are synced by {@link RaftOptions#isSync()}
+     */
+    public MultiGroupLogStorage(final MultiGroupLogEngine engine, final String groupName, final RaftOptions raftOptions) {
+        super();
+        this.engine = Requires.requireNonNull(engine, "engine");
+        this.groupName = Requires.requireNonNull(groupName, "groupName");
+        this.sync = raftOptions.isSync();
+    }
+
+    @Override
+    public boolean init(final LogStorageOptions opts) {
+        Requires.requireNonNull(opts.getConfigurationManager(), "Null conf manager");
+        Requires.requireNonNull(opts.getLogEntryCodecFactory(), "Null log entry codec factory");
+        this.writeLock.lock();
+        try {
+            if (this.initialized) {
+                LOG.warn("MultiGroupLogStorage init() already.");
+                return true;
+            }
+            this.logEntryDecoder = opts.getLogEntryCodecFactory().decoder();
+            this.logEntryEncoder = opts.getLogEntryCodecFactory().encoder();
+            Requires.requireNonNull(this.logEntryDecoder, "Null log entry decoder");
+            Requires.requireNonNull(this.logEntryEncoder, "Null log entry encoder");
+            if (!this.engine.acquire()) {
+                LOG.error("Fail to acquire shared log engine {} for group {}.", this.engine.getPath(), this.groupName);
+                return false;
+            }
+            try {
+                this.groupId = this.engine.registerGroup(this.groupName);
+                this.firstLogIndexKey = new byte[8 + FIRST_LOG_IDX_KEY.length];
+                Bits.putLong(this.firstLogIndexKey, 0, this.groupId);
+                System.arraycopy(FIRST_LOG_IDX_KEY, 0, this.firstLogIndexKey, 8, FIRST_LOG_IDX_KEY.length);
+                load(opts.getConfigurationManager());
+            } catch (final RocksDBException e) {
+                LOG.error("Fail to init MultiGroupLogStorage, group={}.", this.groupName, e);
+                this.engine.release();
+                return false;
+            }
+            this.initialized = true;
+            return true;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    private void load(final ConfigurationManager confManager) throws RocksDBException {
+        this.hasLoadFirstLogIndex = false;
+        this.firstLogIndex = 1;
+        try (final RocksIterator it = this.engine.newIterator(this.engine.getConfHandle())) {
+            for (it.seek(getKeyBytes(0)); it.isValid() && isGroupKey(it.key()); it.next()) {
+                final byte[] ks = it.key();
+                final byte[] bs = it.value();
+                if (ks.length == 16) {
+                    final LogEntry entry = this.logEntryDecoder.decode(bs);
+                    if (entry != null) {
+                        if (entry.getType() == EntryType.ENTRY_TYPE_CONFIGURATION) {
+                            final ConfigurationEntry confEntry = new ConfigurationEntry();
+                            confEntry.setId(new LogId(entry.getId().getIndex(), entry.getId().getTerm()));
+                            confEntry.setConf(new Configuration(entry.getPeers(), entry.getLearners()));
+                            if (entry.getOldPeers() != null) {
+                                confEntry.setOldConf(new Configuration(entry.getOldPeers(), entry.getOldLearners()));
+                            }
+                            if (confManager != null) {
+                                confManager.add(confEntry);
+                            }
+                        }
+                    } else {
+                        LOG.warn("Fail to decode conf entry at index {}, the log data is: {}.", Bits.getLong(ks, 8),
+                            BytesUtil.toHex(bs));
+                    }
+                } else if (ks.length == this.firstLogIndexKey.length) {
+                    setFirstLogIndex(Bits.getLong(bs, 0));
+                } else {
+                    LOG.warn("Unknown entry in configuration storage key={}, value={}.", BytesUtil.toHex(ks),
+                        BytesUtil.toHex(bs));
+                }
+            }
+        }
+        this.lastLogIndex = loadLastLogIndex();
+        if (this.hasLoadFirstLogIndex) {
+            truncatePrefixInBackground(0L, this.firstLogIndex);
+        }
+    }
+
+    private long loadLastLogIndex() {
+        try (final RocksIterator it = this.engine.newIterator(this.engine.getDefaultHandle())) {
+            it.seekForPrev(getKeyBytes(Long.MAX_VALUE));
+            if (it.isValid() && isGroupKey(it.key())) {
+                return Bits.getLong(it.key(), 8);
+            }
+            return 0L;
+        }
+    }
+
+    private boolean isGroupKey(final byte[] ks) {
+        return ks.length >= 8 && Bits.getLong(ks, 0) == this.groupId;
+    }
+
+    private byte[] getKeyBytes(final long index) {
+        final byte[] ks = new byte[16];
+        Bits.putLong(ks, 0, this.groupId);
+        Bits.putLong(ks, 8, index);
+        return ks;
+    }
+
+    private void setFirstLogIndex(final long index) {
+        this.firstLogIndex = index;
+        this.hasLoadFirstLogIndex = true;
+    }
+
+    private boolean saveFirstLogIndex(final long firstLogIndex) {
+        final byte[] vs = new byte[8];
+        Bits.putLong(vs, 0, firstLogIndex);
+        return this.engine.write(batch -> batch.put(this.engine.getConfHandle(), this.firstLogIndexKey, vs), this.sync);
+    }
+
+    private void checkState() {
+        Requires.requireTrue(this.initialized, "MultiGroupLogStorage not initialized or destroyed");
+    }
+
+    @Override
+    public void shutdown() {
+        this.writeLock.lock();
+        try {
+            if (!this.initialized) {
+                return;
+            }
+            this.initialized = false;
+            this.engine.release();
+            LOG.info("MultiGroupLogStorage of group {} shutdown.", this.groupName);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public long getFirstLogIndex() {
+        this.readLock.lock();
+        try {
+            if (this.hasLoadFirstLogIndex) {
+                return this.firstLogIndex;
+            }
+            checkState();
+            try (final RocksIterator it = this.engine.newIterator(this.engine.getDefaultHandle())) {
+                it.seek(getKeyBytes(0));
+                if (it.isValid() && isGroupKey(it.key())) {
+                    final long ret = Bits.getLong(it.key(), 8);
+                    saveFirstLogIndex(ret);
+                    setFirstLogIndex(ret);
+                    return ret;
+                }
+            }
+            return 1L;
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    @Override
+    public long getLastLogIndex() {
+        return this.lastLogIndex;
+    }
+
+    @Override
+    public LogEntry getEntry(final long index) {
+        this.readLock.lock();
+        try {
+            if (this.hasLoadFirstLogIndex && index < this.firstLogIndex) {
+                return null;
+            }
+            checkState();
+            final byte[] bs = this.engine.get(this.engine.getDefaultHandle(), getKeyBytes(index));
+            if (bs != null) {
+                final LogEntry entry = this.logEntryDecoder.decode(bs);
+                if (entry != null) {
+                    return entry;
+                } else {
+                    LOG.error("Bad log entry format for index={}, the log data is: {}.", index, BytesUtil.toHex(bs));
+                    return null;
+                }
+            }
+        } catch (final RocksDBException e) {
+            LOG.error("Fail to get log entry at index {} of group {}.", index, this.groupName, e);
+        } finally {
+            this.readLock.unlock();
+        }
+        return null;
+    }
+
+    @Override
+    public List<LogEntry> getEntries(final long fromIndex, final int maxCount, final long maxBytes) {
+        final List<LogEntry> entries = new ArrayList<>(Math.min(maxCount, 64));
+        this.readLock.lock();
+        try {
+            if (this.hasLoadFirstLogIndex && fromIndex < this.firstLogIndex) {
+                return entries;
+            }
+            checkState();
+            try (final RocksIterator it = this.engine.newIterator(this.engine.getDefaultHandle())) {
+                long expectIndex = fromIndex;
+                long bytes = 0;
+                for (it.seek(getKeyBytes(fromIndex)); it.isValid() && isGroupKey(it.key()) && entries.size() < maxCount
+                                                      && (entries.isEmpty() || bytes < maxBytes); it.next()) {
+                    final long index = Bits.getLong(it.key(), 8);
+                    if (index != expectIndex) {
+                        break;
+                    }
+                    final byte[] bs = it.value();
+                    final LogEntry entry = this.logEntryDecoder.decode(bs);
+                    if (entry == null) {
+                        LOG.error("Bad log entry format for index={}, the log data is: {}.", index, BytesUtil.toHex(bs));
+                        break;
+                    }
+                    entries.add(entry);
+                    bytes += entry.getData() != null ? entry.getData().remaining() : 0;
+                    expectIndex++;
+                }
+            }
+        } finally {
+            this.readLock.unlock();
+        }
+        return entries;
+    }
+
+    @Override
+    public long getTerm(final long index) {
+        final LogEntry entry = getEntry(index);
+        if (entry != null) {
+            return entry.getId().getTerm();
+        }
+        return 0;
+    }
+
+    private void addToBatch(final LogEntry entry, final WriteBatch batch) throws RocksDBException {
+        final byte[] ks = getKeyBytes(entry.getId().getIndex());
+        final byte[] content = this.logEntryEncoder.encode(entry);
+        batch.put(this.engine.getDefaultHandle(), ks, content);
+        if (entry.getType() == EntryType.ENTRY_TYPE_CONFIGURATION) {
+            batch.put(this.engine.getConfHandle(), ks, content);
+        }
+    }
+
+    @Override
+    public boolean appendEntry(final LogEntry entry) {
+        this.readLock.lock();
+        try {
+            if (!this.initialized) {
+                LOG.warn("MultiGroupLogStorage not initialized or destroyed.");
+                return false;
+            }
+            if (this.engine.write(batch -> addToBatch(entry, batch), this.sync)) {
+                this.lastLogIndex = Math.max(this.lastLogIndex, entry.getId().getIndex());
+                return true;
+            }
+            return false;
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    @Override
+    public int appendEntries(final List<LogEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return 0;
+        }
+        final int entriesCount = entries.size();
+        this.readLock.lock();
+        try {
+            if (!this.initialized) {
+                LOG.warn("MultiGroupLogStorage not initialized or destroyed.");
+                return 0;
+            }
+            final boolean ret = this.engine.write(batch -> {
+                for (int i = 0; i < entriesCount; i++) {
+                    addToBatch(entries.get(i), batch);
+                }
+            }, this.sync);
+            if (ret) {
+                this.lastLogIndex = Math.max(this.lastLogIndex, entries.get(entriesCount - 1).getId().getIndex());
+                return entriesCount;
+            }
+            return 0;
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean truncatePrefix(final long firstIndexKept) {
+        this.readLock.lock();
+        try {
+            final long startIndex = getFirstLogIndex();
+            final boolean ret = saveFirstLogIndex(firstIndexKept);
+            if (ret) {
+                setFirstLogIndex(firstIndexKept);
+            }
+            truncatePrefixInBackground(startIndex, firstIndexKept);
+            return ret;
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    private void truncatePrefixInBackground(final long startIndex, final long firstIndexKept) {
+        // delete logs in background.
+        Utils.runInThread(() -> {
+            this.readLock.lock();
+            try {
+                if (!this.initialized) {
+                    return;
+                }
+                if (!this.engine.deleteRange(getKeyBytes(startIndex), getKeyBytes(firstIndexKept))) {
+                    LOG.error("Fail to truncatePrefix {} of group {}.", firstIndexKept, this.groupName);
+                }
+            } finally {
+                this.readLock.unlock();
+            }
+        });
+    }
+
+    @Override
+    public boolean truncateSuffix(final long lastIndexKept) {
+        this.readLock.lock();
+        try {
+            checkState();
+            final boolean ret = this.engine.deleteRange(getKeyBytes(lastIndexKept + 1),
+                getKeyBytes(this.lastLogIndex + 1));
+            if (ret) {
+                this.lastLogIndex = lastIndexKept;
+            } else {
+                LOG.error("Fail to truncateSuffix {} of group {}.", lastIndexKept, this.groupName);
+            }
+            return ret;
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean reset(final long nextLogIndex) {
+        if (nextLogIndex <= 0) {
+            throw new IllegalArgumentException("Invalid next log index.");
+        }
+        this.writeLock.lock();
+        try {
+            LogEntry entry = getEntry(nextLogIndex);
+            final byte[] beginKey = getKeyBytes(0);
+            final byte[] endKey = new byte[8];
+            Bits.putLong(endKey, 0, this.groupId + 1);
+            if (!this.engine.deleteRange(beginKey, endKey)) {
+                LOG.error("Fail to reset next log index of group {}.", this.groupName);
+                return false;
+            }
+            this.hasLoadFirstLogIndex = false;
+            this.firstLogIndex = 1;
+            this.lastLogIndex = 0;
+            if (entry == null) {
+                entry = new LogEntry();
+                entry.setType(EntryType.ENTRY_TYPE_NO_OP);
+                entry.setId(new LogId(nextLogIndex, 0));
+                LOG.warn("Entry not found for nextLogIndex {} when reset.", nextLogIndex);
+            }
+            return appendEntry(entry);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void describe(final Printer out) {
+        out.print("  group: ") //
+            .print(this.groupName) //
+            .print(", groupId: ") //
+            .println(this.groupId);
+        this.engine.describe(out);
+    }
+}
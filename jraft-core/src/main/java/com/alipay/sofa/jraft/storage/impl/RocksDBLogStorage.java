@@ -21,6 +21,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -29,6 +34,7 @@ import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompactRangeOptions;
 import org.rocksdb.DBOptions;
 import org.rocksdb.Options;
 import org.rocksdb.ReadOptions;
@@ -44,6 +50,7 @@ import org.slf4j.LoggerFactory;
 import com.alipay.sofa.jraft.conf.Configuration;
 import com.alipay.sofa.jraft.conf.ConfigurationEntry;
 import com.alipay.sofa.jraft.conf.ConfigurationManager;
+import com.alipay.sofa.jraft.core.NodeMetrics;
 import com.alipay.sofa.jraft.entity.EnumOutter.EntryType;
 import com.alipay.sofa.jraft.entity.LogEntry;
 import com.alipay.sofa.jraft.entity.LogId;
@@ -56,9 +63,13 @@ import com.alipay.sofa.jraft.util.Bits;
 import com.alipay.sofa.jraft.util.BytesUtil;
 import com.alipay.sofa.jraft.util.DebugStatistics;
 import com.alipay.sofa.jraft.util.Describer;
+import com.alipay.sofa.jraft.util.NamedThreadFactory;
 import com.alipay.sofa.jraft.util.Requires;
 import com.alipay.sofa.jraft.util.StorageOptionsFactory;
+import com.alipay.sofa.jraft.util.SystemPropertyUtil;
 import com.alipay.sofa.jraft.util.Utils;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 
 /**
  * Log storage based on rocksdb.
@@ -71,6 +82,31 @@ public class RocksDBLogStorage implements LogStorage, Describer {
 
     private static final Logger LOG = LoggerFactory.getLogger(RocksDBLogStorage.class);
 
+    /**
+     * The truncated logs are compacted when there are at least so many logs deleted since last compaction.
+     */
+    private static final long   TRUNCATE_PREFIX_COMPACT_MIN_LOGS    = SystemPropertyUtil.getLong(
+                                                                        "jraft.log_storage.truncate_prefix.compact.min.logs",
+                                                                        10000);
+
+    /**
+     * Min interval in milliseconds between two compactions of the truncated logs, it's the I/O budget of
+     * prefix truncation.
+     */
+    private static final long   TRUNCATE_PREFIX_COMPACT_INTERVAL_MS = SystemPropertyUtil.getLong(
+                                                                        "jraft.log_storage.truncate_prefix.compact.interval.ms",
+                                                                        60 * 1000);
+
+    /**
+     * All the log storages truncate prefix logs in this thread one by one, so that a burst of
+     * snapshots doesn't delete and compact logs of many groups at the same time.
+     */
+    private static final class TruncatePrefixExecutorHolder {
+        private static final ScheduledExecutorService INSTANCE = Executors
+                                                                   .newSingleThreadScheduledExecutor(new NamedThreadFactory(
+                                                                       "JRaft-LogStorage-Truncate-Prefix-", true));
+    }
+
     static {
         RocksDB.loadLibrary();
     }
@@ -157,11 +193,26 @@ public class RocksDBLogStorage implements LogStorage, Describer {
     private LogEntryEncoder                 logEntryEncoder;
     private LogEntryDecoder                 logEntryDecoder;
 
+    // Prefix truncation runs in background, logs in [truncatedIndex, truncatePrefixTarget) are waiting to
+    // be deleted and logs in [compactedIndex, truncatedIndex) are deleted but not compacted yet.
+    private final AtomicLong                truncatePrefixTarget = new AtomicLong(0);
+    private volatile long                   truncatedIndex;
+    private volatile long                   compactedIndex;
+    private volatile long                   nextCompactMs;
+    private final AtomicBoolean             truncateScheduled    = new AtomicBoolean(false);
+    private final AtomicBoolean             compactScheduled     = new AtomicBoolean(false);
+    private final NodeMetrics               truncatePrefixMetrics = new NodeMetrics(true);
+
     public RocksDBLogStorage(final String path, final RaftOptions raftOptions) {
         super();
         this.path = path;
         this.sync = raftOptions.isSync();
         this.openStatistics = raftOptions.isOpenStatistics();
+        final MetricRegistry registry = this.truncatePrefixMetrics.getMetricRegistry();
+        registry.register("truncate-prefix-pending-logs",
+            (Gauge<Long>) () -> Math.max(0, this.truncatePrefixTarget.get() - this.truncatedIndex));
+        registry.register("truncate-prefix-compaction-debt-logs",
+            (Gauge<Long>) () -> Math.max(0, this.truncatedIndex - this.compactedIndex));
     }
 
     public static DBOptions createDBOptions() {
@@ -215,6 +266,9 @@ public class RocksDBLogStorage implements LogStorage, Describer {
     private boolean initAndLoad(final ConfigurationManager confManager) throws RocksDBException {
         this.hasLoadFirstLogIndex = false;
         this.firstLogIndex = 1;
+        this.truncatePrefixTarget.set(0);
+        this.truncatedIndex = this.compactedIndex = 0;
+        this.nextCompactMs = Utils.monotonicMs();
         final List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>();
         final ColumnFamilyOptions cfOption = createColumnFamilyOptions();
         this.cfOptions.add(cfOption);
@@ -263,7 +317,7 @@ public class RocksDBLogStorage implements LogStorage, Describer {
                 } else {
                     if (Arrays.equals(FIRST_LOG_IDX_KEY, ks)) {
                         setFirstLogIndex(Bits.getLong(bs, 0));
-                        truncatePrefixInBackground(0L, this.firstLogIndex);
+                        truncatePrefixInBackground(this.firstLogIndex);
                     } else {
                         LOG.warn("Unknown entry in configuration storage key={}, value={}.", BytesUtil.toHex(ks),
                             BytesUtil.toHex(bs));
@@ -455,6 +509,48 @@ public class RocksDBLogStorage implements LogStorage, Describer {
         return null;
     }
 
+    @Override
+    public List<LogEntry> getEntries(final long fromIndex, final int maxCount, final long maxBytes) {
+        final List<LogEntry> entries = new ArrayList<>(Math.min(maxCount, 64));
+        this.readLock.lock();
+        try {
+            if (this.hasLoadFirstLogIndex && fromIndex < this.firstLogIndex) {
+                return entries;
+            }
+            checkState();
+            // Scan the logs by one iterator instead of point lookups.
+            try (final RocksIterator it = this.db.newIterator(this.defaultHandle, this.totalOrderReadOptions)) {
+                long expectIndex = fromIndex;
+                long bytes = 0;
+                for (it.seek(getKeyBytes(fromIndex)); it.isValid() && entries.size() < maxCount && (entries.isEmpty() || bytes < maxBytes); it
+                    .next()) {
+                    final long index = Bits.getLong(it.key(), 0);
+                    if (index != expectIndex) {
+                        break;
+                    }
+                    final byte[] bs = onDataGet(index, it.value());
+                    if (bs == null) {
+                        break;
+                    }
+                    final LogEntry entry = this.logEntryDecoder.decode(bs);
+                    if (entry == null) {
+                        LOG.error("Bad log entry format for index={}, the log data is: {}.", index,
+                            BytesUtil.toHex(bs));
+                        break;
+                    }
+                    entries.add(entry);
+                    bytes += entry.getData() != null ? entry.getData().remaining() : 0;
+                    expectIndex++;
+                }
+            }
+        } catch (final IOException e) {
+            LOG.error("Fail to get log entries from index {}.", fromIndex, e);
+        } finally {
+            this.readLock.unlock();
+        }
+        return entries;
+    }
+
     protected byte[] getValueFromRocksDB(final byte[] keyBytes) throws RocksDBException {
         checkState();
         return this.db.get(this.defaultHandle, keyBytes);
@@ -559,12 +655,11 @@ public class RocksDBLogStorage implements LogStorage, Describer {
     public boolean truncatePrefix(final long firstIndexKept) {
         this.readLock.lock();
         try {
-            final long startIndex = getFirstLogIndex();
             final boolean ret = saveFirstLogIndex(firstIndexKept);
             if (ret) {
                 setFirstLogIndex(firstIndexKept);
             }
-            truncatePrefixInBackground(startIndex, firstIndexKept);
+            truncatePrefixInBackground(firstIndexKept);
             return ret;
         } finally {
             this.readLock.unlock();
@@ -572,23 +667,90 @@ public class RocksDBLogStorage implements LogStorage, Describer {
 
     }
 
-    private void truncatePrefixInBackground(final long startIndex, final long firstIndexKept) {
-        // delete logs in background.
-        Utils.runInThread(() -> {
-            this.readLock.lock();
-            try {
-                if (this.db == null) {
-                    return;
-                }
-                onTruncatePrefix(startIndex, firstIndexKept);
-                this.db.deleteRange(this.defaultHandle, getKeyBytes(startIndex), getKeyBytes(firstIndexKept));
-                this.db.deleteRange(this.confHandle, getKeyBytes(startIndex), getKeyBytes(firstIndexKept));
-            } catch (final RocksDBException | IOException e) {
-                LOG.error("Fail to truncatePrefix {}.", firstIndexKept, e);
-            } finally {
-                this.readLock.unlock();
+    /**
+     * Returns the metrics of background prefix truncation: the pending and not compacted
+     * log counts, the deleted logs and the cost of deleting and compacting.
+     *
+     * @return prefix truncation metrics
+     */
+    public NodeMetrics getTruncatePrefixMetrics() {
+        return this.truncatePrefixMetrics;
+    }
+
+    private void truncatePrefixInBackground(final long firstIndexKept) {
+        // Merge into the pending truncation, only the latest first index kept matters.
+        this.truncatePrefixTarget.accumulateAndGet(firstIndexKept, Math::max);
+        if (this.truncateScheduled.compareAndSet(false, true)) {
+            TruncatePrefixExecutorHolder.INSTANCE.execute(this::doTruncatePrefix);
+        }
+    }
+
+    private void doTruncatePrefix() {
+        this.truncateScheduled.set(false);
+        this.readLock.lock();
+        try {
+            if (this.db == null) {
+                return;
             }
-        });
+            final long startIndex = this.truncatedIndex;
+            final long firstIndexKept = this.truncatePrefixTarget.get();
+            if (startIndex >= firstIndexKept) {
+                return;
+            }
+            final long startMs = Utils.monotonicMs();
+            onTruncatePrefix(startIndex, firstIndexKept);
+            // Range deletion only writes tombstones, the space is reclaimed by compaction later.
+            this.db.deleteRange(this.defaultHandle, getKeyBytes(startIndex), getKeyBytes(firstIndexKept));
+            this.db.deleteRange(this.confHandle, getKeyBytes(startIndex), getKeyBytes(firstIndexKept));
+            this.truncatedIndex = firstIndexKept;
+            this.truncatePrefixMetrics.recordLatency("truncate-prefix-delete", Utils.monotonicMs() - startMs);
+            this.truncatePrefixMetrics.recordTimes("truncate-prefix-deleted-logs", firstIndexKept - startIndex);
+        } catch (final RocksDBException | IOException e) {
+            LOG.error("Fail to truncatePrefix {}.", this.truncatePrefixTarget.get(), e);
+        } finally {
+            this.readLock.unlock();
+        }
+        scheduleCompactPrefix();
+    }
+
+    private void scheduleCompactPrefix() {
+        if (this.truncatedIndex - this.compactedIndex < TRUNCATE_PREFIX_COMPACT_MIN_LOGS) {
+            return;
+        }
+        if (this.compactScheduled.compareAndSet(false, true)) {
+            final long delayMs = Math.max(0, this.nextCompactMs - Utils.monotonicMs());
+            TruncatePrefixExecutorHolder.INSTANCE.schedule(this::doCompactPrefix, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void doCompactPrefix() {
+        this.compactScheduled.set(false);
+        this.readLock.lock();
+        try (final CompactRangeOptions opts = new CompactRangeOptions()) {
+            if (this.db == null) {
+                return;
+            }
+            final long startIndex = this.compactedIndex;
+            final long endIndex = this.truncatedIndex;
+            if (startIndex >= endIndex) {
+                return;
+            }
+            // Never stall the foreground writes, and run in one thread.
+            opts.setExclusiveManualCompaction(false) //
+                .setAllowWriteStall(false) //
+                .setMaxSubcompactions(1);
+            final long startMs = Utils.monotonicMs();
+            this.db.compactRange(this.defaultHandle, getKeyBytes(startIndex), getKeyBytes(endIndex), opts);
+            this.db.compactRange(this.confHandle, getKeyBytes(startIndex), getKeyBytes(endIndex), opts);
+            this.compactedIndex = endIndex;
+            final long now = Utils.monotonicMs();
+            this.nextCompactMs = now + TRUNCATE_PREFIX_COMPACT_INTERVAL_MS;
+            this.truncatePrefixMetrics.recordLatency("truncate-prefix-compact", now - startMs);
+        } catch (final RocksDBException e) {
+            LOG.error("Fail to compact truncated logs before {}.", this.truncatedIndex, e);
+        } finally {
+            this.readLock.unlock();
+        }
     }
 
     @Override
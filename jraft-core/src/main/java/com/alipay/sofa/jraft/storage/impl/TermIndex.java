@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.storage.impl;
+
+import java.util.Arrays;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * The term transitions of the log, each transition is the first log index of a term.
+ * Terms are increasing along with log indexes and change rarely, so the term of any
+ * log index can be found by a binary search over a small array.
+ *
+ * It's not thread-safe, {@link LogManagerImpl} guards it by its lock.
+ *
+ * @author agent
+ */
+public class TermIndex {
+
+    private long[] firstIndexes = new long[16];
+    private long[] terms        = new long[16];
+    private int    size;
+
+    /**
+     * Record that the log at index has the term. The transitions at or after index
+     * are overwritten, the same as appending a log to the log storage.
+     */
+    public void append(final long index, final long term) {
+        if (this.size > 0 && index <= this.firstIndexes[this.size - 1]) {
+            truncateSuffix(index - 1);
+        }
+        if (this.size > 0 && this.terms[this.size - 1] == term) {
+            return;
+        }
+        if (this.size == this.firstIndexes.length) {
+            this.firstIndexes = Arrays.copyOf(this.firstIndexes, this.size << 1);
+            this.terms = Arrays.copyOf(this.terms, this.size << 1);
+        }
+        this.firstIndexes[this.size] = index;
+        this.terms[this.size] = term;
+        this.size++;
+    }
+
+    /**
+     * Returns the term of log at index, 0 when the index is before the first transition.
+     * The caller should make sure the index is not after the last log index.
+     */
+    public long getTerm(final long index) {
+        final int slot = slotOf(index);
+        return slot >= 0 ? this.terms[slot] : 0;
+    }
+
+    /**
+     * Returns the slot of the last transition at or before index, -1 if not found.
+     */
+    private int slotOf(final long index) {
+        final int i = Arrays.binarySearch(this.firstIndexes, 0, this.size, index);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * Remove the transitions of the logs before firstIndexKept.
+     */
+    public void truncatePrefix(final long firstIndexKept) {
+        final int slot = slotOf(firstIndexKept);
+        if (slot < 0) {
+            return;
+        }
+        if (slot > 0) {
+            System.arraycopy(this.firstIndexes, slot, this.firstIndexes, 0, this.size - slot);
+            System.arraycopy(this.terms, slot, this.terms, 0, this.size - slot);
+            this.size -= slot;
+        }
+        this.firstIndexes[0] = firstIndexKept;
+    }
+
+    /**
+     * Remove the transitions of the logs after lastIndexKept.
+     */
+    public void truncateSuffix(final long lastIndexKept) {
+        this.size = slotOf(lastIndexKept) + 1;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Rebuild the transitions of logs in [firstIndex, lastIndex] by binary searching the term
+     * changes, the terms are looked up by termLookup, which returns 0 when the log is missing.
+     *
+     * @return false when some log is missing, the index is cleared then
+     */
+    public boolean rebuild(final long firstIndex, final long lastIndex, final LongUnaryOperator termLookup) {
+        clear();
+        if (lastIndex < firstIndex) {
+            return true;
+        }
+        final long lastTerm = termLookup.applyAsLong(lastIndex);
+        long index = firstIndex;
+        long term = termLookup.applyAsLong(index);
+        while (term != 0 && lastTerm != 0) {
+            append(index, term);
+            if (term == lastTerm) {
+                return true;
+            }
+            // Find the first log whose term is greater than the current one.
+            long lo = index + 1;
+            long hi = lastIndex;
+            while (lo < hi) {
+                final long mid = (lo + hi) >>> 1;
+                final long midTerm = termLookup.applyAsLong(mid);
+                if (midTerm == 0) {
+                    clear();
+                    return false;
+                }
+                if (midTerm > term) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            index = lo;
+            term = termLookup.applyAsLong(index);
+        }
+        clear();
+        return false;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("TermIndex [");
+        for (int i = 0; i < this.size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(this.firstIndexes[i]).append(':').append(this.terms[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
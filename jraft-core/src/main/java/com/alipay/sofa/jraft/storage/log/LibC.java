@@ -30,21 +30,25 @@ import com.sun.jna.Pointer;
  *
  */
 public interface LibC extends Library {
-    LibC INSTANCE      = Native.load(Platform.isWindows() ? "msvcrt" : "c", LibC.class);
+    LibC INSTANCE          = Native.load(Platform.isWindows() ? "msvcrt" : "c", LibC.class);
 
-    int  MADV_WILLNEED = 3;
-    int  MADV_DONTNEED = 4;
+    int  MADV_SEQUENTIAL   = 2;
+    int  MADV_WILLNEED     = 3;
+    int  MADV_DONTNEED     = 4;
 
-    int  MCL_CURRENT   = 1;
-    int  MCL_FUTURE    = 2;
-    int  MCL_ONFAULT   = 4;
+    /* default fallocate mode, allocates and extends the file */
+    int  FALLOC_FL_DEFAULT = 0;
+
+    int  MCL_CURRENT       = 1;
+    int  MCL_FUTURE        = 2;
+    int  MCL_ONFAULT       = 4;
 
     /* sync memory asynchronously */
-    int  MS_ASYNC      = 0x0001;
+    int  MS_ASYNC          = 0x0001;
     /* invalidate mappings & caches */
-    int  MS_INVALIDATE = 0x0002;
+    int  MS_INVALIDATE     = 0x0002;
     /* synchronous memory sync */
-    int  MS_SYNC       = 0x0004;
+    int  MS_SYNC           = 0x0004;
 
     int mlock(Pointer var1, NativeLong var2);
 
@@ -57,4 +61,9 @@ public interface LibC extends Library {
     int mlockall(int flags);
 
     int msync(Pointer p, NativeLong length, int flags);
-}
\ No newline at end of file
+
+    /**
+     * Linux only, allocates the disk space of the file range without writing zeros.
+     */
+    int fallocate(int fd, int mode, long offset, long len);
+}
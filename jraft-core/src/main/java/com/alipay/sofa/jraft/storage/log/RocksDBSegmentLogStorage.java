@@ -26,6 +26,8 @@ import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -43,6 +45,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alipay.sofa.common.profile.StringUtil;
+import com.alipay.sofa.jraft.core.NodeMetrics;
+import com.alipay.sofa.jraft.entity.LogEntry;
 import com.alipay.sofa.jraft.option.RaftOptions;
 import com.alipay.sofa.jraft.storage.impl.RocksDBLogStorage;
 import com.alipay.sofa.jraft.storage.log.CheckpointFile.Checkpoint;
@@ -50,6 +54,7 @@ import com.alipay.sofa.jraft.storage.log.SegmentFile.SegmentFileOptions;
 import com.alipay.sofa.jraft.util.ArrayDeque;
 import com.alipay.sofa.jraft.util.Bits;
 import com.alipay.sofa.jraft.util.CountDownEvent;
+import com.alipay.sofa.jraft.util.ExecutorServiceHelper;
 import com.alipay.sofa.jraft.util.NamedThreadFactory;
 import com.alipay.sofa.jraft.util.Platform;
 import com.alipay.sofa.jraft.util.Requires;
@@ -126,17 +131,17 @@ public class RocksDBSegmentLogStorage extends RocksDBLogStorage {
 
     }
 
-    private static final String SEGMENT_FILE_POSFIX            = ".s";
+    private static final String  SEGMENT_FILE_POSFIX            = ".s";
 
-    private static final Logger LOG                            = LoggerFactory
-                                                                   .getLogger(RocksDBSegmentLogStorage.class);
+    private static final Logger  LOG                            = LoggerFactory
+                                                                    .getLogger(RocksDBSegmentLogStorage.class);
 
     /**
      * Default checkpoint interval in milliseconds.
      */
-    private static final int    DEFAULT_CHECKPOINT_INTERVAL_MS = SystemPropertyUtil.getInt(
-                                                                   "jraft.log_storage.segment.checkpoint.interval.ms",
-                                                                   5000);
+    private static final int     DEFAULT_CHECKPOINT_INTERVAL_MS = SystemPropertyUtil.getInt(
+                                                                    "jraft.log_storage.segment.checkpoint.interval.ms",
+                                                                    5000);
 
     /**
      * Location metadata format:
@@ -145,20 +150,33 @@ public class RocksDBSegmentLogStorage extends RocksDBLogStorage {
      * 3. segmentFileName(8 B)
      * 4. wrotePosition(4 B)
      */
-    private static final int    LOCATION_METADATA_SIZE         = SegmentFile.RECORD_MAGIC_BYTES_SIZE + 2 + 8 + 4;
+    private static final int     LOCATION_METADATA_SIZE         = SegmentFile.RECORD_MAGIC_BYTES_SIZE + 2 + 8 + 4;
 
     /**
      * Max segment file size, 1G
      */
-    private static final int    MAX_SEGMENT_FILE_SIZE          = SystemPropertyUtil.getInt(
-                                                                   "jraft.log_storage.segment.max.size.bytes",
-                                                                   1024 * 1024 * 1024);
+    private static final int     MAX_SEGMENT_FILE_SIZE          = SystemPropertyUtil.getInt(
+                                                                    "jraft.log_storage.segment.max.size.bytes",
+                                                                    1024 * 1024 * 1024);
+
+    /**
+     * Threads to load the segment files in parallel at startup.
+     */
+    private static final int     LOAD_THREADS                   = SystemPropertyUtil.getInt(
+                                                                    "jraft.log_storage.segment.load.threads",
+                                                                    Math.min(Utils.cpus(), 8));
+
+    /**
+     * Whether to use fallocate and madvise hints for segment files, see {@link Builder#setNativeHints(boolean)}.
+     */
+    private static final boolean NATIVE_HINTS                   = SystemPropertyUtil.getBoolean(
+                                                                    "jraft.log_storage.segment.native_hints", false);
 
     // Default value size threshold to decide whether it will be stored in segments or rocksdb, default is 4K.
     // When the value size is less than 4K, it will be stored in rocksdb directly.
-    private static int          DEFAULT_VALUE_SIZE_THRESHOLD   = SystemPropertyUtil.getInt(
-                                                                   "jraft.log_storage.segment.value.threshold.bytes",
-                                                                   4 * 1024);
+    private static int           DEFAULT_VALUE_SIZE_THRESHOLD   = SystemPropertyUtil.getInt(
+                                                                    "jraft.log_storage.segment.value.threshold.bytes",
+                                                                    4 * 1024);
 
     /**
      * RocksDBSegmentLogStorage builder
@@ -174,6 +192,7 @@ public class RocksDBSegmentLogStorage extends RocksDBLogStorage {
         private int                preAllocateSegmentCount  = PRE_ALLOCATE_SEGMENT_COUNT;
         private int                keepInMemorySegmentCount = MEM_SEGMENT_COUNT;
         private int                checkpointIntervalMs     = DEFAULT_CHECKPOINT_INTERVAL_MS;
+        private boolean            nativeHints              = NATIVE_HINTS;
 
         public String getPath() {
             return this.path;
@@ -247,10 +266,25 @@ public class RocksDBSegmentLogStorage extends RocksDBLogStorage {
             return this;
         }
 
+        public boolean isNativeHints() {
+            return this.nativeHints;
+        }
+
+        /**
+         * Whether to preallocate new segment files by fallocate without zero filling, and advise
+         * sequential access of the segment files when reading a range of logs, linux only.
+         */
+        public Builder setNativeHints(final boolean nativeHints) {
+            this.nativeHints = nativeHints;
+            return this;
+        }
+
         public RocksDBSegmentLogStorage build() {
-            return new RocksDBSegmentLogStorage(this.path, this.raftOptions, this.valueSizeThreshold,
-                this.maxSegmentFileSize, this.preAllocateSegmentCount, this.keepInMemorySegmentCount,
-                this.checkpointIntervalMs, this.writeExecutor);
+            final RocksDBSegmentLogStorage storage = new RocksDBSegmentLogStorage(this.path, this.raftOptions,
+                this.valueSizeThreshold, this.maxSegmentFileSize, this.preAllocateSegmentCount,
+                this.keepInMemorySegmentCount, this.checkpointIntervalMs, this.writeExecutor);
+            storage.nativeHints = this.nativeHints;
+            return storage;
         }
 
     }
@@ -278,6 +312,8 @@ public class RocksDBSegmentLogStorage extends RocksDBLogStorage {
     private int                         preAllocateSegmentCount  = PRE_ALLOCATE_SEGMENT_COUNT;
     private int                         keepInMemorySegmentCount = MEM_SEGMENT_COUNT;
     private int                         checkpointIntervalMs     = DEFAULT_CHECKPOINT_INTERVAL_MS;
+    private boolean                     nativeHints              = NATIVE_HINTS;
+    private final NodeMetrics           startupMetrics           = new NodeMetrics(true);
 
     /**
      * Creates a RocksDBSegmentLogStorage builder.
@@ -422,6 +458,7 @@ public class RocksDBSegmentLogStorage extends RocksDBLogStorage {
             .setRecover(false) //
             .setLastFile(true) //
             .setNewFile(true) //
+            .setPreallocate(this.nativeHints) //
             .setPos(0).build();
 
         if (!segmentFile.init(opts)) {
@@ -450,6 +487,7 @@ public class RocksDBSegmentLogStorage extends RocksDBLogStorage {
     @Override
     protected boolean onInitLoaded() {
         final long startMs = Utils.monotonicMs();
+        final ThreadPoolExecutor loadExecutor = createLoadExecutor();
         this.writeLock.lock();
         try {
             final File segmentsDir = new File(this.segmentsPath);
@@ -475,42 +513,55 @@ public class RocksDBSegmentLogStorage extends RocksDBLogStorage {
 
                 final String checkpointSegFile = getCheckpointSegFilePath(checkpoint);
 
-                // mmap files
-                for (int i = 0; i < segmentFiles.length; i++) {
-                    final File segFile = segmentFiles[i];
+                // Read headers of all the files in parallel, no file is mapped here.
+                long phaseStartMs = Utils.monotonicMs();
+                final List<SegmentFile> loadedFiles = new ArrayList<>(segmentFiles.length);
+                final List<Future<Boolean>> headerFutures = new ArrayList<>(segmentFiles.length);
+                for (final File segFile : segmentFiles) {
                     this.nextFileSequence.set(getFileSequenceFromFileName(segFile) + 1);
                     final SegmentFile segmentFile = new SegmentFile(this.maxSegmentFileSize, segFile.getAbsolutePath(),
                         this.writeExecutor);
-
-                    if (!segmentFile.mmapFile(false)) {
-                        LOG.error("Fail to mmap segment file {}.", segFile.getAbsoluteFile());
+                    loadedFiles.add(segmentFile);
+                    headerFutures.add(loadExecutor.submit(segmentFile::readHeader));
+                }
+                for (int i = 0; i < loadedFiles.size(); i++) {
+                    final SegmentFile segmentFile = loadedFiles.get(i);
+                    if (!headerFutures.get(i).get()) {
+                        LOG.error("Fail to read header of segment file {}.", segmentFile.getPath());
                         return false;
                     }
-
                     if (segmentFile.isBlank()) {
                         this.blankSegments.add(new AllocatedResult(segmentFile));
                     } else {
                         this.segments.add(segmentFile);
                     }
                 }
+                this.startupMetrics.recordLatency("segment-read-headers", Utils.monotonicMs() - phaseStartMs);
 
-                // init blank segments
-                for (AllocatedResult ret : this.blankSegments) {
-                    final SegmentFile segmentFile = ret.segmentFile;
-                    final SegmentFileOptions opts = SegmentFileOptions.builder().setSync(false).build();
-                    if (!segmentFile.init(opts)) {
-                        LOG.error("Fail to load blank segment file {}.", segmentFile.getPath());
-                        segmentFile.shutdown();
-                        return false;
+                // The files before the checkpoint file are full and never recovered, open them lazily.
+                int lazyCount = 0;
+                for (int i = 0; i < this.segments.size(); i++) {
+                    if (StringUtil.equalsIgnoreCase(checkpointSegFile, this.segments.get(i).getFilename())) {
+                        lazyCount = i;
+                        break;
                     }
                 }
 
-                // try to recover segments
+                // Open and recover the others in parallel, then warm up the last file.
+                phaseStartMs = Utils.monotonicMs();
+                final List<Future<Boolean>> openFutures = new ArrayList<>(this.segments.size()
+                                                                          + this.blankSegments.size());
+                final List<SegmentFile> openFiles = new ArrayList<>(this.segments.size() + this.blankSegments.size());
+                for (final AllocatedResult ret : this.blankSegments) {
+                    final SegmentFile segmentFile = ret.segmentFile;
+                    final SegmentFileOptions opts = SegmentFileOptions.builder().setSync(false).build();
+                    openFiles.add(segmentFile);
+                    openFutures.add(loadExecutor.submit(() -> segmentFile.init(opts)));
+                }
                 boolean needRecover = false;
-                SegmentFile prevFile = null;
                 for (int i = 0; i < this.segments.size(); i++) {
                     final boolean isLastFile = i == this.segments.size() - 1;
-                    SegmentFile segmentFile = this.segments.get(i);
+                    final SegmentFile segmentFile = this.segments.get(i);
                     int pos = segmentFile.getSize();
                     if (StringUtil.equalsIgnoreCase(checkpointSegFile, segmentFile.getFilename())) {
                         needRecover = true;
@@ -529,11 +580,44 @@ public class RocksDBSegmentLogStorage extends RocksDBLogStorage {
                             .setNewFile(false) //
                             .setPos(pos).build();
 
-                    if (!segmentFile.init(opts)) {
-                        LOG.error("Fail to load segment file {}.", segmentFile.getPath());
+                    if (i < lazyCount) {
+                        segmentFile.initLazily(opts);
+                        continue;
+                    }
+                    openFiles.add(segmentFile);
+                    openFutures.add(loadExecutor.submit(() -> {
+                        if (!segmentFile.init(opts)) {
+                            return false;
+                        }
+                        if (isLastFile) {
+                            final long warmupStartMs = Utils.monotonicMs();
+                            segmentFile.hintLoad();
+                            this.startupMetrics.recordLatency("segment-warmup", Utils.monotonicMs() - warmupStartMs);
+                        }
+                        return true;
+                    }));
+                }
+                boolean success = true;
+                for (int i = 0; i < openFiles.size(); i++) {
+                    if (!openFutures.get(i).get()) {
+                        LOG.error("Fail to load segment file {}.", openFiles.get(i).getPath());
+                        success = false;
+                    }
+                }
+                if (!success) {
+                    for (final SegmentFile segmentFile : openFiles) {
                         segmentFile.shutdown();
-                        return false;
                     }
+                    return false;
+                }
+                this.startupMetrics.recordLatency("segment-open", Utils.monotonicMs() - phaseStartMs);
+                this.startupMetrics.recordTimes("segment-lazy-opened", lazyCount);
+                this.startupMetrics.recordTimes("segment-eager-opened", this.segments.size() - lazyCount);
+
+                SegmentFile prevFile = null;
+                for (int i = 0; i < this.segments.size(); i++) {
+                    final boolean isLastFile = i == this.segments.size() - 1;
+                    final SegmentFile segmentFile = this.segments.get(i);
                     /**
                      * It's wrote position is from start(HEADER_SIZE) but it's not the last file, SHOULD not happen.
                      */
@@ -580,10 +664,27 @@ public class RocksDBSegmentLogStorage extends RocksDBLogStorage {
             return false;
         } finally {
             this.writeLock.unlock();
-            LOG.info("{} init and load cost {} ms.", getServiceName(), Utils.monotonicMs() - startMs);
+            ExecutorServiceHelper.shutdownAndAwaitTermination(loadExecutor);
+            final long costMs = Utils.monotonicMs() - startMs;
+            this.startupMetrics.recordLatency("segment-startup-total", costMs);
+            LOG.info("{} init and load cost {} ms.", getServiceName(), costMs);
         }
     }
 
+    private static ThreadPoolExecutor createLoadExecutor() {
+        return ThreadPoolUtil.newThreadPool("RocksDBSegmentLogStorage-load-pool", false, LOAD_THREADS, LOAD_THREADS,
+            60, new LinkedBlockingQueue<>(), new NamedThreadFactory("RocksDBSegmentLogStorageLoader", true));
+    }
+
+    /**
+     * Returns the metrics of every startup phase, in milliseconds.
+     *
+     * @return startup metrics
+     */
+    public NodeMetrics getStartupMetrics() {
+        return this.startupMetrics;
+    }
+
     private void startSegmentAllocator() throws IOException {
         // Warmup
         if (this.blankSegments.isEmpty()) {
@@ -1091,6 +1192,25 @@ public class RocksDBSegmentLogStorage extends RocksDBLogStorage {
         }
     }
 
+    @Override
+    public List<LogEntry> getEntries(final long fromIndex, final int maxCount, final long maxBytes) {
+        if (this.nativeHints) {
+            // Reading a range, e.g. a replicator is catching up, let the kernel read ahead.
+            final int fileIndex = binarySearchFileIndexByLogIndex(fromIndex);
+            if (fileIndex >= 0) {
+                this.readLock.lock();
+                try {
+                    if (fileIndex < this.segments.size()) {
+                        this.segments.get(fileIndex).hintSequential();
+                    }
+                } finally {
+                    this.readLock.unlock();
+                }
+            }
+        }
+        return super.getEntries(fromIndex, maxCount, maxBytes);
+    }
+
     @Override
     protected byte[] onDataGet(final long logIndex, final byte[] value) throws IOException {
         if (value == null || value.length != LOCATION_METADATA_SIZE) {
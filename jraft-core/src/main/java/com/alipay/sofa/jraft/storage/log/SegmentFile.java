@@ -17,6 +17,7 @@
 package com.alipay.sofa.jraft.storage.log;
 
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -31,6 +32,7 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -43,7 +45,9 @@ import com.alipay.sofa.jraft.storage.log.SegmentFile.SegmentFileOptions;
 import com.alipay.sofa.jraft.util.Bits;
 import com.alipay.sofa.jraft.util.BytesUtil;
 import com.alipay.sofa.jraft.util.Utils;
+import com.sun.jna.Native;
 import com.sun.jna.NativeLong;
+import com.sun.jna.Platform;
 import com.sun.jna.Pointer;
 
 import sun.nio.ch.DirectBuffer;
@@ -135,10 +139,13 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
         // True when is a new created file.
         final boolean isNewFile;
         final boolean sync;
+        // Allocate the disk space of a new file by fallocate instead of leaving it sparse.
+        final boolean preallocate;
 
         private SegmentFileOptions(final boolean recover, final boolean isLastFile, final boolean isNewFile,
-                                   final boolean sync, final int pos) {
+                                   final boolean sync, final int pos, final boolean preallocate) {
             super();
+            this.preallocate = preallocate;
             this.isNewFile = isNewFile;
             this.isLastFile = isLastFile;
             this.recover = recover;
@@ -151,11 +158,12 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
         }
 
         public static class Builder {
-            boolean recover    = false;
-            int     pos        = 0;
-            boolean isLastFile = false;
-            boolean isNewFile  = false;
-            boolean sync       = true;
+            boolean recover     = false;
+            int     pos         = 0;
+            boolean isLastFile  = false;
+            boolean isNewFile   = false;
+            boolean sync        = true;
+            boolean preallocate = false;
 
             public Builder setRecover(final boolean recover) {
                 this.recover = recover;
@@ -182,8 +190,14 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
                 return this;
             }
 
+            public Builder setPreallocate(final boolean preallocate) {
+                this.preallocate = preallocate;
+                return this;
+            }
+
             public SegmentFileOptions build() {
-                return new SegmentFileOptions(this.recover, this.isLastFile, this.isNewFile, this.sync, this.pos);
+                return new SegmentFileOptions(this.recover, this.isLastFile, this.isNewFile, this.sync, this.pos,
+                    this.preallocate);
             }
         }
 
@@ -225,6 +239,8 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
     private final ThreadPoolExecutor writeExecutor;
     private volatile boolean         swappedOut;
     private volatile boolean         readOnly;
+    // Whether madvise(MADV_SEQUENTIAL) was called on current mapping.
+    private volatile boolean         sequentialAdvised;
     private long                     swappedOutTimestamp     = -1L;
     private final String             filename;
 
@@ -331,6 +347,29 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
             Utils.monotonicMs() - beginTime);
     }
 
+    /**
+     * Advise the kernel that the mapped file will be read sequentially, so that it reads ahead
+     * aggressively, e.g. when a lagging follower is catching up. Only the first call after the
+     * file is mapped takes effect.
+     */
+    public void hintSequential() {
+        if (this.sequentialAdvised || !Platform.isLinux()) {
+            return;
+        }
+        this.readLock.lock();
+        try {
+            if (this.buffer == null || this.sequentialAdvised) {
+                return;
+            }
+            this.sequentialAdvised = true;
+            final Pointer pointer = new Pointer(((DirectBuffer) (this.buffer)).address());
+            final int ret = LibC.INSTANCE.madvise(pointer, new NativeLong(this.size), LibC.MADV_SEQUENTIAL);
+            LOG.debug("madvise(MADV_SEQUENTIAL) {} {} ret = {}", this.path, this.size, ret);
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
     public void swapOut() {
         if (!this.swappedOut) {
             this.writeLock.lock();
@@ -349,6 +388,7 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
                 this.swappedOut = true;
                 unmap(this.buffer);
                 this.buffer = null;
+                this.sequentialAdvised = false;
                 this.swappedOutTimestamp = now;
                 LOG.info("Swapped out segment file {}", this.path);
             } finally {
@@ -370,6 +410,9 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
             final int oldPos = this.wrotePos;
             clear(wrotePos, sync);
             this.wrotePos = wrotePos;
+            if (this.committedPos > wrotePos) {
+                this.committedPos = wrotePos;
+            }
             this.lastLogIndex = logIndex;
             this.buffer.position(wrotePos);
             LOG.info(
@@ -442,6 +485,9 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
         long startMs = Utils.monotonicMs();
         this.writeLock.lock();
         try (FileChannel fc = openFileChannel(true)) {
+            if (opts.preallocate) {
+                preallocate(fc);
+            }
             this.buffer = fc.map(MapMode.READ_WRITE, 0, this.size);
             // Warmup mmap file
             this.buffer.position(0);
@@ -464,6 +510,86 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
         }
     }
 
+    /**
+     * Read the header of an exists file without mapping it into memory.
+     *
+     * @return true when the header is valid
+     */
+    boolean readHeader() {
+        final File file = new File(this.path);
+        if (!file.exists()) {
+            LOG.error("File {} is not exists.", this.path);
+            return false;
+        }
+        this.writeLock.lock();
+        try (FileChannel fc = openFileChannel(false)) {
+            this.size = (int) file.length();
+            final ByteBuffer headerBuf = ByteBuffer.allocate(HEADER_SIZE);
+            while (headerBuf.hasRemaining()) {
+                if (fc.read(headerBuf, headerBuf.position()) < 0) {
+                    break;
+                }
+            }
+            headerBuf.flip();
+            if (!this.header.decode(headerBuf)) {
+                LOG.error("Fail to load segment header from file {}.", this.path);
+                return false;
+            }
+            return true;
+        } catch (final IOException e) {
+            LOG.error("Fail to read segment header from file {}.", this.path, e);
+            return false;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Load an exists read-only file lazily, the header must be read by {@link #readHeader()}.
+     * The file is left swapped out and mapped at the first access, it's used for the files
+     * that are fully covered by the checkpoint and never need to be recovered.
+     *
+     * @param opts the options, the wrote position is opts.pos
+     */
+    void initLazily(final SegmentFileOptions opts) {
+        assert (!opts.recover);
+        assert (!opts.isLastFile);
+        this.writeLock.lock();
+        try {
+            this.committedPos = this.wrotePos = opts.pos;
+            this.readOnly = true;
+            this.swappedOut = true;
+            LOG.info("Loaded segment file {} lazily, wrotePosition={}, mappedSize={}.", this.path, this.wrotePos,
+                this.size);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Allocate the disk space of the whole file by fallocate(2) without writing zeros, so that
+     * writing the mapped pages doesn't allocate blocks one by one. Falls back to the sparse file
+     * when it's not supported.
+     */
+    private void preallocate(final FileChannel fc) {
+        if (!Platform.isLinux()) {
+            return;
+        }
+        final int fd = getFd(fc);
+        if (fd < 0) {
+            return;
+        }
+        final long startMs = Utils.monotonicMs();
+        final int ret = LibC.INSTANCE.fallocate(fd, LibC.FALLOC_FL_DEFAULT, 0, this.size);
+        if (ret != 0) {
+            LOG.warn("Fail to fallocate segment file {}, size={}, errno={}.", this.path, this.size,
+                Native.getLastError());
+        } else {
+            LOG.info("fallocate segment file {}, size={}, time consuming = {}.", this.path, this.size,
+                Utils.monotonicMs() - startMs);
+        }
+    }
+
     private boolean loadExistsFile(final SegmentFileOptions opts) {
         this.writeLock.lock();
         try {
@@ -665,7 +791,11 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
     }
 
     static int getWriteBytes(final byte[] data) {
-        return RECORD_MAGIC_BYTES_SIZE + RECORD_DATA_LENGTH_SIZE + data.length;
+        return getWriteBytes(data.length);
+    }
+
+    static int getWriteBytes(final int dataLen) {
+        return RECORD_MAGIC_BYTES_SIZE + RECORD_DATA_LENGTH_SIZE + dataLen;
     }
 
     /**
@@ -675,14 +805,29 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
      * @param data     data to write
      * @return the wrote position
      */
-    @SuppressWarnings("NonAtomicOperationOnVolatileField")
     public int write(final long logIndex, final byte[] data, final WriteContext ctx) {
+        return write(logIndex, ByteBuffer.wrap(data), ctx);
+    }
+
+    /**
+     * Write the remaining bytes of data and return it's wrote position. The data is
+     * copied into the file asynchronously, so it must not be modified until the ctx
+     * finishes the job.
+     *
+     * @param logIndex the log index
+     * @param data     data to write
+     * @return the wrote position
+     */
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
+    public int write(final long logIndex, final ByteBuffer data, final WriteContext ctx) {
+        final ByteBuffer src = data.duplicate();
+        final int dataLen = src.remaining();
         int pos = -1;
         this.writeLock.lock();
         try {
             assert (this.wrotePos == this.buffer.position());
             pos = this.wrotePos;
-            this.wrotePos += RECORD_MAGIC_BYTES_SIZE + RECORD_DATA_LENGTH_SIZE + data.length;
+            this.wrotePos += getWriteBytes(dataLen);
             this.buffer.position(this.wrotePos);
             // Update log index.
             if (isBlank() || pos == HEADER_SIZE) {
@@ -697,9 +842,9 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
             final int wroteIndex = pos;
             this.writeExecutor.execute(() -> {
                 try {
-                    put(wroteIndex, RECORD_MAGIC_BYTES);
-                    putInt(wroteIndex + RECORD_MAGIC_BYTES_SIZE, data.length);
-                    put(wroteIndex + RECORD_MAGIC_BYTES_SIZE + RECORD_DATA_LENGTH_SIZE, data);
+                    put(wroteIndex, ByteBuffer.wrap(RECORD_MAGIC_BYTES));
+                    putInt(wroteIndex + RECORD_MAGIC_BYTES_SIZE, dataLen);
+                    put(wroteIndex + RECORD_MAGIC_BYTES_SIZE + RECORD_DATA_LENGTH_SIZE, src);
                 } catch (final Exception e) {
                     ctx.setError(e);
                 } finally {
@@ -717,10 +862,11 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
         }
     }
 
-    private void put(final int index, final byte[] data) {
-        for (int i = 0; i < data.length; i++) {
-            this.buffer.put(index + i, data[i]);
-        }
+    private void put(final int index, final ByteBuffer data) {
+        // Bulk copy by a duplicate, the position of the mapped buffer is owned by writer.
+        final ByteBuffer dest = this.buffer.duplicate();
+        dest.position(index);
+        dest.put(data);
     }
 
     /**
@@ -731,6 +877,24 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
      * @return read data
      */
     public byte[] read(final long logIndex, final int pos) throws IOException {
+        return read(logIndex, pos, buf -> {
+            final byte[] data = new byte[buf.remaining()];
+            buf.get(data);
+            return data;
+        });
+    }
+
+    /**
+     * Read data from the position and convert it by the reader, e.g. decode a log entry
+     * from the mapped buffer without copying the record out. The buffer passed to reader
+     * is only valid in the call, it must not be kept.
+     *
+     * @param logIndex the log index
+     * @param pos      the position to read
+     * @param reader   converts the data buffer
+     * @return the converted result, or null when the log is not found
+     */
+    public <T> T read(final long logIndex, final int pos, final Function<ByteBuffer, T> reader) throws IOException {
         assert (pos >= HEADER_SIZE);
         swapInIfNeed();
         this.readLock.lock();
@@ -754,6 +918,38 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
             }
             readBuffer.position(pos + RECORD_MAGIC_BYTES_SIZE);
             final int dataLen = readBuffer.getInt();
+            readBuffer.limit(readBuffer.position() + dataLen);
+            return reader.apply(readBuffer.slice());
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    /**
+     * Read the record at the position without checking the log index, it's used to
+     * rebuild the offset index when loading the segment file.
+     *
+     * @param pos the position to read
+     * @return the record data, or null when there is no valid record at the position
+     */
+    byte[] readRecord(final int pos) {
+        swapInIfNeed();
+        this.readLock.lock();
+        try {
+            if (pos < HEADER_SIZE || pos + RECORD_MAGIC_BYTES_SIZE + RECORD_DATA_LENGTH_SIZE > this.wrotePos) {
+                return null;
+            }
+            final ByteBuffer readBuffer = this.buffer.asReadOnlyBuffer();
+            readBuffer.position(pos);
+            final byte[] magicBytes = new byte[RECORD_MAGIC_BYTES_SIZE];
+            readBuffer.get(magicBytes);
+            if (!Arrays.equals(RECORD_MAGIC_BYTES, magicBytes)) {
+                return null;
+            }
+            final int dataLen = readBuffer.getInt();
+            if (dataLen < 0 || readBuffer.position() + dataLen > this.wrotePos) {
+                return null;
+            }
             final byte[] data = new byte[dataLen];
             readBuffer.get(data);
             return data;
@@ -813,6 +1009,23 @@ public class SegmentFile implements Lifecycle<SegmentFileOptions> {
         }
     }
 
+    /**
+     * Returns the native file descriptor of the channel, or -1 when it can't be accessed.
+     */
+    private static int getFd(final FileChannel fc) {
+        try {
+            final Field fdField = fc.getClass().getDeclaredField("fd");
+            fdField.setAccessible(true);
+            final FileDescriptor fileDescriptor = (FileDescriptor) fdField.get(fc);
+            final Field intFdField = FileDescriptor.class.getDeclaredField("fd");
+            intFdField.setAccessible(true);
+            return intFdField.getInt(fileDescriptor);
+        } catch (final Exception e) {
+            LOG.warn("Fail to get file descriptor of {}.", fc, e);
+            return -1;
+        }
+    }
+
     // See https://stackoverflow.com/questions/2972986/how-to-unmap-a-file-from-memory-mapped-using-filechannel-in-java
     // TODO move into utils
     @SuppressWarnings({ "unchecked", "rawtypes" })
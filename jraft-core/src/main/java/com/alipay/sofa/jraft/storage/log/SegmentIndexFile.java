@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.storage.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The offset index of a segment file, it maps log index to the wrote position of
+ * the log in segment file. The content is a sequence of index records:
+ * <pre>
+ *   log index      wrote position
+ *   [8 bytes]      [4 bytes]
+ * </pre>
+ *
+ * The log indexes in one segment file are increasing, and are continuous in most
+ * cases, so a lookup is a direct offset access and falls back to binary search.
+ * The index file is only a hint, it can always be rebuilt from the segment file.
+ *
+ * @author agent
+ */
+public class SegmentIndexFile {
+
+    private static final Logger LOG         = LoggerFactory.getLogger(SegmentIndexFile.class);
+
+    public static final int     RECORD_SIZE = 8 + 4;
+
+    private final String        path;
+    private FileChannel         channel;
+    private long[]              logIndexes  = new long[1024];
+    private int[]               positions   = new int[1024];
+    private volatile int        count;
+    // Records in [0, flushedCount) are wrote into file.
+    private int                 flushedCount;
+
+    public SegmentIndexFile(final String path) {
+        super();
+        this.path = path;
+    }
+
+    public String getPath() {
+        return this.path;
+    }
+
+    /**
+     * Open the index file and load all the complete index records.
+     */
+    public synchronized boolean load() {
+        try {
+            this.channel = FileChannel.open(Paths.get(this.path), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            final long fileSize = this.channel.size();
+            final int n = (int) (fileSize / RECORD_SIZE);
+            final ByteBuffer buf = ByteBuffer.allocate(n * RECORD_SIZE);
+            while (buf.hasRemaining()) {
+                if (this.channel.read(buf, buf.position()) < 0) {
+                    break;
+                }
+            }
+            buf.flip();
+            this.count = 0;
+            while (buf.remaining() >= RECORD_SIZE) {
+                final long logIndex = buf.getLong();
+                final int pos = buf.getInt();
+                if (this.count > 0 && logIndex <= this.logIndexes[this.count - 1]) {
+                    LOG.warn("Index file {} has unordered log index {} after {}, ignore the rest.", this.path,
+                        logIndex, this.logIndexes[this.count - 1]);
+                    break;
+                }
+                add(logIndex, pos);
+            }
+            if (fileSize != (long) this.count * RECORD_SIZE) {
+                LOG.warn("Index file {} has {} bytes, truncate it to {} records.", this.path, fileSize, this.count);
+                this.channel.truncate((long) this.count * RECORD_SIZE);
+            }
+            this.flushedCount = this.count;
+            return true;
+        } catch (final IOException e) {
+            LOG.error("Fail to load index file {}.", this.path, e);
+            return false;
+        }
+    }
+
+    private void add(final long logIndex, final int pos) {
+        if (this.count == this.logIndexes.length) {
+            final int newCap = this.logIndexes.length << 1;
+            this.logIndexes = Arrays.copyOf(this.logIndexes, newCap);
+            this.positions = Arrays.copyOf(this.positions, newCap);
+        }
+        this.logIndexes[this.count] = logIndex;
+        this.positions[this.count] = pos;
+        this.count++;
+    }
+
+    /**
+     * Append an index record in memory, it will be wrote into file by {@link #flush(boolean)}.
+     */
+    public synchronized void append(final long logIndex, final int pos) {
+        add(logIndex, pos);
+    }
+
+    /**
+     * Write the pending index records into file.
+     */
+    public synchronized void flush(final boolean sync) throws IOException {
+        if (this.flushedCount < this.count) {
+            final ByteBuffer buf = ByteBuffer.allocate((this.count - this.flushedCount) * RECORD_SIZE);
+            for (int i = this.flushedCount; i < this.count; i++) {
+                buf.putLong(this.logIndexes[i]);
+                buf.putInt(this.positions[i]);
+            }
+            buf.flip();
+            long filePos = (long) this.flushedCount * RECORD_SIZE;
+            while (buf.hasRemaining()) {
+                filePos += this.channel.write(buf, filePos);
+            }
+            this.flushedCount = this.count;
+        }
+        if (sync) {
+            this.channel.force(false);
+        }
+    }
+
+    /**
+     * Keep the first n index records and remove the others.
+     */
+    public synchronized void truncate(final int n) throws IOException {
+        if (n >= this.count) {
+            return;
+        }
+        this.count = Math.max(n, 0);
+        if (this.flushedCount > this.count) {
+            this.flushedCount = this.count;
+            this.channel.truncate((long) this.count * RECORD_SIZE);
+        }
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    public synchronized long getLogIndex(final int i) {
+        return this.logIndexes[i];
+    }
+
+    public synchronized int getPosition(final int i) {
+        return this.positions[i];
+    }
+
+    public synchronized long getFirstLogIndex() {
+        return this.count > 0 ? this.logIndexes[0] : -1L;
+    }
+
+    public synchronized long getLastLogIndex() {
+        return this.count > 0 ? this.logIndexes[this.count - 1] : -1L;
+    }
+
+    public synchronized int getLastPosition() {
+        return this.count > 0 ? this.positions[this.count - 1] : -1;
+    }
+
+    /**
+     * Returns the record slot of the log index, or a negative value
+     * -(insertion point + 1) when it's not found.
+     */
+    public synchronized int search(final long logIndex) {
+        if (this.count == 0) {
+            return -1;
+        }
+        // Fast path for continuous log indexes.
+        final long offset = logIndex - this.logIndexes[0];
+        if (offset >= 0 && offset < this.count && this.logIndexes[(int) offset] == logIndex) {
+            return (int) offset;
+        }
+        return Arrays.binarySearch(this.logIndexes, 0, this.count, logIndex);
+    }
+
+    /**
+     * Returns the wrote position of the log index, -1 when it's not found.
+     */
+    public synchronized int lookup(final long logIndex) {
+        final int slot = search(logIndex);
+        return slot >= 0 ? this.positions[slot] : -1;
+    }
+
+    public synchronized void shutdown() {
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (final IOException e) {
+                LOG.error("Fail to close index file {}.", this.path, e);
+            }
+            this.channel = null;
+        }
+    }
+
+    public synchronized void destroy() {
+        shutdown();
+        FileUtils.deleteQuietly(new File(this.path));
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentIndexFile [path=" + this.path + ", count=" + this.count + "]";
+    }
+}
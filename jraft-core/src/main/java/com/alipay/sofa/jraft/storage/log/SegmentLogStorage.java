@@ -0,0 +1,1189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.storage.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alipay.sofa.jraft.conf.Configuration;
+import com.alipay.sofa.jraft.conf.ConfigurationEntry;
+import com.alipay.sofa.jraft.conf.ConfigurationManager;
+import com.alipay.sofa.jraft.entity.EnumOutter.EntryType;
+import com.alipay.sofa.jraft.entity.LocalFileMetaOutter.LocalFileMeta;
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.entity.LogId;
+import com.alipay.sofa.jraft.entity.codec.LogEntryDecoder;
+import com.alipay.sofa.jraft.entity.codec.LogEntryEncoder;
+import com.alipay.sofa.jraft.option.LogStorageOptions;
+import com.alipay.sofa.jraft.option.RaftOptions;
+import com.alipay.sofa.jraft.storage.LogStorage;
+import com.alipay.sofa.jraft.storage.io.ProtoBufFile;
+import com.alipay.sofa.jraft.storage.log.CheckpointFile.Checkpoint;
+import com.alipay.sofa.jraft.storage.log.RocksDBSegmentLogStorage.BarrierWriteContext;
+import com.alipay.sofa.jraft.storage.log.SegmentFile.SegmentFileOptions;
+import com.alipay.sofa.jraft.util.Bits;
+import com.alipay.sofa.jraft.util.Describer;
+import com.alipay.sofa.jraft.util.ExecutorServiceHelper;
+import com.alipay.sofa.jraft.util.NamedThreadFactory;
+import com.alipay.sofa.jraft.util.Requires;
+import com.alipay.sofa.jraft.util.SystemPropertyUtil;
+import com.alipay.sofa.jraft.util.ThreadPoolUtil;
+import com.alipay.sofa.jraft.util.Utils;
+import com.google.protobuf.ZeroByteStringHelper;
+
+/**
+ * Log storage implementation based on segment files only, without rocksdb.
+ * <ul>
+ *   <li>Log entries are appended into fixed size mmap {@link SegmentFile}s.</li>
+ *   <li>Every segment file has a {@link SegmentIndexFile} that maps log index to wrote position.</li>
+ *   <li>The first log index and configuration entries are saved in a small meta file.</li>
+ *   <li>Truncating prefix deletes whole segment files, the kept logs in the first segment are
+ *   filtered by the first log index.</li>
+ *   <li>The last segment is recovered from {@link CheckpointFile} when the process didn't exit
+ *   normally, and the lost index records are rebuilt from segment data.</li>
+ * </ul>
+ *
+ * @author agent
+ */
+public class SegmentLogStorage implements LogStorage, Describer {
+
+    private static final Logger  LOG                            = LoggerFactory.getLogger(SegmentLogStorage.class);
+
+    private static final String  SEGMENT_FILE_POSFIX            = ".s";
+    private static final String  INDEX_FILE_POSFIX              = ".idx";
+    private static final Pattern SEGMENT_FILE_NAME_PATTERN      = Pattern.compile("[0-9]+\\.s");
+
+    private static final int     MEM_SEGMENT_COUNT              = 3;
+
+    /**
+     * Default checkpoint interval in milliseconds.
+     */
+    private static final int     DEFAULT_CHECKPOINT_INTERVAL_MS = SystemPropertyUtil.getInt(
+                                                                    "jraft.log_storage.segment.checkpoint.interval.ms",
+                                                                    5000);
+
+    /**
+     * Max segment file size, 1G
+     */
+    private static final int     MAX_SEGMENT_FILE_SIZE          = SystemPropertyUtil.getInt(
+                                                                    "jraft.log_storage.segment.max.size.bytes",
+                                                                    1024 * 1024 * 1024);
+
+    /**
+     * Initial size of the pooled direct buffer that log entries are encoded into, 64K.
+     */
+    private static final int     ENCODE_BUFFER_SIZE             = SystemPropertyUtil.getInt(
+                                                                    "jraft.log_storage.segment.encode.buffer.bytes",
+                                                                    64 * 1024);
+
+    /**
+     * The pooled encode buffer is released after a batch when it grows larger than this size, 4M.
+     */
+    private static final int     MAX_POOLED_ENCODE_BUFFER_SIZE  = SystemPropertyUtil
+                                                                    .getInt(
+                                                                        "jraft.log_storage.segment.encode.buffer.max.pooled.bytes",
+                                                                        4 * 1024 * 1024);
+
+    /**
+     * SegmentLogStorage builder
+     * @author agent
+     *
+     */
+    public static class Builder {
+        private String             path;
+        private RaftOptions        raftOptions;
+        private int                maxSegmentFileSize       = MAX_SEGMENT_FILE_SIZE;
+        private ThreadPoolExecutor writeExecutor;
+        private int                keepInMemorySegmentCount = MEM_SEGMENT_COUNT;
+        private int                checkpointIntervalMs     = DEFAULT_CHECKPOINT_INTERVAL_MS;
+
+        public String getPath() {
+            return this.path;
+        }
+
+        public Builder setPath(final String path) {
+            this.path = path;
+            return this;
+        }
+
+        public RaftOptions getRaftOptions() {
+            return this.raftOptions;
+        }
+
+        public Builder setRaftOptions(final RaftOptions raftOptions) {
+            this.raftOptions = raftOptions;
+            return this;
+        }
+
+        public int getMaxSegmentFileSize() {
+            return this.maxSegmentFileSize;
+        }
+
+        public Builder setMaxSegmentFileSize(final int maxSegmentFileSize) {
+            this.maxSegmentFileSize = maxSegmentFileSize;
+            return this;
+        }
+
+        public ThreadPoolExecutor getWriteExecutor() {
+            return this.writeExecutor;
+        }
+
+        public Builder setWriteExecutor(final ThreadPoolExecutor writeExecutor) {
+            this.writeExecutor = writeExecutor;
+            return this;
+        }
+
+        public int getKeepInMemorySegmentCount() {
+            return this.keepInMemorySegmentCount;
+        }
+
+        public Builder setKeepInMemorySegmentCount(final int keepInMemorySegmentCount) {
+            this.keepInMemorySegmentCount = keepInMemorySegmentCount;
+            return this;
+        }
+
+        public int getCheckpointIntervalMs() {
+            return this.checkpointIntervalMs;
+        }
+
+        public Builder setCheckpointIntervalMs(final int checkpointIntervalMs) {
+            this.checkpointIntervalMs = checkpointIntervalMs;
+            return this;
+        }
+
+        public SegmentLogStorage build() {
+            return new SegmentLogStorage(this.path, this.raftOptions, this.maxSegmentFileSize,
+                this.keepInMemorySegmentCount, this.checkpointIntervalMs, this.writeExecutor);
+        }
+    }
+
+    /**
+     * A segment file and it's offset index.
+     */
+    private static class Segment {
+        final SegmentFile      file;
+        final SegmentIndexFile index;
+
+        Segment(final SegmentFile file, final SegmentIndexFile index) {
+            super();
+            this.file = file;
+            this.index = index;
+        }
+
+        long getFirstLogIndex() {
+            return this.index.getFirstLogIndex();
+        }
+
+        long getLastLogIndex() {
+            return this.index.getLastLogIndex();
+        }
+
+        void shutdown() {
+            this.file.shutdown();
+            this.index.shutdown();
+        }
+
+        void destroy() {
+            this.file.destroy();
+            this.index.destroy();
+        }
+
+        @Override
+        public String toString() {
+            return "Segment [file=" + this.file + ", index=" + this.index + "]";
+        }
+    }
+
+    private final String                path;
+    private final String                segmentsPath;
+    private final boolean               sync;
+    private final int                   maxSegmentFileSize;
+    private final int                   keepInMemorySegmentCount;
+    private final int                   checkpointIntervalMs;
+    private final CheckpointFile        checkpointFile;
+    private final AbortFile             abortFile;
+    private final String                metaPath;
+    private final ThreadPoolExecutor    userWriteExecutor;
+    private ThreadPoolExecutor          writeExecutor;
+    private ScheduledExecutorService    checkpointExecutor;
+    // segments ordered by log index.
+    private final List<Segment>         segments         = new ArrayList<>();
+    private final AtomicLong            nextFileSequence = new AtomicLong(0);
+    private final ReadWriteLock         readWriteLock    = new ReentrantReadWriteLock();
+    private final Lock                  readLock         = this.readWriteLock.readLock();
+    private final Lock                  writeLock        = this.readWriteLock.writeLock();
+    // Serializes all the mutations: append, truncate and reset.
+    private final Lock                  appendLock       = new ReentrantLock();
+    // Configuration entries that are not truncated, protected by appendLock.
+    private final TreeMap<Long, byte[]> confEntries      = new TreeMap<>();
+    private volatile long               firstLogIndex    = 1;
+    private volatile boolean            hasLoadFirstLogIndex;
+    private volatile long               lastLogIndex     = 0;
+    private volatile boolean            started;
+    private LogEntryEncoder             logEntryEncoder;
+    private LogEntryDecoder             logEntryDecoder;
+    // Direct buffer that a batch of entries is encoded into, protected by appendLock.
+    private ByteBuffer                  encodeBuffer;
+
+    /**
+     * Creates a SegmentLogStorage builder.
+     * @return a builder instance.
+     */
+    public static Builder builder(final String uri, final RaftOptions raftOptions) {
+        return new Builder().setPath(uri).setRaftOptions(raftOptions);
+    }
+
+    public SegmentLogStorage(final String path, final RaftOptions raftOptions) {
+        this(path, raftOptions, MAX_SEGMENT_FILE_SIZE, MEM_SEGMENT_COUNT, DEFAULT_CHECKPOINT_INTERVAL_MS, null);
+    }
+
+    public SegmentLogStorage(final String path, final RaftOptions raftOptions, final int maxSegmentFileSize,
+                             final int keepInMemorySegmentCount, final int checkpointIntervalMs,
+                             final ThreadPoolExecutor writeExecutor) {
+        super();
+        Requires.requireNonNull(path, "path");
+        Requires.requireTrue(maxSegmentFileSize > SegmentFile.HEADER_SIZE, "maxSegmentFileSize is too small");
+        Requires.requireTrue(checkpointIntervalMs > 0, "checkpointIntervalMs is not greater than zero");
+        Requires.requireTrue(keepInMemorySegmentCount > 0, "keepInMemorySegmentCount is not greater than zero");
+        this.path = path;
+        this.sync = raftOptions == null || raftOptions.isSync();
+        this.segmentsPath = path + File.separator + "segments";
+        this.abortFile = new AbortFile(this.segmentsPath + File.separator + "abort");
+        this.checkpointFile = new CheckpointFile(this.segmentsPath + File.separator + "checkpoint");
+        this.metaPath = this.segmentsPath + File.separator + "meta";
+        this.maxSegmentFileSize = maxSegmentFileSize;
+        this.keepInMemorySegmentCount = keepInMemorySegmentCount;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        this.userWriteExecutor = writeExecutor;
+    }
+
+    private static ThreadPoolExecutor createDefaultWriteExecutor() {
+        return ThreadPoolUtil.newThreadPool("SegmentLogStorage-write-pool", true, Utils.cpus(), Utils.cpus() * 3, 60,
+            new ArrayBlockingQueue<>(10000), new NamedThreadFactory("SegmentLogStorageWriter"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public boolean init(final LogStorageOptions opts) {
+        Requires.requireNonNull(opts.getConfigurationManager(), "Null conf manager");
+        Requires.requireNonNull(opts.getLogEntryCodecFactory(), "Null log entry codec factory");
+        final long startMs = Utils.monotonicMs();
+        this.appendLock.lock();
+        this.writeLock.lock();
+        try {
+            if (this.started) {
+                LOG.warn("SegmentLogStorage init() already.");
+                return true;
+            }
+            this.logEntryDecoder = opts.getLogEntryCodecFactory().decoder();
+            this.logEntryEncoder = opts.getLogEntryCodecFactory().encoder();
+            Requires.requireNonNull(this.logEntryDecoder, "Null log entry decoder");
+            Requires.requireNonNull(this.logEntryEncoder, "Null log entry encoder");
+            FileUtils.forceMkdir(new File(this.segmentsPath));
+            this.writeExecutor = this.userWriteExecutor != null ? this.userWriteExecutor : createDefaultWriteExecutor();
+
+            this.firstLogIndex = 1;
+            this.hasLoadFirstLogIndex = false;
+            this.confEntries.clear();
+            loadMeta();
+
+            if (!loadSegments()) {
+                shutdownSegments();
+                return false;
+            }
+            loadConfEntries(opts.getConfigurationManager());
+
+            LOG.info("{} loaded {} segments from path {}, firstLogIndex={}, lastLogIndex={}, segments: \n{}",
+                getServiceName(), this.segments.size(), this.segmentsPath, this.firstLogIndex, this.lastLogIndex,
+                descSegments());
+
+            if (!this.abortFile.exists()) {
+                if (!this.abortFile.create()) {
+                    LOG.error("Fail to create abort file {}.", this.abortFile.getPath());
+                    shutdownSegments();
+                    return false;
+                }
+            } else {
+                this.abortFile.touch();
+            }
+            startCheckpointTask();
+            this.started = true;
+            return true;
+        } catch (final IOException e) {
+            LOG.error("Fail to init SegmentLogStorage, path={}.", this.path, e);
+            shutdownSegments();
+            return false;
+        } finally {
+            this.writeLock.unlock();
+            this.appendLock.unlock();
+            LOG.info("{} init and load cost {} ms.", getServiceName(), Utils.monotonicMs() - startMs);
+        }
+    }
+
+    private boolean loadSegments() throws IOException {
+        final Checkpoint checkpoint = loadCheckpoint();
+        final boolean normalExit = !this.abortFile.exists();
+        if (!normalExit) {
+            LOG.info("{} {} did not exit normally, will try to recover last file.", getServiceName(),
+                this.segmentsPath);
+        }
+        final File[] segmentFiles = new File(this.segmentsPath)
+                .listFiles((final File dir, final String name) -> SEGMENT_FILE_NAME_PATTERN.matcher(name).matches());
+        if (segmentFiles == null || segmentFiles.length == 0) {
+            this.lastLogIndex = this.firstLogIndex - 1;
+            return true;
+        }
+        // Sort by sequences.
+        Arrays.sort(segmentFiles, Comparator.comparing(SegmentLogStorage::getFileSequenceFromFileName));
+
+        final List<SegmentFile> files = new ArrayList<>(segmentFiles.length);
+        for (final File segFile : segmentFiles) {
+            this.nextFileSequence.set(getFileSequenceFromFileName(segFile) + 1);
+            final SegmentFile segmentFile = new SegmentFile(this.maxSegmentFileSize, segFile.getAbsolutePath(),
+                this.writeExecutor);
+            if (!segmentFile.mmapFile(false)) {
+                LOG.error("Fail to mmap segment file {}.", segFile.getAbsolutePath());
+                return false;
+            }
+            if (segmentFile.isBlank()) {
+                // Created but never wrote.
+                destroySegment(new Segment(segmentFile, new SegmentIndexFile(getIndexFilePath(segmentFile))));
+            } else {
+                files.add(segmentFile);
+            }
+        }
+
+        final String checkpointSegFile = checkpoint != null ? checkpoint.segFilename : null;
+        boolean afterCheckpoint = false;
+        for (int i = 0; i < files.size(); i++) {
+            final SegmentFile segmentFile = files.get(i);
+            final boolean isLastFile = i == files.size() - 1;
+            final int pos;
+            final boolean recover;
+            if (segmentFile.getFilename().equals(checkpointSegFile)) {
+                afterCheckpoint = true;
+                pos = checkpoint.committedPos;
+                recover = !normalExit;
+            } else if (afterCheckpoint || isLastFile) {
+                // The checkpoint is behind this file, recover it from the beginning.
+                pos = 0;
+                recover = true;
+            } else {
+                // Sealed segment file, the offset index tells where the logs are.
+                pos = segmentFile.getSize();
+                recover = false;
+            }
+            final SegmentFileOptions opts = SegmentFileOptions.builder() //
+                .setSync(this.sync) //
+                .setRecover(recover) //
+                .setLastFile(isLastFile) //
+                .setNewFile(false) //
+                .setPos(pos) //
+                .build();
+            final Segment segment = new Segment(segmentFile, new SegmentIndexFile(getIndexFilePath(segmentFile)));
+            if (!segmentFile.init(opts)) {
+                LOG.error("Fail to load segment file {}.", segmentFile.getPath());
+                segment.shutdown();
+                return false;
+            }
+            this.segments.add(segment);
+            if (!loadSegmentIndex(segment, isLastFile)) {
+                return false;
+            }
+        }
+
+        // Remove the empty segments and the segments that should have been deleted by truncating prefix.
+        final List<Segment> removed = new ArrayList<>();
+        for (final Segment segment : this.segments) {
+            if (segment.index.getCount() == 0
+                || (this.hasLoadFirstLogIndex && segment.getLastLogIndex() < this.firstLogIndex)) {
+                removed.add(segment);
+            }
+        }
+        for (final Segment segment : removed) {
+            this.segments.remove(segment);
+            destroySegment(segment);
+        }
+
+        if (this.segments.isEmpty()) {
+            this.lastLogIndex = this.firstLogIndex - 1;
+        } else {
+            if (!this.hasLoadFirstLogIndex) {
+                this.firstLogIndex = this.segments.get(0).getFirstLogIndex();
+            }
+            this.lastLogIndex = this.segments.get(this.segments.size() - 1).getLastLogIndex();
+            for (int i = 0; i < this.segments.size(); i++) {
+                this.segments.get(i).file.setReadOnly(i != this.segments.size() - 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Load the offset index of the segment, drop the index records that point to truncated
+     * data and rebuild the missing ones from the segment file.
+     */
+    private boolean loadSegmentIndex(final Segment segment, final boolean isLastFile) throws IOException {
+        final SegmentFile file = segment.file;
+        final SegmentIndexFile index = segment.index;
+        if (!index.load()) {
+            return false;
+        }
+        final int wrotePos = file.getWrotePos();
+        int keep = index.getCount();
+        while (keep > 0 && index.getPosition(keep - 1) >= wrotePos) {
+            keep--;
+        }
+        if (keep < index.getCount()) {
+            LOG.warn("Index file {} has {} records point to the truncated data.", index.getPath(), index.getCount()
+                                                                                                   - keep);
+            index.truncate(keep);
+        }
+        int pos = SegmentFile.HEADER_SIZE;
+        if (keep > 0) {
+            final int lastPos = index.getLastPosition();
+            final byte[] data = file.readRecord(lastPos);
+            if (data == null) {
+                LOG.error("Detected corrupted segment file {}, invalid record at pos={}.", file.getPath(), lastPos);
+                return false;
+            }
+            pos = lastPos + SegmentFile.getWriteBytes(data);
+        }
+        int rebuilt = 0;
+        while (pos < wrotePos) {
+            final byte[] data = file.readRecord(pos);
+            if (data == null) {
+                break;
+            }
+            final LogEntry entry = this.logEntryDecoder.decode(data);
+            if (entry == null) {
+                LOG.warn("Fail to decode log entry in segment file {} at pos={}.", file.getPath(), pos);
+                break;
+            }
+            final long logIndex = entry.getId().getIndex();
+            if (index.getCount() > 0 && logIndex <= index.getLastLogIndex()) {
+                LOG.warn("Unordered log index {} in segment file {} at pos={}.", logIndex, file.getPath(), pos);
+                break;
+            }
+            index.append(logIndex, pos);
+            pos += SegmentFile.getWriteBytes(data);
+            rebuilt++;
+        }
+        if (rebuilt > 0) {
+            LOG.info("Rebuilt {} index records for segment file {}.", rebuilt, file.getPath());
+            index.flush(this.sync);
+        }
+        if (isLastFile && pos < wrotePos) {
+            // Make sure the next append starts right after the last valid record.
+            file.truncateSuffix(pos, index.getLastLogIndex(), this.sync);
+        }
+        if (index.getCount() > 0) {
+            file.setLastLogIndex(index.getLastLogIndex());
+        }
+        return true;
+    }
+
+    private void loadConfEntries(final ConfigurationManager confManager) {
+        final List<Long> invalidIndexes = new ArrayList<>();
+        for (final Map.Entry<Long, byte[]> kv : this.confEntries.entrySet()) {
+            final LogEntry entry = this.logEntryDecoder.decode(kv.getValue());
+            if (entry == null || entry.getType() != EntryType.ENTRY_TYPE_CONFIGURATION) {
+                LOG.warn("Fail to decode conf entry at index {}.", kv.getKey());
+                invalidIndexes.add(kv.getKey());
+                continue;
+            }
+            // The conf entry must be the same one in segment files.
+            final LogEntry logEntry = getEntry(kv.getKey());
+            if (logEntry == null || logEntry.getType() != EntryType.ENTRY_TYPE_CONFIGURATION
+                || !logEntry.getId().equals(entry.getId())) {
+                invalidIndexes.add(kv.getKey());
+                continue;
+            }
+            final ConfigurationEntry confEntry = new ConfigurationEntry();
+            confEntry.setId(new LogId(entry.getId().getIndex(), entry.getId().getTerm()));
+            confEntry.setConf(new Configuration(entry.getPeers(), entry.getLearners()));
+            if (entry.getOldPeers() != null) {
+                confEntry.setOldConf(new Configuration(entry.getOldPeers(), entry.getOldLearners()));
+            }
+            if (confManager != null) {
+                confManager.add(confEntry);
+            }
+        }
+        for (final Long index : invalidIndexes) {
+            this.confEntries.remove(index);
+        }
+    }
+
+    private Checkpoint loadCheckpoint() {
+        final Checkpoint checkpoint;
+        try {
+            checkpoint = this.checkpointFile.load();
+            if (checkpoint != null) {
+                LOG.info("Loaded checkpoint: {} from {}.", checkpoint, this.checkpointFile.getPath());
+            }
+        } catch (final IOException e) {
+            LOG.error("Fail to load checkpoint file: {}", this.checkpointFile.getPath(), e);
+            return null;
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Meta format:
+     * <ul>
+     *  <li> first log index(8 B)</li>
+     *  <li> configuration entries count(4 B)</li>
+     *  <li> [log index(8 B), entry length(4 B), entry bytes] ...</li>
+     * </ul>
+     */
+    private void loadMeta() throws IOException {
+        final LocalFileMeta meta = new ProtoBufFile(this.metaPath).load();
+        if (meta == null) {
+            return;
+        }
+        final byte[] bs = meta.getUserMeta().toByteArray();
+        if (bs.length < 12) {
+            LOG.warn("Invalid meta file {}, length={}.", this.metaPath, bs.length);
+            return;
+        }
+        this.firstLogIndex = Bits.getLong(bs, 0);
+        this.hasLoadFirstLogIndex = true;
+        final int n = Bits.getInt(bs, 8);
+        int offset = 12;
+        for (int i = 0; i < n && offset + 12 <= bs.length; i++) {
+            final long index = Bits.getLong(bs, offset);
+            final int len = Bits.getInt(bs, offset + 8);
+            offset += 12;
+            if (len < 0 || offset + len > bs.length) {
+                LOG.warn("Invalid meta file {}, broken configuration entry at index {}.", this.metaPath, index);
+                break;
+            }
+            this.confEntries.put(index, Arrays.copyOfRange(bs, offset, offset + len));
+            offset += len;
+        }
+    }
+
+    private boolean saveMeta() {
+        int size = 12;
+        for (final byte[] bs : this.confEntries.values()) {
+            size += 12 + bs.length;
+        }
+        final byte[] data = new byte[size];
+        Bits.putLong(data, 0, this.firstLogIndex);
+        Bits.putInt(data, 8, this.confEntries.size());
+        int offset = 12;
+        for (final Map.Entry<Long, byte[]> kv : this.confEntries.entrySet()) {
+            Bits.putLong(data, offset, kv.getKey());
+            Bits.putInt(data, offset + 8, kv.getValue().length);
+            System.arraycopy(kv.getValue(), 0, data, offset + 12, kv.getValue().length);
+            offset += 12 + kv.getValue().length;
+        }
+        final LocalFileMeta meta = LocalFileMeta.newBuilder() //
+            .setUserMeta(ZeroByteStringHelper.wrap(data)) //
+            .build();
+        try {
+            return new ProtoBufFile(this.metaPath).save(meta, true);
+        } catch (final IOException e) {
+            LOG.error("Fail to save meta file {}.", this.metaPath, e);
+            return false;
+        }
+    }
+
+    private static long getFileSequenceFromFileName(final File file) {
+        final String name = file.getName();
+        assert (name.endsWith(SEGMENT_FILE_POSFIX));
+        final int idx = name.indexOf(SEGMENT_FILE_POSFIX);
+        return Long.valueOf(name.substring(0, idx));
+    }
+
+    private static String getIndexFilePath(final SegmentFile segmentFile) {
+        final String segPath = segmentFile.getPath();
+        return segPath.substring(0, segPath.length() - SEGMENT_FILE_POSFIX.length()) + INDEX_FILE_POSFIX;
+    }
+
+    private String getNewSegmentFilePath() {
+        return this.segmentsPath + File.separator + String.format("%019d", this.nextFileSequence.getAndIncrement())
+               + SEGMENT_FILE_POSFIX;
+    }
+
+    private Segment createNewSegment() throws IOException {
+        final SegmentFile segmentFile = new SegmentFile(this.maxSegmentFileSize, getNewSegmentFilePath(),
+            this.writeExecutor);
+        final SegmentFileOptions opts = SegmentFileOptions.builder() //
+            .setSync(false) //
+            .setRecover(false) //
+            .setLastFile(true) //
+            .setNewFile(true) //
+            .setPos(0).build();
+        if (!segmentFile.init(opts)) {
+            throw new IOException("Fail to create new segment file " + segmentFile.getPath());
+        }
+        final SegmentIndexFile index = new SegmentIndexFile(getIndexFilePath(segmentFile));
+        if (!index.load()) {
+            segmentFile.destroy();
+            throw new IOException("Fail to create new index file " + index.getPath());
+        }
+        final Segment segment = new Segment(segmentFile, index);
+        this.writeLock.lock();
+        try {
+            this.segments.add(segment);
+        } finally {
+            this.writeLock.unlock();
+        }
+        LOG.info("Create a new segment file {}.", segmentFile.getPath());
+        return segment;
+    }
+
+    private String getServiceName() {
+        return this.getClass().getSimpleName();
+    }
+
+    private StringBuilder descSegments() {
+        final StringBuilder segmentsDesc = new StringBuilder("[\n");
+        for (final Segment segment : this.segments) {
+            segmentsDesc.append("  ").append(segment.toString()).append("\n");
+        }
+        segmentsDesc.append("]");
+        return segmentsDesc;
+    }
+
+    private void startCheckpointTask() {
+        this.checkpointExecutor = Executors
+                .newSingleThreadScheduledExecutor(new NamedThreadFactory(getServiceName() + "-Checkpoint-Thread-", true));
+        this.checkpointExecutor.scheduleAtFixedRate(() -> {
+            doCheckpoint();
+            doSwapOutSegments();
+        }, this.checkpointIntervalMs, this.checkpointIntervalMs, TimeUnit.MILLISECONDS);
+        LOG.info("{} started checkpoint task.", getServiceName());
+    }
+
+    private void stopCheckpointTask() {
+        if (this.checkpointExecutor != null) {
+            this.checkpointExecutor.shutdownNow();
+            try {
+                this.checkpointExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.checkpointExecutor = null;
+            LOG.info("{} stopped checkpoint task.", getServiceName());
+        }
+    }
+
+    private void doCheckpoint() {
+        final Segment lastSegment = getLastSegment();
+        if (lastSegment == null) {
+            return;
+        }
+        try {
+            this.checkpointFile
+                .save(new Checkpoint(lastSegment.file.getFilename(), lastSegment.file.getCommittedPos()));
+        } catch (final IOException e) {
+            LOG.error("Fatal error, fail to do checkpoint, last segment file is {}.", lastSegment.file.getPath(), e);
+        }
+    }
+
+    private void doSwapOutSegments() {
+        this.readLock.lock();
+        try {
+            final int lastIndex = this.segments.size() - 1;
+            for (int i = lastIndex - this.keepInMemorySegmentCount; i >= 0; i--) {
+                final SegmentFile segFile = this.segments.get(i).file;
+                if (!segFile.isSwappedOut()) {
+                    segFile.hintUnload();
+                    segFile.swapOut();
+                }
+            }
+        } catch (final Exception e) {
+            LOG.error("Fail to swap out segments.", e);
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    private Segment getLastSegment() {
+        this.readLock.lock();
+        try {
+            return this.segments.isEmpty() ? null : this.segments.get(this.segments.size() - 1);
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    private Segment findSegment(final long logIndex) {
+        this.readLock.lock();
+        try {
+            int low = 0;
+            int high = this.segments.size() - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final Segment segment = this.segments.get(mid);
+                if (segment.getLastLogIndex() < logIndex) {
+                    low = mid + 1;
+                } else if (segment.getFirstLogIndex() > logIndex) {
+                    high = mid - 1;
+                } else {
+                    return segment;
+                }
+            }
+            return null;
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    private void destroySegment(final Segment segment) {
+        segment.destroy();
+        LOG.info("Destroyed segment file {}.", segment.file.getPath());
+    }
+
+    @Override
+    public void shutdown() {
+        stopCheckpointTask();
+        this.appendLock.lock();
+        this.writeLock.lock();
+        try {
+            if (!this.started) {
+                return;
+            }
+            this.started = false;
+            doCheckpoint();
+            shutdownSegments();
+            if (!this.abortFile.destroy()) {
+                LOG.error("Fail to delete abort file {}.", this.abortFile.getPath());
+            }
+            if (this.writeExecutor != this.userWriteExecutor) {
+                ExecutorServiceHelper.shutdownAndAwaitTermination(this.writeExecutor);
+            }
+            this.writeExecutor = null;
+            LOG.info("{} shutdown, the path is: {}.", getServiceName(), this.path);
+        } finally {
+            this.writeLock.unlock();
+            this.appendLock.unlock();
+        }
+    }
+
+    private void shutdownSegments() {
+        for (final Segment segment : this.segments) {
+            segment.shutdown();
+        }
+        this.segments.clear();
+    }
+
+    @Override
+    public long getFirstLogIndex() {
+        return this.firstLogIndex;
+    }
+
+    @Override
+    public long getLastLogIndex() {
+        return this.lastLogIndex;
+    }
+
+    @Override
+    public LogEntry getEntry(final long index) {
+        if (index < this.firstLogIndex || index > this.lastLogIndex) {
+            return null;
+        }
+        this.readLock.lock();
+        try {
+            final Segment segment = findSegment(index);
+            if (segment == null) {
+                return null;
+            }
+            final int pos = segment.index.lookup(index);
+            if (pos < 0) {
+                return null;
+            }
+            return readEntry(segment, index, pos);
+        } catch (final IOException e) {
+            LOG.error("Fail to get log entry at index {}.", index, e);
+            return null;
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<LogEntry> getEntries(final long fromIndex, final int maxCount, final long maxBytes) {
+        final List<LogEntry> entries = new ArrayList<>(Math.min(maxCount, 64));
+        if (fromIndex < this.firstLogIndex || fromIndex > this.lastLogIndex) {
+            return entries;
+        }
+        this.readLock.lock();
+        try {
+            long index = fromIndex;
+            long bytes = 0;
+            Segment segment = findSegment(index);
+            // Scan the index records of segments sequentially.
+            while (segment != null && entries.size() < maxCount && (entries.isEmpty() || bytes < maxBytes)) {
+                int slot = segment.index.search(index);
+                if (slot < 0) {
+                    break;
+                }
+                for (; slot < segment.index.getCount() && entries.size() < maxCount
+                       && (entries.isEmpty() || bytes < maxBytes); slot++) {
+                    if (segment.index.getLogIndex(slot) != index) {
+                        return entries;
+                    }
+                    final LogEntry entry = readEntry(segment, index, segment.index.getPosition(slot));
+                    if (entry == null) {
+                        return entries;
+                    }
+                    entries.add(entry);
+                    bytes += entry.getData() != null ? entry.getData().remaining() : 0;
+                    index++;
+                }
+                segment = index <= this.lastLogIndex ? findSegment(index) : null;
+            }
+        } catch (final IOException e) {
+            LOG.error("Fail to get log entries from index {}.", fromIndex, e);
+        } finally {
+            this.readLock.unlock();
+        }
+        return entries;
+    }
+
+    /**
+     * Decodes the log entry from the mapped segment file.
+     */
+    private LogEntry readEntry(final Segment segment, final long index, final int pos) throws IOException {
+        final boolean[] found = new boolean[1];
+        final LogEntry entry = segment.file.read(index, pos, buf -> {
+            found[0] = true;
+            return this.logEntryDecoder.decodeFrom(buf);
+        });
+        if (found[0] && entry == null) {
+            LOG.error("Bad log entry format for index={} in segment file {} at pos={}.", index,
+                segment.file.getPath(), pos);
+        }
+        return entry;
+    }
+
+    @Deprecated
+    @Override
+    public long getTerm(final long index) {
+        final LogEntry entry = getEntry(index);
+        if (entry != null) {
+            return entry.getId().getTerm();
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean appendEntry(final LogEntry entry) {
+        return appendEntries(Collections.singletonList(entry)) == 1;
+    }
+
+    @Override
+    public int appendEntries(final List<LogEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return 0;
+        }
+        this.appendLock.lock();
+        try {
+            if (!this.started) {
+                LOG.warn("SegmentLogStorage not initialized or destroyed.");
+                return 0;
+            }
+            final long firstIndex = entries.get(0).getId().getIndex();
+            if (firstIndex <= this.lastLogIndex && this.lastLogIndex >= this.firstLogIndex) {
+                // Overwrite the conflicting logs.
+                LOG.warn("Appending log at index {} which is not greater than last log index {}, truncate suffix.",
+                    firstIndex, this.lastLogIndex);
+                if (!truncateSuffix(firstIndex - 1)) {
+                    return 0;
+                }
+            }
+            final boolean wasEmpty = this.lastLogIndex < this.firstLogIndex;
+            final BarrierWriteContext ctx = new BarrierWriteContext();
+            final List<Segment> touched = new ArrayList<>(2);
+            boolean confChanged = false;
+            long prevIndex = wasEmpty ? -1L : this.lastLogIndex;
+            int appended = 0;
+            try {
+                for (final LogEntry entry : entries) {
+                    final long logIndex = entry.getId().getIndex();
+                    if (logIndex <= prevIndex) {
+                        LOG.error("Fail to append log entry at index {}, it's not greater than last log index {}.",
+                            logIndex, prevIndex);
+                        break;
+                    }
+                    final ByteBuffer content = encodeEntry(entry);
+                    final int writeBytes = SegmentFile.getWriteBytes(content.remaining());
+                    if (writeBytes + SegmentFile.HEADER_SIZE > this.maxSegmentFileSize) {
+                        LOG.error("Log entry at index {} is too large, size={}, maxSegmentFileSize={}.", logIndex,
+                            writeBytes, this.maxSegmentFileSize);
+                        break;
+                    }
+                    Segment segment = getLastSegment();
+                    if (segment == null || segment.file.reachesFileEndBy(writeBytes)) {
+                        segment = createNewSegment();
+                    }
+                    if (touched.isEmpty() || touched.get(touched.size() - 1) != segment) {
+                        touched.add(segment);
+                    }
+                    ctx.startJob();
+                    final int pos = segment.file.write(logIndex, content, ctx);
+                    segment.index.append(logIndex, pos);
+                    if (entry.getType() == EntryType.ENTRY_TYPE_CONFIGURATION) {
+                        final byte[] bs = new byte[content.remaining()];
+                        content.duplicate().get(bs);
+                        this.confEntries.put(logIndex, bs);
+                        confChanged = true;
+                    }
+                    prevIndex = logIndex;
+                    appended++;
+                }
+                ctx.joinAll();
+                releaseEncodeBuffer(false);
+                for (int i = 0; i < touched.size(); i++) {
+                    final Segment segment = touched.get(i);
+                    segment.file.sync(this.sync);
+                    segment.index.flush(this.sync);
+                    if (i != touched.size() - 1) {
+                        segment.file.setReadOnly(true);
+                    }
+                }
+                if (appended > 0 && wasEmpty && !this.hasLoadFirstLogIndex) {
+                    this.firstLogIndex = firstIndex;
+                    this.hasLoadFirstLogIndex = true;
+                    confChanged = true;
+                }
+                if (confChanged && !saveMeta()) {
+                    return 0;
+                }
+                if (appended > 0) {
+                    this.lastLogIndex = prevIndex;
+                }
+                return appended;
+            } catch (final IOException e) {
+                LOG.error("Fail to append entries.", e);
+                // The pending writes may still be reading the encode buffer.
+                releaseEncodeBuffer(true);
+                return 0;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                releaseEncodeBuffer(true);
+                return 0;
+            }
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    /**
+     * Encodes the entry into the pooled direct buffer and returns the slice of it, the slices of a batch
+     * stay valid until the buffer is cleared by the next batch. Must be called with appendLock held.
+     */
+    private ByteBuffer encodeEntry(final LogEntry entry) {
+        if (this.encodeBuffer == null) {
+            this.encodeBuffer = ByteBuffer.allocateDirect(ENCODE_BUFFER_SIZE);
+        }
+        while (true) {
+            final int start = this.encodeBuffer.position();
+            try {
+                final int len = this.logEntryEncoder.encode(entry, this.encodeBuffer);
+                final ByteBuffer slice = this.encodeBuffer.duplicate();
+                slice.position(start);
+                slice.limit(start + len);
+                return slice.slice();
+            } catch (final BufferOverflowException e) {
+                this.encodeBuffer.position(start);
+                if (start == 0 && this.encodeBuffer.capacity() >= Integer.MAX_VALUE / 2) {
+                    throw e;
+                }
+                // The slices of previous entries still refer to the old buffer, so allocate a new one.
+                this.encodeBuffer = ByteBuffer.allocateDirect(this.encodeBuffer.capacity() * 2);
+            }
+        }
+    }
+
+    private void releaseEncodeBuffer(final boolean discard) {
+        if (this.encodeBuffer == null) {
+            return;
+        }
+        if (discard || this.encodeBuffer.capacity() > MAX_POOLED_ENCODE_BUFFER_SIZE) {
+            this.encodeBuffer = null;
+        } else {
+            this.encodeBuffer.clear();
+        }
+    }
+
+    @Override
+    public boolean truncatePrefix(final long firstIndexKept) {
+        final List<Segment> removed = new ArrayList<>();
+        this.appendLock.lock();
+        try {
+            if (this.hasLoadFirstLogIndex && firstIndexKept <= this.firstLogIndex) {
+                return true;
+            }
+            final long startIndex = this.firstLogIndex;
+            this.firstLogIndex = firstIndexKept;
+            this.hasLoadFirstLogIndex = true;
+            this.confEntries.headMap(firstIndexKept).clear();
+            if (!saveMeta()) {
+                return false;
+            }
+            this.writeLock.lock();
+            try {
+                while (!this.segments.isEmpty() && this.segments.get(0).getLastLogIndex() < firstIndexKept) {
+                    removed.add(this.segments.remove(0));
+                }
+                if (this.segments.isEmpty()) {
+                    this.lastLogIndex = firstIndexKept - 1;
+                }
+            } finally {
+                this.writeLock.unlock();
+            }
+            LOG.info("{} truncated prefix from {} to {}, removed {} segment files.", getServiceName(), startIndex,
+                firstIndexKept, removed.size());
+            return true;
+        } finally {
+            this.appendLock.unlock();
+            for (final Segment segment : removed) {
+                destroySegment(segment);
+            }
+        }
+    }
+
+    @Override
+    public boolean truncateSuffix(final long lastIndexKept) {
+        final List<Segment> removed = new ArrayList<>();
+        this.appendLock.lock();
+        try {
+            if (lastIndexKept >= this.lastLogIndex) {
+                return true;
+            }
+            this.writeLock.lock();
+            try {
+                while (!this.segments.isEmpty()) {
+                    final Segment segment = this.segments.get(this.segments.size() - 1);
+                    if (segment.getFirstLogIndex() > lastIndexKept) {
+                        removed.add(this.segments.remove(this.segments.size() - 1));
+                        continue;
+                    }
+                    int slot = segment.index.search(lastIndexKept + 1);
+                    if (slot < 0) {
+                        slot = -(slot + 1);
+                    }
+                    if (slot < segment.index.getCount()) {
+                        final int cutPos = segment.index.getPosition(slot);
+                        segment.index.truncate(slot);
+                        segment.file.truncateSuffix(cutPos, segment.getLastLogIndex(), this.sync);
+                    }
+                    segment.file.setReadOnly(false);
+                    break;
+                }
+                this.lastLogIndex = this.segments.isEmpty() ? Math.min(lastIndexKept, this.firstLogIndex - 1)
+                    : this.segments.get(this.segments.size() - 1).getLastLogIndex();
+            } finally {
+                this.writeLock.unlock();
+            }
+            if (!this.confEntries.tailMap(lastIndexKept, false).isEmpty()) {
+                this.confEntries.tailMap(lastIndexKept, false).clear();
+                saveMeta();
+            }
+            doCheckpoint();
+            return true;
+        } catch (final IOException e) {
+            LOG.error("Fail to truncateSuffix {}.", lastIndexKept, e);
+            return false;
+        } finally {
+            this.appendLock.unlock();
+            for (final Segment segment : removed) {
+                destroySegment(segment);
+            }
+        }
+    }
+
+    @Override
+    public boolean reset(final long nextLogIndex) {
+        if (nextLogIndex <= 0) {
+            throw new IllegalArgumentException("Invalid next log index.");
+        }
+        final List<Segment> removed;
+        this.appendLock.lock();
+        try {
+            LogEntry entry = getEntry(nextLogIndex);
+            this.writeLock.lock();
+            try {
+                removed = new ArrayList<>(this.segments);
+                this.segments.clear();
+                this.checkpointFile.destroy();
+                this.firstLogIndex = nextLogIndex;
+                this.hasLoadFirstLogIndex = true;
+                this.lastLogIndex = nextLogIndex - 1;
+                this.confEntries.clear();
+            } finally {
+                this.writeLock.unlock();
+            }
+            for (final Segment segment : removed) {
+                destroySegment(segment);
+            }
+            if (!saveMeta()) {
+                return false;
+            }
+            LOG.info("Destroyed segments and checkpoint in path {} by resetting.", this.segmentsPath);
+            if (entry == null) {
+                entry = new LogEntry();
+                entry.setType(EntryType.ENTRY_TYPE_NO_OP);
+                entry.setId(new LogId(nextLogIndex, 0));
+                LOG.warn("Entry not found for nextLogIndex {} when reset.", nextLogIndex);
+            }
+            return appendEntry(entry);
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void describe(final Printer out) {
+        this.readLock.lock();
+        try {
+            out.println(getServiceName() + " [path=" + this.path + ", firstLogIndex=" + this.firstLogIndex
+                        + ", lastLogIndex=" + this.lastLogIndex + ", confEntries=" + this.confEntries.size() + "]");
+            out.println(descSegments());
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.util.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compresses the data of AppendEntries requests. The implementations are loaded by
+ * {@link com.alipay.sofa.jraft.util.JRaftServiceLoader} and annotated with
+ * {@link com.alipay.sofa.jraft.util.SPI} whose name is used in
+ * {@link com.alipay.sofa.jraft.option.RaftOptions#setReplicatorCompressor(String)}, so that
+ * codecs such as LZ4 or Snappy can be plugged in without any dependencies in jraft-core.
+ *
+ * The implementations must be thread-safe.
+ *
+ * @author agent
+ */
+public interface Compressor {
+
+    /**
+     * The unique type of compressor in the wire, in range [1, 31], the peers advertise the types
+     * they support as a bit set.
+     */
+    int getType();
+
+    /**
+     * Compresses the remaining bytes of the source buffer, the position of source is not changed.
+     *
+     * @param src the source buffer
+     * @return the compressed bytes
+     */
+    byte[] compress(final ByteBuffer src);
+
+    /**
+     * Decompresses the remaining bytes of the source buffer.
+     *
+     * @param src              the compressed buffer
+     * @param decompressedSize the size of decompressed bytes
+     * @return the decompressed bytes
+     * @throws IOException if the data is corrupted
+     */
+    byte[] decompress(final ByteBuffer src, final int decompressedSize) throws IOException;
+}
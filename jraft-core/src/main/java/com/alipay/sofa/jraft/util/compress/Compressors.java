@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.util.compress;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alipay.sofa.jraft.util.JRaftServiceLoader;
+
+/**
+ * The compressors loaded by SPI, indexed by type.
+ *
+ * @author agent
+ */
+public final class Compressors {
+
+    private static final Logger       LOG         = LoggerFactory.getLogger(Compressors.class);
+
+    public static final int           MAX_TYPE    = 31;
+
+    private static final Compressor[] COMPRESSORS = new Compressor[MAX_TYPE + 1];
+    // Bit set of supported types
+    private static final int          SUPPORTED_TYPES;
+
+    static {
+        int types = 0;
+        final List<Compressor> compressors = JRaftServiceLoader.load(Compressor.class).sort();
+        for (final Compressor compressor : compressors) {
+            final int type = compressor.getType();
+            if (type <= 0 || type > MAX_TYPE || COMPRESSORS[type] != null) {
+                LOG.error("Invalid or duplicated type {} of compressor {}, ignore it.", type, compressor);
+                continue;
+            }
+            COMPRESSORS[type] = compressor;
+            types |= 1 << type;
+        }
+        SUPPORTED_TYPES = types;
+    }
+
+    /**
+     * Returns the compressor of the type, null if it's not supported.
+     */
+    public static Compressor get(final int type) {
+        return type > 0 && type <= MAX_TYPE ? COMPRESSORS[type] : null;
+    }
+
+    /**
+     * Finds the compressor by its SPI name.
+     *
+     * @throws java.util.ServiceConfigurationError if not found
+     */
+    public static Compressor find(final String name) {
+        return get(JRaftServiceLoader.load(Compressor.class).find(name).getType());
+    }
+
+    /**
+     * Returns the bit set of supported types.
+     */
+    public static int supportedTypes() {
+        return SUPPORTED_TYPES;
+    }
+
+    public static boolean isSupported(final int types, final int type) {
+        return type > 0 && type <= MAX_TYPE && (types & (1 << type)) != 0;
+    }
+
+    private Compressors() {
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.util.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.alipay.sofa.jraft.util.SPI;
+
+/**
+ * Deflate compressor of JDK at the best speed level, the deflater and inflater are cached
+ * per thread.
+ *
+ * @author agent
+ */
+@SPI(name = "deflate")
+public class DeflateCompressor implements Compressor {
+
+    public static final int                TYPE     = 1;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(
+                                                            Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    @Override
+    public int getType() {
+        return TYPE;
+    }
+
+    @Override
+    public byte[] compress(final ByteBuffer src) {
+        final byte[] input = toArray(src);
+        final Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        byte[] out = new byte[Math.max(64, input.length / 2)];
+        int len = 0;
+        while (!deflater.finished()) {
+            if (len == out.length) {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            len += deflater.deflate(out, len, out.length - len);
+        }
+        return len == out.length ? out : Arrays.copyOf(out, len);
+    }
+
+    @Override
+    public byte[] decompress(final ByteBuffer src, final int decompressedSize) throws IOException {
+        final Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(toArray(src));
+        final byte[] out = new byte[decompressedSize];
+        try {
+            int len = 0;
+            while (len < decompressedSize && !inflater.finished()) {
+                final int n = inflater.inflate(out, len, decompressedSize - len);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                len += n;
+            }
+            if (len != decompressedSize) {
+                throw new IOException("Decompressed size mismatch, expect " + decompressedSize + " but " + len);
+            }
+        } catch (final DataFormatException e) {
+            throw new IOException("Corrupted deflate data", e);
+        }
+        return out;
+    }
+
+    private static byte[] toArray(final ByteBuffer src) {
+        if (src.hasArray() && src.arrayOffset() == 0 && src.position() == 0 && src.remaining() == src.array().length) {
+            return src.array();
+        }
+        final byte[] bs = new byte[src.remaining()];
+        src.duplicate().get(bs);
+        return bs;
+    }
+}
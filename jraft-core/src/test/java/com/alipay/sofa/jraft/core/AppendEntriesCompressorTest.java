@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.util.compress.DeflateCompressor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AppendEntriesCompressorTest {
+
+    private final AppendEntriesCompressor compressor = new AppendEntriesCompressor(new DeflateCompressor());
+
+    private static ByteBuffer compressible(final int size) {
+        return ByteBuffer.wrap(new byte[size]);
+    }
+
+    private static ByteBuffer incompressible(final int size) {
+        final byte[] bs = new byte[size];
+        ThreadLocalRandom.current().nextBytes(bs);
+        return ByteBuffer.wrap(bs);
+    }
+
+    @Test
+    public void testCompress() {
+        assertEquals(100, this.compressor.getRatio());
+        assertNotNull(this.compressor.compress(compressible(8192)));
+        assertTrue(this.compressor.getRatio() < 10);
+        assertTrue(this.compressor.getCompressNanos() > 0);
+        assertEquals(DeflateCompressor.TYPE, this.compressor.getType());
+    }
+
+    @Test
+    public void testSkipSmallData() {
+        assertNull(this.compressor.compress(compressible(AppendEntriesCompressor.MIN_COMPRESS_BYTES - 1)));
+        assertEquals(0, this.compressor.getCompressNanos());
+    }
+
+    @Test
+    public void testSkipAdaptively() {
+        // Poor ratio, skips the next batches.
+        assertNull(this.compressor.compress(incompressible(8192)));
+        for (int i = 0; i < AppendEntriesCompressor.MIN_SKIP_BATCHES; i++) {
+            assertNull(this.compressor.compress(compressible(8192)));
+        }
+        assertEquals(AppendEntriesCompressor.MIN_SKIP_BATCHES, this.compressor.getSkippedBatches());
+
+        // Poor again, the skipped batches double.
+        assertNull(this.compressor.compress(incompressible(8192)));
+        for (int i = 0; i < AppendEntriesCompressor.MIN_SKIP_BATCHES * 2; i++) {
+            assertNull(this.compressor.compress(compressible(8192)));
+        }
+        assertEquals(AppendEntriesCompressor.MIN_SKIP_BATCHES * 3, this.compressor.getSkippedBatches());
+
+        // Good ratio resets the backoff.
+        assertNotNull(this.compressor.compress(compressible(8192)));
+        assertNull(this.compressor.compress(incompressible(8192)));
+        for (int i = 0; i < AppendEntriesCompressor.MIN_SKIP_BATCHES; i++) {
+            assertNull(this.compressor.compress(compressible(8192)));
+        }
+        assertNotNull(this.compressor.compress(compressible(8192)));
+    }
+}
@@ -70,7 +70,7 @@ public class BallotBoxTest {
 
     @Test
     public void testAppendPendingTask() {
-        assertTrue(this.box.getPendingMetaQueue().isEmpty());
+        assertTrue(this.box.getPendingCount() == 0);
         assertTrue(this.closureQueue.getQueue().isEmpty());
         assertFalse(this.box.appendPendingTask(
             JRaftUtils.getConfiguration("localhost:8081,localhost:8082,localhost:8083"),
@@ -92,7 +92,7 @@ public class BallotBoxTest {
                 }
             }));
 
-        assertEquals(1, this.box.getPendingMetaQueue().size());
+        assertEquals(1, this.box.getPendingCount());
         assertEquals(1, this.closureQueue.getQueue().size());
     }
 
@@ -100,7 +100,7 @@ public class BallotBoxTest {
     public void testClearPendingTasks() {
         testAppendPendingTask();
         this.box.clearPendingTasks();
-        assertTrue(this.box.getPendingMetaQueue().isEmpty());
+        assertTrue(this.box.getPendingCount() == 0);
         assertTrue(this.closureQueue.getQueue().isEmpty());
         assertEquals(0, closureQueue.getFirstIndex());
     }
@@ -152,4 +152,74 @@ public class BallotBoxTest {
         assertEquals(1, this.box.getLastCommittedIndex());
         Mockito.verify(this.waiter, Mockito.only()).onCommitted(1);
     }
+
+    private void appendPendingTasks(final String conf, final String oldConf, final int n) {
+        for (int i = 0; i < n; i++) {
+            assertTrue(this.box.appendPendingTask(JRaftUtils.getConfiguration(conf), oldConf == null ? null
+                : JRaftUtils.getConfiguration(oldConf), null));
+        }
+    }
+
+    @Test
+    public void testCommitAtJointConsensus() {
+        assertTrue(box.resetPendingIndex(1));
+        appendPendingTasks("localhost:8081,localhost:8082,localhost:8083", null, 2);
+        // joint consensus
+        appendPendingTasks("localhost:8081,localhost:8084,localhost:8085",
+            "localhost:8081,localhost:8082,localhost:8083", 2);
+        assertEquals(4, this.box.getPendingCount());
+
+        assertTrue(this.box.commitAt(1, 4, new PeerId("localhost", 8081)));
+        assertTrue(this.box.commitAt(1, 4, new PeerId("localhost", 8084)));
+        assertTrue(this.box.commitAt(1, 4, new PeerId("localhost", 8085)));
+        // The old configuration has no quorum for the logs 3 and 4, but the logs 1 and 2 are not
+        // committed either, because the old configuration is the configuration of them.
+        assertEquals(0, this.box.getLastCommittedIndex());
+        assertTrue(this.box.commitAt(1, 3, new PeerId("localhost", 8082)));
+        assertEquals(3, this.box.getLastCommittedIndex());
+        assertEquals(4, this.box.getPendingIndex());
+        assertEquals(1, this.box.getPendingCount());
+        assertTrue(this.box.commitAt(4, 4, new PeerId("localhost", 8083)));
+        assertEquals(4, this.box.getLastCommittedIndex());
+        assertEquals(0, this.box.getPendingCount());
+        Mockito.verify(this.waiter).onCommitted(3);
+        Mockito.verify(this.waiter).onCommitted(4);
+    }
+
+    @Test
+    public void testCommitAtQuorumDecreased() {
+        assertTrue(box.resetPendingIndex(1));
+        appendPendingTasks("localhost:8081,localhost:8082,localhost:8083,localhost:8084", null, 2);
+        // remove 8084, 3 of 4 changes to 2 of 3
+        appendPendingTasks("localhost:8081,localhost:8082,localhost:8083", null, 1);
+        assertTrue(this.box.commitAt(1, 3, new PeerId("localhost", 8081)));
+        assertTrue(this.box.commitAt(1, 3, new PeerId("localhost", 8082)));
+        // The log 3 is committed with the new configuration, and all the previous logs too.
+        assertEquals(3, this.box.getLastCommittedIndex());
+        Mockito.verify(this.waiter, Mockito.only()).onCommitted(3);
+    }
+
+    @Test
+    public void testCommitAtConcurrently() throws Exception {
+        final int n = 10000;
+        final String conf = "localhost:8081,localhost:8082,localhost:8083,localhost:8084,localhost:8085";
+        assertTrue(box.resetPendingIndex(1));
+        appendPendingTasks(conf, null, n);
+        final Thread[] threads = new Thread[5];
+        for (int i = 0; i < threads.length; i++) {
+            final PeerId peer = new PeerId("localhost", 8081 + i);
+            threads[i] = new Thread(() -> {
+                for (int j = 1; j <= n; j += 10) {
+                    this.box.commitAt(j, Math.min(n, j + 9), peer);
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(n, this.box.getLastCommittedIndex());
+        assertEquals(n + 1, this.box.getPendingIndex());
+        Mockito.verify(this.waiter, Mockito.atLeastOnce()).onCommitted(n);
+    }
 }
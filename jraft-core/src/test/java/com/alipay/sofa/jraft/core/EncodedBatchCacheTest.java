@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.core.EncodedBatchCache.EncodedBatch;
+import com.alipay.sofa.jraft.entity.EnumOutter;
+import com.alipay.sofa.jraft.entity.RaftOutter;
+import com.alipay.sofa.jraft.util.ByteBufferCollector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EncodedBatchCacheTest {
+
+    private EncodedBatchCache cache;
+
+    @Before
+    public void setup() {
+        this.cache = new EncodedBatchCache(2);
+    }
+
+    private EncodedBatch newBatch(final long startIndex, final int count) {
+        final List<RaftOutter.EntryMeta> entries = new ArrayList<>();
+        final ByteBufferCollector data = ByteBufferCollector.allocate(count * 4);
+        for (int i = 0; i < count; i++) {
+            entries.add(RaftOutter.EntryMeta.newBuilder().setTerm(1).setType(EnumOutter.EntryType.ENTRY_TYPE_DATA)
+                .setDataLen(4).build());
+            data.put(new byte[] { 1, 2, 3, 4 });
+        }
+        data.getBuffer().flip();
+        return new EncodedBatch(startIndex, 1, entries, data);
+    }
+
+    @Test
+    public void testPutAndAcquire() {
+        final EncodedBatch batch = newBatch(1, 3);
+        assertEquals(3, batch.getLastIndex());
+        assertEquals(12, batch.getDataSize());
+        this.cache.put(batch);
+        assertEquals(2, batch.refCnt());
+        assertNull(this.cache.acquire(2));
+
+        final EncodedBatch acquired = this.cache.acquire(1);
+        assertSame(batch, acquired);
+        assertEquals(3, batch.refCnt());
+        assertEquals(12, acquired.getData().size());
+        // getData doesn't change the position of buffer
+        assertEquals(12, acquired.getData().size());
+
+        assertFalse(batch.recycle());
+        assertFalse(acquired.recycle());
+        assertEquals(1, batch.refCnt());
+        this.cache.clear();
+        assertEquals(0, batch.refCnt());
+        assertEquals(0, this.cache.size());
+        assertNull(this.cache.acquire(1));
+    }
+
+    @Test
+    public void testEvict() {
+        final EncodedBatch b1 = newBatch(1, 1);
+        final EncodedBatch b2 = newBatch(2, 1);
+        final EncodedBatch b3 = newBatch(3, 1);
+        this.cache.put(b1);
+        this.cache.put(b2);
+        this.cache.put(b3);
+        assertEquals(2, this.cache.size());
+        assertEquals(1, b1.refCnt());
+        assertNull(this.cache.acquire(1));
+        assertTrue(b1.recycle());
+        assertFalse(b1.retain());
+
+        this.cache.remove(b2);
+        assertEquals(1, b2.refCnt());
+        assertEquals(1, this.cache.size());
+        assertSame(b3, this.cache.acquire(3));
+    }
+
+    @Test
+    public void testReplace() {
+        final EncodedBatch b1 = newBatch(1, 1);
+        final EncodedBatch b2 = newBatch(1, 2);
+        this.cache.put(b1);
+        this.cache.put(b2);
+        assertEquals(1, b1.refCnt());
+        assertEquals(2, b2.refCnt());
+        assertSame(b2, this.cache.acquire(1));
+    }
+}
@@ -20,7 +20,16 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -31,17 +40,23 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.alipay.sofa.jraft.ApplyBatch;
+import com.alipay.sofa.jraft.ApplyPartitioner;
+import com.alipay.sofa.jraft.BatchStateMachine;
+import com.alipay.sofa.jraft.Closure;
 import com.alipay.sofa.jraft.Iterator;
 import com.alipay.sofa.jraft.StateMachine;
 import com.alipay.sofa.jraft.Status;
 import com.alipay.sofa.jraft.closure.ClosureQueueImpl;
 import com.alipay.sofa.jraft.closure.LoadSnapshotClosure;
 import com.alipay.sofa.jraft.closure.SaveSnapshotClosure;
+import com.alipay.sofa.jraft.conf.Configuration;
 import com.alipay.sofa.jraft.entity.EnumOutter.EntryType;
 import com.alipay.sofa.jraft.entity.EnumOutter.ErrorType;
 import com.alipay.sofa.jraft.entity.LeaderChangeContext;
 import com.alipay.sofa.jraft.entity.LogEntry;
 import com.alipay.sofa.jraft.entity.LogId;
+import com.alipay.sofa.jraft.entity.PeerId;
 import com.alipay.sofa.jraft.entity.RaftOutter.SnapshotMeta;
 import com.alipay.sofa.jraft.error.RaftError;
 import com.alipay.sofa.jraft.error.RaftException;
@@ -68,6 +83,7 @@ public class FSMCallerTest {
         this.closureQueue = new ClosureQueueImpl();
         final FSMCallerOptions opts = new FSMCallerOptions();
         Mockito.when(this.node.getNodeMetrics()).thenReturn(new NodeMetrics(false));
+        TestUtils.mockGetEntries(this.logManager);
         opts.setNode(this.node);
         opts.setFsm(this.fsm);
         opts.setLogManager(this.logManager);
@@ -127,6 +143,326 @@ public class FSMCallerTest {
         assertTrue(this.fsmCaller.getError().getStatus().isOk());
     }
 
+    static class MockBatchStateMachine extends StateMachineAdapter implements BatchStateMachine {
+        final List<long[]> ranges         = new ArrayList<>();
+        final List<String> datas          = new ArrayList<>();
+        // Integer.MAX_VALUE fails the batch after all of its tasks are applied.
+        int                errorPos       = -1;
+        int                secondErrorPos = -1;
+
+        @Override
+        public void onApplyBatch(final ApplyBatch batch) {
+            this.ranges.add(new long[] { batch.getFirstIndex(), batch.getLastIndex() });
+            for (int i = 0; i < batch.size(); i++) {
+                assertEquals(batch.getFirstIndex() + i, batch.getIndex(i));
+                assertEquals(1, batch.getTerm(i));
+                this.datas.add(new String(batch.getData(i).array()));
+            }
+            if (this.errorPos >= 0) {
+                batch.setError(Math.min(this.errorPos, batch.size()), new Status(RaftError.ESTATEMACHINE, "test"));
+            }
+            if (this.secondErrorPos >= 0) {
+                batch.setError(this.secondErrorPos, new Status(RaftError.EINTERNAL, "second"));
+            }
+        }
+    }
+
+    private FSMCallerImpl initBatchCaller(final MockBatchStateMachine batchFsm) {
+        return initCaller(batchFsm, null, 1);
+    }
+
+    private FSMCallerImpl initCaller(final StateMachine fsm, final ApplyPartitioner partitioner, final int parallelism) {
+        this.fsmCaller.shutdown();
+        try {
+            this.fsmCaller.join();
+        } catch (final InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        final FSMCallerImpl caller = new FSMCallerImpl();
+        final FSMCallerOptions opts = new FSMCallerOptions();
+        opts.setNode(this.node);
+        opts.setFsm(fsm);
+        opts.setApplyPartitioner(partitioner);
+        opts.setApplyParallelism(parallelism);
+        opts.setLogManager(this.logManager);
+        opts.setBootstrapId(new LogId(10, 1));
+        opts.setClosureQueue(this.closureQueue);
+        assertTrue(caller.init(opts));
+        this.fsmCaller = caller;
+        return caller;
+    }
+
+    private void mockEntries(final long from, final long to, final long confIndex) {
+        for (long i = from; i <= to; i++) {
+            final LogEntry log = new LogEntry(i == confIndex ? EntryType.ENTRY_TYPE_CONFIGURATION
+                : EntryType.ENTRY_TYPE_DATA);
+            log.getId().setIndex(i);
+            log.getId().setTerm(1);
+            log.setData(ByteBuffer.wrap(("data" + i).getBytes()));
+            Mockito.when(this.logManager.getTerm(i)).thenReturn(1L);
+            Mockito.when(this.logManager.getEntry(i)).thenReturn(log);
+        }
+    }
+
+    @Test
+    public void testOnCommittedBatchStateMachine() throws Exception {
+        final MockBatchStateMachine batchFsm = new MockBatchStateMachine();
+        final FSMCallerImpl caller = initBatchCaller(batchFsm);
+        mockEntries(11, 15, 13);
+
+        assertTrue(caller.onCommitted(15));
+
+        caller.flush();
+        assertEquals(15, caller.getLastAppliedIndex());
+        // the configuration entry splits the ranges
+        assertEquals(2, batchFsm.ranges.size());
+        assertEquals(11, batchFsm.ranges.get(0)[0]);
+        assertEquals(12, batchFsm.ranges.get(0)[1]);
+        assertEquals(14, batchFsm.ranges.get(1)[0]);
+        assertEquals(15, batchFsm.ranges.get(1)[1]);
+        assertEquals("data11", batchFsm.datas.get(0));
+        assertEquals("data15", batchFsm.datas.get(3));
+        Mockito.verify(this.logManager).setAppliedId(new LogId(15, 1));
+        assertTrue(caller.getError().getStatus().isOk());
+    }
+
+    @Test
+    public void testOnCommittedBatchStateMachineError() throws Exception {
+        final MockBatchStateMachine batchFsm = new MockBatchStateMachine();
+        batchFsm.errorPos = 2;
+        final FSMCallerImpl caller = initBatchCaller(batchFsm);
+        mockEntries(11, 15, -1);
+
+        assertTrue(caller.onCommitted(15));
+
+        caller.flush();
+        assertEquals(1, batchFsm.ranges.size());
+        // 11 and 12 are applied
+        assertEquals(12, caller.getLastAppliedIndex());
+        Mockito.verify(this.logManager).setAppliedId(new LogId(12, 1));
+        assertEquals(RaftError.ESTATEMACHINE, caller.getError().getStatus().getRaftError());
+        assertEquals(ErrorType.ERROR_TYPE_STATE_MACHINE, caller.getError().getType());
+    }
+
+    @Test
+    public void testOnCommittedBatchStateMachineErrorAfterApplied() throws Exception {
+        final MockBatchStateMachine batchFsm = new MockBatchStateMachine();
+        batchFsm.errorPos = Integer.MAX_VALUE;
+        final FSMCallerImpl caller = initBatchCaller(batchFsm);
+        mockEntries(11, 15, -1);
+
+        assertTrue(caller.onCommitted(15));
+
+        caller.flush();
+        assertEquals(1, batchFsm.ranges.size());
+        // all the tasks are applied before the error
+        assertEquals(15, caller.getLastAppliedIndex());
+        Mockito.verify(this.logManager).setAppliedId(new LogId(15, 1));
+        assertEquals(ErrorType.ERROR_TYPE_STATE_MACHINE, caller.getError().getType());
+    }
+
+    @Test
+    public void testOnCommittedBatchStateMachineErrorAfterAppliedBeforeConf() throws Exception {
+        final MockBatchStateMachine batchFsm = new MockBatchStateMachine();
+        batchFsm.errorPos = Integer.MAX_VALUE;
+        final FSMCallerImpl caller = initBatchCaller(batchFsm);
+        mockEntries(11, 15, 13);
+
+        assertTrue(caller.onCommitted(15));
+
+        caller.flush();
+        assertEquals(1, batchFsm.ranges.size());
+        // 11 and 12 are applied, the configuration entry is not
+        assertEquals(12, caller.getLastAppliedIndex());
+        Mockito.verify(this.logManager).setAppliedId(new LogId(12, 1));
+        assertEquals(ErrorType.ERROR_TYPE_STATE_MACHINE, caller.getError().getType());
+    }
+
+    @Test
+    public void testOnCommittedBatchStateMachineKeepsFirstError() throws Exception {
+        final MockBatchStateMachine batchFsm = new MockBatchStateMachine();
+        batchFsm.errorPos = 2;
+        batchFsm.secondErrorPos = 0;
+        final FSMCallerImpl caller = initBatchCaller(batchFsm);
+        mockEntries(11, 15, -1);
+
+        assertTrue(caller.onCommitted(15));
+
+        caller.flush();
+        // the second error doesn't roll back 11 and 12
+        assertEquals(12, caller.getLastAppliedIndex());
+        Mockito.verify(this.logManager).setAppliedId(new LogId(12, 1));
+        assertTrue(caller.getError().getStatus().getErrorMsg().contains("test"));
+        assertFalse(caller.getError().getStatus().getErrorMsg().contains("second"));
+    }
+
+    static class MockPartitionedStateMachine extends StateMachineAdapter {
+        final Map<Long, List<Long>> partitions = new ConcurrentHashMap<>();
+        final Set<Thread>           threads    = ConcurrentHashMap.newKeySet();
+        final List<Long>            configs    = new CopyOnWriteArrayList<>();
+        long                        failIndex  = -1;
+
+        static long partition(final ByteBuffer data) {
+            return Long.parseLong(new String(data.array()).substring(4)) % 4;
+        }
+
+        @Override
+        public void onApply(final Iterator iter) {
+            this.threads.add(Thread.currentThread());
+            while (iter.hasNext()) {
+                if (iter.getIndex() == this.failIndex) {
+                    iter.setErrorAndRollback(1, new Status(RaftError.ESTATEMACHINE, "test"));
+                    return;
+                }
+                this.partitions.computeIfAbsent(partition(iter.getData()), k -> new CopyOnWriteArrayList<>()).add(
+                    iter.getIndex());
+                if (iter.done() != null) {
+                    iter.done().run(Status.OK());
+                }
+                iter.next();
+            }
+        }
+
+        @Override
+        public void onConfigurationCommitted(final Configuration conf) {
+            this.configs.add((long) this.partitions.values().stream().mapToInt(List::size).sum());
+        }
+    }
+
+    @Test
+    public void testOnCommittedPartitioned() throws Exception {
+        final MockPartitionedStateMachine partitionedFsm = new MockPartitionedStateMachine();
+        final FSMCallerImpl caller = initCaller(partitionedFsm,
+            data -> (int) MockPartitionedStateMachine.partition(data), 4);
+        mockEntries(11, 110, 61);
+        final LogEntry conf = this.logManager.getEntry(61);
+        conf.setPeers(Arrays.asList(new PeerId("localhost", 8081)));
+        conf.setOldPeers(Arrays.asList(new PeerId("localhost", 8082)));
+
+        assertTrue(caller.onCommitted(110));
+
+        caller.flush();
+        assertEquals(110, caller.getLastAppliedIndex());
+        Mockito.verify(this.logManager).setAppliedId(new LogId(110, 1));
+        assertTrue(caller.getError().getStatus().isOk());
+        // every partition is applied in order on its own lane
+        assertEquals(4, partitionedFsm.threads.size());
+        int count = 0;
+        for (final Map.Entry<Long, List<Long>> entry : partitionedFsm.partitions.entrySet()) {
+            long prev = 0;
+            for (final long index : entry.getValue()) {
+                assertEquals(entry.getKey().longValue(), index % 4);
+                assertTrue(index > prev);
+                prev = index;
+            }
+            count += entry.getValue().size();
+        }
+        assertEquals(99, count);
+        // the configuration entry is a barrier
+        assertEquals(Arrays.asList(50L), partitionedFsm.configs);
+    }
+
+    @Test
+    public void testOnCommittedPartitionedError() throws Exception {
+        final MockPartitionedStateMachine partitionedFsm = new MockPartitionedStateMachine();
+        partitionedFsm.failIndex = 14;
+        final FSMCallerImpl caller = initCaller(partitionedFsm, data -> (int) MockPartitionedStateMachine.partition(data) % 2, 2);
+        mockEntries(11, 20, -1);
+        final CountDownLatch latch = new CountDownLatch(10);
+        final Map<Long, List<Status>> statuses = new ConcurrentHashMap<>();
+        this.closureQueue.resetFirstIndex(11);
+        for (long i = 11; i <= 20; i++) {
+            final long index = i;
+            final Closure done = status -> {
+                statuses.computeIfAbsent(index, k -> new CopyOnWriteArrayList<>()).add(status);
+                latch.countDown();
+            };
+            this.closureQueue.appendPendingClosure(done);
+        }
+
+        assertTrue(caller.onCommitted(20));
+
+        caller.flush();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        // 14 is the first task not applied, the odd tasks after it are applied by the other lane
+        assertEquals(13, caller.getLastAppliedIndex());
+        Mockito.verify(this.logManager).setAppliedId(new LogId(13, 1));
+        assertEquals(ErrorType.ERROR_TYPE_STATE_MACHINE, caller.getError().getType());
+        Thread.sleep(100);
+        assertEquals(10, statuses.size());
+        for (long i = 11; i <= 20; i++) {
+            assertEquals(1, statuses.get(i).size());
+            final boolean applied = i < 14 || i % 2 == 1;
+            assertEquals(applied, statuses.get(i).get(0).isOk());
+        }
+    }
+
+    static class MockPartitionedBatchStateMachine extends StateMachineAdapter implements BatchStateMachine {
+        final Map<Long, List<Long>> partitions = new ConcurrentHashMap<>();
+        final Set<Thread>           threads    = ConcurrentHashMap.newKeySet();
+        long                        failIndex  = -1;
+
+        @Override
+        public void onApplyBatch(final ApplyBatch batch) {
+            this.threads.add(Thread.currentThread());
+            for (int pos = 0; pos < batch.size(); pos++) {
+                final long index = batch.getIndex(pos);
+                if (index == this.failIndex) {
+                    batch.setError(pos, new Status(RaftError.ESTATEMACHINE, "test"));
+                    return;
+                }
+                this.partitions.computeIfAbsent(MockPartitionedStateMachine.partition(batch.getData(pos)),
+                    k -> new CopyOnWriteArrayList<>()).add(index);
+                if (batch.done(pos) != null) {
+                    batch.done(pos).run(Status.OK());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOnCommittedPartitionedBatchStateMachine() throws Exception {
+        final MockPartitionedBatchStateMachine batchFsm = new MockPartitionedBatchStateMachine();
+        final FSMCallerImpl caller = initCaller(batchFsm, data -> (int) MockPartitionedStateMachine.partition(data),
+            4);
+        mockEntries(11, 110, -1);
+
+        assertTrue(caller.onCommitted(110));
+
+        caller.flush();
+        assertEquals(110, caller.getLastAppliedIndex());
+        assertTrue(caller.getError().getStatus().isOk());
+        // every lane delivers its own partitions as a batch
+        assertEquals(4, batchFsm.threads.size());
+        int count = 0;
+        for (final Map.Entry<Long, List<Long>> entry : batchFsm.partitions.entrySet()) {
+            long prev = 0;
+            for (final long index : entry.getValue()) {
+                assertEquals(entry.getKey().longValue(), index % 4);
+                assertTrue(index > prev);
+                prev = index;
+            }
+            count += entry.getValue().size();
+        }
+        assertEquals(100, count);
+    }
+
+    @Test
+    public void testOnCommittedPartitionedBatchStateMachineError() throws Exception {
+        final MockPartitionedBatchStateMachine batchFsm = new MockPartitionedBatchStateMachine();
+        batchFsm.failIndex = 14;
+        final FSMCallerImpl caller = initCaller(batchFsm,
+            data -> (int) MockPartitionedStateMachine.partition(data) % 2, 2);
+        mockEntries(11, 20, -1);
+
+        assertTrue(caller.onCommitted(20));
+
+        caller.flush();
+        assertEquals(13, caller.getLastAppliedIndex());
+        Mockito.verify(this.logManager).setAppliedId(new LogId(13, 1));
+        assertEquals(ErrorType.ERROR_TYPE_STATE_MACHINE, caller.getError().getType());
+    }
+
     @Test
     public void testOnSnapshotLoad() throws Exception {
         final SnapshotReader reader = Mockito.mock(SnapshotReader.class);
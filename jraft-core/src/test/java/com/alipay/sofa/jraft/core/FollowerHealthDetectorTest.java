@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.core.Replicator.FollowerHealth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FollowerHealthDetectorTest {
+
+    private static final long      SLOW_RTT_MS  = 100;
+    private static final long      LAGGING_LOGS = 1000;
+    private static final long      INTERVAL     = FollowerHealthDetector.EVALUATE_INTERVAL_MS;
+
+    private FollowerHealthDetector detector;
+    private long                   now;
+
+    @Before
+    public void setup() {
+        this.detector = new FollowerHealthDetector(SLOW_RTT_MS, LAGGING_LOGS);
+        this.now = 1000;
+        assertFalse(this.detector.evaluate(0, this.now));
+    }
+
+    private boolean evaluateNextInterval(final long lag) {
+        this.now += INTERVAL;
+        return this.detector.evaluate(lag, this.now);
+    }
+
+    @Test
+    public void testEvaluateOnceEveryInterval() {
+        assertFalse(this.detector.evaluate(0, this.now + INTERVAL - 1));
+        this.detector.onAck(10, 500);
+        assertTrue(evaluateNextInterval(0));
+        assertEquals(FollowerHealth.HEALTHY, this.detector.getHealth());
+        assertEquals(10, this.detector.getSrttMs());
+        assertEquals(500, this.detector.getAckRate());
+    }
+
+    @Test
+    public void testSlowByRtt() {
+        this.detector.onAck(1000, 1);
+        assertTrue(evaluateNextInterval(0));
+        assertEquals(FollowerHealth.SLOW, this.detector.getHealth());
+
+        // The smoothed RTT decreases by fast responses.
+        for (int i = 0; i < 64; i++) {
+            this.detector.onAck(1, 1);
+        }
+        assertTrue(this.detector.getSrttMs() < SLOW_RTT_MS);
+        assertTrue(evaluateNextInterval(0));
+        assertEquals(FollowerHealth.HEALTHY, this.detector.getHealth());
+    }
+
+    @Test
+    public void testSlowWhenCatchingUp() {
+        this.detector.onAck(1, 100);
+        assertTrue(evaluateNextInterval(5000));
+        assertEquals(FollowerHealth.SLOW, this.detector.getHealth());
+        // The lagging logs decrease.
+        assertTrue(evaluateNextInterval(4000));
+        assertEquals(FollowerHealth.SLOW, this.detector.getHealth());
+        assertTrue(evaluateNextInterval(3000));
+        assertEquals(FollowerHealth.SLOW, this.detector.getHealth());
+        assertTrue(evaluateNextInterval(10));
+        assertEquals(FollowerHealth.HEALTHY, this.detector.getHealth());
+    }
+
+    @Test
+    public void testLaggingAndRecover() {
+        assertTrue(evaluateNextInterval(2000));
+        assertEquals(FollowerHealth.SLOW, this.detector.getHealth());
+        assertTrue(evaluateNextInterval(3000));
+        assertEquals(FollowerHealth.LAGGING, this.detector.getHealth());
+
+        // It's lagging until the lagging logs fall under half of the threshold.
+        assertTrue(evaluateNextInterval(900));
+        assertEquals(FollowerHealth.LAGGING, this.detector.getHealth());
+        assertTrue(evaluateNextInterval(LAGGING_LOGS / 2 - 1));
+        assertEquals(FollowerHealth.HEALTHY, this.detector.getHealth());
+    }
+}
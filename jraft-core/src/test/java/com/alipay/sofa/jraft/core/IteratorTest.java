@@ -37,6 +37,7 @@ import com.alipay.sofa.jraft.entity.EnumOutter;
 import com.alipay.sofa.jraft.entity.LogEntry;
 import com.alipay.sofa.jraft.error.RaftError;
 import com.alipay.sofa.jraft.storage.LogManager;
+import com.alipay.sofa.jraft.test.TestUtils;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -68,6 +69,7 @@ public class IteratorTest {
             log.setData(ByteBuffer.allocate(i));
             Mockito.when(this.logManager.getEntry(i)).thenReturn(log);
         }
+        TestUtils.mockGetEntries(this.logManager);
         this.iterImpl = new IteratorImpl(fsm, logManager, closures, 0L, 0L, 10L, applyingIndex);
         this.iter = new IteratorWrapper(iterImpl);
     }
@@ -111,4 +113,25 @@ public class IteratorTest {
                 iterImpl.getError().getStatus().getErrorMsg());
         assertEquals(6, iter.getIndex());
     }
+
+    @Test
+    public void testBatchStateMachineOnApply() {
+        final FSMCallerTest.MockBatchStateMachine batchFsm = new FSMCallerTest.MockBatchStateMachine();
+        batchFsm.onApply(this.iter);
+        assertFalse(this.iter.hasNext());
+        assertFalse(this.iterImpl.hasError());
+        assertEquals(1, batchFsm.ranges.size());
+        assertEquals(1, batchFsm.ranges.get(0)[0]);
+        assertEquals(10, batchFsm.ranges.get(0)[1]);
+    }
+
+    @Test
+    public void testBatchStateMachineOnApplyError() {
+        final FSMCallerTest.MockBatchStateMachine batchFsm = new FSMCallerTest.MockBatchStateMachine();
+        // Fails at index 7
+        batchFsm.errorPos = 6;
+        batchFsm.onApply(this.iter);
+        assertTrue(this.iterImpl.hasError());
+        assertEquals(7, this.iter.getIndex());
+    }
 }
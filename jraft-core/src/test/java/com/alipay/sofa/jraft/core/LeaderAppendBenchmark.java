@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.alipay.sofa.jraft.Iterator;
+import com.alipay.sofa.jraft.Node;
+import com.alipay.sofa.jraft.RaftGroupService;
+import com.alipay.sofa.jraft.Status;
+import com.alipay.sofa.jraft.conf.Configuration;
+import com.alipay.sofa.jraft.entity.PeerId;
+import com.alipay.sofa.jraft.entity.Task;
+import com.alipay.sofa.jraft.option.NodeOptions;
+import com.alipay.sofa.jraft.option.RaftOptions;
+import com.alipay.sofa.jraft.rpc.RaftRpcServerFactory;
+import com.alipay.sofa.jraft.test.TestUtils;
+
+/**
+ * Measures the throughput of applying tasks(in tasks per second) to a single node leader while other
+ * threads contend on the node lock by state queries and wakeups, with and without
+ * {@link RaftOptions#isLockFreeLeaderAppend()}. The wakeups take the write lock which the locked path
+ * of NodeImpl#executeApplyingTasks waits for.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LeaderAppendBenchmark {
+
+    private static final int TASKS = 10000;
+
+    @Param({ "false", "true" })
+    private boolean          lockFree;
+
+    @Param({ "0", "4" })
+    private int              contenders;
+
+    private String           dataPath;
+    private RaftGroupService server;
+    private Node             node;
+    private Thread[]         contenderThreads;
+    private volatile boolean running;
+
+    /*
+     * 1 cpu, log without sync, in tasks per second. The errors are as large as the scores, the lock-free
+     * path is NOT shown to be faster: the contenders share the only cpu with the apply thread, so there is
+     * no contention on the node lock to remove. The improvement is not demonstrated until it is measured on
+     * a multi-core box, that's why RaftOptions#lockFreeLeaderAppend is experimental and off by default.
+     *
+     * Benchmark                    (contenders)  (lockFree)   Mode  Cnt       Score        Error  Units
+     * LeaderAppendBenchmark.apply             0       false  thrpt    5  440862.974 ± 312457.243  ops/s
+     * LeaderAppendBenchmark.apply             0        true  thrpt    5  453665.714 ± 437184.871  ops/s
+     * LeaderAppendBenchmark.apply             4       false  thrpt    5  155368.742 ± 106896.398  ops/s
+     * LeaderAppendBenchmark.apply             4        true  thrpt    5  141918.220 ±  56998.312  ops/s
+     */
+
+    public static void main(String[] args) throws RunnerException {
+        final Options opt = new OptionsBuilder() //
+            .include(LeaderAppendBenchmark.class.getSimpleName()) //
+            .warmupIterations(3) //
+            .measurementIterations(10) //
+            .forks(1) //
+            .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        this.dataPath = Files.createTempDirectory("jraft-bench").toString();
+        final PeerId peer = new PeerId(TestUtils.getMyIp(), TestUtils.INIT_PORT);
+        final RaftOptions raftOptions = new RaftOptions();
+        raftOptions.setSync(false);
+        raftOptions.setLockFreeLeaderAppend(this.lockFree);
+        final NodeOptions nodeOptions = new NodeOptions();
+        nodeOptions.setElectionTimeoutMs(300);
+        nodeOptions.setRaftOptions(raftOptions);
+        nodeOptions.setLogUri(this.dataPath + File.separator + "logs");
+        nodeOptions.setRaftMetaUri(this.dataPath + File.separator + "meta");
+        nodeOptions.setInitialConf(new Configuration(Collections.singletonList(peer)));
+        nodeOptions.setFsm(new StateMachineAdapter() {
+
+            @Override
+            public void onApply(final Iterator iter) {
+                while (iter.hasNext()) {
+                    if (iter.done() != null) {
+                        iter.done().run(Status.OK());
+                    }
+                    iter.next();
+                }
+            }
+        });
+        this.server = new RaftGroupService("bench", peer, nodeOptions,
+            RaftRpcServerFactory.createRaftRpcServer(peer.getEndpoint()));
+        this.node = this.server.start();
+        while (!this.node.isLeader()) {
+            Thread.sleep(10);
+        }
+
+        this.running = true;
+        this.contenderThreads = new Thread[this.contenders];
+        for (int i = 0; i < this.contenders; i++) {
+            this.contenderThreads[i] = new Thread(() -> {
+                while (this.running) {
+                    this.node.listPeers();
+                    this.node.wakeup();
+                }
+            }, "contender-" + i);
+            this.contenderThreads[i].start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.running = false;
+        for (final Thread t : this.contenderThreads) {
+            t.join();
+        }
+        this.server.shutdown();
+        this.server.join();
+        FileUtils.deleteDirectory(new File(this.dataPath));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public void apply() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(TASKS);
+        final byte[] data = new byte[64];
+        for (int i = 0; i < TASKS; i++) {
+            this.node.apply(new Task(ByteBuffer.wrap(data), status -> latch.countDown()));
+        }
+        latch.await();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.alipay.sofa.jraft.entity.EnumOutter;
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.storage.LogManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(value = MockitoJUnitRunner.class)
+public class LogPrefetcherTest {
+
+    private static final int     ENTRY_BYTES = 100;
+    private static final long    LAST_INDEX  = 1000;
+
+    @Mock
+    private LogManager           logManager;
+    private final List<Runnable> tasks       = new ArrayList<>();
+    private LogPrefetcher        prefetcher;
+
+    @Before
+    public void setup() {
+        Mockito.when(this.logManager.getEntries(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyLong())).thenAnswer(
+            invocation -> {
+                final long fromIndex = (long) invocation.getArguments()[0];
+                final int maxCount = (int) invocation.getArguments()[1];
+                final long maxBytes = (long) invocation.getArguments()[2];
+                final List<LogEntry> entries = new ArrayList<>();
+                long bytes = 0;
+                for (long i = fromIndex; i <= LAST_INDEX && entries.size() < maxCount
+                                         && (entries.isEmpty() || bytes < maxBytes); i++) {
+                    entries.add(newEntry(i));
+                    bytes += ENTRY_BYTES;
+                }
+                return entries;
+            });
+        // 10 entries per read, 20 entries at most
+        this.prefetcher = new LogPrefetcher(this.logManager, this.tasks::add, 20 * ENTRY_BYTES, 10,
+            10 * ENTRY_BYTES);
+    }
+
+    private static LogEntry newEntry(final long index) {
+        final LogEntry entry = new LogEntry(EnumOutter.EntryType.ENTRY_TYPE_DATA);
+        entry.getId().setIndex(index);
+        entry.getId().setTerm(1);
+        entry.setData(ByteBuffer.allocate(ENTRY_BYTES));
+        return entry;
+    }
+
+    private void runTasks() {
+        while (!this.tasks.isEmpty()) {
+            this.tasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void testReadAheadBoundedByBytes() {
+        assertTrue(this.prefetcher.poll(1, 10, Long.MAX_VALUE).isEmpty());
+        this.prefetcher.readAhead(1);
+        this.prefetcher.readAhead(1);
+        // Only one read task.
+        assertEquals(1, this.tasks.size());
+        runTasks();
+        assertEquals(20, this.prefetcher.getCount());
+        assertEquals(20 * ENTRY_BYTES, this.prefetcher.getBytes());
+
+        final List<LogEntry> entries = this.prefetcher.poll(1, 10, 5 * ENTRY_BYTES);
+        assertEquals(5, entries.size());
+        assertEquals(1, entries.get(0).getId().getIndex());
+        assertEquals(5, entries.get(4).getId().getIndex());
+        assertEquals(15, this.prefetcher.getCount());
+
+        // Reads ahead the consumed bytes.
+        this.prefetcher.readAhead(6);
+        runTasks();
+        assertEquals(20, this.prefetcher.getCount());
+        final List<LogEntry> next = this.prefetcher.poll(6, 100, Long.MAX_VALUE);
+        assertEquals(20, next.size());
+        assertEquals(6, next.get(0).getId().getIndex());
+        assertEquals(25, next.get(19).getId().getIndex());
+        assertEquals(0, this.prefetcher.getBytes());
+    }
+
+    @Test
+    public void testPollSkipsSentEntries() {
+        this.prefetcher.readAhead(1);
+        runTasks();
+        final List<LogEntry> entries = this.prefetcher.poll(8, 2, Long.MAX_VALUE);
+        assertEquals(2, entries.size());
+        assertEquals(8, entries.get(0).getId().getIndex());
+        assertEquals(11, this.prefetcher.getCount());
+        // Not ready, never blocks.
+        assertTrue(this.prefetcher.poll(100, 2, Long.MAX_VALUE).isEmpty());
+        assertTrue(this.prefetcher.poll(5, 2, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testResetWhenNotContiguous() {
+        this.prefetcher.readAhead(1);
+        runTasks();
+        // The follower's next index was reset by probe.
+        this.prefetcher.readAhead(500);
+        assertEquals(0, this.prefetcher.getCount());
+        runTasks();
+        assertEquals(20, this.prefetcher.getCount());
+        assertEquals(500, this.prefetcher.poll(500, 1, Long.MAX_VALUE).get(0).getId().getIndex());
+    }
+
+    @Test
+    public void testResetWhileReading() {
+        this.prefetcher.readAhead(1);
+        this.prefetcher.readAhead(500);
+        assertEquals(1, this.tasks.size());
+        runTasks();
+        assertTrue(this.prefetcher.poll(1, 1, Long.MAX_VALUE).isEmpty());
+        assertEquals(500, this.prefetcher.poll(500, 1, Long.MAX_VALUE).get(0).getId().getIndex());
+    }
+
+    @Test
+    public void testReadToLastIndex() {
+        this.prefetcher.readAhead(995);
+        runTasks();
+        assertEquals(6, this.prefetcher.getCount());
+        // Reads the new entries later.
+        this.prefetcher.readAhead(995);
+        assertEquals(1, this.tasks.size());
+    }
+
+    @Test
+    public void testShutdown() {
+        this.prefetcher.readAhead(1);
+        runTasks();
+        this.prefetcher.shutdown();
+        assertEquals(0, this.prefetcher.getCount());
+        this.prefetcher.readAhead(21);
+        assertTrue(this.tasks.isEmpty());
+        assertTrue(this.prefetcher.poll(21, 1, Long.MAX_VALUE).isEmpty());
+    }
+}
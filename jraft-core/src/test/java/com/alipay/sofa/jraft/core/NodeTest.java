@@ -31,6 +31,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
@@ -41,6 +42,8 @@ import org.junit.BeforeClass;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestName;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
 import org.rocksdb.util.SizeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +62,7 @@ import com.alipay.sofa.jraft.closure.TaskClosure;
 import com.alipay.sofa.jraft.conf.Configuration;
 import com.alipay.sofa.jraft.entity.EnumOutter;
 import com.alipay.sofa.jraft.entity.PeerId;
+import com.alipay.sofa.jraft.entity.RaftOutter;
 import com.alipay.sofa.jraft.entity.Task;
 import com.alipay.sofa.jraft.entity.UserLog;
 import com.alipay.sofa.jraft.error.LogIndexOutOfBoundsException;
@@ -69,6 +73,8 @@ import com.alipay.sofa.jraft.option.BootstrapOptions;
 import com.alipay.sofa.jraft.option.NodeOptions;
 import com.alipay.sofa.jraft.option.RaftOptions;
 import com.alipay.sofa.jraft.rpc.RaftRpcServerFactory;
+import com.alipay.sofa.jraft.rpc.RpcRequestClosure;
+import com.alipay.sofa.jraft.rpc.RpcRequests;
 import com.alipay.sofa.jraft.rpc.RpcServer;
 import com.alipay.sofa.jraft.storage.SnapshotThrottle;
 import com.alipay.sofa.jraft.storage.impl.RocksDBLogStorage;
@@ -80,6 +86,8 @@ import com.alipay.sofa.jraft.util.Endpoint;
 import com.alipay.sofa.jraft.util.StorageOptionsFactory;
 import com.alipay.sofa.jraft.util.Utils;
 import com.codahale.metrics.ConsoleReporter;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
@@ -1325,6 +1333,315 @@ public class NodeTest {
 
     }
 
+    @Test
+    public void testHibernate() throws Exception {
+        final List<PeerId> peers = TestUtils.generatePeers(3);
+
+        final TestCluster cluster = new TestCluster("unittest", this.dataPath, peers);
+        cluster.setHibernateTimeoutMs(1000);
+        for (final PeerId peer : peers) {
+            assertTrue(cluster.start(peer.getEndpoint()));
+        }
+        cluster.waitLeader();
+        final NodeImpl leader = (NodeImpl) cluster.getLeader();
+        assertNotNull(leader);
+        this.sendTestTaskAndWait(leader);
+
+        // the idle group hibernates
+        waitHibernating(cluster);
+        final long term = leader.getCurrentTerm();
+        Thread.sleep(2000);
+        assertTrue(leader.isLeader());
+        assertEquals(term, leader.getCurrentTerm());
+        for (final NodeImpl node : cluster.getNodes()) {
+            assertTrue(node.isHibernating());
+        }
+
+        // a woken up follower doesn't disturb the leader
+        final NodeImpl follower = (NodeImpl) cluster.getFollowers().get(0);
+        follower.wakeup();
+        assertFalse(follower.isHibernating());
+        Thread.sleep(2000);
+        assertTrue(leader.isLeader());
+        assertEquals(term, leader.getCurrentTerm());
+
+        // new tasks wake up the group
+        waitHibernating(cluster);
+        this.sendTestTaskAndWait(leader, 10, RaftError.SUCCESS);
+        assertFalse(leader.isHibernating());
+        assertTrue(cluster.ensureSame());
+        for (final MockStateMachine fsm : cluster.getFsms()) {
+            assertEquals(20, fsm.getLogs().size());
+        }
+        assertEquals(term, leader.getCurrentTerm());
+
+        // elect a new leader when the hibernated leader is gone
+        waitHibernating(cluster);
+        assertTrue(cluster.stop(leader.getNodeId().getPeerId().getEndpoint()));
+        cluster.waitLeader();
+        assertNotNull(cluster.getLeader());
+        assertFalse(cluster.getLeader().getNodeId().getPeerId().equals(leader.getNodeId().getPeerId()));
+        cluster.stopAll();
+    }
+
+    @Test
+    public void testHibernateWithLockFreeLeaderAppend() throws Exception {
+        final List<PeerId> peers = TestUtils.generatePeers(3);
+
+        final TestCluster cluster = new TestCluster("unittest", this.dataPath, peers);
+        cluster.setHibernateTimeoutMs(1000);
+        final RaftOptions raftOptions = new RaftOptions();
+        raftOptions.setLockFreeLeaderAppend(true);
+        for (final PeerId peer : peers) {
+            assertTrue(cluster.start(peer.getEndpoint(), false, 300, true, null, raftOptions));
+        }
+        cluster.waitLeader();
+        final NodeImpl leader = (NodeImpl) cluster.getLeader();
+        assertNotNull(leader);
+        this.sendTestTaskAndWait(leader);
+
+        // the view is revoked when the group hibernates
+        waitHibernating(cluster);
+        assertFalse(leader.hasLeaderView());
+
+        // new tasks wake up the group by the locked path, then the view is published again
+        this.sendTestTaskAndWait(leader, 10, RaftError.SUCCESS);
+        assertFalse(leader.isHibernating());
+        assertTrue(leader.hasLeaderView());
+        this.sendTestTaskAndWait(leader, 20, RaftError.SUCCESS);
+        assertTrue(cluster.ensureSame());
+        for (final MockStateMachine fsm : cluster.getFsms()) {
+            assertEquals(30, fsm.getLogs().size());
+        }
+        cluster.stopAll();
+    }
+
+    private void waitHibernating(final TestCluster cluster) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            boolean hibernating = true;
+            for (final NodeImpl node : cluster.getNodes()) {
+                hibernating &= node.isHibernating();
+            }
+            if (hibernating) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail("The group is not hibernated");
+    }
+
+    @Test
+    public void testLockFreeLeaderAppend() throws Exception {
+        final List<PeerId> peers = TestUtils.generatePeers(3);
+
+        // a longer election timeout, the followers are busy in catching up
+        final TestCluster cluster = new TestCluster("unittest", this.dataPath, peers, 1000);
+        final RaftOptions raftOptions = new RaftOptions();
+        raftOptions.setLockFreeLeaderAppend(true);
+        for (final PeerId peer : peers) {
+            assertTrue(cluster.start(peer.getEndpoint(), false, 300, true, null, raftOptions));
+        }
+        cluster.waitLeader();
+        final NodeImpl leader = (NodeImpl) cluster.getLeader();
+        assertNotNull(leader);
+        assertTrue(leader.hasLeaderView());
+        this.sendTestTaskAndWait(leader);
+
+        // apply tasks while changing the configuration
+        final int n = 1000;
+        final CountDownLatch latch = new CountDownLatch(n);
+        final AtomicInteger successes = new AtomicInteger();
+        final Thread applier = new Thread(() -> {
+            for (int i = 0; i < n; i++) {
+                leader.apply(new Task(ByteBuffer.wrap(("world" + i).getBytes()), status -> {
+                    if (status.isOk()) {
+                        successes.incrementAndGet();
+                    }
+                    latch.countDown();
+                }));
+            }
+        });
+        applier.start();
+        final PeerId follower = cluster.getFollowers().get(0).getNodeId().getPeerId();
+        // stop the follower before removing it, otherwise it may disturb the leader by electing
+        assertTrue(cluster.stop(follower.getEndpoint()));
+        SynchronizedClosure done = new SynchronizedClosure();
+        leader.removePeer(follower, done);
+        assertTrue(done.await().isOk());
+        assertTrue(leader.hasLeaderView());
+        assertTrue(cluster.start(follower.getEndpoint(), false, 300, true, null, raftOptions));
+        done = new SynchronizedClosure();
+        leader.addPeer(follower, done);
+        assertTrue(done.await().isOk());
+        applier.join();
+        waitLatch(latch);
+        assertTrue(successes.get() > 0);
+        assertTrue(cluster.ensureSame());
+        // the failed tasks may be committed too
+        for (final MockStateMachine fsm : cluster.getFsms()) {
+            assertTrue(fsm.getLogs().size() >= 10 + successes.get());
+            assertTrue(fsm.getLogs().size() <= 10 + n);
+        }
+
+        // the view is revoked when the leadership is transferred
+        assertTrue(leader.transferLeadershipTo(follower).isOk());
+        cluster.waitLeader();
+        assertFalse(leader.hasLeaderView());
+        final NodeImpl newLeader = (NodeImpl) cluster.getLeader();
+        assertTrue(newLeader.hasLeaderView());
+        this.sendTestTaskAndWait(newLeader);
+        assertTrue(cluster.ensureSame());
+        cluster.stopAll();
+    }
+
+    @Test
+    public void testApplyTasksInBatch() throws Exception {
+        final List<PeerId> peers = TestUtils.generatePeers(3);
+
+        // a longer election timeout, the leader must not step down while applying the large batches
+        final TestCluster cluster = new TestCluster("unittest", this.dataPath, peers, 1000);
+        final RaftOptions raftOptions = new RaftOptions();
+        // the large batch is split into two chunks of half the queue, both fit in even if the queue is not
+        // consumed meanwhile, so the batch is never rejected as busy
+        raftOptions.setDisruptorBufferSize(1024);
+        for (final PeerId peer : peers) {
+            assertTrue(cluster.start(peer.getEndpoint(), false, 300, true, null, raftOptions));
+        }
+        cluster.waitLeader();
+        final Node leader = cluster.getLeader();
+        assertNotNull(leader);
+
+        final int n = 1000;
+        final CountDownLatch latch = new CountDownLatch(n);
+        final List<Task> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            tasks.add(new Task(ByteBuffer.wrap(("hello" + i).getBytes()), new ExpectClosure(latch)));
+        }
+        leader.apply(tasks);
+        waitLatch(latch);
+
+        final List<Task> asyncTasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            asyncTasks.add(new Task(ByteBuffer.wrap(("world" + i).getBytes()), null));
+        }
+        assertTrue(leader.applyAsync(asyncTasks).get(30, TimeUnit.SECONDS).isOk());
+        assertTrue(leader.applyAsync(new ArrayList<>()).get().isOk());
+
+        assertTrue(cluster.ensureSame());
+        for (final MockStateMachine fsm : cluster.getFsms()) {
+            assertEquals(2 * n, fsm.getLogs().size());
+            for (int i = 0; i < n; i++) {
+                assertEquals("hello" + i, new String(fsm.getLogs().get(i).array()));
+                assertEquals("world" + i, new String(fsm.getLogs().get(n + i).array()));
+            }
+        }
+
+        // the whole batch fails on a follower
+        final Node follower = cluster.getFollowers().get(0);
+        final List<Task> rejected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rejected.add(new Task(ByteBuffer.wrap(("reject" + i).getBytes()), null));
+        }
+        final Status status = follower.applyAsync(rejected).get(30, TimeUnit.SECONDS);
+        assertEquals(RaftError.EPERM, status.getRaftError());
+
+        // a node shutting down fails the tasks instead of throwing
+        follower.shutdown();
+        final CountDownLatch shutdownLatch = new CountDownLatch(1);
+        final AtomicReference<Status> shutdownStatus = new AtomicReference<>();
+        follower.apply(Collections.singletonList(new Task(ByteBuffer.wrap("shutdown".getBytes()), st -> {
+            shutdownStatus.set(st);
+            shutdownLatch.countDown();
+        })));
+        waitLatch(shutdownLatch);
+        assertEquals(RaftError.ENODESHUTDOWN, shutdownStatus.get().getRaftError());
+        assertEquals(RaftError.ENODESHUTDOWN, follower.applyAsync(rejected).get(30, TimeUnit.SECONDS).getRaftError());
+        follower.join();
+        cluster.stopAll();
+    }
+
+    @Test
+    public void testHandleAppendEntriesRequestsWithRejected() throws Exception {
+        final List<PeerId> peers = TestUtils.generatePeers(2);
+
+        // only start the follower, the requests are sent as the absent leader
+        final TestCluster cluster = new TestCluster("unittest", this.dataPath, peers);
+        final RaftOptions raftOptions = new RaftOptions();
+        raftOptions.setEnableLogEntryChecksum(true);
+        assertTrue(cluster.start(peers.get(0).getEndpoint(), false, 300, false, null, raftOptions));
+        final NodeImpl follower = cluster.getNodes().get(0);
+        final String leaderId = peers.get(1).toString();
+        final String followerId = peers.get(0).toString();
+
+        final List<RpcRequests.AppendEntriesRequest> requests = Arrays.asList(
+            appendEntriesRequest(leaderId, followerId, 0, 0, 2), //
+            appendEntriesRequest(leaderId, followerId, 2, 1, 3), //
+            // a gap after index 5
+            appendEntriesRequest(leaderId, followerId, 6, 1, 1), //
+            appendEntriesRequest(leaderId, followerId, 7, 1, 1));
+        final List<RpcRequestClosure> dones = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            dones.add(Mockito.mock(RpcRequestClosure.class));
+        }
+        // no shared response, the valid ones are appended and each request is responded alone
+        assertNull(follower.handleAppendEntriesRequests(requests, dones));
+        for (int i = 0; i < requests.size(); i++) {
+            final ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+            Mockito.verify(dones.get(i), Mockito.timeout(5000)).sendResponse(captor.capture());
+            final RpcRequests.AppendEntriesResponse response = (RpcRequests.AppendEntriesResponse) captor.getValue();
+            assertEquals(i < 2, response.getSuccess());
+            if (i >= 2) {
+                assertEquals(5, response.getLastLogIndex());
+            }
+        }
+
+        // the next request follows the accepted ones, the corrupted one is rejected alone
+        final RpcRequests.AppendEntriesRequest corrupted = appendEntriesRequest(leaderId, followerId, 6, 1, 1);
+        final List<RpcRequests.AppendEntriesRequest> moreRequests = Arrays.asList(
+            appendEntriesRequest(leaderId, followerId, 5, 1, 1), //
+            corrupted.toBuilder().setEntries(0, corrupted.getEntries(0).toBuilder().setChecksum(1)).build(), //
+            appendEntriesRequest(leaderId, followerId, 7, 1, 1));
+        final List<RpcRequestClosure> moreDones = new ArrayList<>();
+        for (int i = 0; i < moreRequests.size(); i++) {
+            moreDones.add(Mockito.mock(RpcRequestClosure.class));
+        }
+        assertNull(follower.handleAppendEntriesRequests(moreRequests, moreDones));
+        final Message[] responses = new Message[moreRequests.size()];
+        for (int i = 0; i < moreRequests.size(); i++) {
+            final ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+            Mockito.verify(moreDones.get(i), Mockito.timeout(5000)).sendResponse(captor.capture());
+            responses[i] = captor.getValue();
+        }
+        assertTrue(((RpcRequests.AppendEntriesResponse) responses[0]).getSuccess());
+        assertEquals(RaftError.EINVAL.getNumber(), ((RpcRequests.ErrorResponse) responses[1]).getErrorCode());
+        assertFalse(((RpcRequests.AppendEntriesResponse) responses[2]).getSuccess());
+        assertEquals(6, ((RpcRequests.AppendEntriesResponse) responses[2]).getLastLogIndex());
+        cluster.stopAll();
+    }
+
+    private static RpcRequests.AppendEntriesRequest appendEntriesRequest(final String leaderId,
+                                                                         final String followerId,
+                                                                         final long prevLogIndex,
+                                                                         final long prevLogTerm, final int count) {
+        final RpcRequests.AppendEntriesRequest.Builder rb = RpcRequests.AppendEntriesRequest.newBuilder() //
+            .setGroupId("unittest") //
+            .setServerId(leaderId) //
+            .setPeerId(followerId) //
+            .setTerm(1) //
+            .setPrevLogIndex(prevLogIndex) //
+            .setPrevLogTerm(prevLogTerm) //
+            .setCommittedIndex(0);
+        final byte[] data = new byte[count * 4];
+        for (int i = 0; i < count; i++) {
+            rb.addEntries(RaftOutter.EntryMeta.newBuilder() //
+                .setTerm(1) //
+                .setType(EnumOutter.EntryType.ENTRY_TYPE_DATA) //
+                .setDataLen(4));
+            Bits.putInt(data, i * 4, (int) prevLogIndex + i + 1);
+        }
+        return rb.setData(ByteString.copyFrom(data)).build();
+    }
+
     @Test
     public void testReadIndex() throws Exception {
         final List<PeerId> peers = TestUtils.generatePeers(3);
@@ -1368,6 +1685,65 @@ public class NodeTest {
         cluster.stopAll();
     }
 
+    @Test
+    public void testReadIndexPiggyback() throws Exception {
+        final List<PeerId> peers = TestUtils.generatePeers(3);
+
+        final TestCluster cluster = new TestCluster("unittest", this.dataPath, peers);
+        final RaftOptions raftOptions = new RaftOptions();
+        raftOptions.setReadIndexPiggyback(true);
+        for (final PeerId peer : peers) {
+            assertTrue(cluster.start(peer.getEndpoint(), false, 300, true, null, raftOptions));
+        }
+        cluster.waitLeader();
+        final NodeImpl leader = (NodeImpl) cluster.getLeader();
+        assertNotNull(leader);
+        assertNotNull(leader.getReadIndexPiggyback());
+        this.sendTestTaskAndWait(leader);
+
+        // confirmed by heartbeats
+        assertReadIndex(leader, 11);
+        for (final Node follower : cluster.getFollowers()) {
+            assertReadIndex(follower, 11);
+        }
+        assertEquals(0, leader.getReadIndexPiggyback().getPendingCount());
+
+        // confirmed by the responses of AppendEntries while applying tasks
+        final int n = 100;
+        final CountDownLatch applyLatch = new CountDownLatch(n);
+        final CountDownLatch readLatch = new CountDownLatch(n);
+        for (int i = 0; i < n; i++) {
+            leader.apply(new Task(ByteBuffer.wrap(("world" + i).getBytes()), new ExpectClosure(applyLatch)));
+            leader.readIndex(null, new ReadIndexClosure() {
+
+                @Override
+                public void run(final Status status, final long index, final byte[] reqCtx) {
+                    assertTrue(status.getErrorMsg(), status.isOk());
+                    assertTrue(index >= 11);
+                    readLatch.countDown();
+                }
+            });
+        }
+        waitLatch(applyLatch);
+        waitLatch(readLatch);
+
+        // the pending reads fail when the leader steps down
+        for (final Node follower : cluster.getFollowers()) {
+            assertTrue(cluster.stop(follower.getNodeId().getPeerId().getEndpoint()));
+        }
+        final CountDownLatch failLatch = new CountDownLatch(1);
+        leader.readIndex(null, new ReadIndexClosure() {
+
+            @Override
+            public void run(final Status status, final long index, final byte[] reqCtx) {
+                assertFalse(status.isOk());
+                failLatch.countDown();
+            }
+        });
+        failLatch.await();
+        cluster.stopAll();
+    }
+
     @Test
     public void testReadIndexTimeout() throws Exception {
         final List<PeerId> peers = TestUtils.generatePeers(3);
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.Status;
+import com.alipay.sofa.jraft.entity.PeerId;
+import com.alipay.sofa.jraft.error.RaftError;
+import com.alipay.sofa.jraft.rpc.RpcRequests.ReadIndexResponse;
+import com.alipay.sofa.jraft.rpc.RpcResponseClosureAdapter;
+import com.alipay.sofa.jraft.util.Utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReadIndexPiggybackTest {
+
+    private static final long  TERM   = 2;
+
+    private final PeerId       leader = new PeerId("localhost", 8081);
+    private final PeerId       peer1  = new PeerId("localhost", 8082);
+    private final PeerId       peer2  = new PeerId("localhost", 8083);
+    private final List<PeerId> peers  = Arrays.asList(this.leader, this.peer1, this.peer2);
+
+    private ReadIndexPiggyback piggyback;
+
+    private static class ReadClosure extends RpcResponseClosureAdapter<ReadIndexResponse> {
+        final CountDownLatch          latch  = new CountDownLatch(1);
+        final AtomicReference<Status> status = new AtomicReference<>();
+
+        @Override
+        public void run(final Status status) {
+            this.status.set(status);
+            this.latch.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return this.latch.await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Before
+    public void setup() {
+        this.piggyback = new ReadIndexPiggyback(this.leader);
+        this.piggyback.start(TERM);
+    }
+
+    private ReadClosure addRead(final long index) {
+        final ReadClosure done = new ReadClosure();
+        this.piggyback.addRead(this.peers, 2, ReadIndexResponse.newBuilder().setIndex(index), done);
+        return done;
+    }
+
+    private static void sleepNextMs() throws InterruptedException {
+        final long nowMs = Utils.monotonicMs();
+        while (Utils.monotonicMs() <= nowMs) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void testConfirmByQuorum() throws Exception {
+        final long sentBefore = Utils.monotonicMs();
+        final ReadClosure done = addRead(10);
+        // The request sent before the read doesn't confirm it.
+        this.piggyback.onAck(TERM, this.peer1, sentBefore);
+        assertFalse(done.latch.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, this.piggyback.getPendingCount());
+
+        sleepNextMs();
+        this.piggyback.onAck(TERM, this.peer1, Utils.monotonicMs());
+        assertTrue(done.await());
+        assertTrue(done.status.get().isOk());
+        assertTrue(done.getResponse().getSuccess());
+        assertEquals(10, done.getResponse().getIndex());
+        assertEquals(0, this.piggyback.getPendingCount());
+    }
+
+    @Test
+    public void testConfirmInOrder() throws Exception {
+        final ReadClosure done1 = addRead(10);
+        sleepNextMs();
+        final long sentBetween = Utils.monotonicMs();
+        sleepNextMs();
+        final ReadClosure done2 = addRead(11);
+
+        this.piggyback.onAck(TERM, this.peer2, sentBetween);
+        assertTrue(done1.await());
+        assertEquals(10, done1.getResponse().getIndex());
+        assertEquals(1, this.piggyback.getPendingCount());
+        assertEquals(1, done2.latch.getCount());
+
+        sleepNextMs();
+        this.piggyback.onAck(TERM, this.peer1, Utils.monotonicMs());
+        assertTrue(done2.await());
+        assertEquals(11, done2.getResponse().getIndex());
+    }
+
+    @Test
+    public void testIgnoreAckOfOtherTerm() throws Exception {
+        final ReadClosure done = addRead(10);
+        sleepNextMs();
+        this.piggyback.onAck(TERM - 1, this.peer1, Utils.monotonicMs());
+        this.piggyback.onAck(TERM + 1, this.peer2, Utils.monotonicMs());
+        assertFalse(done.latch.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, this.piggyback.getPendingCount());
+    }
+
+    @Test
+    public void testExpireWhenFollowersStopAcking() throws Exception {
+        this.piggyback = new ReadIndexPiggyback(this.leader, 200);
+        this.piggyback.start(TERM);
+        final ReadClosure done1 = addRead(10);
+        sleepNextMs();
+        this.piggyback.onAck(TERM, this.peer1, Utils.monotonicMs());
+        assertTrue(done1.await());
+        assertTrue(done1.status.get().isOk());
+
+        // The followers stop acking, the reads are failed in the timeout.
+        final ReadClosure done2 = addRead(11);
+        final ReadClosure done3 = addRead(12);
+        assertFalse(done2.latch.await(100, TimeUnit.MILLISECONDS));
+        assertTrue(done2.await());
+        assertTrue(done3.await());
+        assertEquals(RaftError.ETIMEDOUT, done2.status.get().getRaftError());
+        assertEquals(RaftError.ETIMEDOUT, done3.status.get().getRaftError());
+        assertEquals(0, this.piggyback.getPendingCount());
+    }
+
+    @Test
+    public void testFailAll() throws Exception {
+        final ReadClosure done1 = addRead(10);
+        final ReadClosure done2 = addRead(10);
+        this.piggyback.failAll(new Status(RaftError.EPERM, "Leader stepped down."));
+        assertTrue(done1.await());
+        assertTrue(done2.await());
+        assertEquals(RaftError.EPERM, done1.status.get().getRaftError());
+        assertEquals(RaftError.EPERM, done2.status.get().getRaftError());
+        assertEquals(0, this.piggyback.getPendingCount());
+
+        // Stopped until next term
+        final ReadClosure done3 = addRead(10);
+        sleepNextMs();
+        this.piggyback.onAck(TERM, this.peer1, Utils.monotonicMs());
+        assertFalse(done3.latch.await(100, TimeUnit.MILLISECONDS));
+        this.piggyback.start(TERM + 1);
+        this.piggyback.onAck(TERM + 1, this.peer1, Utils.monotonicMs());
+        assertTrue(done3.await());
+        assertTrue(done3.status.get().isOk());
+    }
+}
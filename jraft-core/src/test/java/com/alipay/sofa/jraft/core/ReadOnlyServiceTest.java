@@ -18,6 +18,9 @@ package com.alipay.sofa.jraft.core;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 
 import org.junit.After;
@@ -36,6 +39,7 @@ import com.alipay.sofa.jraft.closure.ReadIndexClosure;
 import com.alipay.sofa.jraft.entity.PeerId;
 import com.alipay.sofa.jraft.entity.ReadIndexState;
 import com.alipay.sofa.jraft.entity.ReadIndexStatus;
+import com.alipay.sofa.jraft.error.RaftError;
 import com.alipay.sofa.jraft.option.RaftOptions;
 import com.alipay.sofa.jraft.option.ReadOnlyServiceOptions;
 import com.alipay.sofa.jraft.rpc.RpcRequests.ReadIndexRequest;
@@ -146,9 +150,9 @@ public class ReadOnlyServiceTest {
         assertNotNull(closure);
 
         closure.setResponse(ReadIndexResponse.newBuilder().setIndex(1).setSuccess(true).build());
-        assertTrue(this.readOnlyServiceImpl.getPendingNotifyStatus().isEmpty());
+        assertEquals(0, this.readOnlyServiceImpl.getPendingNotifyCount());
         closure.run(Status.OK());
-        assertEquals(this.readOnlyServiceImpl.getPendingNotifyStatus().size(), 1);
+        assertEquals(1, this.readOnlyServiceImpl.getPendingNotifyCount());
         this.readOnlyServiceImpl.onApplied(2);
         latch.await();
     }
@@ -260,10 +264,67 @@ public class ReadOnlyServiceTest {
         state.setIndex(1);
         states.add(state);
         final ReadIndexStatus readIndexStatus = new ReadIndexStatus(states, null, 1);
-        this.readOnlyServiceImpl.getPendingNotifyStatus().put(1L, Arrays.asList(readIndexStatus));
+        this.readOnlyServiceImpl.getPendingNotifyStatus().add(readIndexStatus);
 
         this.readOnlyServiceImpl.onApplied(2);
         latch.await();
-        assertTrue(this.readOnlyServiceImpl.getPendingNotifyStatus().isEmpty());
+        assertEquals(0, this.readOnlyServiceImpl.getPendingNotifyCount());
+    }
+
+    @Test
+    public void testOnAppliedInIndexOrder() throws Exception {
+        final List<Long> notified = new CopyOnWriteArrayList<>();
+        // Out of order by index
+        this.readOnlyServiceImpl.getPendingNotifyStatus().add(mockReadIndexStatus(3, notified));
+        this.readOnlyServiceImpl.getPendingNotifyStatus().add(mockReadIndexStatus(1, notified));
+        this.readOnlyServiceImpl.getPendingNotifyStatus().add(mockReadIndexStatus(2, notified));
+
+        this.readOnlyServiceImpl.onApplied(2);
+        assertEquals(Arrays.asList(1L, 2L), notified);
+        assertEquals(1, this.readOnlyServiceImpl.getPendingNotifyCount());
+
+        this.readOnlyServiceImpl.onApplied(3);
+        assertEquals(Arrays.asList(1L, 2L, 3L), notified);
+        assertEquals(0, this.readOnlyServiceImpl.getPendingNotifyCount());
+    }
+
+    @Test
+    public void testPendingStatusNotifiedByErrorOnJoin() throws Exception {
+        final List<Long> notified = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ArrayList<ReadIndexState> states = new ArrayList<>();
+        states.add(new ReadIndexState(new Bytes(TestUtils.getRandomBytes()), new ReadIndexClosure() {
+
+            @Override
+            public void run(final Status status, final long index, final byte[] reqCtx) {
+                assertEquals(RaftError.ESTOP, status.getRaftError());
+                latch.countDown();
+            }
+        }, Utils.monotonicMs()));
+        this.readOnlyServiceImpl.getPendingNotifyStatus().add(new ReadIndexStatus(states, null, 5));
+        this.readOnlyServiceImpl.getPendingNotifyStatus().add(mockReadIndexStatus(1, notified));
+        Mockito.when(this.fsmCaller.getLastAppliedIndex()).thenReturn(1L);
+
+        this.readOnlyServiceImpl.shutdown();
+        this.readOnlyServiceImpl.join();
+        latch.await();
+        // The applied one is notified by success.
+        assertEquals(Collections.singletonList(1L), notified);
+        assertEquals(0, this.readOnlyServiceImpl.getPendingNotifyCount());
+    }
+
+    private ReadIndexStatus mockReadIndexStatus(final long index, final List<Long> notified) {
+        final ArrayList<ReadIndexState> states = new ArrayList<>();
+        final ReadIndexState state = new ReadIndexState(new Bytes(TestUtils.getRandomBytes()), new ReadIndexClosure() {
+
+            @Override
+            public void run(final Status status, final long index, final byte[] reqCtx) {
+                assertTrue(status.isOk());
+                notified.add(index);
+            }
+        }, Utils.monotonicMs());
+        state.setIndex(index);
+        states.add(state);
+        return new ReadIndexStatus(states, null, index);
     }
 }
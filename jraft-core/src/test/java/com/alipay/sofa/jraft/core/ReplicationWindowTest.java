@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicationWindowTest {
+
+    private static final int  BATCH      = 1024;
+    private static final long MAX_WINDOW = 64 * BATCH;
+
+    private ReplicationWindow window;
+
+    @Before
+    public void setup() {
+        this.window = new ReplicationWindow(BATCH, MAX_WINDOW);
+    }
+
+    @Test
+    public void testCanSend() {
+        assertEquals(4 * BATCH, this.window.getWindowBytes());
+        assertTrue(this.window.canSend());
+        assertEquals(BATCH, this.window.nextBatchBytes());
+
+        this.window.onSent(3 * BATCH);
+        assertTrue(this.window.canSend());
+        this.window.onSent(BATCH - this.window.getMinBatchBytes() + 1);
+        assertFalse(this.window.canSend());
+
+        this.window.onReleased(BATCH);
+        assertTrue(this.window.canSend());
+        this.window.clearInflights();
+        assertEquals(0, this.window.getInflightBytes());
+        assertEquals(BATCH, this.window.nextBatchBytes());
+    }
+
+    @Test
+    public void testSlowStartAndCongestionAvoidance() {
+        long now = 1000;
+        // slow start, grows by acked bytes
+        this.window.onAck(BATCH, 10, now);
+        assertEquals(5 * BATCH, this.window.getWindowBytes());
+        for (int i = 0; i < 100; i++) {
+            this.window.onAck(BATCH, 10, now += 10);
+        }
+        assertEquals(MAX_WINDOW, this.window.getWindowBytes());
+        assertEquals(10, this.window.getMinRttMs());
+        assertEquals(10, this.window.getSrttMs());
+
+        // Congestion, decrease once per RTT
+        this.window.onCongestion(now += 100);
+        final long decreased = this.window.getWindowBytes();
+        assertTrue(decreased < MAX_WINDOW);
+        assertTrue(decreased >= BATCH);
+        this.window.onCongestion(now + 1);
+        assertEquals(decreased, this.window.getWindowBytes());
+
+        // congestion avoidance, grows by one batch per window
+        this.window.onAck(BATCH, 10, now += 10);
+        final long expected = decreased + Math.max(1, (long) BATCH * BATCH / decreased);
+        assertEquals(expected, this.window.getWindowBytes());
+    }
+
+    @Test
+    public void testDecreaseOnRttIncrease() {
+        long now = 1000;
+        for (int i = 0; i < 20; i++) {
+            this.window.onAck(BATCH, 5, now += 5);
+        }
+        final long before = this.window.getWindowBytes();
+        // queuing delay
+        this.window.onAck(BATCH, 50, now += 50);
+        assertTrue(this.window.getWindowBytes() < before);
+        assertTrue(this.window.getWindowBytes() >= BATCH);
+        assertEquals(5, this.window.getMinRttMs());
+    }
+
+    @Test
+    public void testThroughput() {
+        this.window.onAck(BATCH, 1, 1000);
+        assertEquals(0, this.window.getThroughput());
+        this.window.onAck(BATCH, 1, 1500);
+        this.window.onAck(BATCH, 1, 2000);
+        assertEquals(3 * BATCH, this.window.getThroughput());
+    }
+}
@@ -17,10 +17,14 @@
 package com.alipay.sofa.jraft.core;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -32,6 +36,7 @@ import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import com.alipay.sofa.jraft.Status;
 import com.alipay.sofa.jraft.closure.CatchUpClosure;
@@ -52,6 +57,7 @@ import com.alipay.sofa.jraft.rpc.impl.FutureImpl;
 import com.alipay.sofa.jraft.storage.LogManager;
 import com.alipay.sofa.jraft.storage.SnapshotStorage;
 import com.alipay.sofa.jraft.storage.snapshot.SnapshotReader;
+import com.alipay.sofa.jraft.test.TestUtils;
 import com.alipay.sofa.jraft.util.ThreadId;
 import com.alipay.sofa.jraft.util.Utils;
 import com.google.protobuf.ByteString;
@@ -104,6 +110,7 @@ public class ReplicatorTest {
 
         Mockito.when(this.logManager.getLastLogIndex()).thenReturn(10L);
         Mockito.when(this.logManager.getTerm(10)).thenReturn(1L);
+        TestUtils.mockGetEntries(this.logManager);
         Mockito.when(this.rpcService.connect(this.peerId.getEndpoint())).thenReturn(true);
         Mockito.when(this.node.getNodeMetrics()).thenReturn(new NodeMetrics(true));
         // mock send empty entries
@@ -435,6 +442,55 @@ public class ReplicatorTest {
         assertEquals(r.statInfo.runningState, Replicator.RunningState.IDLE);
     }
 
+    @Test
+    public void testReadAheadAfterLastSentEntry() throws Exception {
+        final Replicator old = getReplicator();
+        this.id.unlock();
+        old.destroy();
+        Replicator.join(this.id);
+
+        final RaftOptions raftOptions = new RaftOptions();
+        raftOptions.setReplicatorPrefetchBytes(1024 * 1024);
+        raftOptions.setMaxEntriesSize(4);
+        // only two entries fit in one request, and only one request is sent in the window
+        raftOptions.setMaxBodySize(16);
+        raftOptions.setMaxReplicatorInflightMsgs(1);
+        raftOptions.setReplicatorAdaptiveWindow(true);
+        this.id = Replicator.start(this.opts, raftOptions);
+
+        for (int i = 11; i <= 30; i++) {
+            final LogEntry entry = new LogEntry();
+            entry.setData(ByteBuffer.allocate(8));
+            entry.setType(EnumOutter.EntryType.ENTRY_TYPE_DATA);
+            entry.setId(new LogId(i, 1));
+            Mockito.when(this.logManager.getEntry(i)).thenReturn(entry);
+            Mockito.when(this.logManager.getTerm(i)).thenReturn(1L);
+        }
+        Mockito.when(this.logManager.getLastLogIndex()).thenReturn(30L);
+        final BlockingQueue<Long> readAheadIndexes = new LinkedBlockingQueue<>();
+        final Answer<List<LogEntry>> getEntries = TestUtils.getEntriesAnswer(this.logManager);
+        Mockito.when(this.logManager.getEntries(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyLong())).thenAnswer(
+            invocation -> {
+                if (Thread.currentThread().getName().startsWith("JRaft-Log-Prefetch-")) {
+                    readAheadIndexes.add((Long) invocation.getArguments()[0]);
+                }
+                return getEntries.answer(invocation);
+            });
+        Mockito
+            .when(this.rpcService.appendEntries(eq(this.peerId.getEndpoint()), Mockito.any(), eq(-1), Mockito.any()))
+            .thenReturn(new FutureImpl<>());
+        final RpcRequests.AppendEntriesResponse response = RpcRequests.AppendEntriesResponse.newBuilder() //
+            .setSuccess(true) //
+            .setLastLogIndex(10) //
+            .setTerm(1) //
+            .build();
+        Replicator.onRpcReturned(this.id, Replicator.RequestType.AppendEntries, Status.OK(),
+            createEmptyEntriesRequest(), response, 0, 0, Utils.monotonicMs());
+
+        // four entries are read but only two are sent, the read-ahead starts after the sent ones
+        assertEquals(Long.valueOf(13), readAheadIndexes.poll(5, TimeUnit.SECONDS));
+    }
+
     @Test
     public void testSetErrorTimeout() throws Exception {
         final Replicator r = getReplicator();
@@ -767,6 +823,37 @@ public class ReplicatorTest {
         return rb.build();
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testEventLoopMode() throws Exception {
+        this.id.unlock();
+        final RaftOptions raftOptions = new RaftOptions();
+        raftOptions.setReplicatorEventLoop(true);
+        final ThreadId eventLoopId = Replicator.start(this.opts, raftOptions);
+        assertNotNull(eventLoopId);
+        final ArgumentCaptor<RpcResponseClosureAdapter> captor = ArgumentCaptor
+            .forClass(RpcResponseClosureAdapter.class);
+        Mockito.verify(this.rpcService, Mockito.times(2)).appendEntries(eq(this.peerId.getEndpoint()),
+            eq(createEmptyEntriesRequest()), eq(-1), captor.capture());
+        Mockito.when(this.logManager.wait(eq(10L), Mockito.any(), same(eventLoopId))).thenReturn(99L);
+
+        final RpcResponseClosureAdapter<RpcRequests.AppendEntriesResponse> done = captor.getValue();
+        done.setResponse(RpcRequests.AppendEntriesResponse.newBuilder() //
+            .setSuccess(true) //
+            .setLastLogIndex(10) //
+            .setTerm(1) //
+            .build());
+        // The response is handled in the event loop of replicator.
+        done.run(Status.OK());
+        final Replicator r = (Replicator) eventLoopId.getData();
+        for (int i = 0; i < 100 && r.getWaitId() != 99; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(99, r.getWaitId());
+        assertEquals(11, Replicator.getNextIndex(eventLoopId));
+        assertTrue(Replicator.stop(eventLoopId));
+    }
+
     @Test
     public void testGetNextSendIndex() {
         final Replicator r = getReplicator();
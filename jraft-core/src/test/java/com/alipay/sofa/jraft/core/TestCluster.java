@@ -92,6 +92,8 @@ public class TestCluster {
 
     private LinkedHashSet<PeerId>                         learners;
 
+    private int                                           hibernateTimeoutMs;
+
     public JRaftServiceFactory getRaftServiceFactory() {
         return this.raftServiceFactory;
     }
@@ -100,6 +102,14 @@ public class TestCluster {
         this.raftServiceFactory = raftServiceFactory;
     }
 
+    public int getHibernateTimeoutMs() {
+        return this.hibernateTimeoutMs;
+    }
+
+    public void setHibernateTimeoutMs(final int hibernateTimeoutMs) {
+        this.hibernateTimeoutMs = hibernateTimeoutMs;
+    }
+
     public LinkedHashSet<PeerId> getLearners() {
         return this.learners;
     }
@@ -117,7 +127,7 @@ public class TestCluster {
     }
 
     public TestCluster(final String name, final String dataPath, final List<PeerId> peers, final int electionTimeoutMs) {
-        this(name, dataPath, peers, new LinkedHashSet<>(), 300);
+        this(name, dataPath, peers, new LinkedHashSet<>(), electionTimeoutMs);
     }
 
     public TestCluster(final String name, final String dataPath, final List<PeerId> peers,
@@ -175,6 +185,7 @@ public class TestCluster {
         nodeOptions.setSnapshotThrottle(snapshotThrottle);
         nodeOptions.setSnapshotIntervalSecs(snapshotIntervalSecs);
         nodeOptions.setServiceFactory(this.raftServiceFactory);
+        nodeOptions.setHibernateTimeoutMs(this.hibernateTimeoutMs);
         if (raftOptions != null) {
             nodeOptions.setRaftOptions(raftOptions);
         }
@@ -225,6 +236,7 @@ public class TestCluster {
         nodeOptions.setSnapshotThrottle(snapshotThrottle);
         nodeOptions.setSnapshotIntervalSecs(snapshotIntervalSecs);
         nodeOptions.setServiceFactory(this.raftServiceFactory);
+        nodeOptions.setHibernateTimeoutMs(this.hibernateTimeoutMs);
         if (raftOptions != null) {
             nodeOptions.setRaftOptions(raftOptions);
         }
@@ -16,8 +16,11 @@
  */
 package com.alipay.sofa.jraft.entity.codec;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -115,4 +118,92 @@ public abstract class BaseLogEntryCodecFactoryTest {
         assertNull(nentry.getOldPeers());
     }
 
+    @Test
+    public void testEncodeDecodeByteBuffer() {
+        final LogEntry entry = new LogEntry(EnumOutter.EntryType.ENTRY_TYPE_DATA);
+        entry.setId(new LogId(100, 3));
+        entry.setData(ByteBuffer.wrap("hello".getBytes()));
+        entry.setPeers(Arrays.asList(new PeerId("localhost", 99, 1), new PeerId("localhost", 100, 2)));
+
+        final byte[] content = this.encoder.encode(entry);
+        for (final ByteBuffer out : Arrays.asList(ByteBuffer.allocate(1024), ByteBuffer.allocateDirect(1024))) {
+            out.position(7);
+            assertEquals(content.length, this.encoder.encode(entry, out));
+            assertEquals(7 + content.length, out.position());
+
+            out.flip();
+            out.position(7);
+            final byte[] bs = new byte[out.remaining()];
+            out.duplicate().get(bs);
+            Assert.assertArrayEquals(content, bs);
+
+            final LogEntry nentry = this.decoder.decodeFrom(out);
+            assertNotNull(nentry);
+            // decoding doesn't move the position
+            assertEquals(7, out.position());
+            assertEquals(100, nentry.getId().getIndex());
+            assertEquals(3, nentry.getId().getTerm());
+            assertEquals(2, nentry.getPeers().size());
+            assertEquals(ByteBuffer.wrap("hello".getBytes()), nentry.getData());
+            assertEquals(5, nentry.getData().array().length);
+
+            // the decoded data doesn't share memory with the buffer
+            out.put(out.limit() - 1, (byte) 0);
+            assertEquals(ByteBuffer.wrap("hello".getBytes()), nentry.getData());
+        }
+    }
+
+    @Test
+    public void testEncodeDecodeDirectBuffer() {
+        // The unsafe direct buffer codec of protobuf crashes the JVM on JDK 17, the small and the large
+        // bodies are encoded in different ways.
+        final List<LogEntry> entries = new ArrayList<>();
+        for (final int size : new int[] { 5, 128 * 1024 }) {
+            final LogEntry entry = new LogEntry(EnumOutter.EntryType.ENTRY_TYPE_DATA);
+            entry.setId(new LogId(100 + entries.size(), 3));
+            entry.setData(ByteBuffer.wrap(new byte[size]));
+            entry.getData().put(size - 1, (byte) 1);
+            entries.add(entry);
+        }
+
+        final ByteBuffer out = ByteBuffer.allocateDirect(256 * 1024);
+        final List<Integer> positions = new ArrayList<>();
+        positions.add(0);
+        for (final LogEntry entry : entries) {
+            final byte[] content = this.encoder.encode(entry);
+            assertEquals(content.length, this.encoder.encode(entry, out));
+            final ByteBuffer written = out.duplicate();
+            written.flip();
+            written.position(positions.get(positions.size() - 1));
+            Assert.assertEquals(ByteBuffer.wrap(content), written);
+            positions.add(out.position());
+        }
+
+        for (int i = 0; i < entries.size(); i++) {
+            final ByteBuffer record = out.duplicate();
+            record.limit(positions.get(i + 1));
+            record.position(positions.get(i));
+            final LogEntry nentry = this.decoder.decodeFrom(record);
+            assertNotNull(nentry);
+            assertEquals(entries.get(i).getId(), nentry.getId());
+            assertEquals(entries.get(i).getData(), nentry.getData());
+        }
+    }
+
+    @Test
+    public void testEncodeByteBufferOverflow() {
+        final LogEntry entry = new LogEntry(EnumOutter.EntryType.ENTRY_TYPE_DATA);
+        entry.setId(new LogId(100, 3));
+        entry.setData(ByteBuffer.wrap("hello".getBytes()));
+
+        final int len = this.encoder.encode(entry).length;
+        final ByteBuffer out = ByteBuffer.allocateDirect(len - 1);
+        try {
+            this.encoder.encode(entry, out);
+            fail();
+        } catch (final BufferOverflowException e) {
+            assertEquals(0, out.position());
+        }
+        assertNull(this.decoder.decodeFrom(ByteBuffer.allocate(0)));
+    }
 }
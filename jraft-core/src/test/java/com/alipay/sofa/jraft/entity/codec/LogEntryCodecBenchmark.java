@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.entity.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import com.alipay.sofa.jraft.entity.EnumOutter;
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.entity.LogId;
+import com.alipay.sofa.jraft.entity.PeerId;
+import com.alipay.sofa.jraft.entity.codec.v1.V1Decoder;
+import com.alipay.sofa.jraft.entity.codec.v1.V1Encoder;
+import com.alipay.sofa.jraft.entity.codec.v2.V2Decoder;
+import com.alipay.sofa.jraft.entity.codec.v2.V2Encoder;
+
+/**
+ * Compares encoding log entries into new byte arrays with encoding them into a pooled
+ * direct buffer, and decoding from byte arrays with decoding from direct buffers.
+ *
+ * @author agent
+ */
+@SuppressWarnings({ "all" })
+@State(Scope.Benchmark)
+public class LogEntryCodecBenchmark {
+
+    @Param({ "64", "1024", "16384" })
+    private int        dataSize;
+
+    private LogEntry   entry;
+    private byte[]     v1Bytes;
+    private byte[]     v2Bytes;
+    private ByteBuffer v2DirectBytes;
+    private ByteBuffer pooled;
+
+    @Setup
+    public void setup() {
+        final byte[] data = new byte[this.dataSize];
+        ThreadLocalRandom.current().nextBytes(data);
+        this.entry = new LogEntry(EnumOutter.EntryType.ENTRY_TYPE_DATA);
+        this.entry.setId(new LogId(100, 3));
+        this.entry.setData(ByteBuffer.wrap(data));
+        this.entry.setPeers(Arrays.asList(new PeerId("localhost", 8081), new PeerId("localhost", 8082)));
+
+        this.v1Bytes = V1Encoder.INSTANCE.encode(this.entry);
+        this.v2Bytes = V2Encoder.INSTANCE.encode(this.entry);
+        this.v2DirectBytes = ByteBuffer.allocateDirect(this.v2Bytes.length);
+        this.v2DirectBytes.put(this.v2Bytes).flip();
+        this.pooled = ByteBuffer.allocateDirect(this.v2Bytes.length * 2);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] v1Encode() {
+        return V1Encoder.INSTANCE.encode(this.entry);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public LogEntry v1Decode() {
+        return V1Decoder.INSTANCE.decode(this.v1Bytes);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] v2EncodeToArray() {
+        return V2Encoder.INSTANCE.encode(this.entry);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int v2EncodeToPooledDirectBuffer() {
+        this.pooled.clear();
+        return V2Encoder.INSTANCE.encode(this.entry, this.pooled);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public LogEntry v2DecodeFromArray() {
+        return V2Decoder.INSTANCE.decode(this.v2Bytes);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public LogEntry v2DecodeFromDirectBuffer() {
+        return V2Decoder.INSTANCE.decodeFrom(this.v2DirectBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder() //
+            .include(LogEntryCodecBenchmark.class.getSimpleName()) //
+            .warmupIterations(3) //
+            .warmupTime(TimeValue.seconds(10)) //
+            .measurementIterations(3) //
+            .measurementTime(TimeValue.seconds(10)) //
+            .forks(1) //
+            .build();
+
+        new Runner(opt).run();
+    }
+}
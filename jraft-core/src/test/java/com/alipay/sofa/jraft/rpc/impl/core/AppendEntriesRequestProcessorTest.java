@@ -16,29 +16,47 @@
  */
 package com.alipay.sofa.jraft.rpc.impl.core;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
+import com.alipay.sofa.jraft.Node;
 import com.alipay.sofa.jraft.NodeManager;
+import com.alipay.sofa.jraft.entity.EnumOutter;
 import com.alipay.sofa.jraft.entity.PeerId;
+import com.alipay.sofa.jraft.entity.RaftOutter;
+import com.alipay.sofa.jraft.error.RaftError;
 import com.alipay.sofa.jraft.rpc.Connection;
 import com.alipay.sofa.jraft.rpc.RaftServerService;
 import com.alipay.sofa.jraft.rpc.RpcContext;
+import com.alipay.sofa.jraft.rpc.RpcRequestClosure;
+import com.alipay.sofa.jraft.rpc.RpcRequests;
 import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest;
 import com.alipay.sofa.jraft.rpc.RpcRequests.PingRequest;
 import com.alipay.sofa.jraft.rpc.impl.core.AppendEntriesRequestProcessor.PeerRequestContext;
 import com.alipay.sofa.jraft.test.MockAsyncContext;
 import com.alipay.sofa.jraft.test.TestUtils;
+import com.alipay.sofa.jraft.util.compress.Compressor;
+import com.alipay.sofa.jraft.util.compress.DeflateCompressor;
+import com.google.protobuf.ZeroByteStringHelper;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
 
 public class AppendEntriesRequestProcessorTest extends BaseNodeRequestProcessorTest<AppendEntriesRequest> {
@@ -162,4 +180,111 @@ public class AppendEntriesRequestProcessorTest extends BaseNodeRequestProcessorT
         assertNotSame(ctx, newCtx);
     }
 
+    private AppendEntriesRequest createEntriesRequest(final long prevLogIndex, final int count) {
+        final AppendEntriesRequest.Builder rb = AppendEntriesRequest.newBuilder() //
+            .setCommittedIndex(0) //
+            .setGroupId(groupId) //
+            .setPeerId(peerIdStr) //
+            .setServerId("localhost:8082") //
+            .setPrevLogIndex(prevLogIndex) //
+            .setTerm(1) //
+            .setPrevLogTerm(prevLogIndex == 0 ? 0 : 1);
+        for (int i = 0; i < count; i++) {
+            rb.addEntries(RaftOutter.EntryMeta.newBuilder().setTerm(1).setType(EnumOutter.EntryType.ENTRY_TYPE_DATA)
+                .setDataLen(0).build());
+        }
+        return rb.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testCoalesceAppendEntries() throws Exception {
+        final PeerId peer = this.mockNode();
+        final Node node = NodeManager.getInstance().get(groupId, peer);
+        node.getRaftOptions().setCoalesceAppendEntries(true);
+        final RaftServerService service = (RaftServerService) node;
+
+        final AppendEntriesRequestProcessor processor = (AppendEntriesRequestProcessor) newProcessor();
+        final PeerRequestContext ctx = processor.getPeerRequestContext(groupId, peerIdStr, conn);
+        // Block the peer executor, the requests are queued.
+        final CountDownLatch blocker = new CountDownLatch(1);
+        ctx.getExecutor().execute(() -> {
+            try {
+                blocker.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        final AppendEntriesRequest req1 = createEntriesRequest(0, 2);
+        final AppendEntriesRequest req2 = createEntriesRequest(2, 3);
+        final AppendEntriesRequest req3 = createEntriesRequest(10, 1);
+        assertNull(processor.processRequest0(service, req1, new RpcRequestClosure(this.asyncContext)));
+        assertNull(processor.processRequest0(service, req2, new RpcRequestClosure(this.asyncContext)));
+        // Not consecutive, flush the previous ones.
+        assertNull(processor.processRequest0(service, req3, new RpcRequestClosure(this.asyncContext)));
+
+        final ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(service).handleAppendEntriesRequests(captor.capture(), Mockito.anyList());
+        assertEquals(2, captor.getValue().size());
+        assertSame(req1, captor.getValue().get(0));
+        assertSame(req2, captor.getValue().get(1));
+
+        // Heartbeat flushes the pending one and is handled directly.
+        final AppendEntriesRequest heartbeat = createEntriesRequest(11, 0);
+        assertNull(processor.processRequest0(service, heartbeat, new RpcRequestClosure(this.asyncContext)));
+        Mockito.verify(service, Mockito.times(2)).handleAppendEntriesRequests(captor.capture(), Mockito.anyList());
+        assertEquals(1, captor.getValue().size());
+        assertSame(req3, captor.getValue().get(0));
+        Mockito.verify(service).handleAppendEntriesRequest(eq(heartbeat), Mockito.any());
+        assertTrue(ctx.getCoalescingRequests().isEmpty());
+
+        blocker.countDown();
+        // The scheduled flush tasks have nothing to do.
+        final CountDownLatch done = new CountDownLatch(1);
+        ctx.getExecutor().execute(done::countDown);
+        done.await();
+        Mockito.verify(service, Mockito.times(2)).handleAppendEntriesRequests(Mockito.anyList(), Mockito.anyList());
+    }
+
+    @Test
+    public void testDecompressData() throws Exception {
+        final Node node = NodeManager.getInstance().get(groupId, this.mockNode());
+        node.getRaftOptions().setReplicatorPipeline(false);
+        final RaftServerService service = (RaftServerService) node;
+        final AppendEntriesRequest heartbeat = createRequest(groupId, node.getNodeId().getPeerId());
+
+        final byte[] data = new byte[4096];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 8);
+        }
+        final Compressor compressor = new DeflateCompressor();
+        final AppendEntriesRequest.Builder rb = heartbeat.toBuilder();
+        rb.addEntries(RaftOutter.EntryMeta.newBuilder().setTerm(1).setType(EnumOutter.EntryType.ENTRY_TYPE_DATA)
+            .setDataLen(1024));
+        rb.addEntries(RaftOutter.EntryMeta.newBuilder().setTerm(1).setType(EnumOutter.EntryType.ENTRY_TYPE_DATA)
+            .setDataLen(3072));
+        rb.setData(ZeroByteStringHelper.wrap(compressor.compress(ByteBuffer.wrap(data))));
+        rb.setCompressType(compressor.getType());
+        final AppendEntriesRequest request = rb.build();
+
+        final AppendEntriesRequest decompressed = AppendEntriesRequestProcessor.decompressData(request);
+        assertFalse(decompressed.hasCompressType());
+        assertArrayEquals(data, decompressed.getData().toByteArray());
+        assertSame(heartbeat, AppendEntriesRequestProcessor.decompressData(heartbeat));
+
+        // Corrupted data is rejected.
+        final AppendEntriesRequest corrupted = request.toBuilder().setData(ZeroByteStringHelper.wrap(data)).build();
+        try {
+            AppendEntriesRequestProcessor.decompressData(corrupted);
+            fail();
+        } catch (final IOException e) {
+            // expected
+        }
+        final AppendEntriesRequestProcessor processor = (AppendEntriesRequestProcessor) newProcessor();
+        final RpcRequests.ErrorResponse resp = (RpcRequests.ErrorResponse) processor.processRequest0(service,
+            corrupted, new RpcRequestClosure(this.asyncContext));
+        assertEquals(RaftError.EINVAL.getNumber(), resp.getErrorCode());
+        Mockito.verify(service, Mockito.never()).handleAppendEntriesRequest(Mockito.any(), Mockito.any());
+    }
 }
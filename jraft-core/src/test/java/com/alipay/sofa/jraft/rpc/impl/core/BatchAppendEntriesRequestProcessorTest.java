@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rpc.impl.core;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.alipay.sofa.jraft.Node;
+import com.alipay.sofa.jraft.NodeManager;
+import com.alipay.sofa.jraft.entity.EnumOutter;
+import com.alipay.sofa.jraft.entity.NodeId;
+import com.alipay.sofa.jraft.entity.PeerId;
+import com.alipay.sofa.jraft.entity.RaftOutter;
+import com.alipay.sofa.jraft.error.RaftError;
+import com.alipay.sofa.jraft.rpc.RaftServerService;
+import com.alipay.sofa.jraft.rpc.RpcRequestClosure;
+import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest;
+import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse;
+import com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest;
+import com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse;
+import com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse;
+import com.alipay.sofa.jraft.test.MockAsyncContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+
+@RunWith(value = MockitoJUnitRunner.class)
+public class BatchAppendEntriesRequestProcessorTest {
+
+    @Mock(extraInterfaces = { RaftServerService.class })
+    private Node         node;
+    private final String peerIdStr = "localhost:8081";
+
+    @After
+    public void teardown() {
+        NodeManager.getInstance().clear();
+    }
+
+    private AppendEntriesRequest newHeartbeat(final String groupId) {
+        return AppendEntriesRequest.newBuilder() //
+            .setGroupId(groupId) //
+            .setServerId("localhost:8082") //
+            .setPeerId(this.peerIdStr) //
+            .setTerm(1) //
+            .setPrevLogIndex(10) //
+            .setPrevLogTerm(1) //
+            .setCommittedIndex(10) //
+            .build();
+    }
+
+    @Test
+    public void testHandleRequest() {
+        final PeerId peerId = new PeerId();
+        peerId.parse(this.peerIdStr);
+        Mockito.when(this.node.getGroupId()).thenReturn("test");
+        Mockito.when(this.node.getNodeId()).thenReturn(new NodeId("test", peerId));
+        NodeManager.getInstance().addAddress(peerId.getEndpoint());
+        NodeManager.getInstance().add(this.node);
+
+        final AppendEntriesRequest heartbeat = newHeartbeat("test");
+        final AppendEntriesResponse okResp = AppendEntriesResponse.newBuilder().setTerm(1).setSuccess(true)
+            .setLastLogIndex(10).build();
+        Mockito.when(
+            ((RaftServerService) this.node).handleAppendEntriesRequest(eq(heartbeat), isNull(RpcRequestClosure.class)))
+            .thenReturn(okResp);
+        final AppendEntriesRequest stale = heartbeat.toBuilder().setTerm(0).build();
+        Mockito.when(
+            ((RaftServerService) this.node).handleAppendEntriesRequest(eq(stale), isNull(RpcRequestClosure.class)))
+            .thenReturn(
+                ErrorResponse.newBuilder().setErrorCode(RaftError.EINVAL.getNumber()).setErrorMsg("stale").build());
+        final AppendEntriesRequest withEntries = heartbeat.toBuilder()
+            .addEntries(RaftOutter.EntryMeta.newBuilder().setTerm(1).setType(EnumOutter.EntryType.ENTRY_TYPE_DATA))
+            .build();
+
+        final BatchAppendEntriesRequest request = BatchAppendEntriesRequest.newBuilder() //
+            .addRequests(heartbeat) //
+            .addRequests(newHeartbeat("unknown")) //
+            .addRequests(stale) //
+            .addRequests(withEntries) //
+            .build();
+        final MockAsyncContext asyncContext = new MockAsyncContext();
+        final BatchAppendEntriesRequestProcessor processor = new BatchAppendEntriesRequestProcessor(null);
+        assertEquals(BatchAppendEntriesRequest.class.getName(), processor.interest());
+        processor.handleRequest(asyncContext, request);
+
+        final BatchAppendEntriesResponse response = asyncContext.as(BatchAppendEntriesResponse.class);
+        assertEquals(4, response.getResponsesCount());
+        assertSame(okResp, response.getResponses(0));
+        assertEquals(RaftError.ENOENT.getNumber(), response.getResponses(1).getErrorResponse().getErrorCode());
+        assertFalse(response.getResponses(1).getSuccess());
+        assertEquals("stale", response.getResponses(2).getErrorResponse().getErrorMsg());
+        assertEquals(RaftError.EINVAL.getNumber(), response.getResponses(3).getErrorResponse().getErrorCode());
+        Mockito.verify((RaftServerService) this.node, Mockito.never()).handleAppendEntriesRequest(eq(withEntries),
+            isNull(RpcRequestClosure.class));
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rpc.impl.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.alipay.sofa.jraft.Status;
+import com.alipay.sofa.jraft.core.Scheduler;
+import com.alipay.sofa.jraft.error.RaftError;
+import com.alipay.sofa.jraft.rpc.RaftClientService;
+import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesRequest;
+import com.alipay.sofa.jraft.rpc.RpcRequests.AppendEntriesResponse;
+import com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesRequest;
+import com.alipay.sofa.jraft.rpc.RpcRequests.BatchAppendEntriesResponse;
+import com.alipay.sofa.jraft.rpc.RpcRequests.ErrorResponse;
+import com.alipay.sofa.jraft.rpc.RpcResponseClosure;
+import com.alipay.sofa.jraft.rpc.RpcResponseClosureAdapter;
+import com.alipay.sofa.jraft.util.Endpoint;
+import com.google.protobuf.Message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+
+@RunWith(value = MockitoJUnitRunner.class)
+public class HeartbeatBatcherTest {
+
+    @Mock
+    private Scheduler         scheduler;
+    @Mock
+    private RaftClientService rpcService;
+    private final Endpoint    endpoint = new Endpoint("localhost", 8081);
+    private HeartbeatBatcher  batcher;
+
+    @Before
+    public void setup() {
+        this.batcher = new HeartbeatBatcher(this.rpcService, this.scheduler, 5, 3);
+    }
+
+    private static AppendEntriesRequest newHeartbeat(final String groupId) {
+        return AppendEntriesRequest.newBuilder() //
+            .setGroupId(groupId) //
+            .setServerId("localhost:8082") //
+            .setPeerId("localhost:8081") //
+            .setTerm(1) //
+            .setPrevLogIndex(10) //
+            .setPrevLogTerm(1) //
+            .setCommittedIndex(10) //
+            .build();
+    }
+
+    private static class RecordingClosure extends RpcResponseClosureAdapter<AppendEntriesResponse> {
+        Status status;
+
+        @Override
+        public void run(final Status status) {
+            this.status = status;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private RpcResponseClosure<BatchAppendEntriesResponse> verifyBatchSent(final int count) {
+        final ArgumentCaptor<BatchAppendEntriesRequest> requestCaptor = ArgumentCaptor
+            .forClass(BatchAppendEntriesRequest.class);
+        final ArgumentCaptor<RpcResponseClosure> doneCaptor = ArgumentCaptor.forClass(RpcResponseClosure.class);
+        Mockito.verify(this.rpcService).batchAppendEntries(eq(this.endpoint), requestCaptor.capture(), eq(1000),
+            doneCaptor.capture());
+        assertEquals(count, requestCaptor.getValue().getRequestsCount());
+        for (int i = 0; i < count; i++) {
+            assertEquals("group" + i, requestCaptor.getValue().getRequests(i).getGroupId());
+        }
+        return doneCaptor.getValue();
+    }
+
+    @Test
+    public void testBatchHeartbeats() {
+        final List<RecordingClosure> dones = new ArrayList<>();
+        final List<Future<Message>> futures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final RecordingClosure done = new RecordingClosure();
+            dones.add(done);
+            futures.add(this.batcher.heartbeat(this.endpoint, newHeartbeat("group" + i), 1000 + i, done));
+        }
+        // Scheduled only once, nothing is sent before flushing.
+        final ArgumentCaptor<Runnable> flushCaptor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(this.scheduler).schedule(flushCaptor.capture(), eq(5L), eq(TimeUnit.MILLISECONDS));
+        Mockito.verify(this.rpcService, Mockito.never()).batchAppendEntries(any(), any(), anyInt(), any());
+
+        flushCaptor.getValue().run();
+        final RpcResponseClosure<BatchAppendEntriesResponse> batchDone = verifyBatchSent(2);
+
+        final AppendEntriesResponse okResp = AppendEntriesResponse.newBuilder().setTerm(1).setSuccess(true)
+            .setLastLogIndex(10).build();
+        final AppendEntriesResponse errResp = AppendEntriesResponse
+            .newBuilder()
+            .setTerm(-1)
+            .setSuccess(false)
+            .setErrorResponse(
+                ErrorResponse.newBuilder().setErrorCode(RaftError.ENOENT.getNumber()).setErrorMsg("no node")).build();
+        batchDone.setResponse(BatchAppendEntriesResponse.newBuilder().addResponses(okResp).addResponses(errResp)
+            .build());
+        batchDone.run(Status.OK());
+
+        assertTrue(dones.get(0).status.isOk());
+        assertSame(okResp, dones.get(0).getResponse());
+        assertEquals(RaftError.ENOENT, dones.get(1).status.getRaftError());
+        assertEquals("no node", dones.get(1).status.getErrorMsg());
+        assertNull(dones.get(1).getResponse());
+        assertTrue(futures.get(0).isDone());
+        assertTrue(futures.get(1).isDone());
+    }
+
+    @Test
+    public void testSendWhenBatchIsFull() {
+        for (int i = 0; i < 3; i++) {
+            this.batcher.heartbeat(this.endpoint, newHeartbeat("group" + i), 1000, new RecordingClosure());
+        }
+        verifyBatchSent(3);
+        // The scheduled flush finds nothing to send.
+        final ArgumentCaptor<Runnable> flushCaptor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(this.scheduler).schedule(flushCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        flushCaptor.getValue().run();
+        Mockito.verify(this.rpcService).batchAppendEntries(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    public void testBatchFailed() {
+        final RecordingClosure done0 = new RecordingClosure();
+        final RecordingClosure done1 = new RecordingClosure();
+        this.batcher.heartbeat(this.endpoint, newHeartbeat("group0"), 1000, done0);
+        final Future<Message> future1 = this.batcher.heartbeat(this.endpoint, newHeartbeat("group1"), 1000, done1);
+        future1.cancel(true);
+
+        final ArgumentCaptor<Runnable> flushCaptor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(this.scheduler).schedule(flushCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        flushCaptor.getValue().run();
+        verifyBatchSent(2).run(new Status(RaftError.ETIMEDOUT, "timeout"));
+
+        assertEquals(RaftError.ETIMEDOUT, done0.status.getRaftError());
+        assertEquals(RaftError.ECANCELED, done1.status.getRaftError());
+        assertFalse(done0.status.isOk());
+    }
+
+    @Test
+    public void testSendThrows() {
+        Mockito.when(this.rpcService.batchAppendEntries(any(), any(), anyInt(), any())).thenThrow(
+            new IllegalStateException("boom"));
+        final List<RecordingClosure> dones = new ArrayList<>();
+        final List<Future<Message>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final RecordingClosure done = new RecordingClosure();
+            dones.add(done);
+            futures.add(this.batcher.heartbeat(this.endpoint, newHeartbeat("group" + i), 1000, done));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(RaftError.EINTERNAL, dones.get(i).status.getRaftError());
+            assertTrue(futures.get(i).isDone());
+        }
+    }
+
+    @Test
+    public void testShutdownFailsPendingHeartbeats() {
+        final RecordingClosure done = new RecordingClosure();
+        final Future<Message> future = this.batcher.heartbeat(this.endpoint, newHeartbeat("group0"), 1000, done);
+        assertNull(done.status);
+
+        this.batcher.shutdown();
+        assertEquals(RaftError.ESHUTDOWN, done.status.getRaftError());
+        assertTrue(future.isDone());
+        Mockito.verify(this.scheduler).shutdown();
+        Mockito.verify(this.rpcService).shutdown();
+        Mockito.verify(this.rpcService, Mockito.never()).batchAppendEntries(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    public void testSharedBatcher() {
+        final HeartbeatBatcher batcher1 = HeartbeatBatcher.getRef();
+        final HeartbeatBatcher batcher2 = HeartbeatBatcher.getRef();
+        assertSame(batcher1, batcher2);
+        batcher1.release();
+        assertSame(batcher1, HeartbeatBatcher.getRef());
+        batcher1.release();
+        batcher2.release();
+
+        final HeartbeatBatcher batcher3 = HeartbeatBatcher.getRef();
+        assertNotSame(batcher1, batcher3);
+        batcher3.release();
+    }
+}
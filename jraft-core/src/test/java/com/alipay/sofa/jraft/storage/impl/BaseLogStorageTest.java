@@ -154,6 +154,27 @@ public abstract class BaseLogStorageTest extends BaseStorageTest {
         }
     }
 
+    @Test
+    public void testGetEntries() {
+        final List<LogEntry> entries = TestUtils.mockEntries();
+        assertEquals(10, this.logStorage.appendEntries(entries));
+
+        List<LogEntry> got = this.logStorage.getEntries(2, 5, Long.MAX_VALUE);
+        assertEquals(entries.subList(2, 7), got);
+        got = this.logStorage.getEntries(8, 5, Long.MAX_VALUE);
+        assertEquals(entries.subList(8, 10), got);
+        // every entry after the first one carries one byte of data
+        got = this.logStorage.getEntries(2, 5, 3);
+        assertEquals(entries.subList(2, 5), got);
+        got = this.logStorage.getEntries(2, 5, 0);
+        assertEquals(entries.subList(2, 3), got);
+        assertTrue(this.logStorage.getEntries(10, 5, Long.MAX_VALUE).isEmpty());
+
+        this.logStorage.truncatePrefix(5);
+        assertTrue(this.logStorage.getEntries(3, 5, Long.MAX_VALUE).isEmpty());
+        assertEquals(entries.subList(5, 10), this.logStorage.getEntries(5, 10, Long.MAX_VALUE));
+    }
+
     @Test
     public void testReset() {
         testAddManyEntries();
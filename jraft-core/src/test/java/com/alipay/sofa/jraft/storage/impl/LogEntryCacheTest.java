@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.storage.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.entity.codec.v2.LogEntryV2CodecFactory;
+import com.alipay.sofa.jraft.test.TestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LogEntryCacheTest {
+
+    private LogEntryCache cache;
+
+    @Before
+    public void setup() {
+        this.cache = new LogEntryCache(4096, LogEntryV2CodecFactory.getInstance());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, this.cache.getCount());
+        assertEquals(0, this.cache.getUsedBytes());
+        assertNull(this.cache.get(1));
+        assertEquals(0, this.cache.getTerm(1));
+    }
+
+    @Test
+    public void testAppendAndGet() {
+        final List<LogEntry> entries = appendEntries(1, 10, 32);
+        assertEquals(10, this.cache.getCount());
+        assertEquals(1, this.cache.getFirstIndex());
+        assertEquals(10, this.cache.getLastIndex());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(entries.get(i), this.cache.get(i + 1));
+            assertEquals(i + 1, this.cache.getTerm(i + 1));
+        }
+        assertNull(this.cache.get(0));
+        assertNull(this.cache.get(11));
+    }
+
+    @Test
+    public void testEvictWhenFull() {
+        final List<LogEntry> entries = appendEntries(1, 1000, 100);
+        assertTrue(this.cache.getUsedBytes() <= this.cache.getCapacity());
+        assertTrue(this.cache.getCount() < 1000);
+        assertEquals(1000, this.cache.getLastIndex());
+        final long firstIndex = this.cache.getFirstIndex();
+        assertNull(this.cache.get(firstIndex - 1));
+        for (long i = firstIndex; i <= 1000; i++) {
+            assertEquals(entries.get((int) (i - 1)), this.cache.get(i));
+        }
+    }
+
+    @Test
+    public void testWrapWithVariousSize() {
+        final List<LogEntry> entries = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            final LogEntry entry = TestUtils.mockEntry(i, i, (i * 37) % 700);
+            entries.add(entry);
+            assertTrue(this.cache.append(entry));
+            assertTrue(this.cache.getUsedBytes() <= this.cache.getCapacity());
+            for (long j = this.cache.getFirstIndex(); j <= i; j++) {
+                assertEquals(entries.get((int) (j - 1)), this.cache.get(j));
+            }
+        }
+    }
+
+    @Test
+    public void testAppendNotContinuous() {
+        appendEntries(1, 10, 32);
+        final LogEntry entry = TestUtils.mockEntry(20, 20, 32);
+        assertTrue(this.cache.append(entry));
+        assertEquals(1, this.cache.getCount());
+        assertEquals(20, this.cache.getFirstIndex());
+        assertEquals(entry, this.cache.get(20));
+        assertNull(this.cache.get(10));
+    }
+
+    @Test
+    public void testAppendTooLarge() {
+        appendEntries(1, 10, 32);
+        assertFalse(this.cache.append(TestUtils.mockEntry(11, 11, 8192)));
+        assertEquals(0, this.cache.getCount());
+        assertEquals(0, this.cache.getUsedBytes());
+        appendEntries(12, 1, 32);
+        assertEquals(12, this.cache.getFirstIndex());
+    }
+
+    @Test
+    public void testTruncate() {
+        final List<LogEntry> entries = appendEntries(1, 10, 32);
+        this.cache.truncatePrefix(4);
+        assertEquals(4, this.cache.getFirstIndex());
+        assertNull(this.cache.get(3));
+        this.cache.truncateSuffix(7);
+        assertEquals(7, this.cache.getLastIndex());
+        assertNull(this.cache.get(8));
+        assertEquals(4, this.cache.getCount());
+        for (int i = 4; i <= 7; i++) {
+            assertEquals(entries.get(i - 1), this.cache.get(i));
+        }
+        // append after truncating suffix
+        final List<LogEntry> newEntries = appendEntries(8, 3, 64);
+        assertEquals(10, this.cache.getLastIndex());
+        assertEquals(newEntries.get(0), this.cache.get(8));
+
+        this.cache.clear();
+        assertEquals(0, this.cache.getCount());
+        assertEquals(0, this.cache.getUsedBytes());
+        assertNull(this.cache.get(8));
+    }
+
+    private List<LogEntry> appendEntries(final int firstIndex, final int n, final int dataSize) {
+        final List<LogEntry> entries = new ArrayList<>();
+        for (int i = firstIndex; i < firstIndex + n; i++) {
+            final LogEntry entry = TestUtils.mockEntry(i, i, dataSize);
+            entries.add(entry);
+            assertTrue(this.cache.append(entry));
+        }
+        return entries;
+    }
+}
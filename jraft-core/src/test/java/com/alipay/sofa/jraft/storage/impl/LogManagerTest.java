@@ -48,6 +48,7 @@ import com.alipay.sofa.jraft.test.TestUtils;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -67,7 +68,7 @@ public class LogManagerTest extends BaseStorageTest {
     public void setup() throws Exception {
         super.setup();
         this.confManager = new ConfigurationManager();
-        final RaftOptions raftOptions = new RaftOptions();
+        final RaftOptions raftOptions = newRaftOptions();
         this.logStorage = newLogStorage(raftOptions);
         this.logManager = new LogManagerImpl();
         final LogManagerOptions opts = new LogManagerOptions();
@@ -80,6 +81,10 @@ public class LogManagerTest extends BaseStorageTest {
         assertTrue(this.logManager.init(opts));
     }
 
+    protected RaftOptions newRaftOptions() {
+        return new RaftOptions();
+    }
+
     protected RocksDBLogStorage newLogStorage(final RaftOptions raftOptions) {
         return new RocksDBLogStorage(this.path, raftOptions);
     }
@@ -165,6 +170,8 @@ public class LogManagerTest extends BaseStorageTest {
             }
         });
         latch1.await();
+        // The disk id is set after the closure runs, wait for it by a flush.
+        assertEquals(10, this.logManager.getLastLogId(true).getIndex());
 
         assertEquals(1, this.logManager.getFirstLogIndex());
         assertEquals(10, this.logManager.getLastLogIndex());
@@ -333,6 +340,22 @@ public class LogManagerTest extends BaseStorageTest {
         }
     }
 
+    @Test
+    public void testGetEntries() throws Exception {
+        final List<LogEntry> mockEntries = mockAddEntries();
+        assertEquals(mockEntries, this.logManager.getEntries(1, 10, Long.MAX_VALUE));
+
+        Thread.sleep(200); // waiting for setDiskId()
+        this.logManager.setAppliedId(new LogId(5, 5));
+        assertNull(this.logManager.getEntryFromMemory(5));
+        assertNotNull(this.logManager.getEntryFromMemory(6));
+        // read from both log storage and memory
+        assertEquals(mockEntries.subList(2, 9), this.logManager.getEntries(3, 7, Long.MAX_VALUE));
+        assertEquals(mockEntries.subList(2, 5), this.logManager.getEntries(3, 7, 3));
+        assertEquals(mockEntries.subList(9, 10), this.logManager.getEntries(10, 7, Long.MAX_VALUE));
+        assertTrue(this.logManager.getEntries(11, 7, Long.MAX_VALUE).isEmpty());
+    }
+
     private List<LogEntry> mockAddEntries() throws InterruptedException {
         final CountDownLatch latch = new CountDownLatch(1);
         final List<LogEntry> mockEntries = TestUtils.mockEntries(10);
@@ -16,128 +16,260 @@
  */
 package com.alipay.sofa.jraft.storage.impl;
 
-import java.nio.file.Paths;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
 
 import com.alipay.sofa.jraft.conf.ConfigurationManager;
+import com.alipay.sofa.jraft.entity.EnumOutter;
 import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.entity.LogId;
 import com.alipay.sofa.jraft.entity.codec.v2.LogEntryV2CodecFactory;
 import com.alipay.sofa.jraft.option.LogStorageOptions;
 import com.alipay.sofa.jraft.option.RaftOptions;
 import com.alipay.sofa.jraft.storage.LogStorage;
 import com.alipay.sofa.jraft.storage.log.RocksDBSegmentLogStorage;
+import com.alipay.sofa.jraft.storage.log.SegmentLogStorage;
 import com.alipay.sofa.jraft.test.TestUtils;
-import com.alipay.sofa.jraft.util.SystemPropertyUtil;
-import com.alipay.sofa.jraft.util.Utils;
 
+/**
+ * Benchmarks of the log storage implementations, reports both throughput and latency
+ * percentiles(by {@link Mode#SampleTime}).
+ *
+ * <ul>
+ *   <li>append: appends a batch of logs.</li>
+ *   <li>appendWithTruncatePrefix: appends a batch of logs and truncates the prefix to keep
+ *   the log size stable, like a node taking snapshots.</li>
+ *   <li>getEntry/getEntries: random point reads and range reads on the preloaded logs.</li>
+ *   <li>mixed: one thread appends while three threads read the tail of logs, like the
+ *   replicators of a leader.</li>
+ * </ul>
+ *
+ * The whole parameter space is large, use -p to choose the parameters, e.g.
+ * <pre>
+ *   -p storageType=rocksdb_segment -p logSize=1024 -p batchSize=128 -p sync=false
+ * </pre>
+ *
+ * @author agent
+ */
+@SuppressWarnings({ "all" })
+@State(Scope.Benchmark)
 public class LogStorageBenchmark {
 
-    private final LogStorage logStorage;
+    /**
+     * Preloaded logs size in bytes, the number of preloaded logs is between 256 and 100000.
+     */
+    private static final long PRELOAD_BYTES = 256 * 1024 * 1024;
 
-    private final int        logSize;
+    @Param({ "rocksdb", "rocksdb_segment", "segment", "multi_group" })
+    private String            storageType;
 
-    private final int        totalLogs;
+    @Param({ "64", "1024", "16384", "1048576" })
+    private int               logSize;
 
-    private final int        batchSize;
+    @Param({ "1", "16", "128" })
+    private int               batchSize;
 
-    public LogStorageBenchmark(final LogStorage logStorage, final int logSize, final int totalLogs, final int batchSize) {
-        super();
-        this.logStorage = logStorage;
-        this.logSize = logSize;
-        this.totalLogs = totalLogs;
-        this.batchSize = batchSize;
-    }
+    @Param({ "true", "false" })
+    private boolean           sync;
+
+    @Param({ "false", "true" })
+    private boolean           enableLogEntryChecksum;
+
+    private String            path;
+    private LogStorage        logStorage;
+    private byte[]            data;
+    private int               preloadLogs;
+    private volatile long     nextIndex;
 
-    private void write(final int batchSize, final int logSize, final int totalLogs) {
-        List<LogEntry> entries = new ArrayList<>(batchSize);
-        for (int i = 0; i < totalLogs; i += batchSize) {
-            for (int j = i; j < i + batchSize; j++) {
-                entries.add(TestUtils.mockEntry(j, j, logSize));
-            }
-            int ret = this.logStorage.appendEntries(entries);
-            if (ret != batchSize) {
-                System.err.println("Fatal error: write failures, expect " + batchSize + ", but was " + ret);
-                System.exit(1);
-            }
-            entries.clear(); //reuse it
+    @Setup
+    public void setup() throws Exception {
+        this.path = TestUtils.mkTempDir();
+        FileUtils.forceMkdir(new File(this.path));
+        this.data = new byte[this.logSize];
+        ThreadLocalRandom.current().nextBytes(this.data);
+
+        final RaftOptions raftOptions = new RaftOptions();
+        raftOptions.setSync(this.sync);
+        raftOptions.setEnableLogEntryChecksum(this.enableLogEntryChecksum);
+        this.logStorage = newLogStorage(raftOptions);
+        final LogStorageOptions opts = new LogStorageOptions();
+        opts.setConfigurationManager(new ConfigurationManager());
+        opts.setLogEntryCodecFactory(LogEntryV2CodecFactory.getInstance());
+        if (!this.logStorage.init(opts)) {
+            throw new IllegalStateException("Fail to init log storage " + this.storageType);
         }
-    }
 
-    private static void assertNotNull(final Object obj) {
-        if (obj == null) {
-            System.err.println("Null object");
-            System.exit(1);
+        this.nextIndex = 1;
+        this.preloadLogs = (int) Math.min(100000, Math.max(256, PRELOAD_BYTES / this.logSize));
+        while (this.nextIndex <= this.preloadLogs) {
+            doAppend(128);
         }
     }
 
-    private static void assertEquals(final long x, final long y) {
-        if (x != y) {
-            System.err.println("Expect " + x + " but was " + y);
-            System.exit(1);
+    private LogStorage newLogStorage(final RaftOptions raftOptions) {
+        switch (this.storageType) {
+            case "rocksdb":
+                return new RocksDBLogStorage(this.path, raftOptions);
+            case "rocksdb_segment":
+                return RocksDBSegmentLogStorage.builder(this.path, raftOptions).build();
+            case "segment":
+                return SegmentLogStorage.builder(this.path, raftOptions).build();
+            case "multi_group":
+                return new MultiGroupLogStorage(new MultiGroupLogEngine(this.path, this.sync), "benchmark", raftOptions);
+            default:
+                throw new IllegalArgumentException("Unknown storage type: " + this.storageType);
         }
     }
 
-    private void read(final int logSize, final int totalLogs) {
-        for (int i = 0; i < totalLogs; i++) {
-            LogEntry log = this.logStorage.getEntry(i);
-            assertNotNull(log);
-            assertEquals(i, log.getId().getIndex());
-            assertEquals(i, log.getId().getTerm());
-            assertEquals(logSize, log.getData().remaining());
+    @TearDown(Level.Iteration)
+    public void trim() {
+        // Keeps the log size stable between iterations.
+        final long firstIndexKept = this.nextIndex - this.preloadLogs;
+        if (firstIndexKept > this.logStorage.getFirstLogIndex()) {
+            this.logStorage.truncatePrefix(firstIndexKept);
         }
     }
 
-    private void report(final String op, final long cost) {
-        System.out.println("Test " + op + ":");
-        System.out.println("  Log number   :" + this.totalLogs);
-        System.out.println("  Log Size     :" + this.logSize);
-        System.out.println("  Batch Size   :" + this.batchSize);
-        System.out.println("  Cost time(s) :" + cost / 1000);
-        System.out.println("  Total size   :" + (long) this.totalLogs * this.logSize);
+    @TearDown
+    public void tearDown() throws IOException {
+        this.logStorage.shutdown();
+        FileUtils.deleteDirectory(new File(this.path));
     }
 
-    private void doTest() {
-        System.out.println("Begin test...");
-        {
-            System.out.println("Warm up...");
-            write(10, 64, 10000);
-            read(64, 10000);
+    private LogEntry newEntry(final long index) {
+        final LogEntry entry = new LogEntry(EnumOutter.EntryType.ENTRY_TYPE_DATA);
+        entry.setId(new LogId(index, 1));
+        entry.setData(ByteBuffer.wrap(this.data));
+        if (this.enableLogEntryChecksum) {
+            entry.setChecksum(entry.checksum());
+        }
+        return entry;
+    }
+
+    private int doAppend(final int n) {
+        final List<LogEntry> entries = new ArrayList<>(n);
+        final long index = this.nextIndex;
+        for (int i = 0; i < n; i++) {
+            entries.add(newEntry(index + i));
+        }
+        final int ret = this.logStorage.appendEntries(entries);
+        if (ret != n) {
+            throw new IllegalStateException("Fail to append logs, expect " + n + ", but was " + ret);
         }
+        this.nextIndex = index + n;
+        return ret;
+    }
 
-        System.out.println("Start test...");
-        {
-            long start = Utils.monotonicMs();
-            write(this.batchSize, this.logSize, this.totalLogs);
-            long cost = Utils.monotonicMs() - start;
-            report("write", cost);
+    private LogEntry checkEntry(final LogEntry entry) {
+        if (entry == null) {
+            throw new IllegalStateException("Null log entry");
+        }
+        if (this.enableLogEntryChecksum && entry.isCorrupted()) {
+            throw new IllegalStateException("Corrupted log entry " + entry.getId());
         }
+        return entry;
+    }
+
+    private long randomIndex(final long range) {
+        final long lastIndex = this.nextIndex - 1;
+        return Math.max(this.logStorage.getFirstLogIndex(), lastIndex - ThreadLocalRandom.current().nextLong(range));
+    }
+
+    @Benchmark
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int append() {
+        return doAppend(this.batchSize);
+    }
 
-        {
-            long start = Utils.monotonicMs();
-            read(this.logSize, this.totalLogs);
-            long cost = Utils.monotonicMs() - start;
-            report("read", cost);
+    @Benchmark
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int appendWithTruncatePrefix() {
+        final int ret = doAppend(this.batchSize);
+        final long firstIndexKept = this.nextIndex - this.preloadLogs;
+        if (firstIndexKept - this.logStorage.getFirstLogIndex() >= this.preloadLogs / 10) {
+            this.logStorage.truncatePrefix(firstIndexKept);
         }
-        System.out.println("Test done!");
+        return ret;
     }
 
-    public static void main(final String[] args) {
-        String testPath = Paths.get(SystemPropertyUtil.get("user.dir"), "log_storage").toString();
-        System.out.println("Test log storage path: " + testPath);
-        int batchSize = 100;
-        int logSize = 16 * 1024;
-        int totalLogs = 1024 * 1024;
+    @Benchmark
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public LogEntry getEntry() {
+        return checkEntry(this.logStorage.getEntry(randomIndex(this.preloadLogs)));
+    }
 
-        // LogStorage logStorage = new RocksDBLogStorage(testPath, new RaftOptions());
-        LogStorage logStorage = new RocksDBSegmentLogStorage(testPath, new RaftOptions());
+    @Benchmark
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int getEntries() {
+        final List<LogEntry> entries = this.logStorage.getEntries(randomIndex(this.preloadLogs), this.batchSize,
+            Long.MAX_VALUE);
+        for (final LogEntry entry : entries) {
+            checkEntry(entry);
+        }
+        return entries.size();
+    }
 
-        LogStorageOptions opts = new LogStorageOptions();
-        opts.setConfigurationManager(new ConfigurationManager());
-        opts.setLogEntryCodecFactory(LogEntryV2CodecFactory.getInstance());
-        logStorage.init(opts);
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int mixedAppend() {
+        return doAppend(this.batchSize);
+    }
 
-        new LogStorageBenchmark(logStorage, logSize, totalLogs, batchSize).doTest();
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int mixedRead() {
+        // Replicators read the recent logs mostly.
+        final List<LogEntry> entries = this.logStorage.getEntries(randomIndex(1024), this.batchSize, Long.MAX_VALUE);
+        for (final LogEntry entry : entries) {
+            checkEntry(entry);
+        }
+        return entries.size();
     }
 
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder() //
+            .include(LogStorageBenchmark.class.getSimpleName()) //
+            .warmupIterations(3) //
+            .warmupTime(TimeValue.seconds(5)) //
+            .measurementIterations(3) //
+            .measurementTime(TimeValue.seconds(5)) //
+            .forks(1) //
+            .build();
+
+        new Runner(opt).run();
+    }
 }
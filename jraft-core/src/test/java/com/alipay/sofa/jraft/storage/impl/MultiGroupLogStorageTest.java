@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.storage.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.conf.ConfigurationManager;
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.entity.codec.v2.LogEntryV2CodecFactory;
+import com.alipay.sofa.jraft.option.LogStorageOptions;
+import com.alipay.sofa.jraft.option.RaftOptions;
+import com.alipay.sofa.jraft.storage.LogStorage;
+import com.alipay.sofa.jraft.test.TestUtils;
+
+public class MultiGroupLogStorageTest extends BaseLogStorageTest {
+
+    private MultiGroupLogEngine engine;
+
+    @Override
+    protected LogStorage newLogStorage() {
+        if (this.engine == null) {
+            this.engine = new MultiGroupLogEngine(this.path, true);
+        }
+        return new MultiGroupLogStorage(this.engine, "group_1", new RaftOptions());
+    }
+
+    private LogStorage newGroupLogStorage(final String groupName) {
+        return newGroupLogStorage(groupName, new RaftOptions());
+    }
+
+    private LogStorage newGroupLogStorage(final String groupName, final RaftOptions raftOptions) {
+        final LogStorage storage = new MultiGroupLogStorage(this.engine, groupName, raftOptions);
+        final LogStorageOptions opts = new LogStorageOptions();
+        opts.setConfigurationManager(new ConfigurationManager());
+        opts.setLogEntryCodecFactory(LogEntryV2CodecFactory.getInstance());
+        assertTrue(storage.init(opts));
+        return storage;
+    }
+
+    @Test
+    public void testDestroyGroup() {
+        final LogStorage group2 = newGroupLogStorage("group_2");
+        final LogStorage group3 = newGroupLogStorage("group_3");
+        try {
+            assertEquals(10, group2.appendEntries(TestUtils.mockEntries()));
+            assertEquals(5, group3.appendEntries(TestUtils.mockEntries(5)));
+        } finally {
+            group2.shutdown();
+        }
+        try {
+            final Long id2 = this.engine.getGroupId("group_2");
+            assertNotNull(id2);
+            assertTrue(this.engine.hasGroupData(id2));
+
+            assertTrue(this.engine.destroyGroup("group_2"));
+            assertFalse(this.engine.hasGroupData(id2));
+            assertNull(this.engine.getGroupId("group_2"));
+            // the other groups are kept
+            assertTrue(this.engine.hasGroupData(this.engine.getGroupId("group_3")));
+            assertEquals(4, group3.getLastLogIndex());
+            assertNotNull(group3.getEntry(4));
+        } finally {
+            group3.shutdown();
+        }
+        // registered again with a new id and an empty log
+        final LogStorage recreated = newGroupLogStorage("group_2");
+        try {
+            assertEquals(1, recreated.getFirstLogIndex());
+            assertEquals(0, recreated.getLastLogIndex());
+        } finally {
+            recreated.shutdown();
+        }
+    }
+
+    @Test
+    public void testGroupsIsolation() {
+        final LogStorage group2 = newGroupLogStorage("group_2");
+        final LogStorage group3 = newGroupLogStorage("group_3");
+        try {
+            assertEquals(10, group2.appendEntries(TestUtils.mockEntries()));
+            assertEquals(5, group3.appendEntries(TestUtils.mockEntries(5)));
+
+            assertEquals(0, group2.getFirstLogIndex());
+            assertEquals(9, group2.getLastLogIndex());
+            assertEquals(0, group3.getFirstLogIndex());
+            assertEquals(4, group3.getLastLogIndex());
+
+            group3.truncateSuffix(2);
+            assertEquals(2, group3.getLastLogIndex());
+            assertNull(group3.getEntry(3));
+            assertNotNull(group2.getEntry(3));
+
+            group2.reset(5);
+            assertEquals(5, group2.getFirstLogIndex());
+            assertEquals(5, group2.getLastLogIndex());
+            assertEquals(0, group3.getFirstLogIndex());
+            assertEquals(2, group3.getLastLogIndex());
+            assertNotNull(group3.getEntry(0));
+        } finally {
+            group2.shutdown();
+            group3.shutdown();
+        }
+        // reload
+        final LogStorage reloaded = newGroupLogStorage("group_3");
+        try {
+            assertEquals(0, reloaded.getFirstLogIndex());
+            assertEquals(2, reloaded.getLastLogIndex());
+        } finally {
+            reloaded.shutdown();
+        }
+    }
+
+    @Test
+    public void testSyncOfGroup() {
+        final RaftOptions noSync = new RaftOptions();
+        noSync.setSync(false);
+        final LogStorage group2 = newGroupLogStorage("group_2", noSync);
+        final LogStorage group3 = newGroupLogStorage("group_3");
+        try {
+            final long syncTimes = this.engine.getSyncTimes();
+            assertEquals(10, group2.appendEntries(TestUtils.mockEntries()));
+            assertEquals(syncTimes, this.engine.getSyncTimes());
+            assertEquals(5, group3.appendEntries(TestUtils.mockEntries(5)));
+            assertEquals(syncTimes + 1, this.engine.getSyncTimes());
+        } finally {
+            group2.shutdown();
+            group3.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentAppendsGroupCommit() throws Exception {
+        final int groups = 8;
+        final int batches = 50;
+        final List<LogStorage> storages = new ArrayList<>();
+        for (int i = 0; i < groups; i++) {
+            storages.add(newGroupLogStorage("concurrent_group_" + i));
+        }
+        final CountDownLatch latch = new CountDownLatch(groups);
+        final AtomicInteger failures = new AtomicInteger();
+        try {
+            for (final LogStorage storage : storages) {
+                new Thread(() -> {
+                    try {
+                        for (int b = 0; b < batches; b++) {
+                            final List<LogEntry> entries = new ArrayList<>();
+                            for (int j = 0; j < 10; j++) {
+                                final int index = b * 10 + j + 1;
+                                entries.add(TestUtils.mockEntry(index, 1, 128));
+                            }
+                            if (storage.appendEntries(entries) != entries.size()) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }).start();
+            }
+            latch.await();
+            assertEquals(0, failures.get());
+            for (final LogStorage storage : storages) {
+                assertEquals(1, storage.getFirstLogIndex());
+                assertEquals(batches * 10, storage.getLastLogIndex());
+                for (int i = 1; i <= batches * 10; i++) {
+                    assertEquals(i, storage.getEntry(i).getId().getIndex());
+                }
+            }
+            assertTrue(this.engine.getGroupCommitRatio() >= 1);
+        } finally {
+            for (final LogStorage storage : storages) {
+                storage.shutdown();
+            }
+        }
+    }
+}
@@ -16,8 +16,24 @@
  */
 package com.alipay.sofa.jraft.storage.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.conf.ConfigurationManager;
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.entity.codec.v2.LogEntryV2CodecFactory;
+import com.alipay.sofa.jraft.option.LogStorageOptions;
 import com.alipay.sofa.jraft.option.RaftOptions;
 import com.alipay.sofa.jraft.storage.LogStorage;
+import com.alipay.sofa.jraft.test.TestUtils;
+import com.codahale.metrics.MetricRegistry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class RocksDBLogStorageTest extends BaseLogStorageTest {
 
@@ -26,4 +42,50 @@ public class RocksDBLogStorageTest extends BaseLogStorageTest {
         return new RocksDBLogStorage(this.path, new RaftOptions());
     }
 
+    @Test
+    public void testTruncatePrefixInBackground() throws Exception {
+        final RocksDBLogStorage storage = new RocksDBLogStorage(this.path + "/gc", new RaftOptions());
+        final LogStorageOptions opts = new LogStorageOptions();
+        opts.setConfigurationManager(new ConfigurationManager());
+        opts.setLogEntryCodecFactory(LogEntryV2CodecFactory.getInstance());
+        assertTrue(storage.init(opts));
+        try {
+            final int totalLogs = 20000;
+            for (int i = 0; i < totalLogs; i += 1000) {
+                final List<LogEntry> entries = new ArrayList<>(1000);
+                for (int j = i; j < i + 1000; j++) {
+                    entries.add(TestUtils.mockEntry(j, j, 16));
+                }
+                assertEquals(1000, storage.appendEntries(entries));
+            }
+
+            final MetricRegistry registry = storage.getTruncatePrefixMetrics().getMetricRegistry();
+            assertTrue(storage.truncatePrefix(15000));
+            // returns at once, and the logs are invisible already
+            assertEquals(15000, storage.getFirstLogIndex());
+            assertNull(storage.getEntry(14999));
+            assertNotNull(storage.getEntry(15000));
+
+            // deleted and compacted in background
+            for (int i = 0; i < 100 && registry.timer("truncate-prefix-compact").getCount() == 0; i++) {
+                Thread.sleep(100);
+            }
+            assertEquals(1, registry.timer("truncate-prefix-compact").getCount());
+            assertEquals(15000, registry.counter("truncate-prefix-deleted-logs").getCount());
+            assertEquals(0L, registry.getGauges().get("truncate-prefix-pending-logs").getValue());
+            assertEquals(0L, registry.getGauges().get("truncate-prefix-compaction-debt-logs").getValue());
+
+            // the small truncation is deleted but not compacted
+            assertTrue(storage.truncatePrefix(15100));
+            for (int i = 0; i < 100 && registry.counter("truncate-prefix-deleted-logs").getCount() < 15100; i++) {
+                Thread.sleep(100);
+            }
+            assertEquals(15100, registry.counter("truncate-prefix-deleted-logs").getCount());
+            assertEquals(100L, registry.getGauges().get("truncate-prefix-compaction-debt-logs").getValue());
+            assertEquals(1, registry.timer("truncate-prefix-compact").getCount());
+            assertEquals(totalLogs - 1, storage.getLastLogIndex());
+        } finally {
+            storage.shutdown();
+        }
+    }
 }
@@ -16,9 +16,24 @@
  */
 package com.alipay.sofa.jraft.storage.impl;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.conf.ConfigurationManager;
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.entity.codec.v2.LogEntryV2CodecFactory;
+import com.alipay.sofa.jraft.option.LogStorageOptions;
 import com.alipay.sofa.jraft.option.RaftOptions;
 import com.alipay.sofa.jraft.storage.LogStorage;
 import com.alipay.sofa.jraft.storage.log.RocksDBSegmentLogStorage;
+import com.alipay.sofa.jraft.test.TestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class RocksDBSegmentLogStorageTest extends BaseLogStorageTest {
 
@@ -27,4 +42,85 @@ public class RocksDBSegmentLogStorageTest extends BaseLogStorageTest {
         return new RocksDBSegmentLogStorage(this.path, new RaftOptions());
     }
 
+    private RocksDBSegmentLogStorage newSmallSegmentsStorage() {
+        return newSmallSegmentsStorage(false);
+    }
+
+    private RocksDBSegmentLogStorage newSmallSegmentsStorage(final boolean nativeHints) {
+        return RocksDBSegmentLogStorage.builder(this.path + File.separator + "small", new RaftOptions()) //
+            .setValueSizeThreshold(0) //
+            .setMaxSegmentFileSize(64 * 1024) //
+            .setNativeHints(nativeHints) //
+            .build();
+    }
+
+    private LogStorageOptions newOptions() {
+        final LogStorageOptions opts = new LogStorageOptions();
+        opts.setConfigurationManager(new ConfigurationManager());
+        opts.setLogEntryCodecFactory(LogEntryV2CodecFactory.getInstance());
+        return opts;
+    }
+
+    @Test
+    public void testRestartWithLazySegments() {
+        RocksDBSegmentLogStorage storage = newSmallSegmentsStorage();
+        assertTrue(storage.init(newOptions()));
+        final int totalLogs = 200;
+        final int logSize = 2048;
+        try {
+            for (int i = 0; i < totalLogs; i += 10) {
+                final List<LogEntry> entries = new ArrayList<>(10);
+                for (int j = i; j < i + 10; j++) {
+                    entries.add(TestUtils.mockEntry(j, j, logSize));
+                }
+                assertEquals(10, storage.appendEntries(entries));
+            }
+        } finally {
+            storage.shutdown();
+        }
+
+        storage = newSmallSegmentsStorage();
+        assertTrue(storage.init(newOptions()));
+        try {
+            // The segments before the checkpoint file are not loaded at startup.
+            assertTrue(storage.getStartupMetrics().getMetricRegistry().counter("segment-lazy-opened").getCount() > 0);
+            assertEquals(1, storage.getStartupMetrics().getMetricRegistry().timer("segment-startup-total").getCount());
+            assertEquals(1, storage.getStartupMetrics().getMetricRegistry().timer("segment-read-headers").getCount());
+            assertEquals(1, storage.getStartupMetrics().getMetricRegistry().timer("segment-open").getCount());
+
+            for (int i = 0; i < totalLogs; i++) {
+                final LogEntry log = storage.getEntry(i);
+                assertNotNull(log);
+                assertEquals(i, log.getId().getIndex());
+                assertEquals(i, log.getId().getTerm());
+                assertEquals(logSize, log.getData().remaining());
+            }
+            assertEquals(totalLogs - 1, storage.getLastLogIndex());
+        } finally {
+            storage.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetEntriesWithNativeHints() {
+        final RocksDBSegmentLogStorage storage = newSmallSegmentsStorage(true);
+        assertTrue(storage.init(newOptions()));
+        try {
+            final List<LogEntry> entries = new ArrayList<>(100);
+            for (int i = 0; i < 100; i++) {
+                entries.add(TestUtils.mockEntry(i, i, 1024));
+            }
+            assertEquals(100, storage.appendEntries(entries));
+            for (int i = 0; i < 100; i += 10) {
+                final List<LogEntry> got = storage.getEntries(i, 10, Long.MAX_VALUE);
+                assertEquals(10, got.size());
+                for (int j = 0; j < 10; j++) {
+                    assertEquals(i + j, got.get(j).getId().getIndex());
+                    assertEquals(1024, got.get(j).getData().remaining());
+                }
+            }
+        } finally {
+            storage.shutdown();
+        }
+    }
 }
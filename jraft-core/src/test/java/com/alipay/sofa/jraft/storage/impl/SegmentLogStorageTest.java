@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.storage.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.conf.ConfigurationManager;
+import com.alipay.sofa.jraft.entity.LogEntry;
+import com.alipay.sofa.jraft.entity.codec.v2.LogEntryV2CodecFactory;
+import com.alipay.sofa.jraft.option.LogStorageOptions;
+import com.alipay.sofa.jraft.option.RaftOptions;
+import com.alipay.sofa.jraft.storage.LogStorage;
+import com.alipay.sofa.jraft.storage.log.AbortFile;
+import com.alipay.sofa.jraft.storage.log.CheckpointFile;
+import com.alipay.sofa.jraft.storage.log.CheckpointFile.Checkpoint;
+import com.alipay.sofa.jraft.storage.log.SegmentFile;
+import com.alipay.sofa.jraft.storage.log.SegmentLogStorage;
+import com.alipay.sofa.jraft.test.TestUtils;
+
+public class SegmentLogStorageTest extends BaseLogStorageTest {
+
+    private static final int SMALL_SEGMENT_SIZE = 64 * 1024;
+
+    @Override
+    protected LogStorage newLogStorage() {
+        return SegmentLogStorage.builder(this.path, new RaftOptions()) //
+            .setMaxSegmentFileSize(16 * 1024 * 1024) //
+            .build();
+    }
+
+    private LogStorage newSmallSegmentsLogStorage() {
+        final LogStorage storage = SegmentLogStorage.builder(smallSegmentsPath(), new RaftOptions()) //
+            .setMaxSegmentFileSize(SMALL_SEGMENT_SIZE) //
+            .build();
+        final LogStorageOptions opts = new LogStorageOptions();
+        opts.setConfigurationManager(new ConfigurationManager());
+        opts.setLogEntryCodecFactory(LogEntryV2CodecFactory.getInstance());
+        assertTrue(storage.init(opts));
+        return storage;
+    }
+
+    private String smallSegmentsPath() {
+        return this.path + File.separator + "small";
+    }
+
+    private String segmentsPath() {
+        return smallSegmentsPath() + File.separator + "segments";
+    }
+
+    private File[] listFiles(final String suffix) {
+        final File[] files = new File(segmentsPath()).listFiles((dir, name) -> name.endsWith(suffix));
+        return files == null ? new File[0] : files;
+    }
+
+    private File lastSegmentFile() {
+        File last = null;
+        for (final File f : listFiles(".s")) {
+            if (last == null || f.getName().compareTo(last.getName()) > 0) {
+                last = f;
+            }
+        }
+        return last;
+    }
+
+    private void appendEntries(final LogStorage storage, final long from, final int count, final int dataSize) {
+        final List<LogEntry> entries = new ArrayList<>(count);
+        for (long i = from; i < from + count; i++) {
+            entries.add(TestUtils.mockEntry((int) i, 1, dataSize));
+        }
+        assertEquals(count, storage.appendEntries(entries));
+    }
+
+    private void assertEntries(final LogStorage storage, final long from, final long to, final int dataSize) {
+        assertEquals(from, storage.getFirstLogIndex());
+        assertEquals(to, storage.getLastLogIndex());
+        for (long i = from; i <= to; i++) {
+            final LogEntry entry = storage.getEntry(i);
+            assertNotNull("Missing entry " + i, entry);
+            assertEquals(i, entry.getId().getIndex());
+            assertEquals(dataSize, entry.getData().remaining());
+        }
+        assertNull(storage.getEntry(to + 1));
+    }
+
+    /**
+     * Simulates a crash after a normal shutdown by leaving the abort file behind.
+     */
+    private void markAbnormalExit() throws IOException {
+        assertTrue(new AbortFile(segmentsPath() + File.separator + "abort").create());
+    }
+
+    @Test
+    public void testRollSegmentsAndReload() {
+        LogStorage storage = newSmallSegmentsLogStorage();
+        appendEntries(storage, 1, 1000, 1024);
+        assertTrue(listFiles(".s").length > 10);
+        assertEquals(listFiles(".s").length, listFiles(".idx").length);
+        assertEntries(storage, 1, 1000, 1024);
+
+        storage.shutdown();
+        storage = newSmallSegmentsLogStorage();
+        assertEntries(storage, 1, 1000, 1024);
+        appendEntries(storage, 1001, 10, 1024);
+        assertEntries(storage, 1, 1010, 1024);
+        storage.shutdown();
+    }
+
+    @Test
+    public void testTruncatePrefixDeletesSegments() {
+        LogStorage storage = newSmallSegmentsLogStorage();
+        appendEntries(storage, 1, 1000, 1024);
+        final int segmentCount = listFiles(".s").length;
+
+        assertTrue(storage.truncatePrefix(500));
+        assertTrue(listFiles(".s").length < segmentCount);
+        assertNull(storage.getEntry(499));
+        assertEntries(storage, 500, 1000, 1024);
+
+        storage.shutdown();
+        storage = newSmallSegmentsLogStorage();
+        assertEntries(storage, 500, 1000, 1024);
+
+        // truncate all
+        assertTrue(storage.truncatePrefix(2000));
+        assertEquals(0, listFiles(".s").length);
+        assertEquals(2000, storage.getFirstLogIndex());
+        assertEquals(1999, storage.getLastLogIndex());
+        appendEntries(storage, 2000, 10, 1024);
+        assertEntries(storage, 2000, 2009, 1024);
+        storage.shutdown();
+    }
+
+    @Test
+    public void testTruncateSuffixAcrossSegments() {
+        LogStorage storage = newSmallSegmentsLogStorage();
+        appendEntries(storage, 1, 1000, 1024);
+        final int segmentCount = listFiles(".s").length;
+
+        assertTrue(storage.truncateSuffix(300));
+        assertTrue(listFiles(".s").length < segmentCount);
+        assertEntries(storage, 1, 300, 1024);
+        appendEntries(storage, 301, 100, 512);
+        assertEquals(301, storage.getEntry(301).getId().getIndex());
+        assertEquals(512, storage.getEntry(400).getData().remaining());
+
+        storage.shutdown();
+        storage = newSmallSegmentsLogStorage();
+        assertEquals(1, storage.getFirstLogIndex());
+        assertEquals(400, storage.getLastLogIndex());
+        assertEquals(1024, storage.getEntry(300).getData().remaining());
+        assertEquals(512, storage.getEntry(301).getData().remaining());
+        storage.shutdown();
+    }
+
+    @Test
+    public void testRecoverLostIndexFiles() throws Exception {
+        LogStorage storage = newSmallSegmentsLogStorage();
+        appendEntries(storage, 1, 1000, 1024);
+        storage.shutdown();
+
+        for (final File idx : listFiles(".idx")) {
+            assertTrue(idx.delete());
+        }
+        markAbnormalExit();
+
+        storage = newSmallSegmentsLogStorage();
+        assertEntries(storage, 1, 1000, 1024);
+        appendEntries(storage, 1001, 10, 1024);
+        assertEntries(storage, 1, 1010, 1024);
+        storage.shutdown();
+    }
+
+    @Test
+    public void testRecoverPartialIndexAndStaleCheckpoint() throws Exception {
+        LogStorage storage = newSmallSegmentsLogStorage();
+        appendEntries(storage, 1, 1000, 1024);
+        storage.shutdown();
+
+        // The index of last segment was not flushed completely.
+        final File lastSegment = lastSegmentFile();
+        final File lastIndex = new File(lastSegment.getAbsolutePath().replace(".s", ".idx"));
+        try (RandomAccessFile raf = new RandomAccessFile(lastIndex, "rw")) {
+            raf.setLength(raf.length() / 2 + 5);
+        }
+        // The checkpoint is behind the written data.
+        new CheckpointFile(segmentsPath() + File.separator + "checkpoint").save(new Checkpoint(lastSegment.getName(),
+            SegmentFile.HEADER_SIZE));
+        markAbnormalExit();
+
+        storage = newSmallSegmentsLogStorage();
+        assertEntries(storage, 1, 1000, 1024);
+        storage.shutdown();
+    }
+
+    @Test
+    public void testRecoverTornWrite() throws Exception {
+        LogStorage storage = newSmallSegmentsLogStorage();
+        appendEntries(storage, 1, 100, 1024);
+        storage.shutdown();
+
+        final CheckpointFile checkpointFile = new CheckpointFile(segmentsPath() + File.separator + "checkpoint");
+        final Checkpoint checkpoint = checkpointFile.load();
+        assertNotNull(checkpoint);
+        // Write a half record after the committed position.
+        try (RandomAccessFile raf = new RandomAccessFile(new File(segmentsPath(), checkpoint.segFilename), "rw")) {
+            raf.seek(checkpoint.committedPos);
+            raf.write(SegmentFile.RECORD_MAGIC_BYTES);
+            raf.writeInt(1024);
+            raf.write(new byte[100]);
+        }
+        markAbnormalExit();
+
+        storage = newSmallSegmentsLogStorage();
+        assertEntries(storage, 1, 100, 1024);
+        appendEntries(storage, 101, 10, 1024);
+        assertEntries(storage, 1, 110, 1024);
+
+        storage.shutdown();
+        markAbnormalExit();
+        storage = newSmallSegmentsLogStorage();
+        assertEntries(storage, 1, 110, 1024);
+        storage.shutdown();
+    }
+
+    @Test
+    public void testRecoverAfterReset() throws Exception {
+        LogStorage storage = newSmallSegmentsLogStorage();
+        appendEntries(storage, 1, 500, 1024);
+        assertTrue(storage.reset(300));
+        assertEquals(300, storage.getFirstLogIndex());
+        assertEquals(300, storage.getLastLogIndex());
+        appendEntries(storage, 301, 10, 1024);
+        storage.shutdown();
+        markAbnormalExit();
+
+        storage = newSmallSegmentsLogStorage();
+        assertEquals(300, storage.getFirstLogIndex());
+        assertEquals(310, storage.getLastLogIndex());
+        assertNull(storage.getEntry(299));
+        assertNotNull(storage.getEntry(310));
+        storage.shutdown();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.storage.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TermIndexTest {
+
+    private TermIndex termIndex;
+
+    @Before
+    public void setup() {
+        this.termIndex = new TermIndex();
+    }
+
+    // term of log i in [1, 100] is i / 10 + 1
+    private static long termOf(final long index) {
+        return index / 10 + 1;
+    }
+
+    private void appendLogs(final long from, final long to) {
+        for (long i = from; i <= to; i++) {
+            this.termIndex.append(i, termOf(i));
+        }
+    }
+
+    @Test
+    public void testAppendAndGetTerm() {
+        assertEquals(0, this.termIndex.getTerm(1));
+        appendLogs(1, 100);
+        assertEquals(11, this.termIndex.size());
+        assertEquals(0, this.termIndex.getTerm(0));
+        for (long i = 1; i <= 100; i++) {
+            assertEquals(termOf(i), this.termIndex.getTerm(i));
+        }
+    }
+
+    @Test
+    public void testAppendOverwrite() {
+        appendLogs(1, 100);
+        // a new leader overwrites the logs from 35
+        this.termIndex.append(35, 20);
+        this.termIndex.append(36, 20);
+        assertEquals(5, this.termIndex.size());
+        assertEquals(4, this.termIndex.getTerm(34));
+        assertEquals(20, this.termIndex.getTerm(35));
+        assertEquals(20, this.termIndex.getTerm(36));
+        // overwrite at a transition
+        this.termIndex.append(30, 21);
+        assertEquals(4, this.termIndex.size());
+        assertEquals(3, this.termIndex.getTerm(29));
+        assertEquals(21, this.termIndex.getTerm(30));
+    }
+
+    @Test
+    public void testTruncatePrefix() {
+        appendLogs(1, 100);
+        this.termIndex.truncatePrefix(45);
+        assertEquals(7, this.termIndex.size());
+        assertEquals(0, this.termIndex.getTerm(44));
+        for (long i = 45; i <= 100; i++) {
+            assertEquals(termOf(i), this.termIndex.getTerm(i));
+        }
+        this.termIndex.truncatePrefix(50);
+        assertEquals(6, this.termIndex.size());
+        assertEquals(0, this.termIndex.getTerm(49));
+        assertEquals(6, this.termIndex.getTerm(50));
+    }
+
+    @Test
+    public void testTruncateSuffix() {
+        appendLogs(1, 100);
+        this.termIndex.truncateSuffix(45);
+        assertEquals(5, this.termIndex.size());
+        assertEquals(5, this.termIndex.getTerm(45));
+        this.termIndex.truncateSuffix(40);
+        assertEquals(5, this.termIndex.size());
+        this.termIndex.truncateSuffix(39);
+        assertEquals(4, this.termIndex.size());
+        appendLogs(40, 60);
+        for (long i = 1; i <= 60; i++) {
+            assertEquals(termOf(i), this.termIndex.getTerm(i));
+        }
+        this.termIndex.clear();
+        assertEquals(0, this.termIndex.size());
+        assertEquals(0, this.termIndex.getTerm(50));
+    }
+
+    @Test
+    public void testRebuild() {
+        final AtomicInteger lookups = new AtomicInteger();
+        assertTrue(this.termIndex.rebuild(5, 100000, index -> {
+            lookups.incrementAndGet();
+            return index < 50000 ? index / 1000 + 1 : 100 + index / 20000;
+        }));
+        assertEquals(54, this.termIndex.size());
+        assertEquals(1, this.termIndex.getTerm(5));
+        assertEquals(50, this.termIndex.getTerm(49999));
+        assertEquals(102, this.termIndex.getTerm(50000));
+        assertEquals(102, this.termIndex.getTerm(59999));
+        assertEquals(103, this.termIndex.getTerm(60000));
+        assertEquals(105, this.termIndex.getTerm(100000));
+        // far less than a full scan
+        assertTrue(lookups.get() < 2000);
+
+        assertTrue(this.termIndex.rebuild(1, 0, index -> 1));
+        assertEquals(0, this.termIndex.size());
+    }
+
+    @Test
+    public void testRebuildWithMissingLogs() {
+        appendLogs(1, 100);
+        assertFalse(this.termIndex.rebuild(1, 100, index -> index < 5 ? 0 : termOf(index)));
+        assertEquals(0, this.termIndex.size());
+        assertFalse(this.termIndex.rebuild(1, 100, index -> index == 100 ? 0 : termOf(index)));
+        assertEquals(0, this.termIndex.size());
+    }
+}
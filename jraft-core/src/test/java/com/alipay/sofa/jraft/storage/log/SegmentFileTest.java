@@ -81,6 +81,29 @@ public class SegmentFileTest extends BaseStorageTest {
         assertTrue(init());
     }
 
+    @Test
+    public void testPreallocateAndHintSequential() throws Exception {
+        final SegmentFileOptions opts = SegmentFileOptions.builder() //
+            .setLastFile(true) //
+            .setNewFile(true) //
+            .setPreallocate(true) //
+            .setPos(0).build();
+        assertTrue(this.segmentFile.init(opts));
+        assertEquals(FILE_SIZE, new File(this.segmentFile.getPath()).length());
+
+        final WriteContext events = new RocksDBSegmentLogStorage.BarrierWriteContext();
+        events.startJob();
+        final byte[] data = genData(32);
+        final int pos = this.segmentFile.write(0, data, events);
+        events.joinAll();
+        this.segmentFile.sync(true);
+
+        this.segmentFile.hintSequential();
+        // hint twice
+        this.segmentFile.hintSequential();
+        assertArrayEquals(data, this.segmentFile.read(0, pos));
+    }
+
     private boolean init() {
         SegmentFileOptions opts = SegmentFileOptions.builder() //
             .setRecover(false) //
@@ -29,6 +29,10 @@ import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
+
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+
 import com.alipay.sofa.jraft.JRaftUtils;
 import com.alipay.sofa.jraft.conf.ConfigurationEntry;
 import com.alipay.sofa.jraft.entity.EnumOutter;
@@ -36,6 +40,7 @@ import com.alipay.sofa.jraft.entity.LogEntry;
 import com.alipay.sofa.jraft.entity.LogId;
 import com.alipay.sofa.jraft.entity.PeerId;
 import com.alipay.sofa.jraft.rpc.RpcRequests;
+import com.alipay.sofa.jraft.storage.LogManager;
 import com.alipay.sofa.jraft.util.Endpoint;
 
 /**
@@ -158,4 +163,28 @@ public class TestUtils {
         ThreadLocalRandom.current().nextBytes(requestContext);
         return requestContext;
     }
+
+    /**
+     * Make the range read of a mocked log manager delegate to its mocked getEntry.
+     */
+    public static void mockGetEntries(final LogManager logManager) {
+        Mockito.when(logManager.getEntries(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyLong())).thenAnswer(
+            getEntriesAnswer(logManager));
+    }
+
+    public static Answer<List<LogEntry>> getEntriesAnswer(final LogManager logManager) {
+        return invocation -> {
+            final long fromIndex = (Long) invocation.getArguments()[0];
+            final int maxCount = (Integer) invocation.getArguments()[1];
+            final List<LogEntry> entries = new ArrayList<>();
+            for (long i = fromIndex; entries.size() < maxCount; i++) {
+                final LogEntry entry = logManager.getEntry(i);
+                if (entry == null) {
+                    break;
+                }
+                entries.add(entry);
+            }
+            return entries;
+        };
+    }
 }
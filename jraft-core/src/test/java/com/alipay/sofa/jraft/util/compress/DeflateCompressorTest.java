@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.util.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.ServiceConfigurationError;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DeflateCompressorTest {
+
+    private final Compressor compressor = new DeflateCompressor();
+
+    @Test
+    public void testCompressDecompress() throws IOException {
+        final byte[] data = new byte[64 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 16);
+        }
+        final byte[] compressed = this.compressor.compress(ByteBuffer.wrap(data));
+        assertTrue(compressed.length < data.length / 10);
+        assertArrayEquals(data, this.compressor.decompress(ByteBuffer.wrap(compressed), data.length));
+    }
+
+    @Test
+    public void testCompressSliceOfBuffer() throws IOException {
+        final byte[] data = new byte[4096];
+        ThreadLocalRandom.current().nextBytes(data);
+        final ByteBuffer buf = ByteBuffer.allocateDirect(data.length);
+        buf.put(data).flip();
+        buf.position(100);
+        final byte[] compressed = this.compressor.compress(buf);
+        // The position is not changed.
+        assertEquals(100, buf.position());
+        assertArrayEquals(Arrays.copyOfRange(data, 100, data.length),
+            this.compressor.decompress(ByteBuffer.wrap(compressed), data.length - 100));
+    }
+
+    @Test
+    public void testDecompressCorruptedData() {
+        final byte[] data = new byte[4096];
+        final byte[] compressed = this.compressor.compress(ByteBuffer.wrap(data));
+        try {
+            this.compressor.decompress(ByteBuffer.wrap(compressed), data.length + 1);
+            fail();
+        } catch (final IOException e) {
+            assertTrue(e.getMessage().contains("size mismatch"));
+        }
+        try {
+            this.compressor.decompress(ByteBuffer.wrap(new byte[] { -1, -1, -1, -1 }), data.length);
+            fail();
+        } catch (final IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCompressors() {
+        assertSame(DeflateCompressor.class, Compressors.get(DeflateCompressor.TYPE).getClass());
+        assertSame(Compressors.get(DeflateCompressor.TYPE), Compressors.find("deflate"));
+        assertNull(Compressors.get(0));
+        assertNull(Compressors.get(Compressors.MAX_TYPE + 1));
+        assertTrue(Compressors.isSupported(Compressors.supportedTypes(), DeflateCompressor.TYPE));
+        assertFalse(Compressors.isSupported(0, DeflateCompressor.TYPE));
+        try {
+            Compressors.find("notfound");
+            fail();
+        } catch (final ServiceConfigurationError e) {
+            // expected
+        }
+    }
+}
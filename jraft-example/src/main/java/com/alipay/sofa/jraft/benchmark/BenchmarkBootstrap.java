@@ -19,6 +19,7 @@ package com.alipay.sofa.jraft.benchmark;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.alipay.sofa.jraft.benchmark.apply.ApplyBenchmark;
 import com.alipay.sofa.jraft.benchmark.client.BenchmarkClient;
 import com.alipay.sofa.jraft.benchmark.server.BenchmarkServer;
 
@@ -40,6 +41,8 @@ public class BenchmarkBootstrap {
             BenchmarkClient.main(args);
         } else if ("server".equals(who)) {
             BenchmarkServer.main(args);
+        } else if ("apply".equals(who)) {
+            ApplyBenchmark.main(args);
         } else {
             LOG.error("Invalid args[0]: {}", who);
             System.exit(-1);
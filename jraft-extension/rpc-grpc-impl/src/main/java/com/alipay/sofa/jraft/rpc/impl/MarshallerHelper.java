@@ -35,6 +35,8 @@ public class MarshallerHelper {
     static {
         messages.put(RpcRequests.AppendEntriesRequest.class.getName(),
             RpcRequests.AppendEntriesResponse.getDefaultInstance());
+        messages.put(RpcRequests.BatchAppendEntriesRequest.class.getName(),
+            RpcRequests.BatchAppendEntriesResponse.getDefaultInstance());
         messages.put(RpcRequests.GetFileRequest.class.getName(), RpcRequests.GetFileResponse.getDefaultInstance());
         messages.put(RpcRequests.InstallSnapshotRequest.class.getName(),
             RpcRequests.InstallSnapshotResponse.getDefaultInstance());
@@ -27,6 +27,7 @@ import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.alipay.sofa.jraft.JRaftServiceFactory;
 import com.alipay.sofa.jraft.Lifecycle;
 import com.alipay.sofa.jraft.Node;
 import com.alipay.sofa.jraft.RaftGroupService;
@@ -68,6 +69,8 @@ public class RegionEngine implements Lifecycle<RegionEngineOptions> {
     private Node                node;
     private KVStoreStateMachine fsm;
     private RegionEngineOptions regionOpts;
+    // the group name of region in the shared log engine, null if it has its own log storage
+    private String              sharedLogUri;
 
     private ScheduledReporter   regionMetricsReporter;
 
@@ -123,6 +126,17 @@ public class RegionEngine implements Lifecycle<RegionEngineOptions> {
             final Path snapshotUri = Paths.get(raftDataPath, "snapshot");
             nodeOpts.setSnapshotUri(snapshotUri.toString());
         }
+        final JRaftServiceFactory sharedLogServiceFactory = this.storeEngine.getSharedLogServiceFactory();
+        if (sharedLogServiceFactory != null) {
+            if (nodeOpts.getServiceFactory() == NodeOptions.defaultServiceFactory) {
+                // the log uri is used as the group name in the shared log engine
+                nodeOpts.setServiceFactory(sharedLogServiceFactory);
+                this.sharedLogUri = nodeOpts.getLogUri();
+            } else {
+                LOG.warn("[RegionEngine: {}] keeps the service factory {} instead of the shared log engine.",
+                    this.region, nodeOpts.getServiceFactory());
+            }
+        }
         LOG.info("[RegionEngine: {}], log uri: {}, raft meta uri: {}, snapshot uri: {}.", this.region,
             nodeOpts.getLogUri(), nodeOpts.getRaftMetaUri(), nodeOpts.getSnapshotUri());
         final Endpoint serverAddress = opts.getServerAddress();
@@ -223,6 +237,13 @@ public class RegionEngine implements Lifecycle<RegionEngineOptions> {
         return fsm;
     }
 
+    /**
+     * Returns the log uri of region in the shared log engine, null if the region doesn't use it.
+     */
+    public String getSharedLogUri() {
+        return this.sharedLogUri;
+    }
+
     public RegionEngineOptions copyRegionOpts() {
         return Requires.requireNonNull(this.regionOpts, "opts").copy();
     }
@@ -30,8 +30,10 @@ import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.alipay.sofa.jraft.JRaftServiceFactory;
 import com.alipay.sofa.jraft.Lifecycle;
 import com.alipay.sofa.jraft.Status;
+import com.alipay.sofa.jraft.core.MultiGroupJRaftServiceFactory;
 import com.alipay.sofa.jraft.entity.Task;
 import com.alipay.sofa.jraft.option.NodeOptions;
 import com.alipay.sofa.jraft.rhea.client.pd.HeartbeatSender;
@@ -104,6 +106,7 @@ public class StoreEngine implements Lifecycle<StoreEngineOptions> {
     private BatchRawKVStore<?>                         rawKVStore;
     private HeartbeatSender                            heartbeatSender;
     private StoreEngineOptions                         storeOpts;
+    private MultiGroupJRaftServiceFactory              sharedLogServiceFactory;
 
     // Shared executor services
     private ExecutorService                            readIndexExecutor;
@@ -293,6 +296,10 @@ public class StoreEngine implements Lifecycle<StoreEngineOptions> {
         return startTime;
     }
 
+    public JRaftServiceFactory getSharedLogServiceFactory() {
+        return sharedLogServiceFactory;
+    }
+
     public RpcServer getRpcServer() {
         return rpcServer;
     }
@@ -419,6 +426,38 @@ public class StoreEngine implements Lifecycle<StoreEngineOptions> {
         return false;
     }
 
+    /**
+     * Stops the region engine and deletes its raft data, including its log in the shared log
+     * engine, the region must have been removed from this store.
+     *
+     * @param regionId the id of region
+     * @return true on success
+     */
+    public boolean destroyRegionEngine(final long regionId) {
+        final RegionEngine engine = this.regionEngineTable.remove(regionId);
+        if (engine == null) {
+            return false;
+        }
+        this.regionKVServiceTable.remove(regionId);
+        engine.shutdown();
+        final String sharedLogUri = engine.getSharedLogUri();
+        if (sharedLogUri != null && !this.sharedLogServiceFactory.destroyLogStorage(sharedLogUri)) {
+            LOG.error("Fail to destroy the shared log of [RegionEngine: {}].", engine);
+            return false;
+        }
+        final String raftDataPath = engine.copyRegionOpts().getRaftDataPath();
+        if (Strings.isNotBlank(raftDataPath)) {
+            try {
+                FileUtils.deleteDirectory(new File(raftDataPath));
+            } catch (final Throwable t) {
+                LOG.error("Fail to delete raft data of [RegionEngine: {}], path: {}.", engine, raftDataPath, t);
+                return false;
+            }
+        }
+        LOG.info("[RegionEngine: {}] is destroyed.", engine);
+        return true;
+    }
+
     public StateListenerContainer<Long> getStateListenerContainer() {
         return stateListenerContainer;
     }
@@ -658,6 +697,20 @@ public class StoreEngine implements Lifecycle<StoreEngineOptions> {
             baseRaftDataPath = "";
         }
         final Endpoint serverAddress = opts.getServerAddress();
+        if (opts.isUseSharedLogEngine() && this.sharedLogServiceFactory == null) {
+            final String sharedLogPath = Paths.get(baseRaftDataPath, "shared_log_" + serverAddress.getPort())
+                .toString();
+            try {
+                FileUtils.forceMkdir(new File(sharedLogPath));
+            } catch (final Throwable t) {
+                LOG.error("Fail to make dir for sharedLogPath: {}.", sharedLogPath);
+                return false;
+            }
+            final NodeOptions commonNodeOpts = opts.getCommonNodeOptions();
+            final boolean sync = commonNodeOpts == null || commonNodeOpts.getRaftOptions().isSync();
+            this.sharedLogServiceFactory = new MultiGroupJRaftServiceFactory(sharedLogPath, sync);
+            LOG.info("All regions will share the log engine in {}.", sharedLogPath);
+        }
         final List<RegionEngineOptions> rOptsList = opts.getRegionEngineOptionsList();
         final List<Region> regionList = store.getRegions();
         Requires.requireTrue(rOptsList.size() == regionList.size());
@@ -42,6 +42,8 @@ public class StoreEngineOptions {
     private String                    initialServerList;
     private HeartbeatOptions          heartbeatOptions;
     private boolean                   useSharedRpcExecutor;
+    // all regions share one log engine in raftDataPath, instead of one log storage per region
+    private boolean                   useSharedLogEngine;
     // thread poll number of threads
     private int                       readIndexCoreThreads          = Math.max(Utils.cpus() << 2, 16);
     private int                       leaderStateTriggerCoreThreads = 4;
@@ -135,6 +137,14 @@ public class StoreEngineOptions {
         this.useSharedRpcExecutor = useSharedRpcExecutor;
     }
 
+    public boolean isUseSharedLogEngine() {
+        return useSharedLogEngine;
+    }
+
+    public void setUseSharedLogEngine(boolean useSharedLogEngine) {
+        this.useSharedLogEngine = useSharedLogEngine;
+    }
+
     public int getReadIndexCoreThreads() {
         return readIndexCoreThreads;
     }
@@ -213,11 +223,12 @@ public class StoreEngineOptions {
                + ", memoryDBOptions=" + memoryDBOptions + ", raftDataPath='" + raftDataPath + '\'' + ", serverAddress="
                + serverAddress + ", commonNodeOptions=" + commonNodeOptions + ", regionEngineOptionsList="
                + regionEngineOptionsList + ", initialServerList='" + initialServerList + '\'' + ", heartbeatOptions="
-               + heartbeatOptions + ", useSharedRpcExecutor=" + useSharedRpcExecutor + ", readIndexCoreThreads="
-               + readIndexCoreThreads + ", leaderStateTriggerCoreThreads=" + leaderStateTriggerCoreThreads
-               + ", snapshotCoreThreads=" + snapshotCoreThreads + ", snapshotMaxThreads=" + snapshotMaxThreads
-               + ", cliRpcCoreThreads=" + cliRpcCoreThreads + ", raftRpcCoreThreads=" + raftRpcCoreThreads
-               + ", kvRpcCoreThreads=" + kvRpcCoreThreads + ", metricsReportPeriod=" + metricsReportPeriod
-               + ", leastKeysOnSplit=" + leastKeysOnSplit + '}';
+               + heartbeatOptions + ", useSharedRpcExecutor=" + useSharedRpcExecutor + ", useSharedLogEngine="
+               + useSharedLogEngine + ", readIndexCoreThreads=" + readIndexCoreThreads
+               + ", leaderStateTriggerCoreThreads=" + leaderStateTriggerCoreThreads + ", snapshotCoreThreads="
+               + snapshotCoreThreads + ", snapshotMaxThreads=" + snapshotMaxThreads + ", cliRpcCoreThreads="
+               + cliRpcCoreThreads + ", raftRpcCoreThreads=" + raftRpcCoreThreads + ", kvRpcCoreThreads="
+               + kvRpcCoreThreads + ", metricsReportPeriod=" + metricsReportPeriod + ", leastKeysOnSplit="
+               + leastKeysOnSplit + '}';
     }
 }
@@ -85,6 +85,11 @@ public final class StoreEngineOptionsConfigured implements Configured<StoreEngin
         return this;
     }
 
+    public StoreEngineOptionsConfigured withUseSharedLogEngine(final boolean useSharedLogEngine) {
+        this.opts.setUseSharedLogEngine(useSharedLogEngine);
+        return this;
+    }
+
     public StoreEngineOptionsConfigured withReadIndexCoreThreads(final int readIndexCoreThreads) {
         this.opts.setReadIndexCoreThreads(readIndexCoreThreads);
         return this;
@@ -23,8 +23,9 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.alipay.sofa.jraft.ApplyBatch;
+import com.alipay.sofa.jraft.BatchStateMachine;
 import com.alipay.sofa.jraft.Closure;
-import com.alipay.sofa.jraft.Iterator;
 import com.alipay.sofa.jraft.Status;
 import com.alipay.sofa.jraft.core.StateMachineAdapter;
 import com.alipay.sofa.jraft.entity.LeaderChangeContext;
@@ -51,11 +52,11 @@ import static com.alipay.sofa.jraft.rhea.metrics.KVMetricNames.STATE_MACHINE_APP
 import static com.alipay.sofa.jraft.rhea.metrics.KVMetricNames.STATE_MACHINE_BATCH_WRITE;
 
 /**
- * Rhea KV store state machine
+ * Rhea KV store state machine, applies the committed operations in batches by their types.
  *
  * @author jiachun.fjc
  */
-public class KVStoreStateMachine extends StateMachineAdapter {
+public class KVStoreStateMachine extends StateMachineAdapter implements BatchStateMachine {
 
     private static final Logger       LOG        = LoggerFactory.getLogger(KVStoreStateMachine.class);
 
@@ -79,18 +80,18 @@ public class KVStoreStateMachine extends StateMachineAdapter {
     }
 
     @Override
-    public void onApply(final Iterator it) {
-        int index = 0;
+    public void onApplyBatch(final ApplyBatch batch) {
+        final int size = batch.size();
         int applied = 0;
         try {
             KVStateOutputList kvStates = KVStateOutputList.newInstance();
-            while (it.hasNext()) {
+            for (int pos = 0; pos < size; pos++) {
                 KVOperation kvOp;
-                final KVClosureAdapter done = (KVClosureAdapter) it.done();
+                final KVClosureAdapter done = (KVClosureAdapter) batch.done(pos);
                 if (done != null) {
                     kvOp = done.getOperation();
                 } else {
-                    final ByteBuffer buf = it.getData();
+                    final ByteBuffer buf = batch.getData(pos);
                     try {
                         if (buf.hasArray()) {
                             kvOp = this.serializer.readObject(buf.array(), KVOperation.class);
@@ -98,7 +99,6 @@ public class KVStoreStateMachine extends StateMachineAdapter {
                             kvOp = this.serializer.readObject(buf, KVOperation.class);
                         }
                     } catch (final Throwable t) {
-                        ++index;
                         throw new StoreCodecException("Decode operation error", t);
                     }
                 }
@@ -108,8 +108,6 @@ public class KVStoreStateMachine extends StateMachineAdapter {
                     kvStates = KVStateOutputList.newInstance();
                 }
                 kvStates.add(KVState.of(kvOp, done));
-                ++index;
-                it.next();
             }
             if (!kvStates.isEmpty()) {
                 final KVState first = kvStates.getFirstElement();
@@ -118,8 +116,8 @@ public class KVStoreStateMachine extends StateMachineAdapter {
             }
         } catch (final Throwable t) {
             LOG.error("StateMachine meet critical error: {}.", StackTraceUtil.stackTrace(t));
-            it.setErrorAndRollback(index - applied, new Status(RaftError.ESTATEMACHINE,
-                "StateMachine meet critical error: %s.", t.getMessage()));
+            batch.setError(applied,
+                new Status(RaftError.ESTATEMACHINE, "StateMachine meet critical error: %s.", t.getMessage()));
         } finally {
             // metrics: qps
             this.applyMeter.mark(applied);
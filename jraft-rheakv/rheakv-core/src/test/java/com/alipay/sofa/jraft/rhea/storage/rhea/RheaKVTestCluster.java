@@ -58,12 +58,18 @@ public class RheaKVTestCluster {
     }
 
     protected void start(final StorageType storageType, final boolean deleteFiles) throws Exception {
+        start(storageType, deleteFiles, false);
+    }
+
+    protected void start(final StorageType storageType, final boolean deleteFiles, final boolean useSharedLogEngine)
+                                                                                                                    throws Exception {
         if (deleteFiles) {
             deleteFiles();
         }
         for (final String c : CONF) {
             final RheaKVStoreOptions opts = readOpts(c);
             opts.getStoreEngineOptions().setStorageType(storageType);
+            opts.getStoreEngineOptions().setUseSharedLogEngine(useSharedLogEngine);
             final RheaKVStore rheaKVStore = new DefaultRheaKVStore();
             if (rheaKVStore.init(opts)) {
                 stores.add(rheaKVStore);
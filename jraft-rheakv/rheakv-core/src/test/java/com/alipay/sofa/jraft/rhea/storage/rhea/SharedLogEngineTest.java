@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rhea.storage.rhea;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.core.MultiGroupJRaftServiceFactory;
+import com.alipay.sofa.jraft.rhea.RegionEngine;
+import com.alipay.sofa.jraft.rhea.StoreEngine;
+import com.alipay.sofa.jraft.rhea.client.DefaultRheaKVStore;
+import com.alipay.sofa.jraft.rhea.client.RheaKVStore;
+import com.alipay.sofa.jraft.rhea.storage.StorageType;
+import com.alipay.sofa.jraft.storage.impl.MultiGroupLogEngine;
+
+import static com.alipay.sofa.jraft.rhea.KeyValueTool.makeKey;
+import static com.alipay.sofa.jraft.rhea.KeyValueTool.makeValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The regions of a store share one log engine.
+ *
+ * @author agent
+ */
+public class SharedLogEngineTest extends RheaKVTestCluster {
+
+    @Before
+    public void setup() throws Exception {
+        super.start(StorageType.Memory, true, true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        super.shutdown();
+    }
+
+    @Test
+    public void destroyRegionTest() {
+        // regions: 1 -> [null, g), 2 -> [g, null)
+        getLeaderStore(1).bPut(makeKey("a_destroy_test"), makeValue("a_destroy_test_value"));
+        getLeaderStore(2).bPut(makeKey("h_destroy_test"), makeValue("h_destroy_test_value"));
+
+        // the leader of region 2 is a voter of region 1 too
+        final RheaKVStore store = getLeaderStore(2);
+        final StoreEngine storeEngine = ((DefaultRheaKVStore) store).getStoreEngine();
+        final MultiGroupLogEngine logEngine = ((MultiGroupJRaftServiceFactory) storeEngine.getSharedLogServiceFactory())
+            .getEngine();
+        final RegionEngine region1 = storeEngine.getRegionEngine(1);
+        final RegionEngine region2 = storeEngine.getRegionEngine(2);
+        final String logUri1 = region1.getSharedLogUri();
+        final Long groupId1 = logEngine.getGroupId(logUri1);
+        final Long groupId2 = logEngine.getGroupId(region2.getSharedLogUri());
+        assertNotNull(groupId1);
+        assertNotNull(groupId2);
+        assertTrue(logEngine.hasGroupData(groupId1));
+        assertTrue(logEngine.hasGroupData(groupId2));
+
+        assertTrue(storeEngine.destroyRegionEngine(1));
+        assertNull(storeEngine.getRegionEngine(1));
+        assertFalse(logEngine.hasGroupData(groupId1));
+        assertNull(logEngine.getGroupId(logUri1));
+        assertFalse(new File(region1.copyRegionOpts().getRaftDataPath()).exists());
+        // the other regions are kept
+        assertTrue(logEngine.hasGroupData(groupId2));
+        assertFalse(storeEngine.destroyRegionEngine(1));
+    }
+}